@@ -0,0 +1,215 @@
+/**
+ * Orignal work: Copyright 2015 www.seleniumtests.com
+ * Modified work: Copyright 2016 www.infotel.com
+ * 				Copyright 2017-2019 B.Hecquet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.seleniumtests.browserfactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+
+import com.seleniumtests.connectors.selenium.SeleniumGridConnector;
+import com.seleniumtests.util.logging.SeleniumRobotLogger;
+
+/**
+ * Chooses the hub on which a new session will be created, when several hubs are configured
+ * All hubs are probed at the same time so that a slow hub does not delay the others. Latency and failures (probe or session creation) of each hub are
+ * remembered during the whole execution, so that the healthiest hubs are tried first
+ */
+public class GridHubSelector {
+
+	private static final Logger logger = SeleniumRobotLogger.getLogger(GridHubSelector.class);
+
+	public static final int PROBE_TIMEOUT = 10; // seconds
+	private static final double SMOOTHING = 0.3; // weight of the last measure in latency and failure rate
+	private static final int MAX_BACKOFF_FACTOR = 2;
+
+	private static final Map<String, HubHealth> hubHealths = new ConcurrentHashMap<>();
+	private static ExecutorService executor;
+
+	/**
+	 * Recent latency and failure rate of a hub
+	 */
+	public static class HubHealth {
+		private double latency = 0;
+		private double failureRate = 0;
+		private boolean measured = false;
+
+		public synchronized void recordSuccess(long duration) {
+			latency = measured ? latency * (1 - SMOOTHING) + duration * SMOOTHING: duration;
+			failureRate = failureRate * (1 - SMOOTHING);
+			measured = true;
+		}
+
+		public synchronized void recordFailure() {
+			failureRate = failureRate * (1 - SMOOTHING) + SMOOTHING;
+		}
+
+		public synchronized double getLatency() {
+			return latency;
+		}
+
+		public synchronized double getFailureRate() {
+			return failureRate;
+		}
+
+		/**
+		 * @return a score, the lower the better. Latency is penalized by recent failures
+		 */
+		public synchronized double getScore() {
+			return (latency + 1) * (1 + 10 * failureRate);
+		}
+	}
+
+	/**
+	 * Result of the probe of a hub
+	 */
+	private static class ProbeResult {
+		private final SeleniumGridConnector gridConnector;
+		private final boolean active;
+		private final int availableTestSlots;
+
+		public ProbeResult(SeleniumGridConnector gridConnector, boolean active, int availableTestSlots) {
+			this.gridConnector = gridConnector;
+			this.active = active;
+			this.availableTestSlots = availableTestSlots;
+		}
+	}
+
+	private GridHubSelector() {
+		// only static methods
+	}
+
+	/**
+	 * Probe all hubs concurrently and return the active ones, best first
+	 * Hubs with free test slots (or for which we do not know) come before full hubs, then hubs are sorted by health score
+	 * @param gridConnectors	hubs to probe. Order is kept for hubs with the same score
+	 * @return
+	 */
+	public static List<SeleniumGridConnector> selectHubs(List<SeleniumGridConnector> gridConnectors) {
+		List<Callable<ProbeResult>> probes = new ArrayList<>();
+		for (SeleniumGridConnector gridConnector: gridConnectors) {
+			probes.add(() -> probe(gridConnector));
+		}
+
+		List<ProbeResult> activeHubs = new ArrayList<>();
+		try {
+			List<Future<ProbeResult>> results = getExecutor().invokeAll(probes, PROBE_TIMEOUT, TimeUnit.SECONDS);
+			for (int i = 0; i < results.size(); i++) {
+				try {
+					ProbeResult result = results.get(i).get();
+					if (result.active) {
+						activeHubs.add(result);
+					} else {
+						logger.warn(String.format("grid %s is not active, looking for the next one", result.gridConnector.getHubUrl()));
+					}
+				} catch (CancellationException e) {
+					logger.warn(String.format("grid %s did not reply in %d secs", gridConnectors.get(i).getHubUrl(), PROBE_TIMEOUT));
+					getHealth(gridConnectors.get(i)).recordFailure();
+				} catch (ExecutionException e) {
+					logger.warn(String.format("grid %s could not be probed: %s", gridConnectors.get(i).getHubUrl(), e.getCause().getMessage()));
+					getHealth(gridConnectors.get(i)).recordFailure();
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		activeHubs.sort(Comparator.<ProbeResult, Boolean>comparing(r -> r.availableTestSlots == 0)
+								.thenComparingDouble(r -> getHealth(r.gridConnector).getScore()));
+
+		List<SeleniumGridConnector> selectedHubs = new ArrayList<>();
+		for (ProbeResult result: activeHubs) {
+			selectedHubs.add(result.gridConnector);
+		}
+		return selectedHubs;
+	}
+
+	private static ProbeResult probe(SeleniumGridConnector gridConnector) {
+		long start = System.currentTimeMillis();
+		boolean active = gridConnector.isGridActive();
+		if (active) {
+			getHealth(gridConnector).recordSuccess(System.currentTimeMillis() - start);
+			return new ProbeResult(gridConnector, true, gridConnector.getAvailableTestSlots());
+		} else {
+			getHealth(gridConnector).recordFailure();
+			return new ProbeResult(gridConnector, false, 0);
+		}
+	}
+
+	/**
+	 * Session has been created on this hub
+	 * @param gridConnector
+	 * @param duration		creation duration in ms
+	 */
+	public static void recordSessionCreated(SeleniumGridConnector gridConnector, long duration) {
+		getHealth(gridConnector).recordSuccess(duration);
+	}
+
+	/**
+	 * Session could not be created on this hub
+	 * @param gridConnector
+	 */
+	public static void recordSessionFailure(SeleniumGridConnector gridConnector) {
+		getHealth(gridConnector).recordFailure();
+	}
+
+	public static HubHealth getHealth(SeleniumGridConnector gridConnector) {
+		return hubHealths.computeIfAbsent(gridConnector.getHubUrl().toString(), k -> new HubHealth());
+	}
+
+	/**
+	 * Delay before next try, so that all tests waiting for a hub do not retry at the same time
+	 * Delay doubles on each attempt (up to 2 times the base delay, so that a freed node is not left unused for long) and a random part of up to half of it is removed
+	 * @param attempt		number of previous attempts (0 for the first wait)
+	 * @param baseDelay		delay for the first wait (ms)
+	 * @return	delay in ms
+	 */
+	public static long getBackoffDelay(int attempt, long baseDelay) {
+		long delay = baseDelay * Math.min(MAX_BACKOFF_FACTOR, 1L << Math.min(attempt, 30));
+		return delay - ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+	}
+
+	/**
+	 * Forget everything about hubs
+	 */
+	public static void reset() {
+		hubHealths.clear();
+	}
+
+	private static synchronized ExecutorService getExecutor() {
+		if (executor == null) {
+			executor = Executors.newCachedThreadPool(r -> {
+				Thread thread = new Thread(r, "grid-hub-probe");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		return executor;
+	}
+}
@@ -0,0 +1,489 @@
+/**
+ * Orignal work: Copyright 2015 www.seleniumtests.com
+ * Modified work: Copyright 2016 www.infotel.com
+ * 				Copyright 2017-2019 B.Hecquet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.seleniumtests.browserfactory;
+
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.apache.log4j.Logger;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.MutableCapabilities;
+import org.openqa.selenium.Proxy;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.CapabilityType;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+import com.seleniumtests.util.logging.SeleniumRobotLogger;
+
+/**
+ * Pool of browser sessions created on grid
+ * When enabled (parameter 'gridSessionPool'), sessions are created in background, once, for the capabilities of the first test using them, so that 
+ * next tests with the same capabilities do not wait for their session to be created
+ * At the end of a test, session is reset (cookies, storage, windows) and given back to the pool instead of being quit. It's quit once it has been
+ * used for 'gridSessionPoolMaxUses' tests or when it stayed idle for more than 'gridSessionPoolMaxIdle' seconds
+ * At most 'gridSessionPool' sessions are kept idle, whatever the capabilities, so that pool does not hold more grid slots than requested
+ */
+public class GridSessionPool {
+
+	private static final Logger logger = SeleniumRobotLogger.getLogger(GridSessionPool.class);
+	private static GridSessionPool instance;
+	private static final int REAPER_PERIOD = 1;
+	
+	// capabilities which depend on the test, pooled sessions are created without them
+	private static final List<String> TEST_CAPABILITIES = Arrays.asList(SeleniumRobotCapabilityType.TEST_NAME, 
+																		SeleniumRobotCapabilityType.ATTACH_SESSION_ON_NODE);
+	
+	// capabilities which make sessions different, used to build the pool key
+	private static final List<String> KEY_CAPABILITIES = Arrays.asList(CapabilityType.BROWSER_NAME,
+																		CapabilityType.BROWSER_VERSION,
+																		CapabilityType.VERSION,
+																		CapabilityType.PLATFORM,
+																		CapabilityType.PLATFORM_NAME,
+																		CapabilityType.ACCEPT_INSECURE_CERTS,
+																		CapabilityType.PAGE_LOAD_STRATEGY,
+																		CapabilityType.UNHANDLED_PROMPT_BEHAVIOUR,
+																		CapabilityType.PROXY,
+																		SeleniumRobotCapabilityType.NODE_TAGS,
+																		"goog:chromeOptions",
+																		"moz:firefoxOptions",
+																		"ms:edgeOptions",
+																		"se:ieOptions");
+
+	private final Map<String, Deque<PooledSession>> idleSessions = new HashMap<>();
+	private final Map<WebDriver, PooledSession> sessionsInUse = new IdentityHashMap<>();
+	private final Map<String, Integer> sessionsInCreation = new HashMap<>();
+	private final Map<String, Integer> poolSizes = new HashMap<>();
+	private final Set<String> warmedUpKeys = new HashSet<>();
+	private ExecutorService executor;
+	private ScheduledExecutorService reaper;
+
+	/**
+	 * A session created on grid
+	 */
+	public static class PooledSession {
+		private final RemoteWebDriver driver;
+		private final URL hubUrl;
+		private final String key;
+		private final int maxUses;
+		private final long maxIdleMillis;
+		private int uses = 0;
+		private long idleSince;
+		private String testName;
+
+		public PooledSession(RemoteWebDriver driver, URL hubUrl, String key, int maxUses, int maxIdleSeconds) {
+			this.driver = driver;
+			this.hubUrl = hubUrl;
+			this.key = key;
+			this.maxUses = maxUses;
+			this.maxIdleMillis = maxIdleSeconds * 1000L;
+			this.idleSince = System.currentTimeMillis();
+		}
+
+		public RemoteWebDriver getDriver() {
+			return driver;
+		}
+
+		public URL getHubUrl() {
+			return hubUrl;
+		}
+
+		public String getKey() {
+			return key;
+		}
+
+		public int getUses() {
+			return uses;
+		}
+		
+		/**
+		 * @return name of the test using this session. Grid only knows the name given at creation, if any
+		 */
+		public String getTestName() {
+			return testName;
+		}
+		
+		public void setTestName(String testName) {
+			this.testName = testName;
+		}
+
+		private boolean isExpired() {
+			return System.currentTimeMillis() - idleSince > maxIdleMillis;
+		}
+	}
+
+	public static synchronized GridSessionPool getInstance() {
+		if (instance == null) {
+			instance = new GridSessionPool();
+		}
+		return instance;
+	}
+
+	/**
+	 * @return true if pool has been created (pooled sessions have been requested)
+	 */
+	public static synchronized boolean isActive() {
+		return instance != null;
+	}
+
+	/**
+	 * Quit all idle sessions. Sessions in use will be quit by their test
+	 */
+	public static synchronized void closeAll() {
+		if (instance == null) {
+			return;
+		}
+		List<PooledSession> toQuit = new ArrayList<>();
+		synchronized (instance) {
+			for (Deque<PooledSession> sessions: instance.idleSessions.values()) {
+				toQuit.addAll(sessions);
+			}
+			instance.idleSessions.clear();
+			instance.sessionsInUse.clear();
+			if (instance.executor != null) {
+				instance.executor.shutdownNow();
+			}
+			if (instance.reaper != null) {
+				instance.reaper.shutdownNow();
+			}
+		}
+		for (PooledSession session: toQuit) {
+			quit(session);
+		}
+		instance = null;
+	}
+
+	/**
+	 * Key of the pool for these capabilities. It's built from the capabilities which select the browser (name, version, platform, options, ...)
+	 * with maps sorted so that the same capabilities always give the same key. Test name is not part of the key as it changes for each test
+	 * @param capabilities
+	 * @return
+	 */
+	public static String getKey(Capabilities capabilities) {
+		Map<String, String> caps = new TreeMap<>();
+		for (String capabilityName: KEY_CAPABILITIES) {
+			Object value = capabilities.getCapability(capabilityName);
+			if (value != null) {
+				caps.put(capabilityName, toStableString(value));
+			}
+		}
+		return caps.toString();
+	}
+	
+	/**
+	 * String representation of capability value which does not depend on map ordering
+	 * @param value
+	 * @return
+	 */
+	private static String toStableString(Object value) {
+		if (value instanceof Capabilities) {
+			return toStableString(((Capabilities) value).asMap());
+		} else if (value instanceof Proxy) {
+			return toStableString(((Proxy) value).toJson());
+		} else if (value instanceof Map) {
+			Map<String, String> sortedMap = new TreeMap<>();
+			for (Entry<?, ?> entry: ((Map<?, ?>) value).entrySet()) {
+				sortedMap.put(String.valueOf(entry.getKey()), toStableString(entry.getValue()));
+			}
+			return sortedMap.toString();
+		} else if (value instanceof Collection) {
+			return ((Collection<?>) value).stream().map(GridSessionPool::toStableString).collect(Collectors.toList()).toString();
+		} else if (value instanceof Object[]) {
+			return toStableString(Arrays.asList((Object[]) value));
+		} else {
+			return String.valueOf(value);
+		}
+	}
+	
+	/**
+	 * Capabilities used to create pooled sessions: test specific capabilities (test name, ...) are removed as session will be used by other tests
+	 * @param capabilities
+	 * @return
+	 */
+	public static MutableCapabilities getPoolCapabilities(Capabilities capabilities) {
+		Map<String, Object> caps = new HashMap<>(capabilities.asMap());
+		caps.keySet().removeAll(TEST_CAPABILITIES);
+		return new MutableCapabilities(caps);
+	}
+
+	/**
+	 * Get an idle session created for these capabilities, on one of the given hubs
+	 * @param key		pool key, see {@link #getKey(Capabilities)}
+	 * @param hubUrls	hubs that the test is allowed to use
+	 * @return the session, or null if none is available
+	 */
+	public PooledSession acquire(String key, Collection<URL> hubUrls) {
+		return acquire(key, hubUrls, null);
+	}
+	
+	/**
+	 * Get an idle session created for these capabilities, on one of the given hubs
+	 * @param key		pool key, see {@link #getKey(Capabilities)}
+	 * @param hubUrls	hubs that the test is allowed to use
+	 * @param testName	name of the test which will use the session
+	 * @return the session, or null if none is available
+	 */
+	public PooledSession acquire(String key, Collection<URL> hubUrls, String testName) {
+		// compare URL as strings, URL.equals would resolve host names
+		List<String> hubs = hubUrls.stream().map(URL::toString).collect(Collectors.toList());
+		PooledSession acquired = null;
+
+		synchronized (this) {
+			Deque<PooledSession> sessions = idleSessions.getOrDefault(key, new ArrayDeque<>());
+			for (Iterator<PooledSession> it = sessions.iterator(); it.hasNext(); ) {
+				PooledSession session = it.next();
+				if (!session.isExpired() && hubs.contains(session.hubUrl.toString())) {
+					it.remove();
+					acquired = session;
+					break;
+				}
+			}
+			if (acquired != null) {
+				acquired.testName = testName;
+				sessionsInUse.put(acquired.driver, acquired);
+			}
+		}
+
+		if (acquired != null) {
+			logger.info(String.format("Using session %s from pool for test %s (used %d times)", acquired.driver.getSessionId(), testName, acquired.uses));
+		}
+		return acquired;
+	}
+
+	/**
+	 * Record a session, created for a test, so that it's given back to the pool when test quits the driver
+	 * @param session
+	 */
+	public synchronized void register(PooledSession session) {
+		sessionsInUse.put(session.driver, session);
+	}
+
+	/**
+	 * Create sessions in background, so that 'poolSize' sessions are available (idle or being created) for these capabilities
+	 * This is done only once for a key. Then, sessions released by tests feed the pool
+	 * @param key			pool key
+	 * @param poolSize		number of sessions to keep ready
+	 * @param creator		creates the session. It may return null if no session could be created
+	 */
+	public void warmUp(String key, int poolSize, Supplier<PooledSession> creator) {
+		int missing;
+		synchronized (this) {
+			poolSizes.put(key, poolSize);
+			if (!warmedUpKeys.add(key)) {
+				return;
+			}
+			int available = getTotalIdleSessionCount() + sessionsInCreation.values().stream().mapToInt(Integer::intValue).sum();
+			missing = poolSize - available;
+			if (missing > 0) {
+				sessionsInCreation.merge(key, missing, Integer::sum);
+			}
+		}
+
+		for (int i = 0; i < missing; i++) {
+			submit(() -> {
+				try {
+					PooledSession session = creator.get();
+					if (session != null && !addIdleSession(key, session)) {
+						quit(session);
+					}
+				} catch (Exception e) {
+					logger.warn("Cannot create session in background: " + e.getMessage());
+				} finally {
+					synchronized (this) {
+						sessionsInCreation.merge(key, -1, Integer::sum);
+					}
+				}
+			});
+		}
+	}
+
+	/**
+	 * Give the session back to the pool, once its test is finished. Session is reset (windows, cookies, storage) so that next test starts
+	 * with a clean browser
+	 * @param driver	the driver which the test wants to quit
+	 * @return true if session has been taken back by the pool. If false, caller must quit the driver itself
+	 */
+	public boolean release(WebDriver driver) {
+		PooledSession session;
+		synchronized (this) {
+			session = sessionsInUse.remove(driver);
+		}
+		if (session == null) {
+			return false;
+		}
+
+		session.uses++;
+		if (session.uses >= session.maxUses) {
+			logger.info(String.format("Session %s has been used %d times, quitting it", session.driver.getSessionId(), session.uses));
+			return false;
+		}
+		if (!resetSession(session.driver)) {
+			return false;
+		}
+
+		session.idleSince = System.currentTimeMillis();
+		return addIdleSession(session.key, session);
+	}
+
+	/**
+	 * Forget and quit a session which cannot be used (e.g: grid does not know it anymore)
+	 * @param driver
+	 */
+	public void discard(WebDriver driver) {
+		PooledSession session;
+		synchronized (this) {
+			session = sessionsInUse.remove(driver);
+		}
+		if (session != null) {
+			quit(session);
+		}
+	}
+
+	/**
+	 * Close all windows but one, delete cookies and storage
+	 * @param driver
+	 * @return true if browser could be reset
+	 */
+	private boolean resetSession(RemoteWebDriver driver) {
+		try {
+			List<String> handles = new ArrayList<>(driver.getWindowHandles());
+			for (String handle: handles.subList(1, handles.size())) {
+				driver.switchTo().window(handle);
+				driver.close();
+			}
+			driver.switchTo().window(handles.get(0));
+			driver.manage().deleteAllCookies();
+			driver.executeScript("try {window.localStorage.clear(); window.sessionStorage.clear();} catch (e) {}");
+			driver.get("about:blank");
+			return true;
+		} catch (Exception e) {
+			logger.warn("Cannot reset session, it won't be reused: " + e.getMessage());
+			return false;
+		}
+	}
+
+	/**
+	 * Put session in the idle sessions, unless pool is closed or already holds 'poolSize' idle sessions (all keys together)
+	 * @param key
+	 * @param session
+	 * @return true if session has been added. Else, caller must quit it
+	 */
+	private boolean addIdleSession(String key, PooledSession session) {
+		boolean added = false;
+		synchronized (this) {
+			if (instance == this && getTotalIdleSessionCount() < poolSizes.getOrDefault(key, 1)) {
+				session.testName = null;
+				idleSessions.computeIfAbsent(key, k -> new ArrayDeque<>()).add(session);
+				startReaper();
+				added = true;
+			}
+		}
+		if (!added) {
+			logger.info(String.format("Pool is full or closed, session %s won't be reused", session.driver.getSessionId()));
+		}
+		return added;
+	}
+
+	/**
+	 * Quit sessions which stayed idle too long. Called periodically by the reaper
+	 */
+	private void removeExpiredSessions() {
+		List<PooledSession> expired = new ArrayList<>();
+		synchronized (this) {
+			for (Deque<PooledSession> sessions: idleSessions.values()) {
+				for (Iterator<PooledSession> it = sessions.iterator(); it.hasNext(); ) {
+					PooledSession session = it.next();
+					if (session.isExpired()) {
+						it.remove();
+						expired.add(session);
+					}
+				}
+			}
+		}
+
+		for (PooledSession session: expired) {
+			logger.info(String.format("Session %s stayed idle too long, quitting it", session.driver.getSessionId()));
+			quit(session);
+		}
+	}
+
+	private synchronized void startReaper() {
+		if (reaper == null) {
+			reaper = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread thread = new Thread(r, "grid-session-pool-reaper");
+				thread.setDaemon(true);
+				return thread;
+			});
+			reaper.scheduleAtFixedRate(this::removeExpiredSessions, REAPER_PERIOD, REAPER_PERIOD, TimeUnit.SECONDS);
+		}
+	}
+
+	private synchronized void submit(Runnable task) {
+		if (executor == null) {
+			executor = Executors.newCachedThreadPool(r -> {
+				Thread thread = new Thread(r, "grid-session-pool");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		executor.submit(task);
+	}
+
+	private static void quit(PooledSession session) {
+		try {
+			session.driver.quit();
+		} catch (Exception e) {
+			logger.warn("Error while quitting pooled session: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Number of idle sessions for this key
+	 * @param key
+	 * @return
+	 */
+	public synchronized int getIdleSessionCount(String key) {
+		return idleSessions.getOrDefault(key, new ArrayDeque<>()).size();
+	}
+	
+	/**
+	 * Number of idle sessions, for all keys
+	 * @return
+	 */
+	public synchronized int getTotalIdleSessionCount() {
+		return idleSessions.values().stream().mapToInt(Deque::size).sum();
+	}
+}
@@ -17,13 +17,16 @@
  */
 package com.seleniumtests.browserfactory;
 
+import java.net.URL;
 import java.time.Clock;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import org.openqa.selenium.MutableCapabilities;
 import org.openqa.selenium.SessionNotCreatedException;
@@ -140,10 +143,22 @@ public class SeleniumGridDriverFactory extends AbstractWebDriverFactory implemen
         	gridConnector.uploadMobileApp(capabilities);
         }
 
+        // sessions may be taken from pool (desktop browsers only). When a second driver is created for the same test, it must be on the same node
+        // so it's always a new one
+        boolean usePool = webDriverConfig.getGridSessionPool() > 0 
+        					&& SeleniumTestsContextManager.isDesktopWebTest() 
+        					&& webDriverConfig.getRunOnSameNode() == null;
+        String poolKey = usePool ? GridSessionPool.getKey(capabilities): null;
+        String testName = (String) capabilities.getCapability(SeleniumRobotCapabilityType.TEST_NAME);
+
         // connection to grid is made here
         for (int i = 0; i < 3; i++) {
 	        long start = new Date().getTime();
-	        driver = getDriver(capabilities);
+	        driver = usePool ? getDriverFromPool(poolKey, testName): null;
+	        boolean fromPool = driver != null;
+	        if (!fromPool) {
+	        	driver = getDriver(capabilities);
+	        }
 	        long duration = new Date().getTime() - start;
 	
 	        setImplicitWaitTimeout(webDriverConfig.getImplicitWaitTimeout());
@@ -157,8 +172,28 @@ public class SeleniumGridDriverFactory extends AbstractWebDriverFactory implemen
 	        try {
 	        	activeGridConnector.getSessionInformationFromGrid((RemoteWebDriver) driver, duration);
 	        } catch (SessionNotCreatedException e) {
+	        	if (fromPool) {
+	        		GridSessionPool.getInstance().discard(driver);
+	        	}
 	        	continue;
 	        }
+	        
+	        if (usePool) {
+	        	GridSessionPool pool = GridSessionPool.getInstance();
+	        	if (!fromPool) {
+	        		GridSessionPool.PooledSession session = new GridSessionPool.PooledSession((RemoteWebDriver)driver, 
+																				activeGridConnector.getHubUrl(), 
+																				poolKey,
+																				webDriverConfig.getGridSessionPoolMaxUses(), 
+																				webDriverConfig.getGridSessionPoolMaxIdle());
+	        		session.setTestName(testName);
+	        		pool.register(session);
+	        	}
+	        	
+	        	// prepare sessions for the next tests, without the capabilities of this test
+	        	MutableCapabilities poolCapabilities = GridSessionPool.getPoolCapabilities(capabilities);
+	        	pool.warmUp(poolKey, webDriverConfig.getGridSessionPool(), () -> createPooledSession(poolKey, poolCapabilities));
+	        }
 	
 	        // sets a file detector. This is only useful for remote drivers
 	        ((RemoteWebDriver)driver).setFileDetector(new LocalFileDetector());
@@ -173,12 +208,62 @@ public class SeleniumGridDriverFactory extends AbstractWebDriverFactory implemen
         throw new SessionNotCreatedException("Session not created on any grid hub, after 3 tries");
     }
     
+    /**
+     * Get a session, already created, from the pool
+     * Active grid connector is the one of the hub where session has been created
+     * @param poolKey
+     * @param testName	name of the test which will use the session
+     * @return	the driver or null if pool has no session for these capabilities
+     */
+    private WebDriver getDriverFromPool(String poolKey, String testName) {
+    	List<URL> hubUrls = gridConnectors.stream()
+    			.map(SeleniumGridConnector::getHubUrl)
+    			.collect(Collectors.toList());
+    	GridSessionPool.PooledSession session = GridSessionPool.getInstance().acquire(poolKey, hubUrls, testName);
+    	if (session == null) {
+    		return null;
+    	}
+    	
+    	for (SeleniumGridConnector gridConnector: gridConnectors) {
+    		if (gridConnector.getHubUrl().toString().equals(session.getHubUrl().toString())) {
+    			activeGridConnector = gridConnector;
+    			break;
+    		}
+    	}
+    	return session.getDriver();
+    }
+    
+    /**
+     * Create a session for the pool. Contrary to {@link #getDriver(MutableCapabilities)}, we do not wait for a node to be available
+     * and factory state is not modified as this is called in background
+     * @param poolKey
+     * @param capabilities
+     * @return the session, or null if no hub could create it
+     */
+    private GridSessionPool.PooledSession createPooledSession(String poolKey, MutableCapabilities capabilities) {
+    	for (SeleniumGridConnector gridConnector: GridHubSelector.selectHubs(gridConnectors)) {
+    		try {
+    			RemoteWebDriver pooledDriver = new RemoteWebDriver(gridConnector.getHubUrl(), capabilities);
+    			return new GridSessionPool.PooledSession(pooledDriver, 
+    					gridConnector.getHubUrl(), 
+    					poolKey, 
+    					webDriverConfig.getGridSessionPoolMaxUses(), 
+    					webDriverConfig.getGridSessionPoolMaxIdle());
+    		} catch (WebDriverException e) {
+    			logger.warn(String.format("Error creating pooled session on hub %s: %s", gridConnector.getHubUrl().toString(), e.getMessage()));
+    			GridHubSelector.recordSessionFailure(gridConnector);
+    		}
+    	}
+    	return null;
+    }
+    
     /**
      * Connect to grid using RemoteWebDriver
-     * As we may have several grid available, takes the first one where driver is created
+     * As we may have several grid available, all hubs are probed at the same time and tried from the healthiest one (see {@link GridHubSelector}),
+     * until driver is created
      * 
      * Several waits are defined
-     * By default, we wait 30 mins for a node to be found. For this, we loop through all available hubs
+     * By default, we wait 30 mins for a node to be found. For this, we loop through all available hubs, waiting longer and longer between tries
      * In case we do not find any node after 30 mins, we fail and increment a fail counter
      * This fail counter is reset every time we find a node
      * If this counter reaches 3, then we don't even try to get a driver
@@ -204,27 +289,26 @@ public class SeleniumGridDriverFactory extends AbstractWebDriverFactory implemen
 			throw new SkipException("Skipping as the 3 previous tests could not get any matching node. Check your test configuration and grid setup");
 		}
     	
+		// if we are launching a second driver for the same test, do it on the same hub
+		List<SeleniumGridConnector> candidateConnectors = webDriverConfig.getRunOnSameNode() != null ? Arrays.asList(webDriverConfig.getSeleniumGridConnector()): gridConnectors;
+		int attempt = 0;
+		
 		while (end.isAfter(clock.instant())) {
 			
-			for (SeleniumGridConnector gridConnector: gridConnectors) {
+			// hubs are probed at the same time, best one first
+			List<SeleniumGridConnector> activeConnectors = GridHubSelector.selectHubs(candidateConnectors);
 			
-				// if grid is not active, try the next one
-				if (!gridConnector.isGridActive()) {
-					logger.warn(String.format("grid %s is not active, looking for the next one", gridConnector.getHubUrl().toString()));
-					continue;
-				}
-				
-				// if we are launching a second driver for the same test, do it on the same hub
-				if (webDriverConfig.getRunOnSameNode() != null && webDriverConfig.getSeleniumGridConnector() != gridConnector) {
-					continue;
-				}
+			for (SeleniumGridConnector gridConnector: activeConnectors) {
 				
+				long start = clock.millis();
 				try {
 					driver = new RemoteWebDriver(gridConnector.getHubUrl(), capability);
+					GridHubSelector.recordSessionCreated(gridConnector, clock.millis() - start);
 					activeGridConnector = gridConnector;
 					break;
 				} catch (WebDriverException e) {
 					logger.warn(String.format("Error creating driver on hub %s: %s", gridConnector.getHubUrl().toString(), e.getMessage()));
+					GridHubSelector.recordSessionFailure(gridConnector);
 					currentException = e;
 					continue;
 				}
@@ -235,19 +319,20 @@ public class SeleniumGridDriverFactory extends AbstractWebDriverFactory implemen
 				break;
 			}
 			
+			long backoffDelay;
 			if (currentException != null) {
-				WaitHelper.waitForSeconds(5);
+				backoffDelay = GridHubSelector.getBackoffDelay(attempt, 5000);
 			} else {
 				// we are here if no grid connector is available
-				logger.warn("No grid available, wait 30 secs and retry");
+				logger.warn("No grid available, wait and retry");
 				
-				// for test only, reduce wiat
-				if (instanceRetryTimeout > 30) {
-					WaitHelper.waitForSeconds(30);
-				} else {
-					WaitHelper.waitForSeconds(1);
-				}
+				// for test only, reduce wait
+				backoffDelay = GridHubSelector.getBackoffDelay(attempt, instanceRetryTimeout > 30 ? 30000: 1000);
 			}
+			attempt++;
+			
+			// do not wait after timeout
+			WaitHelper.waitForMilliSeconds((int)Math.max(0, Math.min(backoffDelay, end.toEpochMilli() - clock.millis())));
 		}
 		
 		if (driver == null) {
@@ -183,6 +183,14 @@ public class SeleniumGridConnector {
 		
 	}
 	
+	/**
+	 * Number of free test slots on the grid nodes, as seen by the last call to {@link #isGridActive()}
+	 * @return -1 as standard grid does not give this information
+	 */
+	public int getAvailableTestSlots() {
+		return -1;
+	}
+	
 	/**
 	 * Write text to desktop using keyboard
 	 * @param text
@@ -27,6 +27,7 @@ import java.util.Map.Entry;
 import com.seleniumtests.core.SeleniumTestsContextManager;
 import com.seleniumtests.customexception.SeleniumRobotServerException;
 import com.seleniumtests.uipage.htmlelements.ElementInfo;
+import com.seleniumtests.uipage.htmlelements.ElementInfoStore;
 
 import kong.unirest.HttpRequest;
 import kong.unirest.MultipartBody;
@@ -113,12 +114,13 @@ public class SeleniumRobotElementInfoServerConnector extends SeleniumRobotServer
 	public void getAndStoreElementInfos() {
 		for (ElementInfo ei: getElementInfos()) {
 			try {
-				ei.exportToJsonFile(false, null);
+				ei.save();
 				ei.exportToJsonFile(true, null);
 			} catch (IOException e) {
 				logger.error("error exporting ElementInfo to file: " + e.getMessage());
 			}
 		}
+		ElementInfoStore.flushStore();
 	}
 	
 	/**
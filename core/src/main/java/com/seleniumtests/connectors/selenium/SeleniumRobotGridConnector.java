@@ -59,6 +59,8 @@ public class SeleniumRobotGridConnector extends SeleniumGridConnector {
 	public static final String STATUS_SERVLET = "/grid/admin/StatusServlet";
 	public static final String GUI_SERVLET = "/grid/admin/GuiServlet/";
 	
+	private volatile int availableTestSlots = -1;
+	
 	public SeleniumRobotGridConnector(String url) {
 		super(url);
 	}
@@ -470,6 +472,7 @@ public class SeleniumRobotGridConnector extends SeleniumGridConnector {
 	 */
 	@Override
 	public boolean isGridActive() {
+		availableTestSlots = -1;
 		boolean gridActive = super.isGridActive();
 		if (!gridActive) {
 			return false;
@@ -489,11 +492,37 @@ public class SeleniumRobotGridConnector extends SeleniumGridConnector {
 		
 		try {
 			JSONObject hubStatus = response.getBody().getObject();
+			availableTestSlots = countAvailableTestSlots(hubStatus);
 			
 			return hubStatus.getJSONObject("hub").getString("status").equalsIgnoreCase("ACTIVE") && hubStatus.length() > 2;	
 		} catch (JSONException | NullPointerException e) {
 			return false;
 		}
 	}
+	
+	/**
+	 * Count free test slots of active nodes. Node entries are the ones giving 'testSlots'
+	 * @param hubStatus		reply of status servlet
+	 * @return
+	 */
+	private int countAvailableTestSlots(JSONObject hubStatus) {
+		int slots = 0;
+		for (String key: hubStatus.keySet()) {
+			JSONObject nodeStatus = hubStatus.optJSONObject(key);
+			if (nodeStatus != null && nodeStatus.has("testSlots") && "ACTIVE".equalsIgnoreCase(nodeStatus.optString("status"))) {
+				slots += Math.max(0, nodeStatus.optInt("testSlots") - nodeStatus.optInt("usedTestSlots"));
+			}
+		}
+		return slots;
+	}
+	
+	/**
+	 * Number of free test slots on active nodes, as seen by the last call to {@link #isGridActive()}
+	 * @return -1 if status could not be read
+	 */
+	@Override
+	public int getAvailableTestSlots() {
+		return availableTestSlots;
+	}
 
 }
@@ -17,6 +17,9 @@
  */
 package com.seleniumtests.connectors.selenium;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.apache.log4j.Logger;
 
 import com.seleniumtests.core.SeleniumTestsContextManager;
@@ -59,6 +62,7 @@ public abstract class SeleniumRobotServerConnector {
 	protected Integer applicationId;
 	protected Integer versionId;
 	protected Integer environmentId;
+	protected final Map<String, Integer> testCaseIds = new ConcurrentHashMap<>(); // test cases already created, by name
 	
 	public SeleniumRobotServerConnector(boolean useRequested, String url) {
 		this(useRequested, url, null);
@@ -191,6 +195,7 @@ public abstract class SeleniumRobotServerConnector {
 
 	/**
 	 * Create test case and add it to the current session
+	 * Server returns the same test case for the same name, so id is only requested once for each name
 	 */
 	public Integer createTestCase(String testName) {
 		if (!active) {
@@ -203,12 +208,19 @@ public abstract class SeleniumRobotServerConnector {
 		if (applicationId == null) {
 			createApplication();
 		}
+		
+		Integer testCaseId = testCaseIds.get(testName);
+		if (testCaseId != null) {
+			return testCaseId;
+		}
 
 		try {
 			JSONObject testJson = getJSonResponse(buildPostRequest(url + TESTCASE_API_URL)
 					.field("name", testName)
 					.field("application", applicationId.toString()));
-			return testJson.getInt("id");
+			testCaseId = testJson.getInt("id");
+			testCaseIds.put(testName, testCaseId);
+			return testCaseId;
 		} catch (UnirestException | JSONException | SeleniumRobotServerException e) {
 			throw new SeleniumRobotServerException("cannot create test case", e);
 		}
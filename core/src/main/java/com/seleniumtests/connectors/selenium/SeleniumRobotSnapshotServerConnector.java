@@ -18,11 +18,32 @@
 package com.seleniumtests.connectors.selenium;
 
 import java.io.File;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import org.json.JSONException;
@@ -47,7 +68,20 @@ public class SeleniumRobotSnapshotServerConnector extends SeleniumRobotServerCon
 	public static final String STEPRESULT_API_URL = "/snapshot/api/stepresult/";
 	public static final String EXCLUDE_API_URL = "/snapshot/api/exclude/";
 	public static final String SNAPSHOT_API_URL = "/snapshot/upload/image";
+	
+	public static final String UPLOAD_THREADS = "seleniumRobotServerUploadThreads";
+	public static final int UPLOAD_TIMEOUT = 120;
+	public static final int UPLOAD_RETRIES = 2;
+	public static final int COMPARISON_TIMEOUT = 60;
+	private static final int COMPARISON_THREADS = 10;
+	private static final int DEFAULT_UPLOAD_THREADS = 4;
+	private static final int UPLOAD_QUEUE_SIZE = 50;
+	private static ThreadPoolExecutor uploadExecutor;
+	private static final Queue<Future<?>> pendingUploads = new ConcurrentLinkedQueue<>();
+	
 	private String sessionUUID;
+	private final Map<String, Integer> testStepIds = new ConcurrentHashMap<>(); 				// test steps already created, by name
+	private final Map<Integer, List<String>> testCaseInSessionSteps = new ConcurrentHashMap<>();	// steps linked to each test case in session
 	private static SeleniumRobotSnapshotServerConnector snapshotConnector;
 	
 	public static SeleniumRobotSnapshotServerConnector getInstance() {
@@ -161,6 +195,7 @@ public class SeleniumRobotSnapshotServerConnector extends SeleniumRobotServerCon
 
 	/**
 	 * Create test step and add it to the current test case
+	 * Step id is only requested once for each step name
 	 * @param testStep				name of the test step
 	 * @param testCaseInSessionId	id of the test case in session, so that we can add this step to the test case
 	 * @return	id of the created teststep
@@ -170,9 +205,13 @@ public class SeleniumRobotSnapshotServerConnector extends SeleniumRobotServerCon
 			return null;
 		}
 		try {
-			JSONObject stepJson = getJSonResponse(buildPostRequest(url + TESTSTEP_API_URL)
-					.field("name", testStep));
-			Integer testStepId = stepJson.getInt("id");
+			Integer testStepId = testStepIds.get(testStep);
+			if (testStepId == null) {
+				JSONObject stepJson = getJSonResponse(buildPostRequest(url + TESTSTEP_API_URL)
+						.field("name", testStep));
+				testStepId = stepJson.getInt("id");
+				testStepIds.put(testStep, testStepId);
+			}
 			addCurrentTestStepToTestCase(testStepId, testCaseInSessionId);
 			return testStepId;
 		} catch (UnirestException | JSONException | SeleniumRobotServerException e) {
@@ -197,6 +236,7 @@ public class SeleniumRobotSnapshotServerConnector extends SeleniumRobotServerCon
 			throw new ConfigurationException("Step result must be previously recorded");
 		}
 		try {
+			snapshot.getScreenshot().waitForExport();
 			File pictureFile = new File(snapshot.getScreenshot().getFullImagePath());
 			
 			JSONObject snapshotJson = getJSonResponse(buildPostRequest(url + SNAPSHOT_API_URL)
@@ -216,6 +256,121 @@ public class SeleniumRobotSnapshotServerConnector extends SeleniumRobotServerCon
 			throw new SeleniumRobotServerException("cannot create test snapshot", e);
 		}
 	}
+	
+	/**
+	 * Send snapshot and its exclude zones to the server in background, so that the caller does not wait for image upload
+	 * Use waitForPendingUploads() to be sure all snapshots have been sent
+	 * Each request is retried (UPLOAD_RETRIES times) when connection to server could not be established. Other errors (e.g: read timeout) are
+	 * not retried as server may have already stored the data. Snapshot is not sent again if only an exclude zone failed
+	 */
+	public void uploadSnapshot(Snapshot snapshot, Integer sessionId, Integer testCaseInSessionId, Integer stepResultId) {
+		if (!active) {
+			return;
+		}
+		
+		Runnable upload = () -> {
+			Integer snapshotId = withRetry(() -> createSnapshot(snapshot, sessionId, testCaseInSessionId, stepResultId));
+			for (Rectangle excludeZone: snapshot.getCheckSnapshot().getExcludeElementsRect()) {
+				withRetry(() -> createExcludeZones(excludeZone, snapshotId));
+			}
+		};
+		
+		ExecutorService executor = getUploadExecutor();
+		if (executor == null) {
+			upload.run();
+		} else {
+			pendingUploads.removeIf(Future::isDone);
+			pendingUploads.add(executor.submit(upload));
+		}
+	}
+	
+	/**
+	 * Execute the request, and execute it again if it failed because connection to server could not be established
+	 * Errors returned by server, or connection lost after request has been sent, are not retried, to avoid creating the same object twice
+	 * @param request
+	 * @return
+	 */
+	private Integer withRetry(Supplier<Integer> request) {
+		for (int i = 0; ; i++) {
+			try {
+				return request.get();
+			} catch (SeleniumRobotServerException e) {
+				if (i >= UPLOAD_RETRIES || !isConnectionFailure(e)) {
+					throw e;
+				}
+				logger.warn(String.format("%s, retrying", e.getMessage()));
+				WaitHelper.waitForMilliSeconds(500 * (i + 1));
+			}
+		}
+	}
+	
+	/**
+	 * @param e
+	 * @return true if error occurred before request could be sent (server not reachable)
+	 */
+	private static boolean isConnectionFailure(Throwable e) {
+		for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+			if (cause instanceof ConnectException || cause instanceof UnknownHostException || cause instanceof NoRouteToHostException) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Returns the executor which sends snapshots in background, or null if upload must be done synchronously (seleniumRobotServerUploadThreads = 0)
+	 * The number of threads limits the number of connections opened to the server at the same time
+	 * When queue is full, upload is done by the calling thread
+	 * @return
+	 */
+	public static synchronized ExecutorService getUploadExecutor() {
+		int threads = Integer.getInteger(UPLOAD_THREADS, DEFAULT_UPLOAD_THREADS);
+		if (threads <= 0) {
+			return null;
+		}
+		
+		if (uploadExecutor == null) {
+			AtomicInteger threadIndex = new AtomicInteger();
+			uploadExecutor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, 
+					new ArrayBlockingQueue<>(UPLOAD_QUEUE_SIZE), 
+					runnable -> {
+						Thread thread = new Thread(runnable, "snapshot-upload-" + threadIndex.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}, 
+					new ThreadPoolExecutor.CallerRunsPolicy());
+			uploadExecutor.allowCoreThreadTimeOut(true);
+		}
+		return uploadExecutor;
+	}
+	
+	/**
+	 * Wait for all snapshots being sent in background. 
+	 * To be called before requesting comparison results and at the end of test suite
+	 * Several threads may wait at the same time, so each one waits on a copy of pending uploads and uploads are only 
+	 * removed from queue once they are done
+	 * @return true if all uploads succeeded
+	 */
+	public static boolean waitForPendingUploads() {
+		boolean success = true;
+		for (Future<?> pendingUpload: new ArrayList<>(pendingUploads)) {
+			try {
+				pendingUpload.get(UPLOAD_TIMEOUT, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			} catch (ExecutionException | TimeoutException e) {
+				logger.error("snapshot could not be sent to seleniumRobot server: " + e.getMessage());
+				success = false;
+			}
+			
+			if (pendingUpload.isDone()) {
+				pendingUploads.remove(pendingUpload);
+			}
+		}
+		return success;
+	}
+	
 	/**
 	 * Send exclude zones, stored in snapshot to the server
 	 */
@@ -302,6 +457,7 @@ public class SeleniumRobotSnapshotServerConnector extends SeleniumRobotServerCon
 	
 	/**
 	 * Add the current test case (should have been previously created) to this test session
+	 * Steps of the test case are only read from server the first time, then they are kept locally
 	 */
 	public void addCurrentTestStepToTestCase(Integer testStepId, Integer testCaseInSessionId) {
 		if (testStepId == null || testCaseInSessionId == null) {
@@ -310,11 +466,21 @@ public class SeleniumRobotSnapshotServerConnector extends SeleniumRobotServerCon
 		
 		try {
 			// get list of tests associated to this session
-			List<String> testSteps = getStepListFromTestCase(testCaseInSessionId);
-			if (!testSteps.contains(testStepId.toString())) {
-				testSteps.add(testStepId.toString());
+			// steps are read outside of the map so that other threads are not blocked during the request
+			List<String> testSteps = testCaseInSessionSteps.get(testCaseInSessionId);
+			if (testSteps == null) {
+				List<String> serverTestSteps = getStepListFromTestCase(testCaseInSessionId);
+				testSteps = testCaseInSessionSteps.putIfAbsent(testCaseInSessionId, serverTestSteps);
+				if (testSteps == null) {
+					testSteps = serverTestSteps;
+				}
+			}
+			synchronized (testSteps) {
+				if (!testSteps.contains(testStepId.toString())) {
+					testSteps.add(testStepId.toString());
+				}
+				addTestStepsToTestCases(new ArrayList<>(testSteps), testCaseInSessionId);
 			}
-			addTestStepsToTestCases(testSteps, testCaseInSessionId);
 			
 		} catch (UnirestException | JSONException | SeleniumRobotServerException e) {
 			throw new SeleniumRobotServerException("cannot add test step to test case", e);
@@ -374,5 +540,76 @@ public class SeleniumRobotSnapshotServerConnector extends SeleniumRobotServerCon
 		}
 		
 	}
+	
+	/**
+	 * Get the comparison result of snapshots for several test cases at once
+	 * All test cases are requested at the same time, then the ones whose comparison is not computed yet are requested again, 
+	 * waiting longer each time (1, 2, 4, 8 secs), until all are computed or timeout is reached
+	 * As for single test case, result is true when it cannot be known
+	 * @param testCaseInSessionIds		ids of the test cases in this test session
+	 * @param timeout					max time (seconds) to get all results
+	 * @return							comparison result for each test case in session
+	 */
+	public Map<Integer, Boolean> getTestCaseInSessionComparisonResults(Collection<Integer> testCaseInSessionIds, int timeout) {
+		long deadline = System.currentTimeMillis() + timeout * 1000L;
+		Map<Integer, Boolean> results = new HashMap<>();
+		List<Integer> pendingIds = new ArrayList<>(testCaseInSessionIds);
+		
+		if (pendingIds.isEmpty()) {
+			return results;
+		}
+		
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(COMPARISON_THREADS, pendingIds.size()), runnable -> {
+			Thread thread = new Thread(runnable, "snapshot-comparison");
+			thread.setDaemon(true);
+			return thread;
+		});
+		
+		try {
+			for (int attempt = 0; ; attempt++) {
+				List<Callable<JSONObject>> requests = new ArrayList<>();
+				for (Integer testCaseInSessionId: pendingIds) {
+					requests.add(() -> getJSonResponse(buildGetRequest(url + TESTCASEINSESSION_API_URL + testCaseInSessionId)));
+				}
+				
+				List<Future<JSONObject>> responses = executor.invokeAll(requests, Math.max(1, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+				List<Integer> notComputedIds = new ArrayList<>();
+				for (int i = 0; i < pendingIds.size(); i++) {
+					Integer testCaseInSessionId = pendingIds.get(i);
+					try {
+						JSONObject response = responses.get(i).get();
+						results.put(testCaseInSessionId, response.optBoolean("isOkWithSnapshots", true));
+						if (!(response.optBoolean("computed", false) && response.has("isOkWithSnapshots"))) {
+							notComputedIds.add(testCaseInSessionId);
+						}
+					} catch (CancellationException e) {
+						notComputedIds.add(testCaseInSessionId);
+					} catch (ExecutionException e) {
+						logger.error(String.format("Cannot get comparison result for test case %d. So result is expected to be OK: %s", testCaseInSessionId, e.getCause().getMessage()));
+						results.put(testCaseInSessionId, true);
+					}
+				}
+				
+				pendingIds = notComputedIds;
+				long delay = Math.min(1000L << Math.min(attempt, 3), deadline - System.currentTimeMillis());
+				if (pendingIds.isEmpty() || delay <= 0) {
+					break;
+				}
+				WaitHelper.waitForMilliSeconds((int) delay);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			executor.shutdownNow();
+		}
+		
+		if (!pendingIds.isEmpty()) {
+			logger.warn(String.format("Comparison not computed for %d test cases after %d secs. Their result is expected to be OK", pendingIds.size(), timeout));
+		}
+		for (Integer testCaseInSessionId: testCaseInSessionIds) {
+			results.putIfAbsent(testCaseInSessionId, true);
+		}
+		return results;
+	}
 
 }
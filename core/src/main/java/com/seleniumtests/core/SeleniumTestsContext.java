@@ -65,8 +65,11 @@ import com.seleniumtests.reporter.reporters.ReportInfo;
 import com.seleniumtests.reporter.reporters.SeleniumRobotServerTestRecorder;
 import com.seleniumtests.reporter.reporters.SeleniumTestsReporter2;
 import com.seleniumtests.reporter.reporters.TestManagerReporter;
+import com.seleniumtests.uipage.SettleMode;
 import com.seleniumtests.uipage.htmlelements.ElementInfo;
 import com.seleniumtests.util.StringUtility;
+import com.seleniumtests.util.imaging.ImageFileWriter;
+import com.seleniumtests.util.imaging.ImageFileWriter.ImageFormat;
 import com.seleniumtests.util.logging.DebugMode;
 import com.seleniumtests.util.logging.SeleniumRobotLogger;
 import com.seleniumtests.util.osutility.OSUtility;
@@ -90,11 +93,18 @@ public class SeleniumTestsContext {
     public static final String EXPLICIT_WAIT_TIME_OUT = "explicitWaitTimeOut";	// attente explicite du navigateur
     public static final String HEADLESS_BROWSER = "headless";
     public static final String REPLAY_TIME_OUT = "replayTimeOut";				// time during which an action is replayed. By default 30 secs
+    public static final String ACTION_SETTLE_MODE = "actionSettleMode";		// how to wait for page to settle after an action on element: 'none', 'fixed' (default) or 'domQuiet'
+    public static final String ACTION_SETTLE_DELAY = "actionSettleDelay";		// delay (ms) to wait after an action in 'fixed' mode, maximum wait in 'domQuiet' mode. By default 200 ms
+    public static final String COMPOSITE_ACTION_SETTLE_MODE = "compositeActionSettleMode";	// how to wait for page to settle after a composite action (Actions.perform()): 'none', 'fixed' (default) or 'domQuiet'
+    public static final String COMPOSITE_ACTION_SETTLE_DELAY = "compositeActionSettleDelay";	// delay (ms) to wait after a composite action in 'fixed' mode, maximum wait in 'domQuiet' mode. By default 200 ms
     public static final String PAGE_LOAD_TIME_OUT = "pageLoadTimeout";			// temps d'attente de chargement d'une page
     public static final String PAGE_LOAD_STRATEGY = "pageLoadStrategy";			// page load strategy as defined in selenium spec. Will be applied to driver
     public static final String WEB_DRIVER_GRID = "webDriverGrid";				// adresse du serveur seleniumGrid
     public static final String RUN_MODE = "runMode";							// local ou grid. Pourrait également contenir sauceLabs / testDroid
     public static final String NODE_TAGS = "nodeTags";							// Comma seperated list of strings. Requests that this test should execute only on a node (grid mode only) announcing all of these tags (issue #190)
+    public static final String GRID_SESSION_POOL = "gridSessionPool";			// number of grid sessions created in advance for next tests using the same capabilities (grid mode only). By default 0 (no pool)
+    public static final String GRID_SESSION_POOL_MAX_IDLE = "gridSessionPoolMaxIdle";	// time (s) after which an unused pooled session is quit. By default 120
+    public static final String GRID_SESSION_POOL_MAX_USES = "gridSessionPoolMaxUses";	// number of tests after which a pooled session is quit. By default 10
     public static final String MASK_PASSWORD = "maskPassword";					// whether seleniumRobot should hide passwords or not
     public static final String MANUAL_TEST_STEPS = "manualTestSteps";			// set test steps manual (default is false) for creating them inside tests
     public static final String DEBUG = "debug";									// whether to debug test (logs from browser / core). Valid values are: 'none', 'core', 'driver' or 'core,driver'
@@ -137,6 +147,8 @@ public class SeleniumTestsContext {
 
     public static final String SNAPSHOT_TOP_CROPPING = "snapshotTopCropping";
     public static final String SNAPSHOT_BOTTOM_CROPPING = "snapshotBottomCropping";
+    public static final String SNAPSHOT_IMAGE_FORMAT = "snapshotImageFormat";		// format of the snapshot images in report: 'png' (default), 'jpeg' or 'webp'
+    public static final String SNAPSHOT_PNG_COMPRESSION = "snapshotPngCompression";	// PNG compression level, from 0 (fast) to 9 (small files)
     
     public static final String WEB_PROXY_TYPE = "proxyType";					// type de proxy. AUTO, MANUAL, NO
     public static final String WEB_PROXY_TYPE_FROM_USER = "proxyTypeFromUser";	// issue #158: proxy type as requested by user. Store it 
@@ -239,6 +251,8 @@ public class SeleniumTestsContext {
 	public static final String DEFAULT_VIDEO_CAPTURE = "onError";
 	public static final Integer DEFAULT_SNAPSHOT_TOP_CROPPING = null;
 	public static final Integer DEFAULT_SNAPSHOT_BOTTOM_CROPPING = null;
+	public static final ImageFormat DEFAULT_SNAPSHOT_IMAGE_FORMAT = ImageFormat.PNG;
+	public static final int DEFAULT_SNAPSHOT_PNG_COMPRESSION = ImageFileWriter.DEFAULT_COMPRESSION;
 	public static final boolean DEFAULT_ENABLE_JAVASCRIPT = true;
 	public static final boolean DEFAULT_SET_ACCEPT_UNTRUSTED_CERTIFICATES = true;
 	public static final boolean DEFAULT_SET_ASSUME_UNTRUSTED_CERTIFICATE_ISSUER = true;
@@ -268,6 +282,9 @@ public class SeleniumTestsContext {
 	public static final ArchiveMode DEFAULT_ARCHIVE= ArchiveMode.NEVER;
 	public static final boolean DEFAULT_KEEP_ALL_RESULTS = false;
 	public static final String DEFAULT_NODE_TAGS = "";
+	public static final int DEFAULT_GRID_SESSION_POOL = 0;
+	public static final int DEFAULT_GRID_SESSION_POOL_MAX_IDLE = 120;
+	public static final int DEFAULT_GRID_SESSION_POOL_MAX_USES = 10;
 	public static final String DEFAULT_DEBUG = "none";
 	public static final String DEFAULT_AUTOMATION_NAME = "Appium";
 	public static final String DEFAULT_TMS_URL = null;
@@ -277,12 +294,19 @@ public class SeleniumTestsContext {
 	public static final ElementInfo.Mode DEFAULT_ADVANCED_ELEMENT_SEARCH = ElementInfo.Mode.FALSE;
     
     public static final int DEFAULT_REPLAY_TIME_OUT = 30;
+    public static final SettleMode DEFAULT_ACTION_SETTLE_MODE = SettleMode.FIXED;
+    public static final int DEFAULT_ACTION_SETTLE_DELAY = 200;
+    public static final SettleMode DEFAULT_COMPOSITE_ACTION_SETTLE_MODE = SettleMode.FIXED;
+    public static final int DEFAULT_COMPOSITE_ACTION_SETTLE_DELAY = 200;
 
 	
 
 	// group of fields below must be copied in SeleniumTestsContext constructor because they are not rediscovered with 'configureContext' method
     // Data object to store all context data
-    private Map<String, Object> contextDataMap = Collections.synchronizedMap(new HashMap<String, Object>());
+    private volatile Map<String, Object> contextDataMap = Collections.synchronizedMap(new HashMap<String, Object>());
+    private boolean contextDataShared = false;			// if true, contextDataMap is also used by an other context and must be copied before being written
+    private volatile TechnicalSettings technicalSettings;	// snapshot of technical parameters, built on first read after a change
+    private volatile int contextDataVersion = 0;			// incremented on each change of contextDataMap
     private String baseOutputDirectory; // the 'test-output' folder if not overridden
     private ITestContext testNGContext = null;
     private ITestResult testNGResult = null;
@@ -324,7 +348,14 @@ public class SeleniumTestsContext {
      * @param allowRequestsToDependencies		if true, we will request to variable server / grid hub for new session or data		
      */
     public SeleniumTestsContext(SeleniumTestsContext toCopy, boolean allowRequestsToDependencies) {
-    	contextDataMap = new HashMap<>(toCopy.contextDataMap); 
+    	
+    	// data map is shared until one of the contexts changes it, so that copying a context is cheap
+    	synchronized (toCopy) {
+	    	contextDataMap = toCopy.contextDataMap;
+	    	contextDataShared = true;
+	    	toCopy.contextDataShared = true;
+	    	technicalSettings = toCopy.technicalSettings;
+    	}
     	testNGContext = toCopy.testNGContext;
     	if (!allowRequestsToDependencies && toCopy.variableAlreadyRequestedFromServer != null) {
     		variableAlreadyRequestedFromServer = new HashMap<>(toCopy.variableAlreadyRequestedFromServer);
@@ -382,6 +413,9 @@ public class SeleniumTestsContext {
         setWebDriverGrid(getValueForTest(WEB_DRIVER_GRID, System.getProperty(WEB_DRIVER_GRID)));
         setRunMode(getValueForTest(RUN_MODE, System.getProperty(RUN_MODE)));   
         setNodeTags(getValueForTest(NODE_TAGS, System.getProperty(NODE_TAGS)));   
+        setGridSessionPool(getIntValueForTest(GRID_SESSION_POOL, System.getProperty(GRID_SESSION_POOL)));
+        setGridSessionPoolMaxIdle(getIntValueForTest(GRID_SESSION_POOL_MAX_IDLE, System.getProperty(GRID_SESSION_POOL_MAX_IDLE)));
+        setGridSessionPoolMaxUses(getIntValueForTest(GRID_SESSION_POOL_MAX_USES, System.getProperty(GRID_SESSION_POOL_MAX_USES)));
         
         setMaskPassword(getBoolValueForTest(MASK_PASSWORD, System.getProperty(MASK_PASSWORD)));       
         setLoadIni(getValueForTest(LOAD_INI, System.getProperty(LOAD_INI)));
@@ -389,6 +423,10 @@ public class SeleniumTestsContext {
         setImplicitWaitTimeout(getIntValueForTest(IMPLICIT_WAIT_TIME_OUT, System.getProperty(IMPLICIT_WAIT_TIME_OUT)));
         setExplicitWaitTimeout(getIntValueForTest(EXPLICIT_WAIT_TIME_OUT, System.getProperty(EXPLICIT_WAIT_TIME_OUT)));
         setReplayTimeout(getIntValueForTest(REPLAY_TIME_OUT, System.getProperty(REPLAY_TIME_OUT)));
+        setActionSettleMode(getValueForTest(ACTION_SETTLE_MODE, System.getProperty(ACTION_SETTLE_MODE)));
+        setActionSettleDelay(getIntValueForTest(ACTION_SETTLE_DELAY, System.getProperty(ACTION_SETTLE_DELAY)));
+        setCompositeActionSettleMode(getValueForTest(COMPOSITE_ACTION_SETTLE_MODE, System.getProperty(COMPOSITE_ACTION_SETTLE_MODE)));
+        setCompositeActionSettleDelay(getIntValueForTest(COMPOSITE_ACTION_SETTLE_DELAY, System.getProperty(COMPOSITE_ACTION_SETTLE_DELAY)));
         setPageLoadTimeout(getIntValueForTest(PAGE_LOAD_TIME_OUT, System.getProperty(PAGE_LOAD_TIME_OUT)));
         setPageLoadStrategy(getValueForTest(PAGE_LOAD_STRATEGY, System.getProperty(PAGE_LOAD_STRATEGY)));
         setDebug(getValueForTest(DEBUG, System.getProperty(DEBUG)));
@@ -427,6 +465,8 @@ public class SeleniumTestsContext {
         
         setSnapshotBottomCropping(getIntValueForTest(SNAPSHOT_BOTTOM_CROPPING, System.getProperty(SNAPSHOT_BOTTOM_CROPPING)));
         setSnapshotTopCropping(getIntValueForTest(SNAPSHOT_TOP_CROPPING, System.getProperty(SNAPSHOT_TOP_CROPPING)));
+        setSnapshotImageFormat(getValueForTest(SNAPSHOT_IMAGE_FORMAT, System.getProperty(SNAPSHOT_IMAGE_FORMAT)));
+        setSnapshotPngCompression(getIntValueForTest(SNAPSHOT_PNG_COMPRESSION, System.getProperty(SNAPSHOT_PNG_COMPRESSION)));
         setCaptureSnapshot(getBoolValueForTest(CAPTURE_SNAPSHOT, System.getProperty(CAPTURE_SNAPSHOT)));
         setCaptureNetwork(getBoolValueForTest(CAPTURE_NETWORK, System.getProperty(CAPTURE_NETWORK)));
         setVideoCapture(getValueForTest(VIDEO_CAPTURE, System.getProperty(VIDEO_CAPTURE)));
@@ -1100,11 +1140,19 @@ public class SeleniumTestsContext {
     }
     
     public Integer getSnapshotBottomCropping() {
-    	return (Integer) getAttribute(SNAPSHOT_BOTTOM_CROPPING);
+    	return getTechnicalSettings().getSnapshotBottomCropping();
     }
     
     public Integer getSnapshotTopCropping() {
-    	return (Integer) getAttribute(SNAPSHOT_TOP_CROPPING);
+    	return getTechnicalSettings().getSnapshotTopCropping();
+    }
+    
+    public ImageFormat getSnapshotImageFormat() {
+    	return (ImageFormat) getAttribute(SNAPSHOT_IMAGE_FORMAT);
+    }
+    
+    public int getSnapshotPngCompression() {
+    	return (Integer) getAttribute(SNAPSHOT_PNG_COMPRESSION);
     }
 
     public boolean getCaptureSnapshot() {
@@ -1223,18 +1271,7 @@ public class SeleniumTestsContext {
     }
 
     public int getExplicitWaitTimeout() {
-        Integer timeout;
-        try {
-            timeout = (Integer) getAttribute(EXPLICIT_WAIT_TIME_OUT);
-        } catch (Exception e) {
-            timeout = DEFAULT_EXPLICIT_WAIT_TIME_OUT;
-        }
-
-        if (timeout < getImplicitWaitTimeout()) {
-            return getImplicitWaitTimeout();
-        } else {
-            return timeout;
-        }
+        return getTechnicalSettings().getExplicitWaitTimeout();
     }
 
     public String getFirefoxBinPath() {
@@ -1282,23 +1319,31 @@ public class SeleniumTestsContext {
     }
     
     public boolean getOverrideSeleniumNativeAction() {
-    	return (Boolean) getAttribute(OVERRIDE_SELENIUM_NATIVE_ACTION);
+    	return getTechnicalSettings().getOverrideSeleniumNativeAction();
     }
 
     public int getImplicitWaitTimeout() {
-        try {
-            return (Integer) getAttribute(IMPLICIT_WAIT_TIME_OUT);
-        } catch (Exception e) {
-            return DEFAULT_IMPLICIT_WAIT_TIME_OUT;
-        }
+        return getTechnicalSettings().getImplicitWaitTimeout();
     }
     
     public int getReplayTimeout() {
-    	try {
-    		return (Integer) getAttribute(REPLAY_TIME_OUT);
-    	} catch (Exception e) {
-    		return DEFAULT_REPLAY_TIME_OUT;
-    	}
+    	return getTechnicalSettings().getReplayTimeout();
+    }
+    
+    public SettleMode getActionSettleMode() {
+    	return getTechnicalSettings().getActionSettleMode();
+    }
+    
+    public int getActionSettleDelay() {
+    	return getTechnicalSettings().getActionSettleDelay();
+    }
+    
+    public SettleMode getCompositeActionSettleMode() {
+    	return getTechnicalSettings().getCompositeActionSettleMode();
+    }
+    
+    public int getCompositeActionSettleDelay() {
+    	return getTechnicalSettings().getCompositeActionSettleDelay();
     }
     
     public PageLoadStrategy getPageLoadStrategy() {
@@ -1339,7 +1384,7 @@ public class SeleniumTestsContext {
     }
     
 	public Boolean getMaskedPassword() {
-		return (Boolean) getAttribute(MASK_PASSWORD);
+		return getTechnicalSettings().getMaskedPassword();
 	}
 	
 	public ITestResult getTestNGResult() {
@@ -1400,11 +1445,11 @@ public class SeleniumTestsContext {
     }
     
     public ElementInfo.Mode getAdvancedElementSearch() {
-    	return (ElementInfo.Mode) getAttribute(ADVANCED_ELEMENT_SEARCH);
+    	return getTechnicalSettings().getAdvancedElementSearch();
     }
 
     public TestType getTestType() {
-        return (TestType) getAttribute(TEST_TYPE);
+        return getTechnicalSettings().getTestType();
     }
 
     public boolean isDriverCreationBlocked() {
@@ -1501,7 +1546,7 @@ public class SeleniumTestsContext {
     }
 
     public DriverMode getRunMode() {
-        return (DriverMode) getAttribute(RUN_MODE);
+        return getTechnicalSettings().getRunMode();
     }
     
     public List<String> getNodeTags() {
@@ -1512,9 +1557,21 @@ public class SeleniumTestsContext {
     		return extTools;
     	}
     }
+    
+    public int getGridSessionPool() {
+    	return (Integer) getAttribute(GRID_SESSION_POOL);
+    }
+    
+    public int getGridSessionPoolMaxIdle() {
+    	return (Integer) getAttribute(GRID_SESSION_POOL_MAX_IDLE);
+    }
+    
+    public int getGridSessionPoolMaxUses() {
+    	return (Integer) getAttribute(GRID_SESSION_POOL_MAX_USES);
+    }
 
     public List<DebugMode> getDebug() {
-    	return (List<DebugMode>) getAttribute(DEBUG);
+    	return getTechnicalSettings().getDebug();
     }
     
     public boolean isHeadlessBrowser() {
@@ -1522,7 +1579,7 @@ public class SeleniumTestsContext {
     }
     
     public boolean isManualTestSteps() {
-    	return (Boolean) getAttribute(MANUAL_TEST_STEPS);
+    	return getTechnicalSettings().isManualTestSteps();
     }
     
 	public Map<String, String> getDeviceList() {
@@ -1690,7 +1747,35 @@ public class SeleniumTestsContext {
     }
 
     public void setAttribute(final String name, final Object value) {
-        contextDataMap.put(name, value);
+    	synchronized (this) {
+    		if (contextDataShared) {
+    			contextDataMap = Collections.synchronizedMap(new HashMap<>(contextDataMap));
+    			contextDataShared = false;
+    		}
+    		contextDataMap.put(name, value);
+    		contextDataVersion++;
+    		technicalSettings = null;
+    	}
+    }
+    
+    /**
+     * Returns the technical parameters read on each action (timeouts, snapshot settings, ...), without needing any lock
+     * The returned object never changes. Changing a parameter in context creates a new one
+     * @return
+     */
+    public TechnicalSettings getTechnicalSettings() {
+    	TechnicalSettings settings = technicalSettings;
+    	if (settings == null) {
+    		int version = contextDataVersion;
+    		settings = new TechnicalSettings(this);
+    		synchronized (this) {
+    			// do not keep the snapshot if a parameter has been changed while building it
+    			if (version == contextDataVersion) {
+    				technicalSettings = settings;
+    			}
+    		}
+    	}
+    	return settings;
     }
 
     /**
@@ -1777,6 +1862,54 @@ public class SeleniumTestsContext {
     	}
     }
     
+    public void setActionSettleMode(String settleMode) {
+    	if (settleMode == null) {
+    		setAttribute(ACTION_SETTLE_MODE, DEFAULT_ACTION_SETTLE_MODE);
+    	} else {
+    		try {
+    			SettleMode mode = SettleMode.fromString(settleMode);
+    			if (mode == SettleMode.DEFAULT) {
+    				throw new IllegalArgumentException("'default' settle mode is only valid in ReplayOnError annotation");
+    			}
+    			setAttribute(ACTION_SETTLE_MODE, mode);
+    		} catch (IllegalArgumentException e) {
+    			throw new ConfigurationException(e.getMessage());
+    		}
+    	}
+    }
+    
+    public void setActionSettleDelay(Integer delay) {
+    	if (delay != null && delay >= 0) {
+    		setAttribute(ACTION_SETTLE_DELAY, delay);
+    	} else {
+    		setAttribute(ACTION_SETTLE_DELAY, DEFAULT_ACTION_SETTLE_DELAY);
+    	}
+    }
+    
+    public void setCompositeActionSettleMode(String settleMode) {
+    	if (settleMode == null) {
+    		setAttribute(COMPOSITE_ACTION_SETTLE_MODE, DEFAULT_COMPOSITE_ACTION_SETTLE_MODE);
+    	} else {
+    		try {
+    			SettleMode mode = SettleMode.fromString(settleMode);
+    			if (mode == SettleMode.DEFAULT) {
+    				throw new IllegalArgumentException("'default' settle mode is only valid in ReplayOnError annotation");
+    			}
+    			setAttribute(COMPOSITE_ACTION_SETTLE_MODE, mode);
+    		} catch (IllegalArgumentException e) {
+    			throw new ConfigurationException(e.getMessage());
+    		}
+    	}
+    }
+    
+    public void setCompositeActionSettleDelay(Integer delay) {
+    	if (delay != null && delay >= 0) {
+    		setAttribute(COMPOSITE_ACTION_SETTLE_DELAY, delay);
+    	} else {
+    		setAttribute(COMPOSITE_ACTION_SETTLE_DELAY, DEFAULT_COMPOSITE_ACTION_SETTLE_DELAY);
+    	}
+    }
+    
     public void setArchiveToFile(String filePath) {
     	if (filePath != null) {
     		if (!filePath.endsWith(".zip")) {
@@ -2000,6 +2133,30 @@ public class SeleniumTestsContext {
     	}
     }
     
+    public void setGridSessionPool(Integer poolSize) {
+    	if (poolSize != null && poolSize >= 0) {
+    		setAttribute(GRID_SESSION_POOL, poolSize);
+    	} else {
+    		setAttribute(GRID_SESSION_POOL, DEFAULT_GRID_SESSION_POOL);
+    	}
+    }
+    
+    public void setGridSessionPoolMaxIdle(Integer maxIdle) {
+    	if (maxIdle != null && maxIdle > 0) {
+    		setAttribute(GRID_SESSION_POOL_MAX_IDLE, maxIdle);
+    	} else {
+    		setAttribute(GRID_SESSION_POOL_MAX_IDLE, DEFAULT_GRID_SESSION_POOL_MAX_IDLE);
+    	}
+    }
+    
+    public void setGridSessionPoolMaxUses(Integer maxUses) {
+    	if (maxUses != null && maxUses > 0) {
+    		setAttribute(GRID_SESSION_POOL_MAX_USES, maxUses);
+    	} else {
+    		setAttribute(GRID_SESSION_POOL_MAX_USES, DEFAULT_GRID_SESSION_POOL_MAX_USES);
+    	}
+    }
+    
     public void setMaskPassword(Boolean maskPassword) {
     	if (maskPassword != null) {
     		setAttribute(MASK_PASSWORD, maskPassword);
@@ -2215,6 +2372,28 @@ public class SeleniumTestsContext {
     	}
     }
     
+    /**
+     * Format of the snapshot images. If format cannot be written (webp without ImageIO plugin), PNG is used
+     * @param format
+     */
+    public void setSnapshotImageFormat(String format) {
+    	if (format != null) {
+    		setAttribute(SNAPSHOT_IMAGE_FORMAT, ImageFormat.fromString(format).orDefault());
+    	} else {
+    		setAttribute(SNAPSHOT_IMAGE_FORMAT, DEFAULT_SNAPSHOT_IMAGE_FORMAT);
+    	}
+    }
+    
+    public void setSnapshotPngCompression(Integer compression) {
+    	if (compression == null) {
+    		setAttribute(SNAPSHOT_PNG_COMPRESSION, DEFAULT_SNAPSHOT_PNG_COMPRESSION);
+    	} else if (compression >= 0 && compression <= 9) {
+    		setAttribute(SNAPSHOT_PNG_COMPRESSION, compression);
+    	} else {
+    		throw new ConfigurationException("snapshotPngCompression must be between 0 and 9");
+    	}
+    }
+    
     public void setCaptureSnapshot(Boolean capture) {
     	if (capture != null) {
     		setAttribute(CAPTURE_SNAPSHOT, capture);
@@ -18,6 +18,7 @@ public class StatisticsStorage {
 		public static final String BROWSER = "browser";
 		public static final String STARTUP_DURATION = "startupDuration";
 		public static final String TEST_NAME = "testName";
+		public static final String LOCK_WAIT_DURATION = "lockWaitDuration";
 		
 		String gridHub;
 		String gridNode;
@@ -27,8 +28,16 @@ public class StatisticsStorage {
 		String browserName;
 		Long startupDuration;
 		String testName;
+		Long lockWaitDuration;
 		
 		public DriverUsage(String gridHub, String gridNode, Long startTime, Long duration, String sessionId, String browser, Long startupDuration, String testName) {
+			this(gridHub, gridNode, startTime, duration, sessionId, browser, startupDuration, testName, null);
+		}
+		
+		/**
+		 * @param lockWaitDuration	time spent waiting for other drivers to be created before this one could be created
+		 */
+		public DriverUsage(String gridHub, String gridNode, Long startTime, Long duration, String sessionId, String browser, Long startupDuration, String testName, Long lockWaitDuration) {
 			this.gridHub = gridHub;
 			this.gridNode = gridNode;
 			this.startTime = startTime;
@@ -37,6 +46,7 @@ public class StatisticsStorage {
 			this.browserName = browser;
 			this.startupDuration = startupDuration;
 			this.testName = testName;
+			this.lockWaitDuration = lockWaitDuration;
 		}
 		
 		public String asJson() {
@@ -75,6 +85,10 @@ public class StatisticsStorage {
 			return testName;
 		}
 
+		public Long getLockWaitDuration() {
+			return lockWaitDuration;
+		}
+
 	}
 
 	private static List<DriverUsage> driverUsage = Collections.synchronizedList(new ArrayList<>());
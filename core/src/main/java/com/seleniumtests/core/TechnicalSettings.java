@@ -0,0 +1,169 @@
+/**
+ * Orignal work: Copyright 2015 www.seleniumtests.com
+ * Modified work: Copyright 2016 www.infotel.com
+ * 				Copyright 2017-2019 B.Hecquet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.seleniumtests.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.seleniumtests.driver.BrowserType;
+import com.seleniumtests.driver.DriverMode;
+import com.seleniumtests.driver.TestType;
+import com.seleniumtests.uipage.SettleMode;
+import com.seleniumtests.uipage.htmlelements.ElementInfo;
+import com.seleniumtests.util.logging.DebugMode;
+
+/**
+ * Frozen view of the technical parameters which are read on each action on element (timeouts, snapshot settings, ...)
+ * Reading them from the context data map means a lock and a cast for each value, so they are read once and kept here
+ * A new instance is created by {@link SeleniumTestsContext} each time one of its parameters is changed, so an instance
+ * never changes and can be shared between threads and between copies of a context
+ */
+public class TechnicalSettings {
+
+	private final int replayTimeout;
+	private final int implicitWaitTimeout;
+	private final int explicitWaitTimeout;
+	private final SettleMode actionSettleMode;
+	private final int actionSettleDelay;
+	private final SettleMode compositeActionSettleMode;
+	private final int compositeActionSettleDelay;
+	private final ElementInfo.Mode advancedElementSearch;
+	private final boolean captureSnapshot;
+	private final Integer snapshotTopCropping;
+	private final Integer snapshotBottomCropping;
+	private final List<DebugMode> debug;
+	private final Boolean manualTestSteps;
+	private final Boolean overrideSeleniumNativeAction;
+	private final Boolean maskPassword;
+	private final TestType testType;
+	private final DriverMode runMode;
+
+	/**
+	 * Read parameters from context, with the same default values as the context getters
+	 * @param context
+	 */
+	TechnicalSettings(SeleniumTestsContext context) {
+		replayTimeout = intValue(context.getAttribute(SeleniumTestsContext.REPLAY_TIME_OUT), SeleniumTestsContext.DEFAULT_REPLAY_TIME_OUT);
+		implicitWaitTimeout = intValue(context.getAttribute(SeleniumTestsContext.IMPLICIT_WAIT_TIME_OUT), SeleniumTestsContext.DEFAULT_IMPLICIT_WAIT_TIME_OUT);
+		explicitWaitTimeout = Math.max(intValue(context.getAttribute(SeleniumTestsContext.EXPLICIT_WAIT_TIME_OUT), SeleniumTestsContext.DEFAULT_EXPLICIT_WAIT_TIME_OUT),
+										implicitWaitTimeout);
+		SettleMode actionMode = (SettleMode) context.getAttribute(SeleniumTestsContext.ACTION_SETTLE_MODE);
+		actionSettleMode = actionMode == null ? SeleniumTestsContext.DEFAULT_ACTION_SETTLE_MODE: actionMode;
+		actionSettleDelay = intValue(context.getAttribute(SeleniumTestsContext.ACTION_SETTLE_DELAY), SeleniumTestsContext.DEFAULT_ACTION_SETTLE_DELAY);
+		SettleMode compositeMode = (SettleMode) context.getAttribute(SeleniumTestsContext.COMPOSITE_ACTION_SETTLE_MODE);
+		compositeActionSettleMode = compositeMode == null ? SeleniumTestsContext.DEFAULT_COMPOSITE_ACTION_SETTLE_MODE: compositeMode;
+		compositeActionSettleDelay = intValue(context.getAttribute(SeleniumTestsContext.COMPOSITE_ACTION_SETTLE_DELAY), SeleniumTestsContext.DEFAULT_COMPOSITE_ACTION_SETTLE_DELAY);
+		advancedElementSearch = (ElementInfo.Mode) context.getAttribute(SeleniumTestsContext.ADVANCED_ELEMENT_SEARCH);
+		snapshotTopCropping = (Integer) context.getAttribute(SeleniumTestsContext.SNAPSHOT_TOP_CROPPING);
+		snapshotBottomCropping = (Integer) context.getAttribute(SeleniumTestsContext.SNAPSHOT_BOTTOM_CROPPING);
+		manualTestSteps = (Boolean) context.getAttribute(SeleniumTestsContext.MANUAL_TEST_STEPS);
+		overrideSeleniumNativeAction = (Boolean) context.getAttribute(SeleniumTestsContext.OVERRIDE_SELENIUM_NATIVE_ACTION);
+		maskPassword = (Boolean) context.getAttribute(SeleniumTestsContext.MASK_PASSWORD);
+		testType = (TestType) context.getAttribute(SeleniumTestsContext.TEST_TYPE);
+		runMode = (DriverMode) context.getAttribute(SeleniumTestsContext.RUN_MODE);
+
+		@SuppressWarnings("unchecked")
+		List<DebugMode> debugModes = (List<DebugMode>) context.getAttribute(SeleniumTestsContext.DEBUG);
+		debug = debugModes == null ? null: Collections.unmodifiableList(new ArrayList<>(debugModes));
+
+		Boolean capture = (Boolean) context.getAttribute(SeleniumTestsContext.CAPTURE_SNAPSHOT);
+		if (capture == null) {
+			// safari grid default value set to false
+			capture = !(runMode == DriverMode.GRID && context.getAttribute(SeleniumTestsContext.BROWSER) == BrowserType.SAFARI)
+						&& SeleniumTestsContext.DEFAULT_CAPTURE_SNAPSHOT;
+		}
+		captureSnapshot = capture;
+	}
+
+	private static int intValue(Object value, int defaultValue) {
+		return value instanceof Integer ? (Integer) value: defaultValue;
+	}
+
+	public int getReplayTimeout() {
+		return replayTimeout;
+	}
+
+	public int getImplicitWaitTimeout() {
+		return implicitWaitTimeout;
+	}
+
+	/**
+	 * Explicit wait timeout, never lower than implicit wait timeout
+	 * @return
+	 */
+	public int getExplicitWaitTimeout() {
+		return explicitWaitTimeout;
+	}
+
+	public SettleMode getActionSettleMode() {
+		return actionSettleMode;
+	}
+
+	public int getActionSettleDelay() {
+		return actionSettleDelay;
+	}
+
+	public SettleMode getCompositeActionSettleMode() {
+		return compositeActionSettleMode;
+	}
+
+	public int getCompositeActionSettleDelay() {
+		return compositeActionSettleDelay;
+	}
+
+	public ElementInfo.Mode getAdvancedElementSearch() {
+		return advancedElementSearch;
+	}
+
+	public boolean getCaptureSnapshot() {
+		return captureSnapshot;
+	}
+
+	public Integer getSnapshotTopCropping() {
+		return snapshotTopCropping;
+	}
+
+	public Integer getSnapshotBottomCropping() {
+		return snapshotBottomCropping;
+	}
+
+	public List<DebugMode> getDebug() {
+		return debug;
+	}
+
+	public boolean isManualTestSteps() {
+		return manualTestSteps;
+	}
+
+	public boolean getOverrideSeleniumNativeAction() {
+		return overrideSeleniumNativeAction;
+	}
+
+	public Boolean getMaskedPassword() {
+		return maskPassword;
+	}
+
+	public TestType getTestType() {
+		return testType;
+	}
+
+	public DriverMode getRunMode() {
+		return runMode;
+	}
+}
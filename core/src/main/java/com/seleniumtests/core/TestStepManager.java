@@ -6,6 +6,7 @@ import java.util.concurrent.CopyOnWriteArrayList;
 
 import com.seleniumtests.reporter.logger.TestAction;
 import com.seleniumtests.reporter.logger.TestStep;
+import com.seleniumtests.uipage.htmlelements.ElementInfo;
 
 public class TestStepManager {
 	
@@ -105,6 +106,9 @@ public class TestStepManager {
     	    	stepManager.setRootTestStep(null);
     	    	stepManager.setRunningTestStep(null);
     		}
+    		
+    		// page capture is only reused inside a step
+    		ElementInfo.resetPageCapture();
 	    	
     	}
     	
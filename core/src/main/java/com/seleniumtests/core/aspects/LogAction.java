@@ -20,13 +20,11 @@ package com.seleniumtests.core.aspects;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
-import org.apache.commons.lang3.StringUtils;
 import org.apache.log4j.Logger;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.ProceedingJoinPoint;
@@ -48,6 +46,7 @@ import com.seleniumtests.driver.WebUIDriver;
 import com.seleniumtests.reporter.logger.TestAction;
 import com.seleniumtests.reporter.logger.TestStep;
 import com.seleniumtests.uipage.PageObject;
+import com.seleniumtests.util.logging.CallTrace;
 import com.seleniumtests.util.logging.ScenarioLogger;
 import com.seleniumtests.util.logging.SeleniumRobotLogger;
 
@@ -87,7 +86,6 @@ public class LogAction {
 	
 	private static final Logger logger = SeleniumRobotLogger.getLogger(LogAction.class);
 	private static final ScenarioLogger scenarioLogger = ScenarioLogger.getScenarioLogger(LogAction.class);
-	private static Map<Thread, Integer> indent = Collections.synchronizedMap(new HashMap<>());
 
 	/**
 	 * Intercept actions and log them only if a step is already defined
@@ -112,23 +110,22 @@ public class LogAction {
 	@Around("execution(public * com.seleniumtests.uipage.PageObject+.* (..)) "
 			+ "|| execution(public * com.seleniumtests.uipage.htmlelements.HtmlElement+.* (..))")
 	public Object logDebug(ProceedingJoinPoint joinPoint) throws Throwable {
-		if (LogAction.indent.get(Thread.currentThread()) == null) {
-			LogAction.indent.put(Thread.currentThread(), 0);
+		
+		// this is called for every method of PageObject and HtmlElement, do nothing more than needed when debug is disabled
+		if (!logger.isDebugEnabled()) {
+			return joinPoint.proceed();
 		}
 		
-		String currentIndent = StringUtils.repeat(" ", LogAction.indent.get(Thread.currentThread()));
-		logger.debug(String.format("%sEntering %s", currentIndent, joinPoint.getSignature()));
-		Object reply = null;
+		CallTrace trace = CallTrace.getCurrent();
+		long start = trace.enter(joinPoint.getSignature());
+		Object reply;
 		try {
-			LogAction.indent.put(Thread.currentThread(), LogAction.indent.get(Thread.currentThread()) + 2);
-			reply = joinPoint.proceed(joinPoint.getArgs());
+			reply = joinPoint.proceed();
 		} catch (Throwable e) {
-			logger.debug(String.format("%sError in %s: %s - %s", currentIndent, joinPoint.getSignature(), e.getClass().getName(), e.getMessage()));
+			trace.error(joinPoint.getSignature(), start, e);
 			throw e;
-		} finally {
-			LogAction.indent.put(Thread.currentThread(), LogAction.indent.get(Thread.currentThread()) - 2);
-			logger.debug(String.format("%sFinishing %s: %s", currentIndent, joinPoint.getSignature(), buildReplyValues(reply)));
 		}
+		trace.exit(joinPoint.getSignature(), start, buildReplyValues(reply));
 		return reply;
 	}
 	
@@ -165,7 +162,7 @@ public class LogAction {
 			+ ")"	
 			)
 	public Object logSubTestStep(ProceedingJoinPoint joinPoint) throws Throwable {
-		if (SeleniumTestsContextManager.getThreadContext().isManualTestSteps()) {
+		if (SeleniumTestsContextManager.getThreadContext().getTechnicalSettings().isManualTestSteps()) {
 			return joinPoint.proceed(joinPoint.getArgs());
 		}
 		
@@ -246,7 +243,7 @@ public class LogAction {
 		
 		// skip test logging when manual steps are active. This avoid having steps logged twice.
 		// do not skip configuration step logging so that debugging remains easy
-		if ((SeleniumTestsContextManager.getThreadContext().isManualTestSteps() && !configStep)
+		if ((SeleniumTestsContextManager.getThreadContext().getTechnicalSettings().isManualTestSteps() && !configStep)
 				// skip internal configuration steps
 				|| (joinPoint.getSignature().getDeclaringTypeName().startsWith("com.seleniumtests.core") 
 						// do not skip generic cucumber steps
@@ -286,7 +283,7 @@ public class LogAction {
 			+ "&& !call(public * com.seleniumtests.uipage.htmlelements.HtmlElement+.* (..))" // correction of issue #88
 			+ "|| call(public * org.openqa.selenium.support.ui.Select.* (..)))) && if()")
 	public static boolean isNoNativeActionOverride(ProceedingJoinPoint joinPoint) {
-		return !SeleniumTestsContextManager.getThreadContext().getOverrideSeleniumNativeAction();
+		return !SeleniumTestsContextManager.getThreadContext().getTechnicalSettings().getOverrideSeleniumNativeAction();
 	}
 	
 	@Around("isNoNativeActionOverride(joinPoint)")
@@ -406,7 +403,7 @@ public class LogAction {
 				break;
 			}
 		}
-		return new TestStep(stepNamePrefix + stepName, Reporter.getCurrentTestResult(), pwdToReplace, SeleniumTestsContextManager.getThreadContext().getMaskedPassword());
+		return new TestStep(stepNamePrefix + stepName, Reporter.getCurrentTestResult(), pwdToReplace, SeleniumTestsContextManager.getThreadContext().getTechnicalSettings().getMaskedPassword());
 	}
 	
 	/**
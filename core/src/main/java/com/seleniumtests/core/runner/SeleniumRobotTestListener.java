@@ -50,6 +50,7 @@ import org.testng.internal.TestResult;
 import org.testng.internal.annotations.DisabledRetryAnalyzer;
 
 import com.google.common.collect.Iterables;
+import com.seleniumtests.browserfactory.GridSessionPool;
 import com.seleniumtests.connectors.selenium.SeleniumRobotVariableServerConnector;
 import com.seleniumtests.core.SeleniumTestsContext;
 import com.seleniumtests.core.SeleniumTestsContextManager;
@@ -64,8 +65,12 @@ import com.seleniumtests.driver.screenshots.VideoCaptureMode;
 import com.seleniumtests.reporter.logger.ArchiveMode;
 import com.seleniumtests.reporter.logger.TestStep;
 import com.seleniumtests.reporter.reporters.CommonReporter;
+import com.seleniumtests.reporter.reporters.ReportIndex;
 import com.seleniumtests.reporter.reporters.ReporterControler;
+import com.seleniumtests.uipage.htmlelements.ElementInfo;
+import com.seleniumtests.uipage.htmlelements.ElementInfoStore;
 import com.seleniumtests.util.FileUtility;
+import com.seleniumtests.util.logging.CallTrace;
 import com.seleniumtests.util.logging.ScenarioLogger;
 import com.seleniumtests.util.logging.SeleniumRobotLogger;
 
@@ -314,6 +319,7 @@ public class SeleniumRobotTestListener implements ITestListener, IInvokedMethodL
 	@Override
 	public void onExecutionStart() {
 		suiteList = Collections.synchronizedList(new ArrayList<>());
+		ReportIndex.reset();
 		Unirest.config().reset();
 		Unirest.config().followRedirects(true);
 	}
@@ -347,12 +353,18 @@ public class SeleniumRobotTestListener implements ITestListener, IInvokedMethodL
 
 	@Override
 	public void onExecutionFinish() {
+		
+		// quit grid sessions which have been created for tests that will never come
+		GridSessionPool.closeAll();
+		
         try {
 			Unirest.shutDown();
 		} catch (Exception e) {
 			logger.error("Cannot stop unirest", e);
 		}
         
+        ElementInfoStore.flushStore();
+        
         boolean failed = false;
         boolean skipped = false;
         for (ISuite suite : suiteList) {
@@ -577,6 +589,14 @@ public class SeleniumRobotTestListener implements ITestListener, IInvokedMethodL
 		
 		// unreserve variables
 		unreserveVariables();
+		
+		// write element information collected during test, in background
+		if (SeleniumTestsContextManager.getThreadContext().getAdvancedElementSearch() != ElementInfo.Mode.FALSE) {
+			ElementInfoStore.getInstance().scheduleFlush();
+		}
+		
+		// calls have already been logged, next test starts with an empty trace
+		CallTrace.reset();
 	}
 	
 	/**
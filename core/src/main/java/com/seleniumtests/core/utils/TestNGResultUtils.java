@@ -56,6 +56,7 @@ public class TestNGResultUtils {
 	private static final String CUSTOM_REPORT = "customReport";			// true if the custom result has already been generated
 	private static final String METHOD_NAME = "methodName";				// name of the test method (or the cucumber scenario)
 	private static final String SNAPSHOT_COMPARISON_RESULT = "snapshotComparisonResult";	// the result of snapshot comparison, when enabled
+	private static final String ATTACHMENTS_CLEANED = "attachmentsCleaned";	// true if files not referenced by this finished test have already been deleted
 
 	private TestNGResultUtils() {
 		// nothing to do
@@ -239,6 +240,24 @@ public class TestNGResultUtils {
     	testNGResult.setAttribute(SELENIUM_SERVER_REPORT, recordedToServer);
     }
     
+    /**
+     * 
+     * @param testNGResult
+     * @return true if unused attachments of this result have already been deleted
+     */
+    public static boolean isAttachmentsCleaned(ITestResult testNGResult) {
+    	Boolean cleaned = (Boolean) testNGResult.getAttribute(ATTACHMENTS_CLEANED);
+    	if (cleaned == null) {
+    		return false;
+    	} else {
+    		return cleaned;
+    	}
+    }
+    
+    public static void setAttachmentsCleaned(ITestResult testNGResult, Boolean cleaned) {
+    	testNGResult.setAttribute(ATTACHMENTS_CLEANED, cleaned);
+    }
+    
     /**
      * 
      * @param testNGResult
@@ -69,6 +69,7 @@ import org.openqa.selenium.support.events.EventFiringWebDriver;
 
 import com.neotys.selenium.proxies.NLWebDriver;
 import com.seleniumtests.browserfactory.BrowserInfo;
+import com.seleniumtests.browserfactory.GridSessionPool;
 import com.seleniumtests.connectors.selenium.SeleniumGridConnector;
 import com.seleniumtests.core.StatisticsStorage;
 import com.seleniumtests.core.StatisticsStorage.DriverUsage;
@@ -77,6 +78,7 @@ import com.seleniumtests.customexception.ScenarioException;
 import com.seleniumtests.customexception.WebSessionEndedException;
 import com.seleniumtests.driver.screenshots.VideoRecorder;
 import com.seleniumtests.util.helper.WaitHelper;
+import com.seleniumtests.util.imaging.ImageProcessor;
 import com.seleniumtests.util.logging.SeleniumRobotLogger;
 import com.seleniumtests.util.osutility.OSUtilityFactory;
 
@@ -163,6 +165,31 @@ public class CustomEventFiringWebDriver extends EventFiringWebDriver implements
             "var totalHeight = Math.max(maxDocElementHeight, maxBodyHeight); " +
             "return [totalWidth * pixelRatio, totalHeight * pixelRatio];";
     
+    // install (once per page) observers recording the last DOM change and the number of pending XHR / fetch requests
+    // before any change is observed, last activity is the end of page loading (0 if unknown), not the installation of observers
+    // returns [ms since last activity, pending requests]
+    private static final String JS_GET_DOM_ACTIVITY = 
+    		"if (!window.__seleniumRobotActivity) {" +
+    		"    var activity = {last: (window.performance && performance.timing && performance.timing.domComplete) || 0, pending: 0};" +
+    		"    window.__seleniumRobotActivity = activity;" +
+    		"    var done = function() {activity.pending--; activity.last = Date.now();};" +
+    		"    try {" +
+    		"        new MutationObserver(function() {activity.last = Date.now();}).observe(document, {childList: true, subtree: true, attributes: true, characterData: true});" +
+    		"    } catch (e) {}" +
+    		"    try {" +
+    		"        var send = XMLHttpRequest.prototype.send;" +
+    		"        XMLHttpRequest.prototype.send = function() {activity.pending++; this.addEventListener('loadend', done); return send.apply(this, arguments);};" +
+    		"    } catch (e) {}" +
+    		"    try {" +
+    		"        if (window.fetch) {" +
+    		"            var fetch = window.fetch;" +
+    		"            window.fetch = function() {activity.pending++; var p = fetch.apply(this, arguments); p.then(done, done); return p;};" +
+    		"        }" +
+    		"    } catch (e) {}" +
+    		"}" +
+    		"var a = window.__seleniumRobotActivity;" +
+    		"return [Date.now() - a.last, Math.max(a.pending, 0)];";
+    
     // according to https://www.w3schools.com/jsref/prop_element_scrolltop.asp
     // root scrollable (overflow) element is 'document.body' for safari and 'document.documentElement' for other browsers
     private static final String JS_SCROLL_PARENT = "function getScrollParent(element, includeHidden, browserName) {" + 
@@ -756,6 +783,30 @@ public class CustomEventFiringWebDriver extends EventFiringWebDriver implements
 		} 
 	}
 	
+	/**
+	 * Returns the DOM activity of the current page: [time in ms since last DOM change or XHR / fetch request end, number of pending requests]
+	 * On first call for a page, observers are installed. Changes done before are not seen, so last activity is the end of page loading
+	 * @return	the activity, or null for non web tests or if script result cannot be interpreted
+	 */
+	public List<Long> getDomActivity() {
+		if (!isWebTest) {
+			return null;
+		}
+		Object activity = ((JavascriptExecutor) driver).executeScript(JS_GET_DOM_ACTIVITY);
+		if (!(activity instanceof List)) {
+			return null;
+		}
+		
+		List<Long> activityValues = new ArrayList<>();
+		for (Object value: (List<?>) activity) {
+			if (!(value instanceof Number)) {
+				return null;
+			}
+			activityValues.add(((Number) value).longValue());
+		}
+		return activityValues;
+	}
+	
 	/**
 	 * Return the size of top header when it is 'fixed' positionned
 	 * @return
@@ -923,13 +974,18 @@ public class CustomEventFiringWebDriver extends EventFiringWebDriver implements
 			caps = new MutableCapabilities();
 		}
 		
+		// grid session may be kept for an other test
+		boolean returnedToPool = driverMode == DriverMode.GRID && GridSessionPool.isActive() && GridSessionPool.getInstance().release(driver);
+		
 		// close windows before quitting (this is the only way to close chrome attached browser when it's not started by selenium)
-		try {
-			for (String handle: getWindowHandles()) {
-				driver.switchTo().window(handle);
-				driver.close();
-			}
-		} catch (Throwable e) {}
+		if (!returnedToPool) {
+			try {
+				for (String handle: getWindowHandles()) {
+					driver.switchTo().window(handle);
+					driver.close();
+				}
+			} catch (Throwable e) {}
+		}
 		
 		
 		Long duration = 0L;
@@ -947,9 +1003,14 @@ public class CustomEventFiringWebDriver extends EventFiringWebDriver implements
 				sessionId, 
 				caps.getBrowserName(), 
 				(Long) internalCapabilities.getCapability(DriverUsage.STARTUP_DURATION), 
-				(String) internalCapabilities.getCapability(DriverUsage.TEST_NAME));
+				(String) internalCapabilities.getCapability(DriverUsage.TEST_NAME),
+				(Long) internalCapabilities.getCapability(DriverUsage.LOCK_WAIT_DURATION));
 		StatisticsStorage.addDriverUsage(usage);
 		
+		if (returnedToPool) {
+			return;
+		}
+		
 		try {
 			driver.quit();
 		} catch (WebDriverException e) {
@@ -1184,8 +1245,35 @@ public class CustomEventFiringWebDriver extends EventFiringWebDriver implements
 		}
 	}
 	
+	/**
+	 * Returns an image of the desktop
+	 * In local mode, image is returned as captured, without any encoding. Image is only encoded (by the node) and decoded when captured through grid
+	 * @param driverMode
+	 * @param gridConnector
+	 * @return the image, or null if grid could not capture desktop
+	 */
+	public static BufferedImage captureDesktopToImage(DriverMode driverMode, SeleniumGridConnector gridConnector) {
+		if (driverMode == DriverMode.LOCAL) {
+			return captureDesktopToBuffer();
+		} else if (driverMode == DriverMode.GRID && gridConnector != null) {
+			String screenshotB64 = gridConnector.captureDesktopToBuffer();
+			if (screenshotB64 == null || screenshotB64.isEmpty()) {
+				return null;
+			}
+			try {
+				return ImageProcessor.loadFromB64String(screenshotB64);
+			} catch (IOException e) {
+				logger.error("Cannot read desktop capture: " + e.getMessage());
+				return null;
+			}
+		} else {
+			throw new ScenarioException("driver supports captureDesktopToImage only in local and grid mode");
+		}
+	}
+	
 	/**
 	 * Returns a Base64 string of the desktop
+	 * Prefer captureDesktopToImage() when image is used afterwards, so that it's not encoded / decoded for nothing
 	 * @param driverMode
 	 * @param gridConnector
 	 * @return
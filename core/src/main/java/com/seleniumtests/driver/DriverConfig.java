@@ -113,6 +113,18 @@ public class DriverConfig {
     	return testContext.getNodeTags();
     }
     
+    public int getGridSessionPool() {
+    	return testContext.getGridSessionPool();
+    }
+    
+    public int getGridSessionPoolMaxIdle() {
+    	return testContext.getGridSessionPoolMaxIdle();
+    }
+    
+    public int getGridSessionPoolMaxUses() {
+    	return testContext.getGridSessionPoolMaxUses();
+    }
+    
     public List<DebugMode> getDebug() {
     	return testContext.getDebug();
     }
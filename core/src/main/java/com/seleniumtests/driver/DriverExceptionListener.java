@@ -35,6 +35,7 @@ import org.openqa.selenium.support.events.WebDriverEventListener;
 
 import com.seleniumtests.core.SeleniumTestsContextManager;
 import com.seleniumtests.customexception.WebSessionEndedException;
+import com.seleniumtests.uipage.htmlelements.ElementInfo;
 import com.seleniumtests.util.logging.SeleniumRobotLogger;
 
 public class DriverExceptionListener implements WebDriverEventListener {
@@ -43,12 +44,13 @@ public class DriverExceptionListener implements WebDriverEventListener {
 	
 	@Override
     public void afterChangeValueOf(final WebElement element, final WebDriver driver, CharSequence[] arg2) {
-    	// do nothing
+    	// page has changed, element information must not use the previous capture
+    	ElementInfo.resetPageCapture();
     }
 	
 	@Override
     public void afterClickOn(final WebElement arg0, final WebDriver driver) {
-		// do nothing
+		ElementInfo.resetPageCapture();
 	}
 
 	@Override
@@ -58,17 +60,17 @@ public class DriverExceptionListener implements WebDriverEventListener {
 
 	@Override
     public void afterNavigateBack(final WebDriver arg0) {
-		// do nothing
+		ElementInfo.resetPageCapture();
 	}
 
 	@Override
     public void afterNavigateForward(final WebDriver arg0) {
-		// do nothing
+		ElementInfo.resetPageCapture();
 	}
 
 	@Override
     public void afterNavigateTo(final String arg0, final WebDriver arg1) {
-		// do nothing
+		ElementInfo.resetPageCapture();
 	}
 
     @Override
@@ -116,7 +118,7 @@ public class DriverExceptionListener implements WebDriverEventListener {
     
     @Override
     public void afterNavigateRefresh(WebDriver arg0) {
-    	// do nothing
+    	ElementInfo.resetPageCapture();
     }
 
     @Override
@@ -249,7 +251,7 @@ public class DriverExceptionListener implements WebDriverEventListener {
 
 	@Override
 	public void afterSwitchToWindow(String arg0, WebDriver arg1) {
-		// do nothing
+		ElementInfo.resetPageCapture();
 		
 	}
 
@@ -27,6 +27,7 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.log4j.Logger;
 import org.openqa.selenium.Capabilities;
@@ -89,7 +90,9 @@ public class WebUIDriver {
     private DriverConfig config;
     private WebDriver driver;
     private IWebDriverFactory webDriverBuilder;
-    private final static Object createDriverLock = new Object();
+    private static final Map<BrowserType, Object> createDriverLocks = new ConcurrentHashMap<>();
+    private static final int PID_WAIT_TIMEOUT = 2000;
+    private static final int PID_POLL_INTERVAL = 200;
 
     public WebUIDriver(String name) {
     	if (SeleniumTestsContextManager.getThreadContext() == null) {
@@ -142,81 +145,117 @@ public class WebUIDriver {
         }
         
         logger.info("driver mode: "+ config.getMode());
-
-        synchronized (createDriverLock) {
-        	
-    		// get browser info used to start this driver. It will be used then for managing pids
-        	BrowserInfo browserInfo = webDriverBuilder.getSelectedBrowserInfo();
-        	List<Long> existingPids = new ArrayList<>();
-
-    		// get pid pre-existing the creation of this driver. This helps filtering drivers launched by other tests or users
-    		if (browserInfo != null) {
-        		existingPids.addAll(browserInfo.getDriverAndBrowserPid(new ArrayList<>()));
+        
+        // get browser info used to start this driver. It will be used then for managing pids
+        BrowserInfo browserInfo = webDriverBuilder.getSelectedBrowserInfo();
+
+        // pids of a local browser are found by comparing processes before and after driver creation, so only one driver of the same browser type
+        // can be created at a time. Drivers on grid or on cloud services are created concurrently
+        if (config.getMode() == DriverMode.LOCAL && browserInfo != null) {
+        	long lockStart = System.currentTimeMillis();
+        	synchronized (createDriverLocks.computeIfAbsent(browserInfo.getBrowser(), k -> new Object())) {
+        		long lockWaitDuration = System.currentTimeMillis() - lockStart;
+        		logger.debug(String.format("waited %d ms to create %s driver", lockWaitDuration, browserInfo.getBrowser()));
+        		createWebDriver(browserInfo, lockWaitDuration);
         	}
-        	
-    		TestStep cuurrentTestStep = TestStepManager.getCurrentRootTestStep();
-    		long start = new Date().getTime();
-    		long duration;
-    		
-    		try {
-    			
-    			driver = webDriverBuilder.createWebDriver();
-    		} finally {
-
-    			duration = new Date().getTime() - start;
-    			if (cuurrentTestStep != null) {
-    				cuurrentTestStep.setDurationToExclude(duration);
-    			}
-    			scenarioLogger.info(String.format("driver creation took: %.1f secs", duration / 1000.0));
-    		}
- 
-            WaitHelper.waitForSeconds(2);
-            
-            List<Long> driverPids = new ArrayList<>();
-            
-            // get the created PIDs
-            if (browserInfo != null) {
-    			driverPids = browserInfo.getDriverAndBrowserPid(existingPids);
-    		}
-            
-            // issue #280: we use 'webDriverBuilder.getSelectedBrowserInfo()' as 'browserInfo' variable is null for grid, whereas, 'webDriverBuilder.getSelectedBrowserInfo()'
-            // gets an updated version once the driver has been created on grid
-            driver = handleListeners(driver, webDriverBuilder.getSelectedBrowserInfo(), driverPids);
-            
-            if (driver != null) {
-    			MutableCapabilities caps = ((CustomEventFiringWebDriver)driver).getInternalCapabilities();
-    			caps.setCapability(DriverUsage.STARTUP_DURATION, duration);
-                caps.setCapability(DriverUsage.START_TIME, start);
-
-                // testName is added here, once driver has been created, even if this capability has already been added in IDestkopCapabilitiesFactory. Reason is that 
-                // capability from IDestkopCapabilitiesFactory is not available when we request capabilities from driver.
-                if (config.getTestContext() != null && config.getTestContext().getTestNGResult() != null) {
-	                String testName = TestNGResultUtils.getTestName(config.getTestContext().getTestNGResult());
-	                caps.setCapability(DriverUsage.TEST_NAME, testName);
-                }
+        } else {
+        	createWebDriver(null, 0);
+        }
+        
+		if (config.getBrowserMobProxy() != null) {
+			config.getBrowserMobProxy().newHar(SeleniumTestsContextManager.getThreadContext().getRelativeOutputDir());
+		}
+		
+		if (config.getVideoCapture() != VideoCaptureMode.FALSE && videoRecorder.get() == null) {
+			try {
+				VideoRecorder recorder = CustomEventFiringWebDriver.startVideoCapture(SeleniumTestsContextManager.getThreadContext().getRunMode(), 
+																					SeleniumTestsContextManager.getThreadContext().getSeleniumGridConnector(),
+																					new File(SeleniumTestsContextManager.getThreadContext().getOutputDirectory()),
+																					"videoCapture.avi");
+				videoRecorder.set(recorder);
+			} catch (ScenarioException e) {
+				logger.warn("Video capture won't start: " + e.getMessage());
 			}
-    	
+		}
 
-			if (config.getBrowserMobProxy() != null) {
-				config.getBrowserMobProxy().newHar(SeleniumTestsContextManager.getThreadContext().getRelativeOutputDir());
-			}
+        return driver;
+    }
+    
+    /**
+     * Create the driver and add listeners to it
+     * @param browserInfo			information about local browser. If not null, pids of driver and browser are searched once driver is created
+     * @param lockWaitDuration		time spent waiting for other drivers to be created
+     */
+    private void createWebDriver(BrowserInfo browserInfo, long lockWaitDuration) {
+    	List<Long> existingPids = new ArrayList<>();
+    	
+		// get pid pre-existing the creation of this driver. This helps filtering drivers launched by other tests or users
+		if (browserInfo != null) {
+    		existingPids.addAll(browserInfo.getDriverAndBrowserPid(new ArrayList<>()));
+    	}
+    	
+		TestStep cuurrentTestStep = TestStepManager.getCurrentRootTestStep();
+		long start = new Date().getTime();
+		long duration;
+		
+		try {
 			
-			if (config.getVideoCapture() != VideoCaptureMode.FALSE && videoRecorder.get() == null) {
-				try {
-					VideoRecorder recorder = CustomEventFiringWebDriver.startVideoCapture(SeleniumTestsContextManager.getThreadContext().getRunMode(), 
-																						SeleniumTestsContextManager.getThreadContext().getSeleniumGridConnector(),
-																						new File(SeleniumTestsContextManager.getThreadContext().getOutputDirectory()),
-																						"videoCapture.avi");
-					videoRecorder.set(recorder);
-				} catch (ScenarioException e) {
-					logger.warn("Video capture won't start: " + e.getMessage());
-				}
-			}
-        }
+			driver = webDriverBuilder.createWebDriver();
+		} finally {
 
+			duration = new Date().getTime() - start;
+			if (cuurrentTestStep != null) {
+				cuurrentTestStep.setDurationToExclude(duration);
+			}
+			scenarioLogger.info(String.format("driver creation took: %.1f secs", duration / 1000.0));
+		}
         
-
-        return driver;
+        List<Long> driverPids = new ArrayList<>();
+        
+        // get the created PIDs
+        if (browserInfo != null) {
+			driverPids = waitForCreatedPids(browserInfo, existingPids);
+		}
+        
+        // issue #280: we use 'webDriverBuilder.getSelectedBrowserInfo()' as 'browserInfo' variable is null for grid, whereas, 'webDriverBuilder.getSelectedBrowserInfo()'
+        // gets an updated version once the driver has been created on grid
+        driver = handleListeners(driver, webDriverBuilder.getSelectedBrowserInfo(), driverPids);
+        
+        if (driver != null) {
+			MutableCapabilities caps = ((CustomEventFiringWebDriver)driver).getInternalCapabilities();
+			caps.setCapability(DriverUsage.STARTUP_DURATION, duration);
+            caps.setCapability(DriverUsage.START_TIME, start);
+            caps.setCapability(DriverUsage.LOCK_WAIT_DURATION, lockWaitDuration);
+
+            // testName is added here, once driver has been created, even if this capability has already been added in IDestkopCapabilitiesFactory. Reason is that 
+            // capability from IDestkopCapabilitiesFactory is not available when we request capabilities from driver.
+            if (config.getTestContext() != null && config.getTestContext().getTestNGResult() != null) {
+                String testName = TestNGResultUtils.getTestName(config.getTestContext().getTestNGResult());
+                caps.setCapability(DriverUsage.TEST_NAME, testName);
+            }
+		}
+    }
+    
+    /**
+     * Returns the pids of driver and browser created after 'existingPids' were listed
+     * Instead of waiting a fixed delay for processes to start, list of processes is polled until it's not empty and does not change anymore
+     * @param browserInfo
+     * @param existingPids
+     * @return
+     */
+    private List<Long> waitForCreatedPids(BrowserInfo browserInfo, List<Long> existingPids) {
+    	List<Long> driverPids = browserInfo.getDriverAndBrowserPid(existingPids);
+    	long end = System.currentTimeMillis() + PID_WAIT_TIMEOUT;
+    	
+    	while (System.currentTimeMillis() < end) {
+    		WaitHelper.waitForMilliSeconds(PID_POLL_INTERVAL);
+    		List<Long> newPids = browserInfo.getDriverAndBrowserPid(existingPids);
+    		if (!newPids.isEmpty() && newPids.equals(driverPids)) {
+    			break;
+    		}
+    		driverPids = newPids;
+    	}
+    	return driverPids;
     }
 
     /**
@@ -19,6 +19,10 @@ package com.seleniumtests.driver.screenshots;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.log4j.Logger;
@@ -38,6 +42,8 @@ public class ScreenShot {
     private long duration;
     private boolean isException;
     private String outputDirectory;
+    private boolean exportPending;
+    private Future<?> export;
 
     public ScreenShot() {
         if (SeleniumTestsContextManager.getGlobalContext().getTestNGContext() != null) {
@@ -91,6 +97,7 @@ public class ScreenShot {
     }
     
     public String getHtmlSource() {
+    	waitForExport();
     	if (htmlSourcePath != null) {
     		try {
 				return FileUtils.readFileToString(new File(outputDirectory + "/" + htmlSourcePath));
@@ -137,6 +144,59 @@ public class ScreenShot {
                 + "|PAGE HTML SOURCE:" + this.getFullHtmlPath() + "|PAGE IMAGE:" + this.getFullImagePath();
     }
 
+	/**
+	 * Returns true if image and HTML source files have not been written yet by the background export
+	 * When export is pending, paths can be changed freely (see Snapshot.rename()), files will be written with the new paths
+	 * Callers should synchronize on this object so that the export does not start meanwhile
+	 * @return
+	 */
+	public synchronized boolean isExportPending() {
+		return exportPending;
+	}
+	
+	/**
+	 * Record the background export which will write image and HTML source files
+	 * @param export
+	 */
+	public synchronized void setExport(Future<?> export) {
+		this.export = export;
+	}
+	
+	/**
+	 * Called before the export is submitted so that paths are not changed by moving files
+	 */
+	public synchronized void exportStarted() {
+		exportPending = true;
+	}
+	
+	/**
+	 * Called by the export once files have been written (or export failed)
+	 */
+	public synchronized void exportDone() {
+		exportPending = false;
+	}
+	
+	/**
+	 * Wait for image and HTML source files to be written, if they are exported in background
+	 */
+	public void waitForExport() {
+		Future<?> currentExport;
+		synchronized (this) {
+			currentExport = export;
+		}
+		if (currentExport == null) {
+			return;
+		}
+		
+		try {
+			currentExport.get(ScreenshotUtil.EXPORT_TIMEOUT, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException | TimeoutException e) {
+			logger.error("screenshot could not be written: " + e.getMessage());
+		}
+	}
+
 	public long getDuration() {
 		return duration;
 	}
@@ -20,15 +20,25 @@ package com.seleniumtests.driver.screenshots;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
 import org.apache.log4j.Logger;
 import org.openqa.selenium.Alert;
 import org.openqa.selenium.Dimension;
@@ -47,6 +57,8 @@ import com.seleniumtests.driver.CustomEventFiringWebDriver;
 import com.seleniumtests.driver.WebUIDriver;
 import com.seleniumtests.util.FileUtility;
 import com.seleniumtests.util.HashCodeGenerator;
+import com.seleniumtests.util.imaging.ImageFileWriter;
+import com.seleniumtests.util.imaging.ImageFileWriter.ImageFormat;
 import com.seleniumtests.util.imaging.ImageProcessor;
 import com.seleniumtests.util.logging.SeleniumRobotLogger;
 
@@ -62,6 +74,14 @@ public class ScreenshotUtil {
     private static final String SCREENSHOT_DIR = "screenshots/";
     private static final String HTML_DIR = "htmls/";
     
+    public static final String SCREENSHOT_EXPORT_THREADS = "screenshotExportThreads";
+    public static final String SCREENSHOT_EXPORT_QUEUE_SIZE = "screenshotExportQueueSize";
+    public static final int EXPORT_TIMEOUT = 60;
+    private static final int DEFAULT_EXPORT_THREADS = 2;
+    private static final int DEFAULT_EXPORT_QUEUE_SIZE = 20;
+    private static ThreadPoolExecutor exportExecutor;
+    private static final Queue<Future<?>> pendingExports = new ConcurrentLinkedQueue<>();
+    
     @Deprecated
     public enum Target {SCREEN, PAGE}
 	
@@ -289,7 +309,7 @@ public class ScreenshotUtil {
     	
     	if (!force && (SeleniumTestsContextManager.getThreadContext() == null 
         		|| getOutputDirectory() == null 
-        		|| !SeleniumTestsContextManager.getThreadContext().getCaptureSnapshot())) {
+        		|| !SeleniumTestsContextManager.getThreadContext().getTechnicalSettings().getCaptureSnapshot())) {
             return new ArrayList<>();
         }
     	
@@ -370,26 +390,9 @@ public class ScreenshotUtil {
         }
 
         try {
-            // Don't capture snapshot for htmlunit
-            if (uiDriver != null && uiDriver.getConfig().getBrowserType() == BrowserType.HTMLUNIT) {
-                return null;
-            }
-
-            TakesScreenshot screenShot = (TakesScreenshot) driver;
-            
-         // TEST_MOBILE
-//                ((AndroidDriver<WebElement>)((CustomEventFiringWebDriver)driver).getWebDriver()).getContextHandles();
-//                ((AndroidDriver<WebElement>)((CustomEventFiringWebDriver)driver).getWebDriver()).context("CHROMIUM");
-         // TEST_MOBILE
-            
-            // android does not support screenshot from webview context, switch temporarly to native_app context to take screenshot
-            if (uiDriver != null && uiDriver.getConfig().getBrowserType() == BrowserType.BROWSER) {
-            	((AndroidDriver<WebElement>)((CustomEventFiringWebDriver)driver).getWebDriver()).context("NATIVE_APP");
-            }
-
-            String screenshotB64 = screenShot.getScreenshotAs(OutputType.BASE64);
-            if (uiDriver != null && uiDriver.getConfig().getBrowserType() == BrowserType.BROWSER) {
-            	((AndroidDriver<WebElement>)((CustomEventFiringWebDriver)driver).getWebDriver()).context("WEBVIEW");
+            String screenshotB64 = capturePageToBase64();
+            if (screenshotB64 == null) {
+            	return null;
             }
             
             BufferedImage capturedImage = ImageProcessor.loadFromB64String(screenshotB64);
@@ -417,6 +420,101 @@ public class ScreenshotUtil {
         return null;
     }
     
+    /**
+     * Capture current page and draw it directly into the given canvas, without creating an intermediate image for cropping
+     * Viewport is cropped (headers / footers) and then, if requested, fitted to the content size: when the last vertical (or horizontal) capture 
+     * would overflow the content, its top (or left) part is removed as it has already been captured
+     * @param canvas				image where capture is drawn
+     * @param destX					x coord where capture is drawn in canvas
+     * @param destY					y coord where capture is drawn in canvas
+     * @param cropTop				number of pixels to remove at the top of the viewport
+     * @param cropBottom			number of pixels to remove at the bottom of the viewport
+     * @param contentDimension		size of the whole page
+     * @param viewDimensions		size of the viewport without scrollbars
+     * @param fitToContent			if true, remove the part of the capture which would overflow the content
+     * @return	the size of the part which has been drawn, or null if nothing could be captured
+     */
+    private java.awt.Dimension capturePageInto(BufferedImage canvas, int destX, int destY, int cropTop, int cropBottom, 
+    		Dimension contentDimension, Dimension viewDimensions, boolean fitToContent) {
+    	if (driver == null) {
+    		return null;
+    	}
+    	
+    	try {
+    		String screenshotB64 = capturePageToBase64();
+    		if (screenshotB64 == null) {
+    			return null;
+    		}
+    		
+    		byte[] screenshotBytes = org.apache.commons.codec.binary.Base64.decodeBase64(screenshotB64.getBytes());
+    		java.awt.Dimension imageSize = ImageProcessor.getImageSize(screenshotBytes);
+    		
+    		int cropX = 0;
+    		int cropY = 0;
+    		int width = imageSize.width;
+    		int height = imageSize.height;
+    		
+    		// in case driver already capture the whole content, do not crop anything as cropping is used to remove static headers when scrolling
+    		if (width != contentDimension.width || height != contentDimension.height) {
+    			cropY = Math.min(cropTop, height);
+    			width = Math.min(width, viewDimensions.width);
+    			height = Math.min(height - cropY, viewDimensions.height - cropTop - cropBottom);
+    		}
+    		
+    		// crop top (or left) of the picture in case of the last vertical (or horizontal) snapshot. It prevents duplication of content
+    		if (fitToContent) {
+    			if (destY + height > contentDimension.height) {
+    				cropY += height - Math.max(0, contentDimension.height - destY);
+    				height = Math.max(0, contentDimension.height - destY);
+    			}
+    			if (destX + width > contentDimension.width) {
+    				cropX += width - Math.max(0, contentDimension.width - destX);
+    				width = Math.max(0, contentDimension.width - destX);
+    			}
+    		}
+    		
+    		if (width > 0 && height > 0) {
+    			ImageProcessor.drawInto(screenshotBytes, cropX, cropY, width, height, canvas, destX, destY);
+    		}
+    		return new java.awt.Dimension(width, height);
+    		
+    	} catch (Exception ex) {
+    		// Ignore all exceptions
+    		logger.error("capturePageScreenshotToString: ", ex);
+    	}
+    	
+    	return null;
+    }
+    
+    /**
+     * Get the raw screenshot of the current page, as returned by the driver
+     * @return	the base64 screenshot, or null for drivers which cannot capture
+     */
+    private String capturePageToBase64() {
+    	// Don't capture snapshot for htmlunit
+        if (uiDriver != null && uiDriver.getConfig().getBrowserType() == BrowserType.HTMLUNIT) {
+            return null;
+        }
+
+        TakesScreenshot screenShot = (TakesScreenshot) driver;
+        
+     // TEST_MOBILE
+//            ((AndroidDriver<WebElement>)((CustomEventFiringWebDriver)driver).getWebDriver()).getContextHandles();
+//            ((AndroidDriver<WebElement>)((CustomEventFiringWebDriver)driver).getWebDriver()).context("CHROMIUM");
+     // TEST_MOBILE
+        
+        // android does not support screenshot from webview context, switch temporarly to native_app context to take screenshot
+        if (uiDriver != null && uiDriver.getConfig().getBrowserType() == BrowserType.BROWSER) {
+        	((AndroidDriver<WebElement>)((CustomEventFiringWebDriver)driver).getWebDriver()).context("NATIVE_APP");
+        }
+
+        String screenshotB64 = screenShot.getScreenshotAs(OutputType.BASE64);
+        if (uiDriver != null && uiDriver.getConfig().getBrowserType() == BrowserType.BROWSER) {
+        	((AndroidDriver<WebElement>)((CustomEventFiringWebDriver)driver).getWebDriver()).context("WEBVIEW");
+        }
+        return screenshotB64;
+    }
+    
     /**
      * Capture desktop screenshot. This is not available for mobile tests
      * @return
@@ -428,14 +526,8 @@ public class ScreenshotUtil {
 		}
 
 		// use driver because, we need remote desktop capture when using grid mode
-		String screenshotB64 =  CustomEventFiringWebDriver.captureDesktopToBase64String(SeleniumTestsContextManager.getThreadContext().getRunMode(), 
-																							SeleniumTestsContextManager.getThreadContext().getSeleniumGridConnector());
-		try {
-			return ImageProcessor.loadFromB64String(screenshotB64);
-		} catch (IOException e) {
-			logger.error("captureDesktopToString: ", e);
-		}
-		return null;
+		return CustomEventFiringWebDriver.captureDesktopToImage(SeleniumTestsContextManager.getThreadContext().getTechnicalSettings().getRunMode(), 
+																SeleniumTestsContextManager.getThreadContext().getSeleniumGridConnector());
     }
     
     /**
@@ -507,8 +599,8 @@ public class ScreenshotUtil {
 
     	Dimension contentDimension = ((CustomEventFiringWebDriver)driver).getContentDimension();
     	Dimension viewDimensions = ((CustomEventFiringWebDriver)driver).getViewPortDimensionWithoutScrollbar();
-    	Integer topPixelsToCrop = SeleniumTestsContextManager.getThreadContext().getSnapshotTopCropping();
-    	Integer bottomPixelsToCrop = SeleniumTestsContextManager.getThreadContext().getSnapshotBottomCropping();
+    	Integer topPixelsToCrop = SeleniumTestsContextManager.getThreadContext().getTechnicalSettings().getSnapshotTopCropping();
+    	Integer bottomPixelsToCrop = SeleniumTestsContextManager.getThreadContext().getTechnicalSettings().getSnapshotBottomCropping();
 
     	
     	// issue #34: prevent getting image from HTMLUnit driver
@@ -536,7 +628,9 @@ public class ScreenshotUtil {
     		maxLoops = 1;
 		}
     	
-    	BufferedImage currentImage = null;
+    	// all viewport captures are drawn into this canvas, so that the page is never copied
+    	BufferedImage currentImage = new BufferedImage(contentDimension.getWidth(), contentDimension.getHeight(), BufferedImage.TYPE_INT_RGB);
+    	boolean captured = false;
     	while (loops < maxLoops) {
 			// do not crop top for the first vertical capture
 			// do not crop bottom for the last vertical capture
@@ -550,45 +644,32 @@ public class ScreenshotUtil {
 				((CustomEventFiringWebDriver)driver).scrollTo(scrollX, scrollY);
 			} catch (JavascriptException e) {}
 			
-			BufferedImage image = capturePage(cropTop, cropBottom);
-			if (image == null) {
+			// first capture is drawn as is, next ones are fitted to the remaining content
+			java.awt.Dimension tileSize = capturePageInto(currentImage, scrollX, currentImageHeight, cropTop, cropBottom, contentDimension, viewDimensions, captured);
+			if (tileSize == null) {
 				logger.error("Cannot capture page");
 				break;
 			}
-			
-			if (currentImage == null) {
-				currentImage = new BufferedImage(contentDimension.getWidth(), contentDimension.getHeight(), BufferedImage.TYPE_INT_RGB);
-				currentImage.createGraphics().drawImage(image, 0, 0, null);
-				currentImageHeight = image.getHeight();
-			} else {
-				
-				// crop top of the picture in case of the last vertical snapshot. It prevents duplication of content
-				if (currentImageHeight + image.getHeight() > contentDimension.getHeight() || scrollX + image.getWidth() > contentDimension.getWidth()) {
-					image = ImageProcessor.cropImage(image, 
-							Math.max(0, image.getWidth() - (contentDimension.getWidth() - scrollX)), 
-							Math.max(0, image.getHeight() - (contentDimension.getHeight() - currentImageHeight)), 
-							Math.min(image.getWidth(), contentDimension.getWidth() - scrollX), 
-							Math.min(image.getHeight(), contentDimension.getHeight() - currentImageHeight));
-				}
-				
-				currentImage = ImageProcessor.concat(currentImage, image, scrollX, currentImageHeight);
-				currentImageHeight += image.getHeight();
-			}
+			captured = true;
+			currentImageHeight += tileSize.height;
 			
 			// all captures done, exit
-			if ((currentImageHeight >= contentDimension.getHeight() && scrollX + image.getWidth() >= contentDimension.getWidth())
+			if ((currentImageHeight >= contentDimension.getHeight() && scrollX + tileSize.width >= contentDimension.getWidth())
 					|| SeleniumTestsContextManager.isAppTest()) {
 				break;
 				
 			// we are at the bottom but something on the right has not been captured, move to the right and go on
 			} else if (currentImageHeight >= contentDimension.getHeight()) {
-				scrollX += image.getWidth();
+				scrollX += tileSize.width;
 				currentImageHeight = 0;
 			}
 
     		loops += 1;
     	}
 
+    	if (!captured) {
+    		return null;
+    	}
     	return currentImage;
     	
     }
@@ -607,6 +688,8 @@ public class ScreenshotUtil {
     
     /**
      * Export buffered image to screenshot object, adding HTML source, title, ...
+     * Paths are computed immediately but image encoding and file writing are done in background (see getExportExecutor()), 
+     * so that test can go on. Use ScreenShot.waitForExport() or waitForPendingExports() before reading files
      * @param image
      * @param prefix
      * @param duration
@@ -615,29 +698,128 @@ public class ScreenshotUtil {
     private ScreenShot exportToScreenshot(NamedBufferedImage namedImage, long duration) {
     	ScreenShot screenShot = new ScreenShot();
     	
-    	
-    	File screenshotFile = exportToFile(namedImage.image);
+    	filename = HashCodeGenerator.getRandomHashCode("web");
+    	String outputSubDirectory = new File(outputDirectory).getName();
+    	ImageFormat imageFormat = SeleniumTestsContextManager.getThreadContext().getSnapshotImageFormat();
+    	int compression = SeleniumTestsContextManager.getThreadContext().getSnapshotPngCompression();
     	
         screenShot.setLocation(namedImage.url);
         screenShot.setTitle(namedImage.title);
-        
-        String outputSubDirectory = new File(outputDirectory).getName();
-        try {
-            FileUtils.writeStringToFile(new File(outputDirectory + "/" + HTML_DIR + filename + ".html"), namedImage.pageSource);
-            screenShot.setHtmlSourcePath(String.format("../%s/%s%s.html", outputSubDirectory, HTML_DIR, filename));
-        } catch (IOException e) {
-            logger.warn("Ex", e);
-        }
+        screenShot.setHtmlSourcePath(String.format("../%s/%s%s.html", outputSubDirectory, HTML_DIR, filename));
+        screenShot.setImagePath(String.format("../%s/%s%s.%s", outputSubDirectory, SCREENSHOT_DIR, filename, imageFormat.getExtension()));
 
     	// record duration of screenshot
     	screenShot.setDuration(duration);
-    	if (screenshotFile.exists()) {
-    		Path pathAbsolute = Paths.get(screenshotFile.getAbsolutePath());
-	        Path pathBase = Paths.get(getOutputDirectory());
-    		screenShot.setImagePath(pathBase.relativize(pathAbsolute).toString());
-    		screenShot.setImagePath(String.format("../%s/%s", outputSubDirectory, pathBase.relativize(pathAbsolute).toString()));
+    	
+    	String screenshotOutputDirectory = screenShot.getOutputDirectory() == null ? outputDirectory: screenShot.getOutputDirectory();
+    	Runnable export = () -> writeScreenshotFiles(screenShot, namedImage, screenshotOutputDirectory, imageFormat, compression);
+    	
+    	screenShot.exportStarted();
+    	ExecutorService executor = getExportExecutor();
+    	if (executor == null) {
+    		export.run();
+    	} else {
+    		Future<?> pendingExport = executor.submit(export);
+    		screenShot.setExport(pendingExport);
+    		pendingExports.removeIf(Future::isDone);
+    		pendingExports.add(pendingExport);
     	}
+    	
 		return screenShot;
     }
+    
+    /**
+     * Write image and HTML source of the screenshot, using the paths the screenshot has when writing (they may have been changed by Snapshot.rename())
+     * If a file cannot be written, its path is reset
+     * @param screenShot
+     * @param namedImage
+     * @param screenshotOutputDirectory		directory from which image and html paths are relative
+     * @param imageFormat					format of the image file
+     * @param compression					PNG compression level
+     */
+    private static void writeScreenshotFiles(ScreenShot screenShot, NamedBufferedImage namedImage, String screenshotOutputDirectory, ImageFormat imageFormat, int compression) {
+    	synchronized (screenShot) {
+    		try {
+	    		File imageFile = new File(screenshotOutputDirectory, screenShot.getImagePath());
+	    		try {
+	    			ImageFileWriter.write(imageFile, namedImage.image, imageFormat, compression);
+	    		} catch (IOException e) {
+	    			logger.warn(String.format("Error writing image %s: %s", imageFile.getName(), e.getMessage()));
+	    		}
+	    		if (!imageFile.exists()) {
+	    			screenShot.setImagePath(null);
+	    		}
+	    		
+	    		File htmlFile = new File(screenshotOutputDirectory, screenShot.getHtmlSourcePath());
+	    		try {
+	    			
+	    			// snapshot has been renamed with report optimization, write a zipped HTML source
+	    			if (htmlFile.getName().endsWith(".zip")) {
+	    				File unzippedHtmlFile = new File(htmlFile.getParentFile(), FilenameUtils.getBaseName(htmlFile.getName()));
+	    				FileUtils.writeStringToFile(unzippedHtmlFile, namedImage.pageSource);
+	    				FileUtils.copyFile(FileUtility.createZipArchiveFromFiles(Arrays.asList(unzippedHtmlFile)), htmlFile);
+	    				unzippedHtmlFile.delete();
+	    			} else {
+	    				FileUtils.writeStringToFile(htmlFile, namedImage.pageSource);
+	    			}
+	    		} catch (IOException e) {
+	    			logger.warn("Ex", e);
+	    			screenShot.setHtmlSourcePath(null);
+	    		}
+    		} finally {
+    			screenShot.exportDone();
+    		}
+    	}
+    }
+    
+    /**
+     * Returns the executor which writes screenshots in background, or null if export must be done synchronously (screenshotExportThreads = 0)
+     * Queue is bounded (screenshotExportQueueSize). When it's full, export is done by the capturing thread which slows down the test 
+     * instead of keeping too many images in memory
+     * @return
+     */
+    public static synchronized ExecutorService getExportExecutor() {
+    	int threads = Integer.getInteger(SCREENSHOT_EXPORT_THREADS, DEFAULT_EXPORT_THREADS);
+    	if (threads <= 0) {
+    		return null;
+    	}
+    	
+    	if (exportExecutor == null) {
+    		AtomicInteger threadIndex = new AtomicInteger();
+    		exportExecutor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, 
+    				new ArrayBlockingQueue<>(Math.max(1, Integer.getInteger(SCREENSHOT_EXPORT_QUEUE_SIZE, DEFAULT_EXPORT_QUEUE_SIZE))), 
+    				runnable -> {
+    					Thread thread = new Thread(runnable, "screenshot-export-" + threadIndex.incrementAndGet());
+    					thread.setDaemon(true);
+    					return thread;
+    				}, 
+    				new ThreadPoolExecutor.CallerRunsPolicy());
+    		exportExecutor.allowCoreThreadTimeOut(true);
+    	}
+    	return exportExecutor;
+    }
+    
+    /**
+     * Wait for all screenshots being exported in background to be written. 
+     * To be called before building reports or cleaning attachments
+     * Several threads may wait at the same time, so each one waits on a copy of pending exports and exports are only 
+     * removed from queue once they are done
+     */
+    public static void waitForPendingExports() {
+    	for (Future<?> pendingExport: new ArrayList<>(pendingExports)) {
+    		try {
+    			pendingExport.get(EXPORT_TIMEOUT, TimeUnit.SECONDS);
+    		} catch (InterruptedException e) {
+    			Thread.currentThread().interrupt();
+    			return;
+    		} catch (ExecutionException | TimeoutException e) {
+    			logger.error("screenshot could not be written: " + e.getMessage());
+    		}
+    		
+    		if (pendingExport.isDone()) {
+    			pendingExports.remove(pendingExport);
+    		}
+    	}
+    }
  
 }
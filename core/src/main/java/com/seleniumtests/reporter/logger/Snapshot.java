@@ -102,54 +102,65 @@ public class Snapshot extends TestAction {
     	}
     	
     	
-    	if (screenshot.getHtmlSourcePath() != null) {
-    		String oldFullPath = screenshot.getFullHtmlPath();
-    		String oldPath = screenshot.getHtmlSourcePath();
-    		File oldFile = new File(oldPath);
-    		String folderName = "";
-    		if (oldFile.getParent() != null) {
-    			folderName = oldFile.getParent().replace(File.separator, "/") + "/";
-    		}
+    	// when files are still being written in background, only change paths. Files will be written with the new name
+    	synchronized (screenshot) {
+    		boolean exportPending = screenshot.isExportPending();
     		
-    		String newName = newBaseName + FilenameUtils.getBaseName(oldFile.getName());
-    		newName = newName.substring(0, Math.min(50, newName.length())) + "." +  FilenameUtils.getExtension(oldFile.getName());
+	    	if (screenshot.getHtmlSourcePath() != null) {
+	    		String oldFullPath = screenshot.getFullHtmlPath();
+	    		String oldPath = screenshot.getHtmlSourcePath();
+	    		File oldFile = new File(oldPath);
+	    		String folderName = "";
+	    		if (oldFile.getParent() != null) {
+	    			folderName = oldFile.getParent().replace(File.separator, "/") + "/";
+	    		}
     		
-    		// if file cannot be moved, go back to old name
-    		try {
-    			oldFile = new File(oldFullPath);
-    			if (SeleniumTestsContextManager.getGlobalContext().getOptimizeReports()) {
-    				screenshot.setHtmlSourcePath(folderName + newName + ".zip");
-    				oldFile = FileUtility.createZipArchiveFromFiles(Arrays.asList(oldFile));
-    			} else {
-    				screenshot.setHtmlSourcePath(folderName + newName);
-    			}
-    			
-				FileUtils.copyFile(oldFile, new File(screenshot.getFullHtmlPath()));
-				new File(oldFullPath).delete();
-				
-			} catch (IOException e) {
-				screenshot.setHtmlSourcePath(oldPath);
-			}
-    	}
-    	if (screenshot.getImagePath() != null) {
-    		String oldFullPath = screenshot.getFullImagePath();
-    		String oldPath = screenshot.getImagePath();
-    		File oldFile = new File(oldPath);
-    		String folderName = "";
-    		if (oldFile.getParent() != null) {
-    			folderName = oldFile.getParent().replace(File.separator, "/") + "/";
-    		}
+	    		String newName = newBaseName + FilenameUtils.getBaseName(oldFile.getName());
+	    		newName = newName.substring(0, Math.min(50, newName.length())) + "." +  FilenameUtils.getExtension(oldFile.getName());
+    		
+	    		if (exportPending) {
+	    			screenshot.setHtmlSourcePath(folderName + newName + (SeleniumTestsContextManager.getGlobalContext().getOptimizeReports() ? ".zip": ""));
+	    		} else {
+		    		// if file cannot be moved, go back to old name
+		    		try {
+		    			oldFile = new File(oldFullPath);
+		    			if (SeleniumTestsContextManager.getGlobalContext().getOptimizeReports()) {
+		    				screenshot.setHtmlSourcePath(folderName + newName + ".zip");
+		    				oldFile = FileUtility.createZipArchiveFromFiles(Arrays.asList(oldFile));
+		    			} else {
+		    				screenshot.setHtmlSourcePath(folderName + newName);
+		    			}
+
+						FileUtils.copyFile(oldFile, new File(screenshot.getFullHtmlPath()));
+						new File(oldFullPath).delete();
+
+					} catch (IOException e) {
+						screenshot.setHtmlSourcePath(oldPath);
+					}
+	    		}
+	    	}
+	    	if (screenshot.getImagePath() != null) {
+	    		String oldFullPath = screenshot.getFullImagePath();
+	    		String oldPath = screenshot.getImagePath();
+	    		File oldFile = new File(oldPath);
+	    		String folderName = "";
+	    		if (oldFile.getParent() != null) {
+	    			folderName = oldFile.getParent().replace(File.separator, "/") + "/";
+	    		}
     		
-    		String newName = newBaseName + FilenameUtils.getBaseName(oldFile.getName());
-    		newName = newName.substring(0, Math.min(50, newName.length())) + "." + FilenameUtils.getExtension(oldFile.getName());
-    		screenshot.setImagePath(folderName + newName);
+	    		String newName = newBaseName + FilenameUtils.getBaseName(oldFile.getName());
+	    		newName = newName.substring(0, Math.min(50, newName.length())) + "." + FilenameUtils.getExtension(oldFile.getName());
+	    		screenshot.setImagePath(folderName + newName);
     		
-    		// if file cannot be moved, go back to old name
-    		try {
-    			Files.move(Paths.get(oldFullPath), Paths.get(screenshot.getFullImagePath()), StandardCopyOption.REPLACE_EXISTING);
-			} catch (IOException e) {
-				screenshot.setImagePath(oldPath);
-			}
+	    		// if file cannot be moved, go back to old name
+	    		if (!exportPending) {
+		    		try {
+		    			Files.move(Paths.get(oldFullPath), Paths.get(screenshot.getFullImagePath()), StandardCopyOption.REPLACE_EXISTING);
+					} catch (IOException e) {
+						screenshot.setImagePath(oldPath);
+					}
+	    		}
+	    	}
     	}
     }
     
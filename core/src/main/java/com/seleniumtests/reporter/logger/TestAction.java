@@ -45,6 +45,7 @@ public class TestAction implements Serializable {
 	protected Throwable actionException;
 	protected String actionExceptionMessage;
 	protected long durationToExclude = 0L; 	// the duration to exclude from the action duration
+	protected long settleDuration = 0L;		// time spent waiting for the page to settle after the action (see ReplayAction)
 	protected List<String> pwdToReplace;
 	protected boolean maskPassword = true;
 	protected boolean encoded = false;		// true if we have encoded messages
@@ -101,6 +102,14 @@ public class TestAction implements Serializable {
 		this.durationToExclude += durationToExclude;
 	}
 
+	public long getSettleDuration() {
+		return settleDuration;
+	}
+
+	public void setSettleDuration(long settleDuration) {
+		this.settleDuration = settleDuration;
+	}
+
 	public String getActionExceptionMessage() {
 		return actionExceptionMessage;
 	}
@@ -121,6 +130,7 @@ public class TestAction implements Serializable {
 		actionJson.put("name", encodeString(name, "json"));
 		actionJson.put("exception", actionException == null ? null: actionException.toString());
 		actionJson.put("failed", failed);
+		actionJson.put("settleDuration", settleDuration);
 		
 		return actionJson;
 	}
@@ -144,6 +154,7 @@ public class TestAction implements Serializable {
 			encodedAction.encoded = true;
 		}
 		encodedAction.durationToExclude = durationToExclude;
+		encodedAction.settleDuration = settleDuration;
 		if (actionException != null) {
 			encodedAction.actionExceptionMessage = actionException.getClass().toString() + ": " + encodeString(actionException.getMessage(), format);
 		}
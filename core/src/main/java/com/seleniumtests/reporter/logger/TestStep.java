@@ -21,7 +21,9 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.json.JSONArray;
@@ -55,6 +57,7 @@ public class TestStep extends TestAction {
 	private List<HarCapture> harCaptures;
 	private List<GenericFile> files;
 	private List<Snapshot> snapshots;
+	private Set<File> attachments;		// files referenced by snapshots and files of this step, registered when they are added
 	private ITestResult testResult;
 	
 	/**
@@ -70,6 +73,7 @@ public class TestStep extends TestAction {
 		files = new ArrayList<>();
 		harCaptures = new ArrayList<>();
 		snapshots = new ArrayList<>();
+		attachments = new LinkedHashSet<>();
 		duration = 0L;
 		startDate = new Date();
 		this.testResult = testResult;
@@ -174,6 +178,7 @@ public class TestStep extends TestAction {
 	}
 	public void addFile(GenericFile file) {
 		files.add(file);
+		registerAttachment(file.getFile() == null ? null: file.getFile().getPath());
 	}
 	
 	/**
@@ -187,6 +192,28 @@ public class TestStep extends TestAction {
 		snapshot.rename(this, stepIdx, snapshots.size() + 1, userGivenName);
 		
 		snapshots.add(snapshot);
+		
+		// files get their final name with rename, so they can be registered now (even if they are still being written)
+		if (snapshot.getScreenshot() != null) {
+			registerAttachment(snapshot.getScreenshot().getFullHtmlPath());
+			registerAttachment(snapshot.getScreenshot().getFullImagePath());
+		}
+	}
+	
+	/**
+	 * Record a file used by this step so that it's kept when unused files are deleted (see ReporterControler)
+	 * Path is resolved once here, instead of each time attachments are listed
+	 * @param path
+	 */
+	private synchronized void registerAttachment(String path) {
+		if (path == null) {
+			return;
+		}
+		try {
+			attachments.add(new File(path).getCanonicalFile());
+		} catch (IOException e) {
+			// file will not be kept
+		}
 	}
 	
 	@Override
@@ -240,24 +267,9 @@ public class TestStep extends TestAction {
 	 * @return
 	 */
 	public List<File> getAllAttachments() {
-		List<File> usedFiles = new ArrayList<>();
-		for (Snapshot snapshot: snapshots) {
-			if (snapshot == null || snapshot.getScreenshot() == null ) {
-				continue;
-			}
-			
-			if (snapshot.getScreenshot().getFullHtmlPath() != null) {
-				try {
-					usedFiles.add(new File(snapshot.getScreenshot().getFullHtmlPath()).getCanonicalFile());
-				} catch (IOException e) {
-				}
-			}
-			if (snapshot.getScreenshot().getFullImagePath() != null) {
-				try {
-					usedFiles.add(new File(snapshot.getScreenshot().getFullImagePath()).getCanonicalFile());
-				} catch (IOException e) {
-				}
-			}
+		List<File> usedFiles;
+		synchronized (this) {
+			usedFiles = new ArrayList<>(attachments);
 		}
 		
 		for (TestAction subStep: stepActions.stream().filter(a -> a instanceof TestStep).collect(Collectors.toList())) {
@@ -294,6 +306,9 @@ public class TestStep extends TestAction {
 		
 		step.failed = failed;
 		step.snapshots = new ArrayList<>(snapshots);
+		synchronized (this) {
+			step.attachments = new LinkedHashSet<>(attachments);
+		}
 		step.files = new ArrayList<>();
 		for (GenericFile file: files) {
 			step.files.add(file.encode(format));
@@ -83,6 +83,24 @@ public abstract class CommonReporter implements IReporter {
 	 */
 	protected abstract void generateReport(Map<ITestContext, Set<ITestResult>> resultSet, String outdir, boolean optimizeReport, boolean finalGeneration);
 	
+	/**
+	 * Update report with the result of a test which has just finished, while other tests may still be running
+	 * By default, report is generated for this single result. Reporters which need all the results (e.g: for a summary) should override 
+	 * this method and get them from index instead of rebuilding them from TestNG suites
+	 * @param testResult		the finished test result
+	 * @param index				all results reported since the beginning of execution, including this one
+	 * @param outdir			where to write results
+	 * @param optimizeReport	should we optimize reports
+	 */
+	public void generateIncrementalReport(ITestResult testResult, ReportIndex index, String outdir, boolean optimizeReport) {
+		Map<ITestContext, Set<ITestResult>> resultSet = new LinkedHashMap<>();
+		Set<ITestResult> testResults = new HashSet<>();
+		testResults.add(testResult);
+		resultSet.put(testResult.getTestContext(), testResults);
+		
+		generateReport(resultSet, outdir, optimizeReport, false);
+	}
+	
 	/**
 	 * Initializes the VelocityEngine
 	 * @return
@@ -59,14 +59,57 @@ public class CustomReporter extends CommonReporter implements IReporter {
 	protected void generateReport(Map<ITestContext, Set<ITestResult>> resultSet, String outdir, boolean optimizeReport,	boolean finalGeneration) {
 		generatedFiles = new ArrayList<>();
 		
+		for (Entry<ITestContext, Set<ITestResult>> entry: resultSet.entrySet()) {
+			for (ITestResult testResult: entry.getValue()) {
+				generateTestReports(entry.getKey(), testResult);
+			}
+		}
+		
+		generateSummaryReports(resultSet);
+	}
+	
+	/**
+	 * Only the finished test gets its reports, summary is computed from all indexed results
+	 */
+	@Override
+	public void generateIncrementalReport(ITestResult testResult, ReportIndex index, String outdir, boolean optimizeReport) {
+		generatedFiles = new ArrayList<>();
+		
+		generateTestReports(testResult.getTestContext(), testResult);
+		generateSummaryReports(index.getResults());
+	}
+	
+	/**
+	 * Generates all custom reports of a test, if not already done
+	 * @param context
+	 * @param testResult
+	 */
+	private void generateTestReports(ITestContext context, ITestResult testResult) {
+		
+		// done in case it was null (issue #81)
+		SeleniumTestsContext testContext = SeleniumTestsContextManager.setThreadContextFromTestResult(context, getTestName(testResult), getClassName(testResult), testResult);
+		
+		if (!TestNGResultUtils.isCustomReportCreated(testResult)) {
+			for (ReportInfo reportInfo: testContext.getCustomTestReports()) {
+				generateTestReport(testResult, reportInfo);
+			}
+		}
+	}
+	
+	/**
+	 * Generates all summary reports
+	 * @param resultSet
+	 */
+	private void generateSummaryReports(Map<ITestContext, Set<ITestResult>> resultSet) {
+		
 		Map<String, Integer> consolidatedResults = new HashMap<>();
 		consolidatedResults.put("pass", 0);
 		consolidatedResults.put("fail", 0);
 		consolidatedResults.put("skip", 0);
 		consolidatedResults.put("total", 0);
 		
-		for (Entry<ITestContext, Set<ITestResult>> entry: resultSet.entrySet()) {
-			for (ITestResult testResult: entry.getValue()) {
+		for (Set<ITestResult> testResults: resultSet.values()) {
+			for (ITestResult testResult: testResults) {
 				if (testResult.isSuccess()) {
 					consolidatedResults.put("pass", consolidatedResults.get("pass") + 1);
 				} else if (testResult.getStatus() == ITestResult.FAILURE) {
@@ -75,23 +118,12 @@ public class CustomReporter extends CommonReporter implements IReporter {
 					consolidatedResults.put("skip", consolidatedResults.get("skip") + 1);
 				}
 				consolidatedResults.put("total", consolidatedResults.get("total") + 1);
-				
-				// done in case it was null (issue #81)
-				SeleniumTestsContext testContext = SeleniumTestsContextManager.setThreadContextFromTestResult(entry.getKey(), getTestName(testResult), getClassName(testResult), testResult);
-				
-
-				if (!TestNGResultUtils.isCustomReportCreated(testResult)) {
-					for (ReportInfo reportInfo: testContext.getCustomTestReports()) {
-						generateTestReport(testResult, reportInfo);
-					}
-				}
 			}
 		}
 		
 		for (ReportInfo reportInfo: SeleniumTestsContextManager.getGlobalContext().getCustomSummaryReports()) {
 			generateSummaryReport(consolidatedResults, reportInfo);
 		}
-		
 	}
 	
 	/**
@@ -186,7 +218,7 @@ public class CustomReporter extends CommonReporter implements IReporter {
 			context.put("parameters", seleniumTestsContext.getContextDataMap());
 			context.put("stacktrace", stack);
 			context.put("failedStep", StringUtility.encodeString(failedStep, reportFormat.toLowerCase()));
-			String logs = SeleniumRobotLogger.getTestLogs().get(getTestName(testResult));
+			String logs = SeleniumRobotLogger.getTestLogs(getTestName(testResult));
 			try {
 				context.put("logs", logs == null ? "Test skipped": StringUtility.encodeString(logs, reportFormat.toLowerCase()));
 			} catch (CustomSeleniumTestsException e) {
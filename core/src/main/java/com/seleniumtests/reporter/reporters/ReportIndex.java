@@ -0,0 +1,138 @@
+/**
+ * Orignal work: Copyright 2015 www.seleniumtests.com
+ * Modified work: Copyright 2016 www.infotel.com
+ * 				Copyright 2017-2019 B.Hecquet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.seleniumtests.reporter.reporters;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+import org.testng.ITestContext;
+import org.testng.ITestResult;
+
+import com.google.gson.JsonObject;
+import com.seleniumtests.core.SeleniumTestsContext;
+import com.seleniumtests.core.SeleniumTestsContextManager;
+import com.seleniumtests.core.utils.TestNGResultUtils;
+import com.seleniumtests.util.logging.SeleniumRobotLogger;
+
+/**
+ * Index of the test results that have already been reported during the current execution
+ * It allows to update reports each time a test finishes, without rebuilding the whole result set from TestNG suites
+ * Only the last result of each test is kept (when a test is retried, the new result replaces the previous one)
+ *
+ * Each added result is also appended, as a json line, to the index file in the output directory so that progress of the execution
+ * can be followed from outside. When the same test appears several times, the last line is the one to consider
+ */
+public class ReportIndex {
+
+	private static final Logger logger = SeleniumRobotLogger.getLogger(ReportIndex.class);
+	public static final String INDEX_FILE_NAME = "results.index";
+
+	private static ReportIndex instance = new ReportIndex();
+
+	private final Map<ITestContext, Map<String, ITestResult>> results = new LinkedHashMap<>();
+	private Path indexFile;
+
+	public static synchronized ReportIndex getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Forget all indexed results. To be called when a new execution starts
+	 */
+	public static synchronized void reset() {
+		instance = new ReportIndex();
+	}
+
+	/**
+	 * Add a finished test result to index
+	 * @param testResult
+	 */
+	public synchronized void add(ITestResult testResult) {
+		results.computeIfAbsent(testResult.getTestContext(), k -> new LinkedHashMap<>())
+			.put(TestNGResultUtils.getHashForTest(testResult), testResult);
+
+		appendToIndexFile(testResult);
+	}
+
+	/**
+	 * Returns the indexed results, grouped by TestNG context, in the order they were added
+	 * @return
+	 */
+	public synchronized Map<ITestContext, Set<ITestResult>> getResults() {
+		Map<ITestContext, Set<ITestResult>> resultSet = new LinkedHashMap<>();
+		for (Entry<ITestContext, Map<String, ITestResult>> entry: results.entrySet()) {
+			resultSet.put(entry.getKey(), new LinkedHashSet<>(entry.getValue().values()));
+		}
+		return resultSet;
+	}
+
+	/**
+	 * Number of tests in index
+	 * @return
+	 */
+	public synchronized int size() {
+		return results.values().stream()
+				.mapToInt(Map::size)
+				.sum();
+	}
+
+	public synchronized Path getIndexFile() {
+		return indexFile;
+	}
+
+	/**
+	 * Write a line describing this result to index file. The file is recreated on first write of an execution
+	 * @param testResult
+	 */
+	private void appendToIndexFile(ITestResult testResult) {
+
+		JsonObject line = new JsonObject();
+		line.addProperty("id", TestNGResultUtils.getHashForTest(testResult));
+		line.addProperty("context", testResult.getTestContext().getName());
+		line.addProperty("name", CommonReporter.getTestName(testResult));
+		line.addProperty("status", testResult.getStatus());
+		line.addProperty("start", testResult.getStartMillis());
+		line.addProperty("duration", testResult.getEndMillis() - testResult.getStartMillis());
+
+		SeleniumTestsContext testContext = TestNGResultUtils.getSeleniumRobotTestContext(testResult);
+		if (testContext != null && testContext.getRelativeOutputDir() != null) {
+			line.addProperty("report", testContext.getRelativeOutputDir() + "/TestReport.html");
+		}
+
+		try {
+			if (indexFile == null) {
+				indexFile = Paths.get(SeleniumTestsContextManager.getGlobalContext().getOutputDirectory(), INDEX_FILE_NAME);
+				Files.createDirectories(indexFile.getParent());
+				Files.deleteIfExists(indexFile);
+			}
+			Files.write(indexFile, (line.toString() + "\n").getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		} catch (IOException e) {
+			logger.warn("Cannot write result index: " + e.getMessage());
+		}
+	}
+}
@@ -18,6 +18,7 @@
 package com.seleniumtests.reporter.reporters;
 
 import java.io.File;
+import java.io.IOException;
 import java.lang.reflect.Field;
 import java.nio.file.Paths;
 import java.util.ArrayList;
@@ -27,6 +28,7 @@ import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.stream.Collectors;
@@ -46,10 +48,12 @@ import com.seleniumtests.core.SeleniumTestsContext;
 import com.seleniumtests.core.SeleniumTestsContextManager;
 import com.seleniumtests.core.utils.TestNGResultUtils;
 import com.seleniumtests.customexception.ScenarioException;
+import com.seleniumtests.driver.screenshots.ScreenshotUtil;
 import com.seleniumtests.driver.screenshots.SnapshotComparisonBehaviour;
 import com.seleniumtests.reporter.logger.TestMessage;
 import com.seleniumtests.reporter.logger.TestMessage.MessageType;
 import com.seleniumtests.reporter.logger.TestStep;
+import com.seleniumtests.util.imaging.ImageFileWriter;
 import com.seleniumtests.util.logging.SeleniumRobotLogger;
 
 /**
@@ -68,12 +72,26 @@ public class ReporterControler implements IReporter {
 		generateReport(xmlSuites, suites, outputDirectory, null);
 	}
 
+	/**
+	 * Generate reports
+	 * @param xmlSuites
+	 * @param suites
+	 * @param outputDirectory
+	 * @param currentTestResult		if not null, this test has just finished and reports are only updated with its result. Full generation
+	 * 								is done when no current test result is given, at the end of test suites
+	 */
 	public void generateReport(List<XmlSuite> xmlSuites, List<ISuite> suites, String outputDirectory, ITestResult currentTestResult) {
 		
+		if (currentTestResult != null) {
+			generateIncrementalReport(currentTestResult, outputDirectory);
+			return;
+		}
+		
 		synchronized (reporterLock) {
 
-			SeleniumRobotLogger.parseLogFile();
-			Map<ITestContext, Set<ITestResult>> resultSet = updateTestSteps(suites, currentTestResult);
+			// screenshots may still be written in background
+			ScreenshotUtil.waitForPendingExports();
+			Map<ITestContext, Set<ITestResult>> resultSet = updateTestSteps(suites);
 			try {
 				new File(SeleniumTestsContextManager.getGlobalContext().getOutputDirectory()).mkdirs();
 			} catch (Exception e) {}
@@ -89,8 +107,11 @@ public class ReporterControler implements IReporter {
 			}
 			
 			// change / add test result according to snapshot comparison results
+			// snapshots may still be sent to server in background
 			if (suiteFinished) {
+				SeleniumRobotSnapshotServerConnector.waitForPendingUploads();
 				changeTestResultWithSnapshotComparison(suites);
+				logger.info("Screenshot writing: " + ImageFileWriter.getStatistics());
 			}
 
 			try {
@@ -125,6 +146,44 @@ public class ReporterControler implements IReporter {
 		}
 	}
 	
+	/**
+	 * Update reports with the result of a test which has just finished
+	 * Only this result is processed (duration, attachments) and given to reporters, which get the other results from the report index 
+	 * JUnit report is only written at the end of test suites
+	 * @param testResult
+	 * @param outputDirectory
+	 */
+	private void generateIncrementalReport(ITestResult testResult, String outputDirectory) {
+		
+		synchronized (reporterLock) {
+			
+			// screenshots may still be written in background
+			ScreenshotUtil.waitForPendingExports();
+			try {
+				new File(SeleniumTestsContextManager.getGlobalContext().getOutputDirectory()).mkdirs();
+			} catch (Exception e) {}
+			
+			updateTestDuration(testResult);
+			
+			Map<ITestContext, Set<ITestResult>> resultSet = new HashMap<>();
+			resultSet.put(testResult.getTestContext(), new HashSet<>(Arrays.asList(testResult)));
+			cleanAttachments(resultSet);
+			
+			ReportIndex index = ReportIndex.getInstance();
+			index.add(testResult);
+			
+			// when the tests are currently running, do optimize reports (for example, html results will have their resources on CDN)
+			for (Class<?> reporterClass: SeleniumTestsContextManager.getGlobalContext().getReporterPluginClasses()) {
+				try {
+					CommonReporter reporter = CommonReporter.getInstance(reporterClass);
+					reporter.generateIncrementalReport(testResult, index, outputDirectory, true);
+				} catch (Exception e) {
+					logger.error("Error generating report", e);
+				}
+			}
+		}
+	}
+	
 	/**
 	 * If snapshot comparison has been enabled, request snapshot server for each test result to know if comparison was successful
 	 * /!\ This method is aimed to be called only once all test suites have been completed 
@@ -139,52 +198,65 @@ public class ReporterControler implements IReporter {
 		
 		SeleniumRobotSnapshotServerConnector snapshotServer = SeleniumRobotSnapshotServerConnector.getInstance();
 		
+		// get results of all test cases at once, so that we do not wait for each of them in turn
+		Map<ISuiteResult, Set<ITestResult>> resultsBySuite = new LinkedHashMap<>();
+		Set<Integer> testCaseInSessionIds = new HashSet<>();
 		for (ISuite suite: suites) {
-			for (String suiteString: suite.getResults().keySet()) {
-				ISuiteResult suiteResult = suite.getResults().get(suiteString);
-				
+			for (ISuiteResult suiteResult: suite.getResults().values()) {
 				Set<ITestResult> resultSet = new HashSet<>(); 
 				resultSet.addAll(suiteResult.getTestContext().getFailedTests().getAllResults());
 				resultSet.addAll(suiteResult.getTestContext().getPassedTests().getAllResults());
 				resultSet.addAll(suiteResult.getTestContext().getSkippedTests().getAllResults());
+				resultsBySuite.put(suiteResult, resultSet);
 				
 				for (ITestResult testResult: resultSet) {
-					
-					// check if we have an id from snapshot server
 					Integer testCaseInSessionId = TestNGResultUtils.getSnapshotTestCaseInSessionId(testResult);
-					if (testCaseInSessionId == null) {
-						continue;
+					if (testCaseInSessionId != null) {
+						testCaseInSessionIds.add(testCaseInSessionId);
 					}
-					boolean snapshotComparisonResult = snapshotServer.getTestCaseInSessionComparisonResult(testCaseInSessionId);
-					TestNGResultUtils.setSnapshotComparisonResult(testResult, snapshotComparisonResult);
+				}
+			}
+		}
+		Map<Integer, Boolean> comparisonResults = snapshotServer.getTestCaseInSessionComparisonResults(testCaseInSessionIds, SeleniumRobotSnapshotServerConnector.COMPARISON_TIMEOUT);
+		
+		for (Entry<ISuiteResult, Set<ITestResult>> suiteEntry: resultsBySuite.entrySet()) {
+			ISuiteResult suiteResult = suiteEntry.getKey();
+			for (ITestResult testResult: suiteEntry.getValue()) {
+				
+				// check if we have an id from snapshot server
+				Integer testCaseInSessionId = TestNGResultUtils.getSnapshotTestCaseInSessionId(testResult);
+				if (testCaseInSessionId == null) {
+					continue;
+				}
+				boolean snapshotComparisonResult = comparisonResults.get(testCaseInSessionId);
+				TestNGResultUtils.setSnapshotComparisonResult(testResult, snapshotComparisonResult);
+				
+				// create a step for snapshot comparison
+				TestStep testStep = new TestStep("Snapshot comparison", testResult, new ArrayList<>(), false);
+				testStep.setFailed(!snapshotComparisonResult);
+				testStep.addMessage(new TestMessage("Comparison " + (snapshotComparisonResult ? "successful": "failed"), snapshotComparisonResult ? MessageType.INFO: MessageType.ERROR));
+				getAllTestSteps(testResult).add(testStep);
+				
+				// based on snapshot comparison flag, change test result or add an other one
+				if (SeleniumTestsContextManager.getGlobalContext().getSeleniumRobotServerCompareSnapshotBehaviour() == SnapshotComparisonBehaviour.CHANGE_TEST_RESULT && !snapshotComparisonResult) {
+					testResult.setStatus(ITestResult.FAILURE);
+					testResult.setThrowable(new ScenarioException("Snapshot comparison failed"));
+				} else if (SeleniumTestsContextManager.getGlobalContext().getSeleniumRobotServerCompareSnapshotBehaviour() == SnapshotComparisonBehaviour.ADD_TEST_RESULT) {
 					
-					// create a step for snapshot comparison
-					TestStep testStep = new TestStep("Snapshot comparison", testResult, new ArrayList<>(), false);
-					testStep.setFailed(!snapshotComparisonResult);
-					testStep.addMessage(new TestMessage("Comparison " + (snapshotComparisonResult ? "successful": "failed"), snapshotComparisonResult ? MessageType.INFO: MessageType.ERROR));
-					getAllTestSteps(testResult).add(testStep);
+					ITestResult newTestResult;
+					try {
+						newTestResult = TestNGResultUtils.copy(testResult, "snapshots-" +testResult.getName(), testResult.getMethod().getDescription() + " FOR SNAPSHOT COMPARISON");
+					} catch (NoSuchFieldException | SecurityException | IllegalArgumentException | IllegalAccessException e) {
+						throw new ScenarioException(e.getMessage(), e);
+					}
 					
-					// based on snapshot comparison flag, change test result or add an other one
-					if (SeleniumTestsContextManager.getGlobalContext().getSeleniumRobotServerCompareSnapshotBehaviour() == SnapshotComparisonBehaviour.CHANGE_TEST_RESULT && !snapshotComparisonResult) {
-						testResult.setStatus(ITestResult.FAILURE);
-						testResult.setThrowable(new ScenarioException("Snapshot comparison failed"));
-					} else if (SeleniumTestsContextManager.getGlobalContext().getSeleniumRobotServerCompareSnapshotBehaviour() == SnapshotComparisonBehaviour.ADD_TEST_RESULT) {
-						
-						ITestResult newTestResult;
-						try {
-							newTestResult = TestNGResultUtils.copy(testResult, "snapshots-" +testResult.getName(), testResult.getMethod().getDescription() + " FOR SNAPSHOT COMPARISON");
-						} catch (NoSuchFieldException | SecurityException | IllegalArgumentException | IllegalAccessException e) {
-							throw new ScenarioException(e.getMessage(), e);
-						}
-						
-						if (snapshotComparisonResult) {
-							newTestResult.setStatus(ITestResult.SUCCESS);
-							suiteResult.getTestContext().getPassedTests().addResult(newTestResult, newTestResult.getMethod());
-						} else {
-							newTestResult.setStatus(ITestResult.FAILURE);
-							newTestResult.setThrowable(new ScenarioException("Snapshot comparison failed"));
-							suiteResult.getTestContext().getFailedTests().addResult(newTestResult, newTestResult.getMethod());
-						}
+					if (snapshotComparisonResult) {
+						newTestResult.setStatus(ITestResult.SUCCESS);
+						suiteResult.getTestContext().getPassedTests().addResult(newTestResult, newTestResult.getMethod());
+					} else {
+						newTestResult.setStatus(ITestResult.FAILURE);
+						newTestResult.setThrowable(new ScenarioException("Snapshot comparison failed"));
+						suiteResult.getTestContext().getFailedTests().addResult(newTestResult, newTestResult.getMethod());
 					}
 				}
 			}
@@ -194,9 +266,8 @@ public class ReporterControler implements IReporter {
 	/**
 	 * Add configurations methods to list of test steps so that they can be used by reporters
 	 * @param suites				List of test suite to parse
-	 * @param currentTestResult		When we generate temp results, we get a current test result so that we do not wait test2 to be executed to get test1 displayed in report
 	 */
-	private Map<ITestContext, Set<ITestResult>> updateTestSteps(List<ISuite> suites, ITestResult currentTestResult) {
+	private Map<ITestContext, Set<ITestResult>> updateTestSteps(List<ISuite> suites) {
 		Map<ITestContext, Set<ITestResult>> allResultSet = new LinkedHashMap<>();
 		
 		for (ISuite suite: suites) {
@@ -228,23 +299,14 @@ public class ReporterControler implements IReporter {
 					continue;
 				}
 				
-				Set<ITestResult> resultSet = removeUnecessaryResults(testContext, currentTestResult);
+				Set<ITestResult> resultSet = removeUnecessaryResults(testContext);
 
 				allResultSet.put(testContext, resultSet);
 			}
 
 			for (Set<ITestResult> resultSet: allResultSet.values()) {
 				for (ITestResult testResult: resultSet) {
-					List<TestStep> testSteps = getAllTestSteps(testResult);
-					
-					Long testDuration = 0L;
-					synchronized (testSteps) {
-						for (TestStep step: testSteps) {
-							testDuration += step.getDuration();
-						}
-					}
-					
-					testResult.setEndMillis(testResult.getStartMillis() + testDuration);
+					updateTestDuration(testResult);
 				}
 			}
 		}
@@ -252,15 +314,31 @@ public class ReporterControler implements IReporter {
 		return allResultSet;
 	}
 	
+	/**
+	 * Test duration is the sum of its step durations
+	 * @param testResult
+	 */
+	private void updateTestDuration(ITestResult testResult) {
+		List<TestStep> testSteps = getAllTestSteps(testResult);
+		
+		Long testDuration = 0L;
+		synchronized (testSteps) {
+			for (TestStep step: testSteps) {
+				testDuration += step.getDuration();
+			}
+		}
+		
+		testResult.setEndMillis(testResult.getStartMillis() + testDuration);
+	}
+	
 	/**
 	 * Remove duplicated results (when a test is reexecuted, we have several results for the same scenario)
 	 * 
 	 * TODO: see if we could remove the same method in SeleniumRobotTestListener
 	 * @param context
-	 * @param currentTestResult
 	 * @return
 	 */
-	public Set<ITestResult> removeUnecessaryResults(ITestContext context, ITestResult currentTestResult) {
+	public Set<ITestResult> removeUnecessaryResults(ITestContext context) {
 		
 		// copy current results in context so that it does not change during processing when several threads are used
 		List<ITestResult> allResults = new ArrayList<>();
@@ -271,10 +349,6 @@ public class ReporterControler implements IReporter {
 		allResults.addAll(passedTests);
 		allResults.addAll(failedTests);
 		allResults.addAll(skippedTests);
-		
-		if (currentTestResult != null && currentTestResult.getTestContext().equals(context)) {
-			allResults.add(currentTestResult);
-		}
 
 		// get an ordered list of test results so that we keep the last one of each test
 		allResults = allResults.stream()
@@ -312,23 +386,16 @@ public class ReporterControler implements IReporter {
 		resultSet.addAll(context.getPassedTests().getAllResults());
 		resultSet.addAll(context.getSkippedTests().getAllResults());
 		
-		// it's our current result, so we want if context matches
-		if (currentTestResult != null && currentTestResult.getTestContext().equals(context)) {
-			resultSet.add(currentTestResult);
-		}
-		
 		return resultSet;
 	}
 	
 	/**
 	 * Delete all files in html and screenshot folders that are not directly references by any test step
+	 * Once a test is finished, its files are not checked again
 	 * @param suites
 	 */
 	private void cleanAttachments(Map<ITestContext, Set<ITestResult>> resultSet) {
 		
-		List<File> usedFiles = new ArrayList<>();
-		List<File> allFiles = new ArrayList<>();
-		
 		Set<ITestResult> allResultsSet = new HashSet<>();
 		for (Set<ITestResult> rs: resultSet.values()) {
 			allResultsSet.addAll(rs);
@@ -336,40 +403,57 @@ public class ReporterControler implements IReporter {
 		
 		for (ITestResult testResult: allResultsSet) {
 			
+			// files of a finished test do not change anymore, no need to check them again on next report generation
+			if (TestNGResultUtils.isAttachmentsCleaned(testResult)) {
+				continue;
+			}
+			
 			// without context, nothing can be done
 			SeleniumTestsContext testContext = TestNGResultUtils.getSeleniumRobotTestContext(testResult);
 			if (testContext == null) {
 				continue;
 			}
 			
-			// get files referenced by the steps
+			// get files referenced by the steps. They are registered by the steps when snapshots / files are added
+			Set<File> usedFiles = new HashSet<>();
 			for (TestStep testStep: testContext.getTestStepManager().getTestSteps()) {
 				usedFiles.addAll(testStep.getAllAttachments());
 			}
 			
 			String outputSubDirectory = new File(testContext.getOutputDirectory()).getName();
 			String outputDirectoryParent = new File(testContext.getOutputDirectory()).getParent();
-			File htmlDir = Paths.get(outputDirectoryParent, outputSubDirectory, "htmls").toFile();
-			File htmlBeforeDir = Paths.get(outputDirectoryParent, "before-" + outputSubDirectory, "htmls").toFile();
-			File screenshotDir = Paths.get(outputDirectoryParent, outputSubDirectory, "screenshots").toFile();
-			File screenshotBeforeDir = Paths.get(outputDirectoryParent, "before-" + outputSubDirectory, "screenshots").toFile();
 			
-			// get list of existing files
-			if (htmlDir.isDirectory()) {
-				allFiles.addAll(Arrays.asList(htmlDir.listFiles()));
-			}
-			if (screenshotDir.isDirectory()) {
-				allFiles.addAll(Arrays.asList(screenshotDir.listFiles()));
+			for (File directory: Arrays.asList(Paths.get(outputDirectoryParent, outputSubDirectory, "htmls").toFile(),
+												Paths.get(outputDirectoryParent, outputSubDirectory, "screenshots").toFile(),
+												Paths.get(outputDirectoryParent, "before-" + outputSubDirectory, "htmls").toFile(),
+												Paths.get(outputDirectoryParent, "before-" + outputSubDirectory, "screenshots").toFile())) {
+				deleteUnusedFiles(directory, usedFiles);
 			}
-			if (htmlBeforeDir.isDirectory()) {
-				allFiles.addAll(Arrays.asList(htmlBeforeDir.listFiles()));
-			}
-			if (screenshotBeforeDir.isDirectory()) {
-				allFiles.addAll(Arrays.asList(screenshotBeforeDir.listFiles()));
+			
+			if (testResult.getStatus() == ITestResult.SUCCESS || testResult.getStatus() == ITestResult.FAILURE || testResult.getStatus() == ITestResult.SKIP) {
+				TestNGResultUtils.setAttachmentsCleaned(testResult, true);
 			}
 		}		
+	}
+	
+	/**
+	 * Delete files of the directory which are not in the used files
+	 * @param directory
+	 * @param usedFiles		canonical files
+	 */
+	private void deleteUnusedFiles(File directory, Set<File> usedFiles) {
+		if (!directory.isDirectory()) {
+			return;
+		}
+		
+		// listed files are canonical if their directory is, so that they can be compared to used files without resolving each of them
+		try {
+			directory = directory.getCanonicalFile();
+		} catch (IOException e) {
+			return;
+		}
 		
-		for (File file: allFiles) {
+		for (File file: directory.listFiles()) {
 			if (!usedFiles.contains(file)) {
 				file.delete();
 			}
@@ -25,7 +25,6 @@ import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.json.JSONObject;
-import org.openqa.selenium.Rectangle;
 import org.testng.IReporter;
 import org.testng.ITestContext;
 import org.testng.ITestResult;
@@ -56,7 +55,7 @@ public class SeleniumRobotServerTestRecorder extends CommonReporter implements I
 	public JSONObject generateExecutionLogs(final ITestResult testResult) {
 		
 		JSONObject executionLogs = new JSONObject();
-		executionLogs.put("logs", SeleniumRobotLogger.getTestLogs().get(TestNGResultUtils.getUniqueTestName(testResult)));
+		executionLogs.put("logs", SeleniumRobotLogger.getTestLogs(TestNGResultUtils.getUniqueTestName(testResult)));
 		
 		// exception handling
 		StringBuilder stackString = new StringBuilder();
@@ -112,6 +111,10 @@ public class SeleniumRobotServerTestRecorder extends CommonReporter implements I
 		} catch (SeleniumRobotServerException | ConfigurationException e) {
 			logger.error("Error contacting selenium robot server", e);
 			return;
+		} finally {
+			if (finalGeneration) {
+				SeleniumRobotSnapshotServerConnector.waitForPendingUploads();
+			}
 		}
 	}
 
@@ -172,10 +175,8 @@ public class SeleniumRobotServerTestRecorder extends CommonReporter implements I
 								continue;
 							}
 							
-							Integer snapshotId = serverConnector.createSnapshot(snapshot, sessionId, testCaseInSessionId, stepResultId);
-							for (Rectangle excludeZone: snapshot.getCheckSnapshot().getExcludeElementsRect()) {
-								serverConnector.createExcludeZones(excludeZone, snapshotId);
-							}
+							// images are sent in background, so that reporting of the next test is not delayed
+							serverConnector.uploadSnapshot(snapshot, sessionId, testCaseInSessionId, stepResultId);
 						}
 					}
 				}
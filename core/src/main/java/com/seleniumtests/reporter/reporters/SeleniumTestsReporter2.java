@@ -33,6 +33,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import org.apache.commons.io.FileUtils;
@@ -52,6 +53,7 @@ import com.seleniumtests.core.SeleniumTestsContext;
 import com.seleniumtests.core.SeleniumTestsContextManager;
 import com.seleniumtests.core.utils.TestNGResultUtils;
 import com.seleniumtests.driver.TestType;
+import com.seleniumtests.driver.screenshots.ScreenshotUtil;
 import com.seleniumtests.reporter.logger.TestStep;
 import com.seleniumtests.util.logging.SeleniumRobotLogger;
 
@@ -67,6 +69,9 @@ public class SeleniumTestsReporter2 extends CommonReporter implements IReporter
 	private static final String APPLICATION = "application";
 	private static final String APPLICATION_TYPE = "applicationType";
 	private static final String METHOD_RESULT_FILE_NAME = "methodResultFileName";
+	
+	// output directories where resources have already been copied during this run
+	private static final Set<String> resourcesCopied = ConcurrentHashMap.newKeySet();
 
 	protected PrintWriter mOut;
 
@@ -79,10 +84,15 @@ public class SeleniumTestsReporter2 extends CommonReporter implements IReporter
 	
 	/**
 	 * Copy resources necessary for result file
+	 * This is done once per run and output directory, unless resources have been deleted
 	 * @throws IOException
 	 */
 	public void copyResources() throws IOException {
 		
+		if (resourcesCopied.contains(outputDirectory) && Paths.get(outputDirectory, RESOURCES_DIR, "templates").toFile().isDirectory()) {
+			return;
+		}
+		
 		List<String> styleFiles = Arrays.asList("seleniumRobot.css", "seleniumtests_test1.gif",
 											"seleniumtests_test2.gif", "seleniumtests_test3.gif", "seleniumRobot.js");
 		styleFiles = new ArrayList<>(styleFiles);
@@ -115,6 +125,7 @@ public class SeleniumTestsReporter2 extends CommonReporter implements IReporter
 			FileUtils.copyInputStreamToFile(Thread.currentThread().getContextClassLoader().getResourceAsStream("reporter/templates/" + fileName), 
 					destFile);
 		}
+		resourcesCopied.add(outputDirectory);
 	}
 	
 	/**
@@ -142,6 +153,9 @@ public class SeleniumTestsReporter2 extends CommonReporter implements IReporter
 		
 		setOutputDirectory(new File(SeleniumTestsContextManager.getGlobalContext().getOutputDirectory()).getAbsolutePath());     
 		
+		// screenshots may still be written in background
+		ScreenshotUtil.waitForPendingExports();
+		
 		// Generate general report
 		Map<ITestContext, List<ITestResult>> methodResultsMap = new HashMap<>(); 
 		
@@ -162,12 +176,36 @@ public class SeleniumTestsReporter2 extends CommonReporter implements IReporter
 				// HTML report created after each test method cannot contain @AfterClass post steps because they have not already been executed
 				// so we need to regenerate after all tests have executed
 				if (!TestNGResultUtils.isHtmlReportCreated(testResult) || finalGeneration) {
-					generateSingleTestReport(testResult, optimizeReport);
+					writeSingleTestReport(testResult, optimizeReport);
 				}
 			}
 		}
 	}
 	
+	/**
+	 * Generate the report of the finished test and update summary with all indexed results
+	 * Reports of other tests are not regenerated
+	 * Pending screenshot exports have already been waited for by ReporterControler
+	 */
+	@Override
+	public void generateIncrementalReport(ITestResult testResult, ReportIndex index, String outdir, boolean optimizeReport) {
+		if (SeleniumTestsContextManager.getGlobalContext().getTestNGContext() == null) {
+			logger.error("Looks like your class does not extend from SeleniumTestPlan!");
+			return;
+		}
+		
+		setOutputDirectory(new File(SeleniumTestsContextManager.getGlobalContext().getOutputDirectory()).getAbsolutePath());
+		
+		try {
+			generateSuiteSummaryReport(index.getResults(), optimizeReport);
+			copyResources();
+		} catch (IOException e) {
+			logger.error("Error writing summary report", e);
+		}
+		
+		writeSingleTestReport(testResult, optimizeReport);
+	}
+	
 	/**
 	 * Generate HTML report for a single test
 	 * @param testResult
@@ -177,13 +215,30 @@ public class SeleniumTestsReporter2 extends CommonReporter implements IReporter
 		generateSingleTestReport(testResult, false);
 	}
 	public void generateSingleTestReport(ITestResult testResult, boolean resourcesFromCdn) {
+		
+		// screenshots may still be written in background
+		ScreenshotUtil.waitForPendingExports();
+		
+		try {
+			copyResources();
+		} catch (IOException e) {
+			logger.error("Error copying report resources", e);
+		}
+		
+		writeSingleTestReport(testResult, resourcesFromCdn);
+	}
+	
+	/**
+	 * Write HTML report for a single test. Global resources must have been copied and screenshots written before
+	 * @param testResult
+	 * @param resourcesFromCdn
+	 */
+	private void writeSingleTestReport(ITestResult testResult, boolean resourcesFromCdn) {
 
 		// issue #81: recreate test context from this context (due to multithreading, this context may be null if parallel testing is done)
 		SeleniumTestsContext testContext = SeleniumTestsContextManager.setThreadContextFromTestResult(testResult.getTestContext(), getTestName(testResult), getClassName(testResult), testResult);
 		
 		try {
-			copyResources();
-			
 			// issue #284: copy resources specific to the single test report. They are moved here so that the file can be used without global resources
 			FileUtils.copyInputStreamToFile(Thread.currentThread().getContextClassLoader().getResourceAsStream("reporter/templates/seleniumRobot_solo.css"), Paths.get(testContext.getOutputDirectory(), "resources", "seleniumRobot_solo.css").toFile());
 			FileUtils.copyInputStreamToFile(Thread.currentThread().getContextClassLoader().getResourceAsStream("reporter/templates/app.min.js"), Paths.get(testContext.getOutputDirectory(), "resources", "app.min.js").toFile());
@@ -278,7 +333,7 @@ public class SeleniumTestsReporter2 extends CommonReporter implements IReporter
 			context.put("steps", steps);
 			
 			// logs
-			String logs = SeleniumRobotLogger.getTestLogs().get(getTestName(testResult));
+			String logs = SeleniumRobotLogger.getTestLogs(getTestName(testResult));
 			if (logs == null) {
 				logs = "";
 			}
@@ -0,0 +1,83 @@
+/**
+ * Orignal work: Copyright 2015 www.seleniumtests.com
+ * Modified work: Copyright 2016 www.infotel.com
+ * 				Copyright 2017-2019 B.Hecquet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.seleniumtests.uipage;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import com.seleniumtests.core.SeleniumTestsContextManager;
+import com.seleniumtests.driver.CustomEventFiringWebDriver;
+import com.seleniumtests.util.helper.WaitHelper;
+
+/**
+ * Waits for the page to settle after an action, according to a {@link SettleMode}
+ * Used after HtmlElement actions (see ReplayAction) and after composite actions (see CompositeActions)
+ */
+public class ActionPacer {
+
+	private static final int DOM_QUIET_PERIOD = 100;		// DOM must not have changed during this time (ms) to consider page settled
+	private static final int DOM_QUIET_POLLING = 50;
+	private static Clock systemClock = Clock.systemUTC();
+
+	private ActionPacer() {
+		// only static methods
+	}
+
+	/**
+	 * Wait for the page to settle
+	 * @param driver	the driver on which action has been done. DOM_QUIET mode needs a CustomEventFiringWebDriver, else it behaves like FIXED
+	 * @param mode		how to wait
+	 * @param delay		delay (ms) for FIXED mode, maximum wait for DOM_QUIET mode
+	 * @return	the time spent waiting, in ms
+	 */
+	public static long pace(WebDriver driver, SettleMode mode, int delay) {
+		Instant start = systemClock.instant();
+
+		if (mode == SettleMode.DOM_QUIET && SeleniumTestsContextManager.isWebTest() && driver instanceof CustomEventFiringWebDriver) {
+			waitForDomQuiet((CustomEventFiringWebDriver)driver, start.plusMillis(delay));
+		} else if (mode != SettleMode.NONE && delay > 0) {
+			WaitHelper.waitForMilliSeconds(delay);
+		}
+
+		return Duration.between(start, systemClock.instant()).toMillis();
+	}
+
+	/**
+	 * Wait until DOM has not changed and no XHR / fetch request is pending during DOM_QUIET_PERIOD, or until end is reached
+	 * @param driver
+	 * @param end
+	 */
+	private static void waitForDomQuiet(CustomEventFiringWebDriver driver, Instant end) {
+		try {
+			while (end.isAfter(systemClock.instant())) {
+				List<Long> activity = driver.getDomActivity();
+				if (activity == null || activity.size() < 2 || (activity.get(0) >= DOM_QUIET_PERIOD && activity.get(1) == 0)) {
+					return;
+				}
+				WaitHelper.waitForMilliSeconds(DOM_QUIET_POLLING);
+			}
+		} catch (WebDriverException e) {
+			// an alert may be displayed or page is changing, do not wait more as next action will handle it
+		}
+	}
+}
@@ -0,0 +1,30 @@
+/**
+ * Orignal work: Copyright 2015 www.seleniumtests.com
+ * Modified work: Copyright 2016 www.infotel.com
+ * 				Copyright 2017-2019 B.Hecquet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.seleniumtests.uipage;
+
+/**
+ * How ReplayAction computes the delay between 2 attempts of an action, see @ReplayOnError(backoff=...)
+ * 'replayDelayMs' is the base delay, 'maxReplayDelayMs' the maximum one
+ */
+public enum BackoffStrategy {
+	
+	CONSTANT,				// always wait 'replayDelayMs'
+	LINEAR,					// wait 'replayDelayMs' * attempt
+	EXPONENTIAL,			// wait 'replayDelayMs' * 2^(attempt - 1)
+	EXPONENTIAL_JITTER;		// same as EXPONENTIAL, but the second half of the delay is random, so that parallel tests do not retry at the same time
+}
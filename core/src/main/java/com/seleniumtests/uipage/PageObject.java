@@ -92,6 +92,8 @@ public class PageObject extends BasePage implements IPage {
     private ScreenshotUtil screenshotUtil;
     private Clock systemClock;
     private PageLoadStrategy pageLoadStrategy;
+    private SettleMode compositeActionSettleMode = null;	// if null, value from test context is used
+    private Integer compositeActionSettleDelay = null;
 
     /**
      * Constructor for non-entry point page. The control is supposed to have reached the page from other API call.
@@ -1533,4 +1535,29 @@ public class PageObject extends BasePage implements IPage {
 	public void setScreenshotUtil(ScreenshotUtil screenshotUtil) {
 		this.screenshotUtil = screenshotUtil;
 	}
+	
+	/**
+	 * Change the way we wait after composite actions (new Actions(driver)...perform()) called from this page
+	 * e.g: 'none' for a page where many drag and drop are done and page is not animated
+	 * @param mode		settle mode. DEFAULT means to use 'compositeActionSettleMode' parameter
+	 * @param delayMs	delay for this mode
+	 */
+	protected void setCompositeActionSettle(SettleMode mode, int delayMs) {
+		compositeActionSettleMode = mode == SettleMode.DEFAULT ? null: mode;
+		compositeActionSettleDelay = mode == SettleMode.DEFAULT ? null: delayMs;
+	}
+
+	/**
+	 * @return the settle mode for composite actions on this page, or null if the one from test context is used
+	 */
+	public SettleMode getCompositeActionSettleMode() {
+		return compositeActionSettleMode;
+	}
+
+	/**
+	 * @return the settle delay for composite actions on this page, or null if the one from test context is used
+	 */
+	public Integer getCompositeActionSettleDelay() {
+		return compositeActionSettleDelay;
+	}
 }
@@ -37,6 +37,10 @@ import java.lang.annotation.Target;
  *      
  * Only methods calling findElement or any of the similar methods should be annotated because these ones will 
  * act directly on element
+ * After a successful action, ReplayAction waits for the page to settle, see {@link SettleMode}. 
+ * settleMode and settleDelayMs override, for the annotated method, the values defined in test context
+ * Delay between 2 attempts depends on backoff strategy, see {@link BackoffStrategy}. Errors that cannot be solved by replaying
+ * (lost session, crashed browser, invalid selector) are raised immediately
  * @author behe
  *
  */
@@ -46,4 +50,8 @@ import java.lang.annotation.Target;
 public @interface ReplayOnError {
 	public int replayDelayMs() default 300;
 	public int replayTimes() default -1;
+	public BackoffStrategy backoff() default BackoffStrategy.CONSTANT;
+	public int maxReplayDelayMs() default 5000;
+	public SettleMode settleMode() default SettleMode.DEFAULT;
+	public int settleDelayMs() default -1;
 }
@@ -0,0 +1,49 @@
+/**
+ * Orignal work: Copyright 2015 www.seleniumtests.com
+ * Modified work: Copyright 2016 www.infotel.com
+ * 				Copyright 2017-2019 B.Hecquet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.seleniumtests.uipage;
+
+/**
+ * How ReplayAction waits for the page to settle after a successful action on an element
+ * Mode may be set globally through 'actionSettleMode' parameter or for a specific method with @ReplayOnError(settleMode=...)
+ */
+public enum SettleMode {
+	
+	DEFAULT("default"), 		// only for ReplayOnError annotation: use the mode defined in test context
+	NONE("none"),				// do not wait after action
+	FIXED("fixed"),				// wait for 'actionSettleDelay' ms
+	DOM_QUIET("domQuiet");		// wait until DOM does not change anymore and no XHR / fetch request is pending, at most 'actionSettleDelay' ms. Same as FIXED for app tests
+	
+	String settleMode;
+	
+	SettleMode(String settleMode) {
+		this.settleMode = settleMode;
+	}
+	
+	public static SettleMode fromString(String mode) {
+		try {
+			return SettleMode.valueOf(mode);
+		} catch (IllegalArgumentException ex) {
+			for (SettleMode settle : SettleMode.values()) {
+				if (settle.settleMode.equalsIgnoreCase(mode)) {
+					return settle;
+				}
+			}
+			throw new IllegalArgumentException("Unrecognized settle mode: " + mode);
+		}
+	}
+}
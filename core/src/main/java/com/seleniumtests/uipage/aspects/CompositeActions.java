@@ -33,22 +33,50 @@ import org.openqa.selenium.interactions.Interaction;
 import org.openqa.selenium.interactions.Sequence;
 import org.openqa.selenium.support.events.EventFiringWebDriver;
 
+import com.seleniumtests.core.SeleniumTestsContext;
+import com.seleniumtests.core.SeleniumTestsContextManager;
+import com.seleniumtests.core.TechnicalSettings;
+import com.seleniumtests.core.TestStepManager;
 import com.seleniumtests.driver.CustomEventFiringWebDriver;
 import com.seleniumtests.driver.WebUIDriver;
-import com.seleniumtests.util.helper.WaitHelper;
+import com.seleniumtests.reporter.logger.TestStep;
+import com.seleniumtests.uipage.ActionPacer;
+import com.seleniumtests.uipage.PageObject;
+import com.seleniumtests.uipage.SettleMode;
 
 @Aspect
 public class CompositeActions {
 	
 	/**
-	 * Slows down any action performed through CompositeActions by 200 ms
+	 * Waits for the page to settle after any action performed through CompositeActions
+	 * Mode and delay come from the calling PageObject if it defines them, else from 'compositeActionSettleMode' / 'compositeActionSettleDelay' parameters
+	 * Time spent waiting is excluded from the current step duration
 	 * It requires to use {@link EventFiringWebDriver} because we intercept the "perform()" method of any {@link org.openqa.selenium.interactions.Action}
 	 * Eclipse project also need to have its Aspect build path configured with selenium-api artifact
 	 * @param joinPoint
 	 */
 	@After("call(public * org.openqa.selenium.interactions.Action+.perform (..))")
     public void slowDown(JoinPoint joinPoint) {
-		WaitHelper.waitForMilliSeconds(200);
+		SettleMode settleMode = SeleniumTestsContext.DEFAULT_COMPOSITE_ACTION_SETTLE_MODE;
+		int settleDelay = SeleniumTestsContext.DEFAULT_COMPOSITE_ACTION_SETTLE_DELAY;
+		
+		if (SeleniumTestsContextManager.getThreadContext() != null) {
+			TechnicalSettings settings = SeleniumTestsContextManager.getThreadContext().getTechnicalSettings();
+			settleMode = settings.getCompositeActionSettleMode();
+			settleDelay = settings.getCompositeActionSettleDelay();
+		}
+		
+		if (joinPoint.getThis() instanceof PageObject && ((PageObject)joinPoint.getThis()).getCompositeActionSettleMode() != null) {
+			settleMode = ((PageObject)joinPoint.getThis()).getCompositeActionSettleMode();
+			settleDelay = ((PageObject)joinPoint.getThis()).getCompositeActionSettleDelay();
+		}
+		
+		long settleDuration = ActionPacer.pace(WebUIDriver.getWebDriver(false), settleMode, settleDelay);
+		
+		TestStep currentStep = TestStepManager.getParentTestStep();
+		if (currentStep != null) {
+			currentStep.setDurationToExclude(settleDuration);
+		}
 	}
 	
 	/**
@@ -19,6 +19,7 @@ package com.seleniumtests.uipage.aspects;
 
 import java.lang.reflect.Field;
 import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -56,11 +57,16 @@ import com.seleniumtests.driver.BrowserType;
 import com.seleniumtests.driver.CustomEventFiringWebDriver;
 import com.seleniumtests.driver.WebUIDriver;
 import com.seleniumtests.reporter.logger.TestAction;
+import com.seleniumtests.uipage.ActionPacer;
+import com.seleniumtests.uipage.BackoffStrategy;
 import com.seleniumtests.uipage.ReplayOnError;
+import com.seleniumtests.uipage.SettleMode;
+import com.seleniumtests.uipage.htmlelements.ElementInfo;
 import com.seleniumtests.uipage.htmlelements.GenericPictureElement;
 import com.seleniumtests.uipage.htmlelements.HtmlElement;
 import com.seleniumtests.util.helper.WaitHelper;
 import com.seleniumtests.util.logging.ScenarioLogger;
+import com.seleniumtests.util.logging.SeleniumRobotLogger;
 
 /**
  * Aspect to intercept calls to methods of HtmlElement. It allows to retry discovery and action 
@@ -75,6 +81,7 @@ public class ReplayAction {
 
 	private static Clock systemClock = Clock.systemUTC();
 	private static final ScenarioLogger scenarioLogger = ScenarioLogger.getScenarioLogger(ReplayAction.class);
+	private static final Logger logger = SeleniumRobotLogger.getLogger(ReplayAction.class);
 	
 	/**
 	 * Replay all HtmlElement actions annotated by ReplayOnError.
@@ -117,21 +124,37 @@ public class ReplayAction {
 		boolean ignoreFailure = false;
 		Throwable currentException = null;
 		
+		RetryPolicy retryPolicy = new RetryPolicy(replay);
+		int attempt = 0;
+		long frameDuration = 0;
+		long actionDuration = 0;
+		long waitDuration = 0;
+		long settleDuration = 0;
+		
 		try {
 	    	while (end.isAfter(systemClock.instant())) {
 
 	    		// in case we have switched to an iframe for using previous webElement, go to default content
+	    		Instant phaseStart = systemClock.instant();
 	    		if (element.getDriver() != null && SeleniumTestsContextManager.isWebTest()) {
 	    			element.getDriver().switchTo().defaultContent(); // TODO: error when clic is done, closing current window
+	    			frameDuration += Duration.between(phaseStart, systemClock.instant()).toMillis();
+	    			phaseStart = systemClock.instant();
 	    		}
+	    		attempt++;
 		    	
 		    	try {
 		    		reply = joinPoint.proceed(joinPoint.getArgs());
-		    		WaitHelper.waitForMilliSeconds(200);
+		    		actionDuration += Duration.between(phaseStart, systemClock.instant()).toMillis();
+		    		settleDuration = settle(element, replay);
+		    		if (currentAction != null) {
+		    			currentAction.setSettleDuration(settleDuration);
+		    		}
 		    		break;
 		    	} catch (UnhandledAlertException e) {
 		    		throw e;
 		    	} catch (MoveTargetOutOfBoundsException | InvalidElementStateException e) {
+		    		actionDuration += Duration.between(phaseStart, systemClock.instant()).toMillis();
 		    		
 		    		// if click has been intercepted, it means element could not be interacted, so allow auto scrolling for further retries
 		    		// to avoid trying always the same method, we try without scrolling, then with scrolling, then without, ...
@@ -142,6 +165,8 @@ public class ReplayAction {
 		    			element.setScrollToElementBeforeAction(true);
 		    		}
 		    	} catch (WebDriverException e) { 
+		    		actionDuration += Duration.between(phaseStart, systemClock.instant()).toMillis();
+		    		
 		    		// don't prevent TimeoutException to be thrown when coming from waitForPresent
 		    		// only check that cause is the not found element and not an other error (NoSucheSessionError for example)
 		    		if ((e instanceof TimeoutException 
@@ -155,9 +180,17 @@ public class ReplayAction {
 	    				ignoreFailure = true;  
 	    				throw e;
 		    		}
+		    		
+		    		// session lost, browser crashed, invalid selector: replaying won't help
+		    		if (RetryPolicy.isFatal(e)) {
+		    			throw e;
+		    		}
 	
-		    		if (end.minusMillis(replay.replayDelayMs() + 100).isAfter(systemClock.instant())) {
-		    			WaitHelper.waitForMilliSeconds(replay.replayDelayMs());
+		    		long replayDelay = retryPolicy.getDelay(attempt);
+		    		if (end.minusMillis(replayDelay + 100).isAfter(systemClock.instant())) {
+		    			phaseStart = systemClock.instant();
+		    			WaitHelper.waitForMilliSeconds((int)replayDelay);
+		    			waitDuration += Duration.between(phaseStart, systemClock.instant()).toMillis();
 					} else {
 						if (e instanceof NoSuchElementException) {
 							throw new NoSuchElementException("Searched element could not be found");
@@ -191,9 +224,45 @@ public class ReplayAction {
 			
 			// restore element scrolling flag for further uses
     		element.setScrollToElementBeforeAction(false);
+    		
+    		logReplayStatistics(methodName, targetName, attempt, frameDuration, actionDuration, waitDuration, settleDuration);
 		}
    }
     
+	/**
+	 * Write to test log the number of attempts and the time spent in each phase of the action
+	 * When action has been replayed, this is logged as info so that slow elements can be spotted
+	 */
+	private void logReplayStatistics(String methodName, String targetName, int attempts, long frameDuration, long actionDuration, long waitDuration, long settleDuration) {
+		
+		// this is called for every action, do not build the message if it's not logged
+		if (attempts <= 1 && !logger.isDebugEnabled()) {
+			return;
+		}
+		
+		String message = String.format("%s on %s: %d attempt(s), frame switching: %d ms, action: %d ms, waiting for replay: %d ms, settle: %d ms", 
+				methodName, targetName, attempts, frameDuration, actionDuration, waitDuration, settleDuration);
+		if (attempts > 1) {
+			logger.info(message);
+		} else {
+			logger.debug(message);
+		}
+	}
+	
+	/**
+	 * Wait for the page to settle after a successful action on element
+	 * Settle mode and delay come from the ReplayOnError annotation, or from test context if not set in annotation
+	 * @param element
+	 * @param replay
+	 * @return	the time spent waiting, in ms
+	 */
+	private long settle(HtmlElement element, ReplayOnError replay) {
+		SettleMode settleMode = replay.settleMode() == SettleMode.DEFAULT ? SeleniumTestsContextManager.getThreadContext().getTechnicalSettings().getActionSettleMode(): replay.settleMode();
+		int settleDelay = replay.settleDelayMs() >= 0 ? replay.settleDelayMs(): SeleniumTestsContextManager.getThreadContext().getTechnicalSettings().getActionSettleDelay();
+		
+		return ActionPacer.pace(element.getDriver(), settleMode, settleDelay);
+	}
+	
 	/**
 	 * Replay all actions annotated by ReplayOnError if the class is not a subclass of 
 	 * HtmlElement
@@ -204,9 +273,10 @@ public class ReplayAction {
 			+ "&& execution(@com.seleniumtests.uipage.ReplayOnError public * * (..)) && @annotation(replay)")
 	public Object replay(ProceedingJoinPoint joinPoint, ReplayOnError replay) throws Throwable {
 		
-		int replayDelayMs = replay != null ? replay.replayDelayMs(): 100;
+		RetryPolicy retryPolicy = replay != null ? new RetryPolicy(replay): new RetryPolicy(BackoffStrategy.CONSTANT, 100, 100);
+		int attempt = 0;
 		
-		Instant end = systemClock.instant().plusSeconds(SeleniumTestsContextManager.getThreadContext().getReplayTimeout());
+		Instant end = systemClock.instant().plusSeconds(SeleniumTestsContextManager.getThreadContext().getTechnicalSettings().getReplayTimeout());
 		Object reply = null;
 		
 		String targetName = joinPoint.getTarget().toString();
@@ -237,6 +307,7 @@ public class ReplayAction {
 					updateScrollFlagForElement(joinPoint, true, null);
 				}
 				
+				attempt++;
 				try {
 					reply = joinPoint.proceed(joinPoint.getArgs());
 					WaitHelper.waitForMilliSeconds(200);
@@ -248,9 +319,13 @@ public class ReplayAction {
 				} catch (MoveTargetOutOfBoundsException | InvalidElementStateException e) {
 					updateScrollFlagForElement(joinPoint, null, e);
 				} catch (Throwable e) {
+					if (RetryPolicy.isFatal(e)) {
+						throw e;
+					}
 	
+					long replayDelay = retryPolicy.getDelay(attempt);
 					if (end.minusMillis(200).isAfter(systemClock.instant())) {
-						WaitHelper.waitForMilliSeconds(replayDelayMs);
+						WaitHelper.waitForMilliSeconds((int)replayDelay);
 						continue;
 					} else {
 						throw e;
@@ -280,7 +355,11 @@ public class ReplayAction {
 	 */
 	@Around("execution(public void org.openqa.selenium.interactions.Actions.BuiltAction.perform ())")
 	public Object replayCompositeAction(ProceedingJoinPoint joinPoint) throws Throwable {
-		return replay(joinPoint, null);
+		try {
+			return replay(joinPoint, null);
+		} finally {
+			ElementInfo.resetPageCapture();
+		}
 	}
 	
 	/**
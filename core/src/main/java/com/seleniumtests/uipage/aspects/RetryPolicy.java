@@ -0,0 +1,114 @@
+/**
+ * Orignal work: Copyright 2015 www.seleniumtests.com
+ * Modified work: Copyright 2016 www.infotel.com
+ * 				Copyright 2017-2019 B.Hecquet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.seleniumtests.uipage.aspects;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.openqa.selenium.InvalidSelectorException;
+import org.openqa.selenium.NoSuchSessionException;
+import org.openqa.selenium.SessionNotCreatedException;
+
+import com.seleniumtests.customexception.WebSessionEndedException;
+import com.seleniumtests.uipage.BackoffStrategy;
+import com.seleniumtests.uipage.ReplayOnError;
+
+/**
+ * Decides, for ReplayAction, how long to wait before replaying an action and whether an error is worth replaying
+ * 
+ */
+public class RetryPolicy {
+	
+	// messages of WebDriverException telling that browser has crashed. Nothing can be done anymore with this session
+	private static final List<String> FATAL_MESSAGES = Arrays.asList("tab crashed", "page crash", "chrome not reachable");
+	
+	private BackoffStrategy backoff;
+	private int replayDelay;
+	private int maxReplayDelay;
+	
+	public RetryPolicy(ReplayOnError replay) {
+		this(replay.backoff(), replay.replayDelayMs(), replay.maxReplayDelayMs());
+	}
+	
+	public RetryPolicy(BackoffStrategy backoff, int replayDelay, int maxReplayDelay) {
+		this.backoff = backoff;
+		this.replayDelay = Math.max(0, replayDelay);
+		this.maxReplayDelay = Math.max(this.replayDelay, maxReplayDelay);
+	}
+	
+	/**
+	 * Returns the delay to wait before the next attempt
+	 * @param attempt	number of the attempt which just failed, starting at 1
+	 * @return	delay in ms, never more than maxReplayDelay
+	 */
+	public long getDelay(int attempt) {
+		int retry = Math.max(1, attempt);
+		long delay;
+		
+		switch (backoff) {
+			case LINEAR:
+				delay = (long)replayDelay * retry;
+				break;
+			case EXPONENTIAL:
+			case EXPONENTIAL_JITTER:
+				delay = (long)replayDelay << Math.min(retry - 1, 20);
+				break;
+			case CONSTANT:
+			default:
+				return replayDelay;
+		}
+		delay = Math.min(delay, maxReplayDelay);
+		
+		if (backoff == BackoffStrategy.EXPONENTIAL_JITTER && delay > 1) {
+			delay = delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+		}
+		return delay;
+	}
+	
+	/**
+	 * Returns true if the error cannot disappear by replaying the action: session is lost, browser crashed or
+	 * selector is invalid. In this case, it's useless to wait for replay timeout
+	 * @param e
+	 * @return
+	 */
+	public static boolean isFatal(Throwable e) {
+		if (e instanceof NoSuchSessionException 
+				|| e instanceof WebSessionEndedException
+				|| e instanceof SessionNotCreatedException 
+				|| e instanceof InvalidSelectorException) {
+			return true;
+		}
+		
+		String message = e.getMessage();
+		if (message != null) {
+			// only look at the first line, the rest contains build information
+			String firstLine = message.split("\n")[0].toLowerCase();
+			for (String fatalMessage: FATAL_MESSAGES) {
+				if (firstLine.contains(fatalMessage)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	public BackoffStrategy getBackoff() {
+		return backoff;
+	}
+}
@@ -24,10 +24,12 @@ import org.openqa.selenium.WebDriverException;
 import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
 import com.seleniumtests.core.SeleniumTestsContextManager;
+import com.seleniumtests.core.TestStepManager;
 import com.seleniumtests.customexception.CustomSeleniumTestsException;
 import com.seleniumtests.customexception.ScenarioException;
 import com.seleniumtests.driver.CustomEventFiringWebDriver;
 import com.seleniumtests.driver.screenshots.ScreenshotUtil;
+import com.seleniumtests.reporter.logger.TestStep;
 import com.seleniumtests.util.StringUtility;
 import com.seleniumtests.util.imaging.ImageProcessor;
 import com.seleniumtests.util.logging.SeleniumRobotLogger;
@@ -44,6 +46,10 @@ public class ElementInfo {
 	private static final Path ELEMENT_INFO_LOCATION = Paths.get(SeleniumTestsContextManager.getCachePath());
 	private static final Path ELEMENT_INFO_REFERENCE_LOCATION = Paths.get(SeleniumTestsContextManager.getCachePath() + "_reference");
 	private static final int EXPIRE_INFO_DELAY_DAYS = 180;
+	public static final String ELEMENT_IMAGE_MAX_SIZE = "elementInfoImageMaxSize";		// system property giving the max width / height of element pictures
+	private static final int DEFAULT_ELEMENT_IMAGE_MAX_SIZE = 200;
+	private static final int SAME_IMAGE_MAX_HASH_DISTANCE = 5;
+	private static ThreadLocal<PageCapture> pageCapture = new ThreadLocal<>();
 	public static final String JAVASCRIPT_GET_ATTRIBUTES = "var items = {}; for (index = 0; index < arguments[0].attributes.length; ++index) { items[arguments[0].attributes[index].name] = arguments[0].attributes[index].value }; return items;";
 
 	private String path;
@@ -58,6 +64,7 @@ public class ElementInfo {
 	private Integer coordX = 0;
 	private Integer coordY = 0;
 	private String b64Image;
+	private String b64ImageHash;		// perceptual hash of the image, see ImageProcessor.perceptualHash()
 	private Map<String, Object> attributes = new HashMap<>();
 	
 	// TODO: confidence indicator
@@ -116,70 +123,93 @@ public class ElementInfo {
 	 * @param htmlElement
 	 * @param driver
 	 */
-	public void updateInfo(HtmlElement htmlElement) {
+	public synchronized void updateInfo(HtmlElement htmlElement) {
 		
 		if (htmlElement.getRealElement() == null) {
 			throw new CustomSeleniumTestsException(String.format("Updating element information [%s] is not possible if real element has not yet been searched", name));
 		}
 		
-    	String newText = htmlElement.getRealElement().getText();
+    	// for web tests, read everything but text in one call to browser
+    	ElementSnapshot snapshot = htmlElement.getSnapshot();
     	
-    	// depending on drivers, rect may raise an error
+    	String newText = htmlElement.getRealElement().getText();
     	Rectangle newRectangle;
-    	try {
-    		newRectangle = htmlElement.getRealElement().getRect();
-		} catch (WebDriverException e) {
-			Point location = htmlElement.getRealElement().getLocation();
-			Dimension size = htmlElement.getRealElement().getSize();
-			newRectangle = new Rectangle(location, size);
-		}
-    	
-    	String newB64Image = "";
-    	String newTagName = "";
-    	Map<String, Object> newAttributes = new HashMap<>();
-
-    	// only capture picture in FULL mode
-    	if (SeleniumTestsContextManager.getThreadContext().getAdvancedElementSearch() == Mode.FULL) {
-			
+    	if (snapshot != null) {
+    		newRectangle = snapshot.getRectangle();
+    	} else {
+	    	// depending on drivers, rect may raise an error
 	    	try {
-		    	BufferedImage  fullImg = getScreenshot();
-		    	
-		    	// Get the location of htmlElement on the page
-		    	Point point = newRectangle.getPoint();
-		
-		    	// Get width and height of the element
-		    	int eleWidth = newRectangle.getWidth();
-		    	int eleHeight = newRectangle.getHeight();
-		    	Point scrollPosition = ((CustomEventFiringWebDriver)htmlElement.getDriver()).getScrollPosition();
-		
-		    	// Crop the entire page screenshot to get only element screenshot. Keep 20 px around the picture
-		    	BufferedImage eleScreenshot = ImageProcessor.cropImage(fullImg, Math.max(0, point.getX() - scrollPosition.getX() - 20), 
-		    									Math.max(0, point.getY() - scrollPosition.getY() - 20), 
-		    									Math.min(eleWidth + 40, fullImg.getWidth()), 
-		    									Math.min(eleHeight + 40, fullImg.getHeight()));
-		    	
-		    	// for debug purpose
-		    	/*File tmp = File.createTempFile("screenshot", ".png");
-		    	tmp.deleteOnExit();
-		    	ImageIO.write(eleScreenshot, "png", tmp);*/
-		    	newB64Image = ImageProcessor.toBase64(eleScreenshot);
-	    	
-			} catch (Throwable e) {
-				logger.error("Error taking element screenshot", e);
+	    		newRectangle = htmlElement.getRealElement().getRect();
+			} catch (WebDriverException e) {
+				Point location = htmlElement.getRealElement().getLocation();
+				Dimension size = htmlElement.getRealElement().getSize();
+				newRectangle = new Rectangle(location, size);
 			}
     	}
     	
-    	if (SeleniumTestsContextManager.isWebTest()) {
+    	String newTagName = "";
+    	Map<String, Object> newAttributes = new HashMap<>();
+    	
+    	if (snapshot != null) {
+    		newTagName = snapshot.getTagName();
+    		newAttributes = snapshot.getAttributes();
+    	} else if (SeleniumTestsContextManager.isWebTest()) {
 
     		newTagName = htmlElement.getRealElement().getTagName();
         	newAttributes = (Map<String, Object>) ((JavascriptExecutor)htmlElement.getDriver()).executeScript(JAVASCRIPT_GET_ATTRIBUTES, htmlElement.getRealElement());
     	}
     	
+    	boolean rectangleChanged = !newRectangle.equals(new Rectangle(coordX, coordY, height, width));
+    	boolean contentChanged = !newText.equals(text) || !newTagName.equals(tagName);
+    	String newB64Image = "";
+    	String newB64ImageHash = null;
+
+    	// only capture picture in FULL mode, and only if element may look different from the last capture
+    	if (SeleniumTestsContextManager.getThreadContext().getAdvancedElementSearch() == Mode.FULL) {
+    		
+    		if (b64Image == null || b64Image.isEmpty() || rectangleChanged || contentChanged) {
+		    	try {
+			    	// Get the location of htmlElement on the page
+			    	Point point = newRectangle.getPoint();
+			
+			    	// Get width and height of the element
+			    	int eleWidth = newRectangle.getWidth();
+			    	int eleHeight = newRectangle.getHeight();
+			    	Point scrollPosition = snapshot != null ? snapshot.getScrollPosition(): ((CustomEventFiringWebDriver)htmlElement.getDriver()).getScrollPosition();
+			    	BufferedImage fullImg = getPageScreenshot(scrollPosition);
+			
+			    	// Crop the entire page screenshot to get only element screenshot. Keep 20 px around the picture
+			    	BufferedImage eleScreenshot = ImageProcessor.cropImage(fullImg, Math.max(0, point.getX() - scrollPosition.getX() - 20), 
+			    									Math.max(0, point.getY() - scrollPosition.getY() - 20), 
+			    									Math.min(eleWidth + 40, fullImg.getWidth()), 
+			    									Math.min(eleHeight + 40, fullImg.getHeight()));
+			    	eleScreenshot = ImageProcessor.resizeToFit(eleScreenshot, Integer.getInteger(ELEMENT_IMAGE_MAX_SIZE, DEFAULT_ELEMENT_IMAGE_MAX_SIZE));
+			    	
+			    	// for debug purpose
+			    	/*File tmp = File.createTempFile("screenshot", ".png");
+			    	tmp.deleteOnExit();
+			    	ImageIO.write(eleScreenshot, "png", tmp);*/
+			    	newB64Image = ImageProcessor.toBase64(eleScreenshot);
+			    	newB64ImageHash = Long.toHexString(ImageProcessor.perceptualHash(eleScreenshot));
+		    	
+				} catch (Throwable e) {
+					logger.error("Error taking element screenshot", e);
+				}
+		    	b64ImageStability = isSameImage(newB64ImageHash) ? b64ImageStability + 1: 0;
+    		} else {
+    			newB64Image = b64Image;
+    			newB64ImageHash = b64ImageHash;
+    			b64ImageStability += 1;
+    		}
+    	} else {
+    		b64ImageStability = 0;
+    	}
+    	
     	// record stability information (is the information stable over time or not)
     	totalSearch += 1;
     	textStability = newText.equals(text) ? textStability+1: 0;
     	tagStability = newTagName.equals(tagName) ? tagStability+1: 0;
-    	rectangleStability = newRectangle.equals(new Rectangle(coordX, coordY, height, width)) ? rectangleStability+1: 0;
+    	rectangleStability = rectangleChanged ? 0: rectangleStability+1;
 
     	for (Entry<String, Object> entryAttr: newAttributes.entrySet()) {
     		// attribute was unknown
@@ -203,20 +233,64 @@ public class ElementInfo {
     		}
     	}
     	
-    	// TODO: image
-    	b64ImageStability = 0;
-    	
     	text = newText;
     	coordX = newRectangle.x;
     	coordY = newRectangle.y;
     	width = newRectangle.width;
     	height = newRectangle.height;
     	b64Image = newB64Image;
+    	b64ImageHash = newB64ImageHash;
     	tagName = newTagName;
     	attributes = newAttributes;
     	lastUpdate = LocalDateTime.now();
 	}
 	
+	/**
+	 * Returns true if the new image hash is close to the one of the previous image
+	 * @param newB64ImageHash
+	 * @return
+	 */
+	private boolean isSameImage(String newB64ImageHash) {
+		if (b64ImageHash == null || newB64ImageHash == null) {
+			return false;
+		}
+		try {
+			return ImageProcessor.hashDistance(Long.parseUnsignedLong(b64ImageHash, 16), Long.parseUnsignedLong(newB64ImageHash, 16)) <= SAME_IMAGE_MAX_HASH_DISTANCE;
+		} catch (NumberFormatException e) {
+			return false;
+		}
+	}
+	
+	/**
+	 * Returns the screenshot of the visible part of the page
+	 * The same capture is used for all elements searched during the same step, as long as page has not been scrolled and no action
+	 * has been done on the page (see {@link #resetPageCapture()})
+	 * @param scrollPosition	current scroll position of the page
+	 * @return
+	 */
+	private BufferedImage getPageScreenshot(Point scrollPosition) {
+		TestStep step = TestStepManager.getCurrentRootTestStep();
+		PageCapture capture = pageCapture.get();
+		if (step != null && capture != null && capture.step == step && capture.scrollPosition.equals(scrollPosition)) {
+			return capture.image;
+		}
+		
+		BufferedImage image = getScreenshot();
+		if (step != null) {
+			pageCapture.set(new PageCapture(step, scrollPosition, image));
+		} else {
+			pageCapture.remove();
+		}
+		return image;
+	}
+	
+	/**
+	 * Forget the page capture of the current thread, because page may have changed (click, typing, navigation, ...) or step is finished
+	 */
+	public static void resetPageCapture() {
+		pageCapture.remove();
+	}
+	
 	public Rectangle getRectangle() {
 		return new Rectangle(coordX, coordY, height, width);
 	}
@@ -265,6 +339,13 @@ public class ElementInfo {
 		return outputFile;
 	}
 	
+	/**
+	 * Record information in the element information store. It will be written to disk later, in batch
+	 */
+	public void save() {
+		ElementInfoStore.getInstance().put(this);
+	}
+	
 	public static ElementInfo readFromJsonFile(File elementInfoFile) {
 		
 		Gson gson = new Gson();
@@ -304,13 +385,7 @@ public class ElementInfo {
 	}
 	
 	private void delete() {
-		if (new File(path).exists()) {
-			try {
-				new File(path).delete();
-			} catch (Exception e) {
-				logger.error("Failed to delete elementInfo file for: " + name);
-			}
-		}
+		ElementInfoStore.getInstance().remove(id);
 	}
 	
 	public static File buildElementInfoPath(HtmlElement htmlElement) {
@@ -318,17 +393,12 @@ public class ElementInfo {
 	}
 	
 	/**
-	 * Returns an ElementInfo object if it's found on file system 
+	 * Returns an ElementInfo object if it's found in element information store 
 	 * @param htmlElement
 	 * @return
 	 */
 	public static ElementInfo searchElementInfo(HtmlElement htmlElement) {
-		File elementInfoPath = buildElementInfoPath(htmlElement);
-		if (elementInfoPath.isFile()) {
-			return readFromJsonFile(elementInfoPath);
-		} else {
-			return null;
-		}
+		return ElementInfoStore.getInstance().get(buildId(htmlElement));
 	}
 	
 	/**
@@ -337,9 +407,13 @@ public class ElementInfo {
 	 * @return
 	 */
 	public static Map<String, ElementInfo> getAllStoredElementInfos(boolean reference) {
+		if (!reference) {
+			return ElementInfoStore.getInstance().getAll();
+		}
+		
 		Map<String, ElementInfo> elementInfos = new HashMap<>();
 		try {
-			for (Path jsonFile: Files.walk(reference ? ELEMENT_INFO_REFERENCE_LOCATION: ELEMENT_INFO_LOCATION)
+			for (Path jsonFile: Files.walk(ELEMENT_INFO_REFERENCE_LOCATION)
 			        .filter(Files::isRegularFile)
 			        .collect(Collectors.toList())) {
 				
@@ -362,10 +436,18 @@ public class ElementInfo {
 		purgeElementInfo(EXPIRE_INFO_DELAY_DAYS);
 	}
 	private static void purgeElementInfo(int delay) {
+		
+		if (delay < 0) {
+			ElementInfoStore.getInstance().clear();
+		} else {
+			ElementInfoStore.getInstance().purge(LocalDateTime.now().minusDays(delay));
+		}
 
+		// files written with one file per element
 		try {
 			Files.walk(ELEMENT_INFO_LOCATION)
 			        .filter(Files::isRegularFile)
+			        .filter(p -> p.toString().endsWith(".json"))
 			        .filter(p -> p.toFile().lastModified() < LocalDateTime.now().minusDays(delay).toEpochSecond(ZoneOffset.UTC) * 1000)
 			        .forEach(t -> {
 						try {
@@ -386,6 +468,10 @@ public class ElementInfo {
 		return path;
 	}
 
+	public void setPath(String path) {
+		this.path = path;
+	}
+
 	public LocalDateTime getLastUpdate() {
 		return lastUpdate;
 	}
@@ -414,6 +500,10 @@ public class ElementInfo {
 		return b64Image;
 	}
 
+	public String getB64ImageHash() {
+		return b64ImageHash;
+	}
+
 	public Map<String, Object> getAttributes() {
 		return attributes;
 	}
@@ -485,4 +575,19 @@ public class ElementInfo {
 	public Integer getCoordY() {
 		return coordY;
 	}
+	
+	/**
+	 * Page screenshot taken during a step
+	 */
+	private static class PageCapture {
+		private TestStep step;
+		private Point scrollPosition;
+		private BufferedImage image;
+		
+		public PageCapture(TestStep step, Point scrollPosition, BufferedImage image) {
+			this.step = step;
+			this.scrollPosition = scrollPosition;
+			this.image = image;
+		}
+	}
 }
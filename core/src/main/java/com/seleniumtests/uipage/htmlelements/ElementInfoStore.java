@@ -0,0 +1,428 @@
+/**
+ * Orignal work: Copyright 2015 www.seleniumtests.com
+ * Modified work: Copyright 2016 www.infotel.com
+ * 				Copyright 2017-2019 B.Hecquet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.seleniumtests.uipage.htmlelements;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.log4j.Logger;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
+import com.seleniumtests.util.logging.SeleniumRobotLogger;
+
+/**
+ * Process wide store of ElementInfo objects, keyed by element id
+ * ElementInfo are kept in memory and written in batch to a single file (write-behind), instead of reading / writing
+ * one json file each time an element is searched
+ * The file is an append log: each flush only appends one line per changed or removed element, so that cost of a flush
+ * does not depend on the size of the store. When the log contains too many outdated lines, it's compacted
+ * Writes from several processes are protected by a file lock
+ * Json files written by previous versions (one per element) are imported when store is loaded and removed on next flush
+ */
+public class ElementInfoStore {
+
+	private static final Logger logger = SeleniumRobotLogger.getLogger(ElementInfoStore.class);
+	public static final String STORE_FILE_NAME = "elementInfos.store";
+	private static final String LOCK_FILE_NAME = "elementInfos.lock";
+	private static final String RECORD_ID = "id";
+	private static final String RECORD_INFO = "info";
+	private static final String RECORD_REMOVED = "removed";
+	private static final int COMPACTION_MIN_RECORDS = 500;
+
+	private static ElementInfoStore instance;
+
+	private Path location;
+	private Map<String, ElementInfo> cache = new ConcurrentHashMap<>();
+	private Set<String> dirty = ConcurrentHashMap.newKeySet();
+	private Set<String> removed = ConcurrentHashMap.newKeySet();
+	private Set<Path> legacyFiles = ConcurrentHashMap.newKeySet();
+	private volatile boolean loaded = false;
+	private int logRecords = 0;
+	private ExecutorService flusher;
+
+	public ElementInfoStore(Path location) {
+		this.location = location;
+	}
+
+	/**
+	 * Returns the store for the element information cache location. Store is flushed on JVM exit
+	 * @return
+	 */
+	public static synchronized ElementInfoStore getInstance() {
+		if (instance == null) {
+			instance = new ElementInfoStore(ElementInfo.getElementInfoLocation());
+			final ElementInfoStore store = instance;
+			Runtime.getRuntime().addShutdownHook(new Thread(store::flush));
+		}
+		return instance;
+	}
+
+	/**
+	 * Write pending changes of the store, if it has been used
+	 */
+	public static synchronized void flushStore() {
+		if (instance != null) {
+			instance.flush();
+		}
+	}
+
+	/**
+	 * Returns the element information with this id, or null if it's unknown
+	 * @param id
+	 * @return
+	 */
+	public ElementInfo get(String id) {
+		load();
+		return cache.get(id);
+	}
+
+	/**
+	 * Returns a copy of all known element information
+	 * @return
+	 */
+	public Map<String, ElementInfo> getAll() {
+		load();
+		return new HashMap<>(cache);
+	}
+
+	/**
+	 * Record element information. It will be written on next flush
+	 * @param elementInfo
+	 */
+	public void put(ElementInfo elementInfo) {
+		load();
+		cache.put(elementInfo.getId(), elementInfo);
+		removed.remove(elementInfo.getId());
+		dirty.add(elementInfo.getId());
+	}
+
+	public void remove(String id) {
+		load();
+		cache.remove(id);
+		dirty.remove(id);
+		removed.add(id);
+	}
+
+	/**
+	 * Remove element information that have not been updated since 'limit'
+	 * @param limit
+	 */
+	public void purge(LocalDateTime limit) {
+		load();
+		for (ElementInfo elementInfo: cache.values()) {
+			if (elementInfo.getLastUpdate() != null && elementInfo.getLastUpdate().isBefore(limit)) {
+				remove(elementInfo.getId());
+			}
+		}
+	}
+
+	/**
+	 * Forget everything and delete the store file
+	 */
+	public synchronized void clear() {
+		cache.clear();
+		dirty.clear();
+		removed.clear();
+		legacyFiles.clear();
+		loaded = false;
+		logRecords = 0;
+		try {
+			Files.deleteIfExists(location.resolve(STORE_FILE_NAME));
+		} catch (IOException e) {
+			logger.error("Cannot delete element information store: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Write pending changes in background
+	 */
+	public void scheduleFlush() {
+		if (dirty.isEmpty() && removed.isEmpty()) {
+			return;
+		}
+		synchronized (this) {
+			if (flusher == null) {
+				flusher = Executors.newSingleThreadExecutor(r -> {
+					Thread thread = new Thread(r, "element-info-flusher");
+					thread.setDaemon(true);
+					return thread;
+				});
+			}
+			flusher.submit(this::flush);
+		}
+	}
+
+	/**
+	 * Append pending changes to the store file. Log is compacted when it contains more than twice as many lines as elements
+	 */
+	public synchronized void flush() {
+		if (dirty.isEmpty() && removed.isEmpty()) {
+			return;
+		}
+
+		Set<String> toWrite = new HashSet<>(dirty);
+		Set<String> toRemove = new HashSet<>(removed);
+		dirty.removeAll(toWrite);
+		removed.removeAll(toRemove);
+
+		Path storeFile = location.resolve(STORE_FILE_NAME);
+		try {
+			Files.createDirectories(location);
+			try (FileChannel lockChannel = FileChannel.open(location.resolve(LOCK_FILE_NAME), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+				FileLock lock = lockChannel.lock();
+				try {
+					Gson gson = new Gson();
+					StringBuilder records = new StringBuilder();
+					int written = 0;
+					for (String id: toRemove) {
+						JsonObject record = new JsonObject();
+						record.addProperty(RECORD_ID, id);
+						record.addProperty(RECORD_REMOVED, true);
+						records.append(gson.toJson(record)).append('\n');
+						written++;
+					}
+					for (String id: toWrite) {
+						ElementInfo elementInfo = cache.get(id);
+						if (elementInfo != null) {
+							JsonObject record = new JsonObject();
+							record.addProperty(RECORD_ID, id);
+							synchronized (elementInfo) {
+								record.add(RECORD_INFO, gson.toJsonTree(elementInfo));
+							}
+							records.append(gson.toJson(record)).append('\n');
+							written++;
+						}
+					}
+					append(storeFile, records.toString());
+					logRecords += written;
+
+					if (logRecords > COMPACTION_MIN_RECORDS && logRecords > 2 * cache.size()) {
+						compactLog(storeFile);
+					}
+				} finally {
+					lock.release();
+				}
+			}
+
+			// information from old format files is now in store
+			for (Path legacyFile: new HashSet<>(legacyFiles)) {
+				Files.deleteIfExists(legacyFile);
+				legacyFiles.remove(legacyFile);
+			}
+		} catch (IOException e) {
+			logger.error("Cannot write element information: " + e.getMessage());
+			dirty.addAll(toWrite);
+			removed.addAll(toRemove);
+		}
+	}
+
+	/**
+	 * Rewrite the store file with only the last information of each element
+	 */
+	public synchronized void compact() {
+		Path storeFile = location.resolve(STORE_FILE_NAME);
+		if (!storeFile.toFile().isFile()) {
+			return;
+		}
+		try (FileChannel lockChannel = FileChannel.open(location.resolve(LOCK_FILE_NAME), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+			FileLock lock = lockChannel.lock();
+			try {
+				compactLog(storeFile);
+			} finally {
+				lock.release();
+			}
+		} catch (IOException e) {
+			logger.error("Cannot compact element information store: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Replay the log, including records written by other processes, and replace it by one line per element
+	 * Lock must be held by caller
+	 * @param storeFile
+	 * @throws IOException
+	 */
+	private void compactLog(Path storeFile) throws IOException {
+		Map<String, JsonObject> content = new LinkedHashMap<>();
+		readLog(storeFile, content);
+
+		Gson gson = new Gson();
+		StringBuilder records = new StringBuilder();
+		for (JsonObject record: content.values()) {
+			records.append(gson.toJson(record)).append('\n');
+		}
+
+		Path tmpFile = location.resolve(STORE_FILE_NAME + ".tmp");
+		Files.write(tmpFile, records.toString().getBytes(StandardCharsets.UTF_8));
+		Files.move(tmpFile, storeFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		logRecords = content.size();
+	}
+
+	/**
+	 * Append records at the end of the log. If last line is incomplete (process killed while writing), it's terminated
+	 * so that it does not corrupt the new records
+	 * @param storeFile
+	 * @param records
+	 * @throws IOException
+	 */
+	private void append(Path storeFile, String records) throws IOException {
+		try (FileChannel channel = FileChannel.open(storeFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			long size = channel.size();
+			String toWrite = records;
+			if (size > 0) {
+				ByteBuffer lastChar = ByteBuffer.allocate(1);
+				channel.read(lastChar, size - 1);
+				if (lastChar.get(0) != '\n') {
+					toWrite = "\n" + records;
+				}
+			}
+			channel.position(size);
+			channel.write(ByteBuffer.wrap(toWrite.getBytes(StandardCharsets.UTF_8)));
+		}
+	}
+
+	/**
+	 * Read store file (once) and files from older format
+	 */
+	private void load() {
+		if (loaded) {
+			return;
+		}
+		synchronized (this) {
+			if (loaded) {
+				return;
+			}
+
+			Gson gson = new Gson();
+			Path storeFile = location.resolve(STORE_FILE_NAME);
+			try {
+				Map<String, JsonObject> content = new LinkedHashMap<>();
+				logRecords = readLog(storeFile, content);
+				for (Entry<String, JsonObject> entry: content.entrySet()) {
+					try {
+						ElementInfo elementInfo = gson.fromJson(entry.getValue().get(RECORD_INFO), ElementInfo.class);
+						if (elementInfo != null) {
+							elementInfo.setPath(storeFile.toFile().getAbsolutePath());
+							cache.putIfAbsent(entry.getKey(), elementInfo);
+						}
+					} catch (JsonSyntaxException e) {
+						logger.warn(String.format("Cannot read element information %s: %s", entry.getKey(), e.getMessage()));
+					}
+				}
+			} catch (IOException e) {
+				logger.error("Cannot read element information store: " + e.getMessage());
+			}
+
+			importLegacyFiles();
+			loaded = true;
+		}
+	}
+
+	/**
+	 * Import json files, one per element
+	 */
+	private void importLegacyFiles() {
+		if (!location.toFile().isDirectory()) {
+			return;
+		}
+
+		try (Stream<Path> files = Files.walk(location)) {
+			List<Path> jsonFiles = files.filter(Files::isRegularFile)
+					.filter(p -> p.toString().endsWith(".json"))
+					.collect(Collectors.toList());
+
+			for (Path jsonFile: jsonFiles) {
+				ElementInfo elementInfo = ElementInfo.readFromJsonFile(jsonFile.toFile());
+				if (elementInfo != null && elementInfo.getId() != null) {
+					cache.put(elementInfo.getId(), elementInfo);
+					dirty.add(elementInfo.getId());
+					legacyFiles.add(jsonFile);
+				}
+			}
+		} catch (IOException e) {
+			logger.error("Cannot read element information files: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Replay the log: the last record of an element wins, removed elements are dropped
+	 * Lines that cannot be read (incomplete write) are skipped
+	 * @param storeFile
+	 * @param content		map filled with the last record of each element, keyed by element id
+	 * @return	the number of records in the log
+	 * @throws IOException
+	 */
+	private int readLog(Path storeFile, Map<String, JsonObject> content) throws IOException {
+		File file = storeFile.toFile();
+		if (!file.isFile()) {
+			return 0;
+		}
+
+		int records = 0;
+		JsonParser parser = new JsonParser();
+		for (String line: FileUtils.readLines(file, StandardCharsets.UTF_8)) {
+			if (line.trim().isEmpty()) {
+				continue;
+			}
+			records++;
+			try {
+				JsonElement element = parser.parse(line);
+				if (!element.isJsonObject() || !element.getAsJsonObject().has(RECORD_ID)) {
+					logger.warn("Invalid element information record skipped");
+					continue;
+				}
+				JsonObject record = element.getAsJsonObject();
+				String id = record.get(RECORD_ID).getAsString();
+				if (record.has(RECORD_INFO)) {
+					content.put(id, record);
+				} else {
+					content.remove(id);
+				}
+			} catch (JsonSyntaxException e) {
+				logger.warn("Corrupted element information record skipped: " + e.getMessage());
+			}
+		}
+		return records;
+	}
+}
@@ -0,0 +1,181 @@
+/**
+ * Orignal work: Copyright 2015 www.seleniumtests.com
+ * Modified work: Copyright 2016 www.infotel.com
+ * 				Copyright 2017-2019 B.Hecquet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.seleniumtests.uipage.htmlelements;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+
+/**
+ * State of a web element (computed style, position, tag and attributes) read in a single javascript call
+ * This avoids one round-trip to the browser for each information, which is costly with remote drivers
+ * Text is not part of it: javascript 'innerText' does not follow the same rules as WebDriver getText()
+ */
+public class ElementSnapshot {
+	
+	private static final String JS_READ_STYLE = 
+			"var el = arguments[0];" +
+			"var style = getComputedStyle(el);" +
+			"var rect = el.getBoundingClientRect();" +
+			"var doc = document.documentElement;" +
+			"var scrollX = window.scrollX || ((window.pageXOffset || doc.scrollLeft) - (doc.clientLeft || 0));" +
+			"var scrollY = window.scrollY || ((window.pageYOffset || doc.scrollTop) - (doc.clientTop || 0));" +
+			"var info = {" +
+			"  'display': style.display," +
+			"  'visibility': style.visibility," +
+			"  'opacity': style.opacity," +
+			"  'x': Math.round(rect.left + scrollX)," +
+			"  'y': Math.round(rect.top + scrollY)," +
+			"  'width': Math.round(rect.width)," +
+			"  'height': Math.round(rect.height)," +
+			"  'scrollX': Math.round(scrollX)," +
+			"  'scrollY': Math.round(scrollY)," +
+			"  'viewportHeight': doc.clientHeight" +
+			"};";
+	
+	// only style and position
+	public static final String JS_GET_STYLE = JS_READ_STYLE + "return info;";
+	
+	public static final String JS_GET_SNAPSHOT = JS_READ_STYLE +
+			"var attributes = {};" +
+			"for (var i = 0; i < el.attributes.length; i++) { attributes[el.attributes[i].name] = el.attributes[i].value; }" +
+			"info['tagName'] = el.tagName.toLowerCase();" +
+			"info['attributes'] = attributes;" +
+			"return info;";
+	
+	private String display;
+	private String visibility;
+	private String opacity;
+	private Rectangle rectangle;
+	private Point scrollPosition;
+	private int viewportHeight;
+	private String tagName;
+	private Map<String, Object> attributes;
+	
+	private ElementSnapshot() {
+		// use capture
+	}
+
+	/**
+	 * Read element state from browser
+	 * @param driver
+	 * @param element	the selenium element
+	 * @return	the snapshot, or null if it could not be read (driver cannot execute javascript, element is stale, ...)
+	 */
+	public static ElementSnapshot capture(WebDriver driver, WebElement element) {
+		return capture(driver, element, JS_GET_SNAPSHOT);
+	}
+	
+	/**
+	 * Read only style and position of element from browser. Tag name is null and attributes are empty
+	 * @param driver
+	 * @param element	the selenium element
+	 * @return	the snapshot, or null if it could not be read
+	 */
+	public static ElementSnapshot captureStyle(WebDriver driver, WebElement element) {
+		return capture(driver, element, JS_GET_STYLE);
+	}
+	
+	private static ElementSnapshot capture(WebDriver driver, WebElement element, String script) {
+		if (!(driver instanceof JavascriptExecutor) || element == null) {
+			return null;
+		}
+		
+		try {
+			Object result = ((JavascriptExecutor)driver).executeScript(script, element);
+			if (!(result instanceof Map)) {
+				return null;
+			}
+			Map<?, ?> info = (Map<?, ?>)result;
+			
+			ElementSnapshot snapshot = new ElementSnapshot();
+			snapshot.display = (String)info.get("display");
+			snapshot.visibility = (String)info.get("visibility");
+			snapshot.opacity = String.valueOf(info.get("opacity"));
+			snapshot.rectangle = new Rectangle(toInt(info.get("x")), toInt(info.get("y")), toInt(info.get("height")), toInt(info.get("width")));
+			snapshot.scrollPosition = new Point(toInt(info.get("scrollX")), toInt(info.get("scrollY")));
+			snapshot.viewportHeight = toInt(info.get("viewportHeight"));
+			snapshot.tagName = (String)info.get("tagName");
+			snapshot.attributes = new HashMap<>();
+			if (info.get("attributes") instanceof Map) {
+				for (Entry<?, ?> attribute: ((Map<?, ?>)info.get("attributes")).entrySet()) {
+					snapshot.attributes.put(String.valueOf(attribute.getKey()), attribute.getValue());
+				}
+			}
+			return snapshot;
+			
+		} catch (WebDriverException | ClassCastException e) {
+			return null;
+		}
+	}
+	
+	private static int toInt(Object value) {
+		return value instanceof Number ? ((Number)value).intValue(): 0;
+	}
+	
+	public boolean isDisplayNone() {
+		return "none".equals(display);
+	}
+	
+	public boolean isHidden() {
+		return !"visible".equals(visibility);
+	}
+	
+	public boolean isTransparent() {
+		return "0".equals(opacity);
+	}
+
+	public String getDisplay() {
+		return display;
+	}
+
+	public String getVisibility() {
+		return visibility;
+	}
+
+	public String getOpacity() {
+		return opacity;
+	}
+
+	public Rectangle getRectangle() {
+		return rectangle;
+	}
+
+	public Point getScrollPosition() {
+		return scrollPosition;
+	}
+
+	public int getViewportHeight() {
+		return viewportHeight;
+	}
+
+	public String getTagName() {
+		return tagName;
+	}
+
+	public Map<String, Object> getAttributes() {
+		return attributes;
+	}
+}
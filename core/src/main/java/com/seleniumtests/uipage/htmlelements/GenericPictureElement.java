@@ -17,6 +17,7 @@
  */
 package com.seleniumtests.uipage.htmlelements;
 
+import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.time.Clock;
@@ -35,6 +36,7 @@ import com.seleniumtests.customexception.ImageSearchException;
 import com.seleniumtests.driver.screenshots.ScreenshotUtil;
 import com.seleniumtests.util.helper.WaitHelper;
 import com.seleniumtests.util.imaging.ImageDetector;
+import com.seleniumtests.util.imaging.ImageDetector.DetectionMode;
 import com.seleniumtests.util.logging.SeleniumRobotLogger;
 
 /**
@@ -50,6 +52,7 @@ public abstract class GenericPictureElement extends Element {
 	protected Rectangle detectedObjectRectangle;
 	protected double pictureSizeRatio;
 	protected ImageDetector detector;
+	protected DetectionMode detectionMode = DetectionMode.ACCURATE;
 	protected boolean searchOnDesktop;
 	protected long actionDuration;
 	protected String label;
@@ -77,6 +80,7 @@ public abstract class GenericPictureElement extends Element {
 		if (pictureFile != null) {
 			detector = new ImageDetector();
 			detector.setDetectionThreshold(detectionThreshold);
+			detector.setDetectionMode(detectionMode);
 			setObjectPictureFile(pictureFile);
 		}
 	
@@ -109,15 +113,16 @@ public abstract class GenericPictureElement extends Element {
 
 		LocalDateTime start = LocalDateTime.now();
 	
-		File screenshotFile = getScreenshotFile();
+		BufferedImage screenshot = getScreenshot();
 		
-		if (screenshotFile == null) {
+		if (screenshot == null) {
 			throw new ScreenshotException("Screenshot does not exist");
 		}
 		
 		// for desktop search, without reference image, do not search
+		// screenshot is given in memory to detector so that no file is written / read during search
 		if (detector != null) {
-			detector.setSceneImage(screenshotFile);
+			detector.setSceneImage(screenshot);
 			detector.detectExactZoneWithScale();
 			detectedObjectRectangle = detector.getDetectedRectangle();
 			pictureSizeRatio = detector.getSizeRatio();
@@ -131,10 +136,10 @@ public abstract class GenericPictureElement extends Element {
 	}
 	
 	/**
-	 * Get File containing the screeenshot, either on desktop or on browser
+	 * Get the screenshot, either on desktop or on browser, as an in-memory picture
 	 * @return
 	 */
-	protected abstract File getScreenshotFile();
+	protected abstract BufferedImage getScreenshot();
 	
 	/**
 	 * Some action to perform once picture has been found
@@ -232,6 +237,23 @@ public abstract class GenericPictureElement extends Element {
 		
 	}
 
+	/**
+	 * Set the way picture is searched: {@link DetectionMode#ACCURATE} (default) searches the full resolution screenshot for all scales
+	 * {@link DetectionMode#FAST} first searches a downsampled screenshot and only checks the best candidates in full resolution
+	 * The mode is kept and applied to the detector when it is created
+	 * @param detectionMode
+	 */
+	public void setDetectionMode(DetectionMode detectionMode) {
+		this.detectionMode = detectionMode;
+		if (detector != null) {
+			detector.setDetectionMode(detectionMode);
+		}
+	}
+	
+	public DetectionMode getDetectionMode() {
+		return detectionMode;
+	}
+
 	public Rectangle getDetectedObjectRectangle() {
 		return detectedObjectRectangle;
 	}
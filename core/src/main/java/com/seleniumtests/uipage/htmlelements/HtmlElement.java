@@ -24,6 +24,7 @@ import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
@@ -639,7 +640,7 @@ public class HtmlElement extends Element implements WebElement, Locatable {
     	ElementInfo elementInfo = null;
     	
     	// search element information. Do not stop if something goes wrong here
-    	if (SeleniumTestsContextManager.getThreadContext().getAdvancedElementSearch() != ElementInfo.Mode.FALSE) {
+    	if (SeleniumTestsContextManager.getThreadContext().getTechnicalSettings().getAdvancedElementSearch() != ElementInfo.Mode.FALSE) {
     		try {
     			elementInfo = ElementInfo.getInstance(this);
     		} catch (Throwable e) {}
@@ -695,7 +696,7 @@ public class HtmlElement extends Element implements WebElement, Locatable {
         if (elementInfo != null) {
         	try {
 	        	elementInfo.updateInfo(this);
-	        	elementInfo.exportToJsonFile(false, this);
+	        	elementInfo.save();
         	} catch (Throwable e) {
         		logger.warn("Error storing element information: " + e.getMessage());
         	}
@@ -788,12 +789,36 @@ public class HtmlElement extends Element implements WebElement, Locatable {
 		executeScript(javascript, element); 
 	}
     
+    /**
+     * Change several css properties of the element in one call
+     * @param element
+     * @param cssProperties		css property name => new value
+     */
+    protected void changeCssAttributes(WebElement element, Map<String, String> cssProperties) {
+    	if (cssProperties.isEmpty()) {
+    		return;
+    	}
+    	((JavascriptExecutor) driver).executeScript("for (var property in arguments[1]) { arguments[0].style[property] = arguments[1][property]; }", element, cssProperties); 
+    }
+    
+    /**
+     * Returns state of the element (computed style, position, text, tag, attributes), read with one call to browser
+     * Element must have been searched before
+     * @return	the snapshot, or null for non web tests or if state could not be read
+     */
+    public ElementSnapshot getSnapshot() {
+    	if (!SeleniumTestsContextManager.isWebTest()) {
+    		return null;
+    	}
+    	return ElementSnapshot.capture(driver, element);
+    }
+    
     /**
      * outlines the element before acting on it
      * Element must have been searched before
      */
     protected void outlineElement(WebElement element) {
-    	if (element == null || !SeleniumTestsContextManager.isWebTest() || !SeleniumTestsContextManager.getThreadContext().getDebug().contains(DebugMode.GUI)) {
+    	if (element == null || !SeleniumTestsContextManager.isWebTest() || !SeleniumTestsContextManager.getThreadContext().getTechnicalSettings().getDebug().contains(DebugMode.GUI)) {
     		return;
     	}
     	
@@ -812,24 +837,33 @@ public class HtmlElement extends Element implements WebElement, Locatable {
 			}
 			try {
 				
-				if (element.getLocation().x < 0) {
-					Long viewportHeight = (Long)((JavascriptExecutor) driver).executeScript("return document.documentElement.clientHeight");
-					Integer heightPosition = element.getLocation().y > viewportHeight ? element.getLocation().y - viewportHeight.intValue(): element.getLocation().y;
-					changeCssAttribute(element, "left", "20px");
-					changeCssAttribute(element, "top", heightPosition + "px"); 
-					changeCssAttribute(element, "position", "inherit");
+				// read all needed information in one call
+				ElementSnapshot snapshot = ElementSnapshot.captureStyle(driver, element);
+				if (snapshot == null) {
+					return;
+				}
+				
+				Map<String, String> cssChanges = new LinkedHashMap<>();
+				Point location = snapshot.getRectangle().getPoint();
+				if (location.x < 0) {
+					int viewportHeight = snapshot.getViewportHeight();
+					int heightPosition = location.y > viewportHeight ? location.y - viewportHeight: location.y;
+					cssChanges.put("left", "20px");
+					cssChanges.put("top", heightPosition + "px"); 
+					cssChanges.put("position", "inherit");
 				}
-				if ((Boolean)executeScript("return getComputedStyle(arguments[0]).display === 'none'", element)) {
-					changeCssAttribute(element, "display", "block");
+				if (snapshot.isDisplayNone()) {
+					cssChanges.put("display", "block");
 				}
-				if ((Boolean)executeScript("return getComputedStyle(arguments[0]).visibility !== 'visible'", element)) {
-					changeCssAttribute(element, "visibility", "visible");
+				if (snapshot.isHidden()) {
+					cssChanges.put("visibility", "visible");
 				}
-				if ((Boolean)executeScript("return getComputedStyle(arguments[0]).opacity === '0'", element)) {
-					changeCssAttribute(element, "opacity", "1");
+				if (snapshot.isTransparent()) {
+					cssChanges.put("opacity", "1");
 				}
-//				changeCssAttribute(element, "clip", "auto");
-				changeCssAttribute(element, "zIndex", "100000");
+//				cssChanges.put("clip", "auto");
+				cssChanges.put("zIndex", "100000");
+				changeCssAttributes(element, cssChanges);
 			} catch (Exception e) {
 				return;
 			}
@@ -1101,7 +1135,7 @@ public class HtmlElement extends Element implements WebElement, Locatable {
     	}
     }
     public boolean isElementPresent() { 
-    	return isElementPresent(SeleniumTestsContextManager.getThreadContext().getExplicitWaitTimeout());
+    	return isElementPresent(SeleniumTestsContextManager.getThreadContext().getTechnicalSettings().getExplicitWaitTimeout());
     }
     
     /**
@@ -1118,7 +1152,7 @@ public class HtmlElement extends Element implements WebElement, Locatable {
     	}
     }
     public boolean isElementPresentAndDisplayed() { 
-    	return isElementPresentAndDisplayed(SeleniumTestsContextManager.getThreadContext().getExplicitWaitTimeout());
+    	return isElementPresentAndDisplayed(SeleniumTestsContextManager.getThreadContext().getTechnicalSettings().getExplicitWaitTimeout());
     }
     
 
@@ -1197,7 +1231,7 @@ public class HtmlElement extends Element implements WebElement, Locatable {
     
     public void sendKeys(boolean blurAfter, CharSequence... keysToSend) {
     	// Appium seems to clear field before writing
-    	if (SeleniumTestsContextManager.getThreadContext().getTestType().family() == TestType.APP) {
+    	if (SeleniumTestsContextManager.getThreadContext().getTechnicalSettings().getTestType().family() == TestType.APP) {
     		sendKeys(false, blurAfter, keysToSend);
     	} else {
     		sendKeys(true, blurAfter, keysToSend);
@@ -1461,28 +1495,28 @@ public class HtmlElement extends Element implements WebElement, Locatable {
      * Wait element to present using Explicit Waits with default EXPLICIT_WAIT_TIME_OUT = 15 seconds.
      */
     public void waitForPresent() {
-        waitForPresent(SeleniumTestsContextManager.getThreadContext().getExplicitWaitTimeout());
+        waitForPresent(SeleniumTestsContextManager.getThreadContext().getTechnicalSettings().getExplicitWaitTimeout());
     }
     
     /**
      * Wait element not to be present using Explicit Waits with default EXPLICIT_WAIT_TIME_OUT = 15 seconds.
      */
     public void waitForNotPresent() {
-    	waitForNotPresent(SeleniumTestsContextManager.getThreadContext().getExplicitWaitTimeout());
+    	waitForNotPresent(SeleniumTestsContextManager.getThreadContext().getTechnicalSettings().getExplicitWaitTimeout());
     }
     
     /**
      * Wait element to be visible using Explicit Waits with default EXPLICIT_WAIT_TIME_OUT = 15 seconds.
      */
     public void waitForVisibility() {
-    	waitForVisibility(SeleniumTestsContextManager.getThreadContext().getExplicitWaitTimeout());
+    	waitForVisibility(SeleniumTestsContextManager.getThreadContext().getTechnicalSettings().getExplicitWaitTimeout());
     }
     
     /**
      * Wait element not to be visible using Explicit Waits with default EXPLICIT_WAIT_TIME_OUT = 15 seconds.
      */
     public void waitForInvisibility() {
-    	waitForInvisibility(SeleniumTestsContextManager.getThreadContext().getExplicitWaitTimeout());
+    	waitForInvisibility(SeleniumTestsContextManager.getThreadContext().getTechnicalSettings().getExplicitWaitTimeout());
     }
     
 	public void setImplicitWaitTimeout(final double timeout) {
@@ -1529,7 +1563,7 @@ public class HtmlElement extends Element implements WebElement, Locatable {
 	    	}
 	    	throw new TimeoutException("Element is not present", new NoSuchElementException(toString()));
     	} finally {
-    		setImplicitWaitTimeout(SeleniumTestsContextManager.getThreadContext().getImplicitWaitTimeout());
+    		setImplicitWaitTimeout(SeleniumTestsContextManager.getThreadContext().getTechnicalSettings().getImplicitWaitTimeout());
     	}
     }
     
@@ -1550,7 +1584,7 @@ public class HtmlElement extends Element implements WebElement, Locatable {
 	    	throw new TimeoutException("Element is not present", new NoSuchElementException(toString()));
 	    
     	} finally {
-    		setImplicitWaitTimeout(SeleniumTestsContextManager.getThreadContext().getImplicitWaitTimeout());
+    		setImplicitWaitTimeout(SeleniumTestsContextManager.getThreadContext().getTechnicalSettings().getImplicitWaitTimeout());
     	}
     }
     
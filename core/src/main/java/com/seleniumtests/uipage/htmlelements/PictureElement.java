@@ -17,6 +17,7 @@
  */
 package com.seleniumtests.uipage.htmlelements;
 
+import java.awt.image.BufferedImage;
 import java.io.File;
 import java.time.Duration;
 
@@ -105,10 +106,10 @@ public class PictureElement extends GenericPictureElement {
 	public void findElement(boolean searchOnly) {
 		findElement();
 	}
-	public File getScreenshotFile() {
+	public BufferedImage getScreenshot() {
 		screenshotUtil = getScreenshotUtil(); // update driver
 		
-		return screenshotUtil.capture(SnapshotTarget.PAGE, File.class, true);		
+		return screenshotUtil.capture(SnapshotTarget.PAGE, BufferedImage.class, true);		
 	}
 	
 	protected void doAfterPictureSearch() {
@@ -17,6 +17,7 @@
  */
 package com.seleniumtests.uipage.htmlelements;
 
+import java.awt.image.BufferedImage;
 import java.io.File;
 import java.util.Arrays;
 
@@ -74,11 +75,11 @@ public class ScreenZone extends GenericPictureElement {
 	 * Search the picture in the screenshot taken by Robot
 	 * 
 	 */
-	protected File getScreenshotFile() {
+	protected BufferedImage getScreenshot() {
 		screenshotUtil = getScreenshotUtil(); // keep this for unit tests
 
 		// issue #136: we don't need driver when checking desktop
-		return screenshotUtil.capture(SnapshotTarget.SCREEN, File.class, true);
+		return screenshotUtil.capture(SnapshotTarget.SCREEN, BufferedImage.class, true);
 	}
 	
 	protected void doAfterPictureSearch() {
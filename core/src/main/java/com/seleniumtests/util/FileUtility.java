@@ -46,6 +46,8 @@ import org.apache.commons.io.IOUtils;
 import org.apache.log4j.Logger;
 import org.zeroturnaround.zip.ZipUtil;
 
+import com.seleniumtests.util.imaging.ImageFileWriter;
+import com.seleniumtests.util.imaging.ImageFileWriter.ImageFormat;
 import com.seleniumtests.util.logging.SeleniumRobotLogger;
 import com.seleniumtests.util.osutility.OSUtility;
 
@@ -111,7 +113,7 @@ public class FileUtility {
      *
      * @param  path
      */
-    public static synchronized void writeImage(final String path, final byte[] byteArray) {
+    public static void writeImage(final String path, final byte[] byteArray) {
         if (byteArray.length == 0) {
             return;
         }
@@ -126,24 +128,30 @@ public class FileUtility {
         } 
         
     }
+    
     /**
-     * Constructs ImageElement from bytes and stores it.
-     *
-     * @param  path
+     * Write image to file in PNG format
+     * Several threads can write images at the same time, see {@link ImageFileWriter}
+     * @param path
+     * @param bufImage
      */
-    public static synchronized void writeImage(final String path, BufferedImage bufImage) {
+    public static void writeImage(final String path, BufferedImage bufImage) {
+    	writeImage(path, bufImage, ImageFormat.PNG);
+    }
+    
+    /**
+     * Write image to file in the given format
+     * @param path
+     * @param bufImage
+     * @param format	if format cannot be written (WEBP without plugin), PNG is used
+     */
+    public static void writeImage(final String path, BufferedImage bufImage, ImageFormat format) {
     	if (bufImage == null) {
     		return;
     	}
-    	
-    	File parentDir = new File(path).getParentFile();
-    	if (!parentDir.exists()) {
-    		parentDir.mkdirs();
-    	}
 
-    	try (FileOutputStream fos = new FileOutputStream(path)) {
-    		
-    		ImageIO.write(bufImage, "png", fos);
+    	try {
+    		ImageFileWriter.write(new File(path), bufImage, format, ImageFileWriter.DEFAULT_COMPRESSION);
     	} catch (Exception e) {
     		logger.warn(e);
     	} 
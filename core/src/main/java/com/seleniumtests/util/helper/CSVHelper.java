@@ -18,6 +18,7 @@
 package com.seleniumtests.util.helper;
 
 import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -26,26 +27,51 @@ import java.io.InputStreamReader;
 
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 import org.apache.log4j.Logger;
 
 import com.seleniumtests.core.Filter;
-import com.seleniumtests.customexception.CustomSeleniumTestsException;
 import com.seleniumtests.customexception.DatasetException;
 import com.seleniumtests.util.logging.SeleniumRobotLogger;
 
+/**
+ * Reads CSV files (RFC 4180: fields may be quoted, and then contain delimiters, line breaks and doubled quotes)
+ * Data is read line by line while test data is consumed, and filter is applied on each line as it's read, so that big files 
+ * are never fully loaded in memory.
+ * Once fully read, files are kept in a cache so that several data providers using the same file do not read it again. Cached data is 
+ * shared between threads and never modified. Total size of cached files is limited to 'csvDatasetCacheMaxSize' bytes (system property, 
+ * 50 MB by default, 0 to disable cache). Least recently used files are removed first and bigger files are never cached.
+ * A file read from disk is read again if its date or size changes. A file read from class path (clazz not null) is supposed not to change.
+ */
 public class CSVHelper {
     private static Logger logger = SeleniumRobotLogger.getLogger(CSVHelper.class);
 
     public static final String DOUBLE_QUOTE = "\"";
     public static final String DELIM_CHAR = ",";
     public static final String TAB_CHAR = "	";
+    public static final String DATASET_CACHE_MAX_SIZE = "csvDatasetCacheMaxSize";
+    private static final long DEFAULT_DATASET_CACHE_MAX_SIZE = 50L * 1024 * 1024;
+    private static final String REGEX_METACHARACTERS = "\\^$.|?*+()[]{}";
+    
+    // delimiters for which a warning has already been logged
+    private static final Set<String> warnedDelimiters = ConcurrentHashMap.newKeySet();
+    
+    // access ordered, so that first entry is the least recently used
+    private static final Map<String, CsvDataset> datasetCache = new LinkedHashMap<>(16, 0.75f, true);
+    private static long datasetCacheSize = 0;
 
     private CSVHelper() {}
     
@@ -72,117 +98,92 @@ public class CSVHelper {
      * class : null => filename : entire path of file
      * class : this.getClass(), filename : the filename will be search in the same directory of the class
      * 
+     * File is read while the returned iterator is consumed, and closed once all lines have been read or when filter fails.
+     * Callers which stop iterating before the end must close the iterator (it implements {@link AutoCloseable}), else file stays open
+     * 
      * @param clazz
      * @param filename
      * @param filter
      * @param readHeaders
-     * @param delimiter
+     * @param delimiter			the delimiter string, null means ",". It's not a regular expression, see {@link #parseLine(String, String)}
      * @param supportDPFilter
      * @return
      */
     public static Iterator<Object[]> getDataFromCSVFile(final Class<?> clazz, final String filename, Filter filter,
             final boolean readHeaders, final String delimiter, final boolean supportDPFilter) {
+        return getDataFromCSVFile(clazz, filename, filter, readHeaders, delimiter, supportDPFilter, false);
+    }
+    
+    /**
+     * Reads data from csv file.
+     * class : null => filename : entire path of file
+     * class : this.getClass(), filename : the filename will be search in the same directory of the class
+     * 
+     * @param clazz
+     * @param filename
+     * @param filter
+     * @param readHeaders
+     * @param delimiter
+     * @param supportDPFilter
+     * @param parallel			if true, all lines are read at once and filter is applied by several threads. Order of lines is kept.
+     * 							Useful when filter is applied on a big file which is read by a parallel data provider
+     * @return
+     */
+    public static Iterator<Object[]> getDataFromCSVFile(final Class<?> clazz, final String filename, Filter filter,
+            final boolean readHeaders, final String delimiter, final boolean supportDPFilter, final boolean parallel) {
 
-    	Filter newFilter = filter;
-        InputStream is = null;
-        try {
-            if (clazz != null) {
-                is = clazz.getResourceAsStream(filename);
-            } else {
-                is = new FileInputStream(filename);
-            }
-
-            if (is == null) {
-                return new ArrayList<Object[]>().iterator();
-            }
-
-            // Get the sheet
-            String[][] csvData = read(is, delimiter);
-            if (csvData == null) {
-            	return new ArrayList<Object[]>().iterator();
-            }
-
-            List<Object[]> sheetData = new ArrayList<>();
-            if (readHeaders) {
-                List<Object> rowData = new ArrayList<>();
-                for (int j = 0; j < csvData[0].length; j++) {
-                    rowData.add(csvData[0][j]);
-                }
-
-                sheetData.add(rowData.toArray(new Object[rowData.size()]));
-            }
-
-            // Check for blank rows first
-            // First row is the header
-            StringBuilder sbBlank = new StringBuilder();
-
-            if (sbBlank.length() > 0) {
-                sbBlank.deleteCharAt(sbBlank.length() - 1);
-                throw new CustomSeleniumTestsException("Blank TestTitle found on Row(s) " + sbBlank.toString() + ".");
-            }
-
-            // Support include tags and exclude tags
-            if (supportDPFilter) {
-                Filter dpFilter = SpreadSheetHelper.getDPFilter();
-
-                if (dpFilter != null) {
-                    if (newFilter == null) {
-                    	newFilter = dpFilter;
-                    } else {
-                    	newFilter = Filter.and(newFilter, dpFilter);
-                    }
-                }
-            }
-
-            // The first row is the header data
-            for (int i = 1; i < csvData.length; i++) {
-
-                Map<String, Object> rowDataMap = new HashMap<>();
-                List<Object> rowData = new ArrayList<>();
-
-                // Create the mapping between headers and column data
-                for (int j = 0; j < csvData[i].length; j++) {
-                    rowDataMap.put(csvData[0][j], csvData[i][j]);
-                }
-
-                for (int j = 0; j < csvData[0].length; j++) {
-
-                    // Fix for null values not getting created when number of columns in a row is less than
-                    // expected.
-                    if (csvData[i].length > j) {
-                        rowData.add(csvData[i][j]);
-                    } else {
-                        rowData.add(null);
-                    }
-                }
+        // Support include tags and exclude tags
+        Filter newFilter = filter;
+        if (supportDPFilter) {
+            Filter dpFilter = SpreadSheetHelper.getDPFilter();
 
-                // To support include tags and exclude tags
-                if (supportDPFilter) {
-                    SpreadSheetHelper.formatDPTags(rowDataMap);
-                }
-
-                if (newFilter == null || newFilter.match(rowDataMap)) {
-                    sheetData.add(rowData.toArray(new Object[rowData.size()]));
+            if (dpFilter != null) {
+                if (newFilter == null) {
+                    newFilter = dpFilter;
+                } else {
+                    newFilter = Filter.and(newFilter, dpFilter);
                 }
             }
-
-            if ((!readHeaders && sheetData.isEmpty()) || (readHeaders && sheetData.size() <= 1)) {
-                logger.warn("No matching data found on csv file: " + filename + " with filter criteria: "
-                        + newFilter.toString());
-            }
-
-            return sheetData.iterator();
-        } catch (Exception e) {
-            throw new DatasetException(e.getMessage());
-        } finally {
-            if (is != null) {
-                try {
-                    is.close();
-                } catch (Exception e) {
-                    logger.warn(e);
-                }
+        }
+        
+        String newDelimiter = toLiteralDelimiter(delimiter);
+        String cacheKey = getCacheKey(clazz, filename, newDelimiter);
+        
+        CsvDataset dataset = getCachedDataset(cacheKey);
+        String[] headers;
+        Iterator<String[]> rows;
+        
+        if (dataset != null) {
+            headers = dataset.headers;
+            rows = dataset.rows.iterator();
+        } else {
+            CsvReader reader = openCsv(clazz, filename, newDelimiter, cacheKey);
+            if (reader == null || !reader.hasNext()) {
+                return new ArrayList<Object[]>().iterator();
             }
+            headers = reader.next();
+            rows = reader;
+        }
+        
+        DataIterator dataIterator = new DataIterator(filename, headers, rows, newFilter, readHeaders, supportDPFilter);
+        if (!parallel) {
+            return dataIterator;
+        }
+        
+        List<String[]> allRows = new ArrayList<>();
+        rows.forEachRemaining(allRows::add);
+        List<Object[]> sheetData = allRows.parallelStream()
+                .filter(dataIterator::matches)
+                .map(dataIterator::toDataRow)
+                .collect(Collectors.toList());
+        
+        if (readHeaders) {
+            sheetData.add(0, dataIterator.toDataRow(headers));
         }
+        if (sheetData.size() <= (readHeaders ? 1: 0)) {
+            dataIterator.logNoMatchingData();
+        }
+        return sheetData.iterator();
     }
 
     /**
@@ -195,52 +196,144 @@ public class CSVHelper {
      * @return
      */
     public static List<String> getHeaderFromCSVFile(final Class<?> clazz, final String filename, String delimiter) {
-        String newDelimiter = delimiter == null ? ",": delimiter;
-    	
-        InputStream is = null;
+        String newDelimiter = toLiteralDelimiter(delimiter);
+        
+        CsvDataset dataset = getCachedDataset(getCacheKey(clazz, filename, newDelimiter));
+        if (dataset != null) {
+            return toList(dataset.headers);
+        }
+        
+        CsvReader reader = openCsv(clazz, filename, newDelimiter, null);
+        if (reader == null) {
+            return new ArrayList<>();
+        }
+        
+        try {
+            return reader.hasNext() ? toList(reader.next()): new ArrayList<>();
+        } finally {
+            reader.close();
+        }
+    }
+    
+    private static List<String> toList(String[] values) {
+        List<String> list = new ArrayList<>();
+        Collections.addAll(list, values);
+        return list;
+    }
+    
+    /**
+     * Remove all files from cache (in case they are modified by test)
+     */
+    public static synchronized void clearDatasetCache() {
+        datasetCache.clear();
+        datasetCacheSize = 0;
+    }
+    
+    private static synchronized CsvDataset getCachedDataset(final String cacheKey) {
+        return datasetCache.get(cacheKey);
+    }
+    
+    /**
+     * Store the dataset in cache, removing the least recently used ones if cache becomes too big
+     * @param cacheKey
+     * @param dataset
+     */
+    private static synchronized void cacheDataset(final String cacheKey, final CsvDataset dataset) {
+        long cacheMaxSize = getDatasetCacheMaxSize();
+        if (dataset.size > cacheMaxSize || datasetCache.containsKey(cacheKey)) {
+            return;
+        }
+        
+        datasetCache.put(cacheKey, dataset);
+        datasetCacheSize += dataset.size;
+        
+        Iterator<CsvDataset> cachedDatasets = datasetCache.values().iterator();
+        while (datasetCacheSize > cacheMaxSize && cachedDatasets.hasNext()) {
+            datasetCacheSize -= cachedDatasets.next().size;
+            cachedDatasets.remove();
+        }
+    }
+    
+    private static long getDatasetCacheMaxSize() {
+        return Long.getLong(DATASET_CACHE_MAX_SIZE, DEFAULT_DATASET_CACHE_MAX_SIZE);
+    }
+    
+    /**
+     * Key for the file in cache. For files on disk, modification date and size are part of the key so that a modified file is read again
+     * Class path resources are identified by their name only, a change in their content is not detected
+     */
+    private static String getCacheKey(final Class<?> clazz, final String filename, final String delimiter) {
+        if (clazz != null) {
+            return String.format("%s/%s/%s", clazz.getName(), filename, delimiter);
+        } else {
+            File file = new File(filename);
+            return String.format("%s/%d/%d/%s", file.getAbsolutePath(), file.lastModified(), file.length(), delimiter);
+        }
+    }
+    
+    /**
+     * Open the csv file
+     * @param clazz
+     * @param filename
+     * @param delimiter
+     * @param cacheKey		if not null, lines are stored in cache once file is completely read, provided the file is not bigger than cache
+     * @return the reader or null if resource does not exist
+     */
+    private static CsvReader openCsv(final Class<?> clazz, final String filename, final String delimiter, final String cacheKey) {
         try {
+            InputStream is;
+            long fileSize;
             if (clazz != null) {
-                is = clazz.getResourceAsStream(filename);
+                URL resource = clazz.getResource(filename);
+                if (resource == null) {
+                    return null;
+                }
+                URLConnection connection = resource.openConnection();
+                fileSize = connection.getContentLengthLong();
+                is = connection.getInputStream();
             } else {
+                fileSize = new File(filename).length();
                 is = new FileInputStream(filename);
             }
-
-            if (is == null) {
-                return new ArrayList<>();
-            }
-
-            // Get the sheet
-            String[][] csvData = read(is, newDelimiter);
-            if (csvData == null) {
-            	return new ArrayList<>();
-            }
-
-            ArrayList<String> rowData = new ArrayList<>();
-
-            for (int j = 0; j < csvData[0].length; j++) {
-                rowData.add(csvData[0][j]);
-            }
-
-            return rowData;
+            
+            // do not keep lines of a file which cannot be cached
+            long cacheMaxSize = getDatasetCacheMaxSize();
+            boolean cacheable = cacheKey != null && cacheMaxSize > 0 && fileSize <= cacheMaxSize;
+            return new CsvReader(is, delimiter, cacheable ? cacheKey: null, cacheMaxSize);
         } catch (Exception e) {
             throw new DatasetException(e.getMessage());
-        } finally {
-            if (is != null) {
-                try {
-                    is.close();
-                } catch (Exception e) {
-                    logger.warn(e);
-                }
-            }
         }
+    }
 
+    /**
+     * Delimiter used to split lines. Delimiters used to be regular expressions, so an escaped character (e.g: "\\|") is
+     * read as the character itself, and a warning is logged when delimiter looks like a regular expression
+     * @param delimiter		null means ","
+     * @return
+     */
+    private static String toLiteralDelimiter(final String delimiter) {
+        if (delimiter == null) {
+            return DELIM_CHAR;
+        }
+        
+        String literalDelimiter = delimiter;
+        if (delimiter.length() == 2 && delimiter.charAt(0) == '\\') {
+            literalDelimiter = delimiter.charAt(1) == 't' ? TAB_CHAR: delimiter.substring(1);
+            if (warnedDelimiters.add(delimiter)) {
+                logger.warn(String.format("CSV delimiter is not a regular expression, use '%s' instead of '%s'", literalDelimiter, delimiter));
+            }
+        } else if (delimiter.length() > 1 && delimiter.chars().anyMatch(c -> REGEX_METACHARACTERS.indexOf(c) >= 0) && warnedDelimiters.add(delimiter)) {
+            logger.warn(String.format("CSV delimiter '%s' is not a regular expression, lines are split on this exact string", delimiter));
+        }
+        return literalDelimiter;
     }
 
     /**
      * Parses line.
+     * Fields may be quoted, a quote inside a quoted field is written twice
      *
      * @param   line
-     * @param   delim
+     * @param   delim	the delimiter string (not a regular expression). An escaped character (e.g: "\\|") is read as the character itself
      *
      * @return
      */
@@ -248,42 +341,74 @@ public class CSVHelper {
         if (line == null || line.trim().length() == 0) {
             return new String[] {};
         }
-
-        List<String> tokenList = new ArrayList<>();
-        String[] result = null;
-
-        String[] tokens = line.split(delim);
-        int count = 0;
-        while (count < tokens.length) {
-            if (tokens[count] == null || tokens[count].length() == 0) {
-                tokenList.add("");
-                count++;
+        
+        try {
+            return parseRecord(line, toLiteralDelimiter(delim), null);
+        } catch (IOException e) {
+            // cannot happen, no other line is read
+            throw new DatasetException(e.getMessage());
+        }
+    }
+    
+    /**
+     * Parses a CSV record, which may span several lines if a quoted field contains line breaks
+     * 
+     * @param line		first line of the record
+     * @param delim
+     * @param reader	where the following lines are read, if a quoted field is not closed at end of line. If null, only 'line' is parsed
+     * @return
+     * @throws IOException
+     */
+    private static String[] parseRecord(final String line, final String delim, final BufferedReader reader) throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        String currentLine = line;
+        boolean quoted = false;
+        boolean fieldStart = true;
+        int idx = 0;
+        
+        while (true) {
+            if (idx >= currentLine.length()) {
+                String nextLine = quoted && reader != null ? reader.readLine(): null;
+                
+                // unterminated quoted field is kept as is
+                if (nextLine == null) {
+                    fields.add(field.toString());
+                    return fields.toArray(new String[fields.size()]);
+                }
+                field.append('\n');
+                currentLine = nextLine;
+                idx = 0;
                 continue;
             }
-
-            if (tokens[count].startsWith(DOUBLE_QUOTE)) {
-                StringBuilder sbToken = new StringBuilder(tokens[count].substring(1));
-                while (count < tokens.length && !tokens[count].endsWith(DOUBLE_QUOTE)) {
-                    count++;
-                    sbToken.append(DELIM_CHAR).append(tokens[count]);
+            
+            char c = currentLine.charAt(idx);
+            if (quoted) {
+                if (c == '"' && idx + 1 < currentLine.length() && currentLine.charAt(idx + 1) == '"') {
+                    field.append(c);
+                    idx += 2;
+                } else if (c == '"') {
+                    quoted = false;
+                    idx++;
+                } else {
+                    field.append(c);
+                    idx++;
                 }
-
-                sbToken.deleteCharAt(sbToken.length() - 1);
-                tokenList.add(sbToken.toString());
+            } else if (currentLine.startsWith(delim, idx)) {
+                fields.add(field.toString());
+                field.setLength(0);
+                fieldStart = true;
+                idx += delim.length();
+                continue;
+            } else if (c == '"' && fieldStart) {
+                quoted = true;
+                idx++;
             } else {
-                tokenList.add(tokens[count]);
+                field.append(c);
+                idx++;
             }
-
-            count++;
-        }
-
-        if (!tokenList.isEmpty()) {
-            result = new String[tokenList.size()];
-            tokenList.toArray(result);
+            fieldStart = false;
         }
-
-        return result;
-
     }
 
     /**
@@ -306,6 +431,7 @@ public class CSVHelper {
 
     /**
      * Parses an input stream and returns a String[][] object.
+     * Prefer getDataFromCSVFile for big files as the whole file is loaded
      *
      * @param   is
      *
@@ -315,36 +441,17 @@ public class CSVHelper {
      */
     public static String[][] read(final InputStream is, final String delim) throws IOException {
 
-        String[][] result = null;
         List<String[]> list = new ArrayList<>();
-        String inputLine;
-
-        BufferedReader reader = new BufferedReader(new InputStreamReader(is, "UTF-8"));
-        while ((inputLine = reader.readLine()) != null) {
-            try {
-                String[] item;
-                if (delim == null) {
-                    item = parseLine(inputLine, DELIM_CHAR);
-                } else {
-                    item = parseLine(inputLine, delim);
-                }
-
-                if (item != null) {
-                    list.add(item);
-                }
-            } catch (Exception e) {
-            	// ignore
-            }
+        try (CsvReader reader = new CsvReader(is, toLiteralDelimiter(delim), null, 0)) {
+            reader.forEachRemaining(list::add);
+        } catch (DatasetException e) {
+            throw new IOException(e.getMessage(), e);
         }
 
-        reader.close();
-
-        if (!list.isEmpty()) {
-            result = new String[list.size()][];
-            list.toArray(result);
+        if (list.isEmpty()) {
+            return null;
         }
-
-        return result;
+        return list.toArray(new String[list.size()][]);
     }
 
     /**
@@ -360,4 +467,233 @@ public class CSVHelper {
         URLConnection con = url.openConnection();
         return read(con.getInputStream());
     }
+    
+    /**
+     * Content of a CSV file, once fully read. Never modified
+     */
+    private static class CsvDataset {
+        private final String[] headers;
+        private final List<String[]> rows;
+        private final long size;		// approximate size of the CSV text
+        
+        public CsvDataset(String[] headers, List<String[]> rows, long size) {
+            this.headers = headers;
+            this.rows = Collections.unmodifiableList(rows);
+            this.size = size;
+        }
+    }
+    
+    /**
+     * Reads CSV records, one at a time. Blank lines are skipped
+     * Stream is closed when the last record has been read
+     * If a cache key is given, records are kept and stored in cache at the end of file, unless they are bigger than 'cacheMaxSize'
+     */
+    private static class CsvReader implements Iterator<String[]>, Closeable {
+        
+        private final BufferedReader reader;
+        private final String delimiter;
+        private final String cacheKey;
+        private final long cacheMaxSize;
+        private List<String[]> records;
+        private long recordsSize = 0;
+        private String[] nextRecord;
+        private boolean closed = false;
+        
+        public CsvReader(InputStream is, String delimiter, String cacheKey, long cacheMaxSize) {
+            this.reader = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));
+            this.delimiter = delimiter;
+            this.cacheKey = cacheKey;
+            this.cacheMaxSize = cacheMaxSize;
+            this.records = cacheKey == null ? null: new ArrayList<>();
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (nextRecord == null && !closed) {
+                nextRecord = readRecord();
+            }
+            return nextRecord != null;
+        }
+
+        @Override
+        public String[] next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            String[] record = nextRecord;
+            nextRecord = null;
+            return record;
+        }
+        
+        private String[] readRecord() {
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.trim().isEmpty()) {
+                        continue;
+                    }
+                    String[] record = parseRecord(line, delimiter, reader);
+                    keepRecord(record);
+                    return record;
+                }
+                
+                if (records != null && !records.isEmpty()) {
+                    cacheDataset(cacheKey, new CsvDataset(records.get(0), records.subList(1, records.size()), recordsSize));
+                }
+                close();
+                return null;
+                
+            } catch (IOException e) {
+                close();
+                throw new DatasetException(e.getMessage());
+            }
+        }
+        
+        private void keepRecord(String[] record) {
+            if (records == null) {
+                return;
+            }
+            for (String field: record) {
+                recordsSize += field.length() + delimiter.length();
+            }
+            
+            // size of file was unknown or is not the right one, stop keeping records as soon as we know file cannot be cached
+            if (recordsSize > cacheMaxSize) {
+                records = null;
+            } else {
+                records.add(record);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                reader.close();
+            } catch (IOException e) {
+                logger.warn(e);
+            }
+        }
+    }
+    
+    /**
+     * Gives the lines of the CSV file which match the filter, header line first if requested
+     * Lines which do not match are skipped as they are read
+     * File is closed at the end of iteration, when filter fails or when iterator is closed
+     */
+    private static class DataIterator implements Iterator<Object[]>, Closeable {
+        
+        private final String filename;
+        private final String[] headers;
+        private final Iterator<String[]> rows;
+        private final Filter filter;
+        private final boolean formatDPTags;
+        private boolean headerPending;
+        private Object[] nextRow;
+        private int matchingRows = 0;
+        
+        public DataIterator(String filename, String[] headers, Iterator<String[]> rows, Filter filter, boolean readHeaders, boolean formatDPTags) {
+            this.filename = filename;
+            this.headers = headers;
+            this.rows = rows;
+            this.filter = filter;
+            this.headerPending = readHeaders;
+            this.formatDPTags = formatDPTags;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (nextRow == null) {
+                nextRow = findNextRow();
+            }
+            return nextRow != null;
+        }
+
+        @Override
+        public Object[] next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Object[] row = nextRow;
+            nextRow = null;
+            return row;
+        }
+        
+        private Object[] findNextRow() {
+            if (headerPending) {
+                headerPending = false;
+                return toDataRow(headers);
+            }
+            
+            try {
+                while (rows.hasNext()) {
+                    String[] row = rows.next();
+                    if (matches(row)) {
+                        matchingRows++;
+                        return toDataRow(row);
+                    }
+                }
+            } catch (RuntimeException e) {
+                close();
+                throw e;
+            }
+            
+            if (matchingRows == 0) {
+                logNoMatchingData();
+                matchingRows = -1;
+            }
+            return null;
+        }
+        
+        /**
+         * Create the mapping between headers and column data and check it against filter
+         * @param row
+         * @return
+         */
+        private boolean matches(String[] row) {
+            if (filter == null) {
+                return true;
+            }
+            
+            Map<String, Object> rowDataMap = new HashMap<>();
+            for (int j = 0; j < row.length && j < headers.length; j++) {
+                rowDataMap.put(headers[j], row[j]);
+            }
+
+            // To support include tags and exclude tags
+            if (formatDPTags) {
+                SpreadSheetHelper.formatDPTags(rowDataMap);
+            }
+            
+            return filter.match(rowDataMap);
+        }
+        
+        /**
+         * Fix for null values not getting created when number of columns in a row is less than expected.
+         * @param row
+         * @return
+         */
+        private Object[] toDataRow(String[] row) {
+            Object[] rowData = new Object[headers.length];
+            System.arraycopy(row, 0, rowData, 0, Math.min(row.length, headers.length));
+            return rowData;
+        }
+        
+        private void logNoMatchingData() {
+            logger.warn("No matching data found on csv file: " + filename + " with filter criteria: " + filter);
+        }
+        
+        /**
+         * Close the file if it's still being read (rows do not come from cache)
+         */
+        @Override
+        public void close() {
+            if (rows instanceof CsvReader) {
+                ((CsvReader) rows).close();
+            }
+        }
+    }
 }
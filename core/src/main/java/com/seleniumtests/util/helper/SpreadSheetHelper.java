@@ -190,7 +190,7 @@ public class SpreadSheetHelper {
      * Reads data from spreadsheet. If sheetName and sheetNumber both are supplied the sheetName takes precedence. Put
      * the excel sheet in the same folder as the test case and specify clazz as <code>this.getClass()</code> .
      */
-    public static synchronized Iterator<Object[]> getDataFromSpreadsheet(final Class<?> clazz, final String filename,
+    public static Iterator<Object[]> getDataFromSpreadsheet(final Class<?> clazz, final String filename,
             final Filter filter, final boolean readHeaders) {
         return getDataFromSpreadsheet(clazz, filename, filter, readHeaders, true);
     }
@@ -208,12 +208,30 @@ public class SpreadSheetHelper {
      *
      * @throws  Exception
      */
-    public static synchronized Iterator<Object[]> getDataFromSpreadsheet(final Class<?> clazz, final String filename,
+    public static Iterator<Object[]> getDataFromSpreadsheet(final Class<?> clazz, final String filename,
             final Filter filter, final boolean readHeaders, final boolean supportDPFilter) {
+        return getDataFromSpreadsheet(clazz, filename, filter, readHeaders, supportDPFilter, false);
+    }
+    
+    /**
+     * Reads data from spreadsheet. 
+     * 
+     * @param   clazz
+     * @param   filename
+     * @param   filter
+     * @param   readHeaders
+     * @param   supportDPFilter
+     * @param   parallel		if true, filter is applied on all lines by several threads before data is returned. Else, lines are read
+     * 							and filtered while data is consumed
+     *
+     * @return
+     */
+    public static Iterator<Object[]> getDataFromSpreadsheet(final Class<?> clazz, final String filename,
+            final Filter filter, final boolean readHeaders, final boolean supportDPFilter, final boolean parallel) {
 
         // CSVHelper handle CSV Files
         if (filename.toLowerCase().endsWith(".csv")) {
-            return CSVHelper.getDataFromCSVFile(clazz, filename, filter, readHeaders, supportDPFilter);
+            return CSVHelper.getDataFromCSVFile(clazz, filename, filter, readHeaders, null, supportDPFilter, parallel);
         } else {
             throw new DatasetException("illegal file format, only csv files are supported for now");
         }
@@ -17,19 +17,28 @@
  */
 package com.seleniumtests.util.imaging;
 
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.WritableRaster;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.swing.ImageIcon;
 import javax.swing.JFrame;
@@ -49,6 +58,7 @@ import org.opencv.core.MatOfDMatch;
 import org.opencv.core.MatOfKeyPoint;
 import org.opencv.core.MatOfPoint2f;
 import org.opencv.core.Point;
+import org.opencv.core.Rect;
 import org.opencv.core.Scalar;
 import org.opencv.core.Size;
 import org.opencv.features2d.DescriptorExtractor;
@@ -76,12 +86,70 @@ public class ImageDetector {
 	private long rotationAngle;
 	private File sceneImage;
 	private File objectImage;
+	private Mat sceneImageMat;
+	private Mat objectImageMat;
+	private Mat objectImageGrayMat;
 	private boolean debug = false;
 	private double detectionThreshold = 0.05;
 	private Mat imgMatch = new Mat();
 	private double sizeRatio;
+	private DetectionMode detectionMode = DetectionMode.ACCURATE;
+	private FeatureType featureType = FeatureType.SURF;
+	private double matchRatio = 0.75;
 	private static Logger logger = SeleniumRobotLogger.getLogger(ImageDetector.class);
 	
+	public static final String IMAGE_DETECTION_THREADS = "imageDetectionThreads";
+	private static final int MATCHING_TIMEOUT = 10;
+	private static final int PYRAMID_FACTOR = 2;				// pyrDown divides size by 2
+	private static final int PYRAMID_MIN_OBJECT_SIZE = 16;		// under this size (in pixels), downsampled object is not relevant
+	private static final int PYRAMID_MARGIN = 10;				// margin (in pixels) around candidate zone, when refining search
+	private static final int PYRAMID_CANDIDATES = 3;			// number of candidates, from downsampled search, refined in full resolution
+	private static final int PYRAMID_SCALE_RANGE = 50;		// scales searched in full resolution are candidate scale +/- this range (in 1/1000)
+	private static final int PYRAMID_SCALE_STEP = 10;
+	private static ExecutorService matchingExecutor;
+	
+	/**
+	 * ACCURATE: all scales are searched on full resolution scene
+	 * FAST: scales are searched on downsampled scene, and only best candidates are checked on full resolution scene. This is faster on big scenes
+	 * but very similar zones may be confused
+	 */
+	public enum DetectionMode {
+		ACCURATE,
+		FAST
+	}
+	
+	/**
+	 * Keypoint detection / description algorithm, used by {@link ImageDetector#detectCorrespondingZone()}
+	 * ORB produces binary descriptors, cheaper to compute and match than SURF / SIFT ones
+	 */
+	public enum FeatureType {
+		SURF(FeatureDetector.SURF, DescriptorExtractor.SURF, DescriptorMatcher.FLANNBASED),
+		SIFT(FeatureDetector.SIFT, DescriptorExtractor.SIFT, DescriptorMatcher.FLANNBASED),
+		ORB(FeatureDetector.ORB, DescriptorExtractor.ORB, DescriptorMatcher.BRUTEFORCE_HAMMING);
+		
+		private final int detector;
+		private final int extractor;
+		private final int matcher;
+		
+		FeatureType(int detector, int extractor, int matcher) {
+			this.detector = detector;
+			this.extractor = extractor;
+			this.matcher = matcher;
+		}
+
+		public int getDetector() {
+			return detector;
+		}
+
+		public int getExtractor() {
+			return extractor;
+		}
+
+		public int getMatcher() {
+			return matcher;
+		}
+	}
+	
 	// load openCV
 	// In case of "UnsatisfiedLinkError, library already loaded in another class loader", during unit tests, check that 
 	// this class or a calling one is not "prepared" through PowerMockito (which reloads the class in another class loader)
@@ -169,102 +237,172 @@ public class ImageDetector {
 		this.detectionThreshold = detectionThreshold;
 	}
 	
+	/**
+	 * Build a detector from in-memory pictures. Nothing is written to disk
+	 * @param sceneImage			picture where we search
+	 * @param objectImage			picture to search for
+	 * @param detectionThreshold
+	 */
+	public ImageDetector(BufferedImage sceneImage, BufferedImage objectImage, double detectionThreshold) {
+		setSceneImage(sceneImage);
+		setObjectImage(objectImage);
+		this.detectionThreshold = detectionThreshold;
+	}
+	
+	/**
+	 * Converts a BufferedImage to an openCV color Mat (BGR), without encoding it
+	 * @param image
+	 * @return
+	 */
+	public static Mat bufferedImageToMat(BufferedImage image) {
+		BufferedImage bgrImage = image;
+		if (!isPackedBgrImage(image)) {
+			bgrImage = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_3BYTE_BGR);
+			Graphics2D graphics = bgrImage.createGraphics();
+			graphics.drawImage(image, 0, 0, null);
+			graphics.dispose();
+		}
+		
+		byte[] pixels = ((DataBufferByte) bgrImage.getRaster().getDataBuffer()).getData();
+		Mat mat = new Mat(bgrImage.getHeight(), bgrImage.getWidth(), CvType.CV_8UC3);
+		mat.put(0, 0, pixels);
+		return mat;
+	}
+	
+	/**
+	 * Pixels of the image can be copied as is to a Mat only if image is BGR and its raster uses the whole data buffer, from the start, without padding
+	 * This is not the case, for example, of an image returned by getSubimage(), which shares the buffer of its parent
+	 * @param image
+	 * @return
+	 */
+	private static boolean isPackedBgrImage(BufferedImage image) {
+		if (image.getType() != BufferedImage.TYPE_3BYTE_BGR) {
+			return false;
+		}
+		WritableRaster raster = image.getRaster();
+		if (raster.getParent() != null 
+				|| raster.getSampleModelTranslateX() != 0 
+				|| raster.getSampleModelTranslateY() != 0
+				|| !(raster.getSampleModel() instanceof ComponentSampleModel)) {
+			return false;
+		}
+		ComponentSampleModel sampleModel = (ComponentSampleModel) raster.getSampleModel();
+		DataBuffer dataBuffer = raster.getDataBuffer();
+		return sampleModel.getScanlineStride() == image.getWidth() * 3 
+				&& sampleModel.getPixelStride() == 3
+				&& dataBuffer.getOffset() == 0
+				&& dataBuffer.getSize() == image.getWidth() * image.getHeight() * 3;
+	}
+	
+	/**
+	 * Converts an encoded picture (PNG, JPG, ...) held in memory to an openCV color Mat
+	 * @param encodedImage
+	 * @return
+	 */
+	public static Mat bytesToMat(byte[] encodedImage) {
+		Mat mat = Imgcodecs.imdecode(new MatOfByte(encodedImage), Imgcodecs.CV_LOAD_IMAGE_COLOR);
+		if (mat.empty()) {
+			throw new ImageSearchException("Provided bytes cannot be decoded as a picture");
+		}
+		return mat;
+	}
+	
+	private static Mat toGray(Mat colorMat) {
+		Mat grayMat = new Mat();
+		Imgproc.cvtColor(colorMat, grayMat, Imgproc.COLOR_BGR2GRAY);
+		return grayMat;
+	}
+	
+	private String getSceneImageName() {
+		return sceneImage != null ? sceneImage.getAbsolutePath(): "<in memory scene>";
+	}
+	
+	private String getObjectImageName() {
+		return objectImage != null ? objectImage.getAbsolutePath(): "<in memory object>";
+	}
+	
 	/**
 	 * Compute the rectangle where the searched picture is and the rotation angle between both images
 	 * Throw {@link ImageSearchException} if picture is not found
+	 * Keypoints are detected and described using the configured {@link FeatureType}. Matches are filtered with a ratio test: a match is
+	 * kept only if its distance is clearly lower than the distance of the second best match
 	 * @return
-	 * @Deprecated Kept here for information, but open CV 3 does not include SURF anymore for java build
+	 * @Deprecated Kept here for information, but open CV 3 does not include SURF anymore for java build. Use {@link FeatureType#ORB} instead
 	 */
 	public void detectCorrespondingZone() {
-		Mat objectImageMat = Imgcodecs.imread(objectImage.getAbsolutePath(), Imgcodecs.CV_LOAD_IMAGE_COLOR);
-		Mat sceneImageMat = Imgcodecs.imread(sceneImage.getAbsolutePath(), Imgcodecs.CV_LOAD_IMAGE_COLOR);
-		FeatureDetector surf = FeatureDetector.create(FeatureDetector.SURF);
+		checkImagesAvailable();
+		FeatureDetector featureDetector = FeatureDetector.create(featureType.getDetector());
 		
 		MatOfKeyPoint objectKeyPoints = new MatOfKeyPoint();
 		MatOfKeyPoint sceneKeyPoints = new MatOfKeyPoint();
 		
-		surf.detect(objectImageMat, objectKeyPoints);
-		surf.detect(sceneImageMat, sceneKeyPoints);
+		featureDetector.detect(objectImageMat, objectKeyPoints);
+		featureDetector.detect(sceneImageMat, sceneKeyPoints);
 		
-		DescriptorExtractor surfExtractor = DescriptorExtractor.create(DescriptorExtractor.SURF);
+		DescriptorExtractor descriptorExtractor = DescriptorExtractor.create(featureType.getExtractor());
 		Mat objectDescriptor = new Mat();
 		Mat sceneDescriptor = new Mat();
-		surfExtractor.compute(objectImageMat, objectKeyPoints, objectDescriptor);
-		surfExtractor.compute(sceneImageMat, sceneKeyPoints, sceneDescriptor);
+		descriptorExtractor.compute(objectImageMat, objectKeyPoints, objectDescriptor);
+		descriptorExtractor.compute(sceneImageMat, sceneKeyPoints, sceneDescriptor);
 		
-		try {
-			Mat outImage = new Mat();
-			Features2d.drawKeypoints(objectImageMat, objectKeyPoints, outImage);
-			File tmpImg = File.createTempFile("img", ".png");
-			tmpImg.deleteOnExit();
-			String tempFile = tmpImg.getAbsolutePath();
-			
-			writeComparisonPictureToFile(tempFile, outImage);
-		} catch (IOException e) {
-			
+		if (debug) {
+			try {
+				Mat outImage = new Mat();
+				Features2d.drawKeypoints(objectImageMat, objectKeyPoints, outImage);
+				File tmpImg = File.createTempFile("img", ".png");
+				tmpImg.deleteOnExit();
+				String tempFile = tmpImg.getAbsolutePath();
+				
+				writeComparisonPictureToFile(tempFile, outImage);
+			} catch (IOException e) {
+				
+			}
 		}
 		
-		// http://stackoverflow.com/questions/29828849/flann-for-opencv-java
-		DescriptorMatcher matcher = DescriptorMatcher.create(DescriptorMatcher.FLANNBASED);
-		MatOfDMatch matches = new MatOfDMatch();
-		
-		if (objectKeyPoints.toList().isEmpty()) {
-			throw new ImageSearchException("No keypoints in object to search, check it's not uniformly coloured: " + objectImage.getAbsolutePath());
-		}
-		if (sceneKeyPoints.toList().isEmpty()) {
-			throw new ImageSearchException("No keypoints in scene, check it's not uniformly coloured: " + sceneImage.getAbsolutePath());
+		if (objectKeyPoints.empty() || objectDescriptor.empty()) {
+			throw new ImageSearchException("No keypoints in object to search, check it's not uniformly coloured: " + getObjectImageName());
 		}
-		if (objectDescriptor.type() != CvType.CV_32F) {
-			objectDescriptor.convertTo(objectDescriptor, CvType.CV_32F);
+		if (sceneKeyPoints.empty() || sceneDescriptor.empty()) {
+			throw new ImageSearchException("No keypoints in scene, check it's not uniformly coloured: " + getSceneImageName());
 		}
-		if (sceneDescriptor.type() != CvType.CV_32F) {
-			sceneDescriptor.convertTo(sceneDescriptor, CvType.CV_32F);
-		}
-			
-		matcher.match( objectDescriptor, sceneDescriptor, matches );
 		
-		double maxDist = 0; 
-		double minDist = 10000;
-		
-		for( int i = 0; i < objectDescriptor.rows(); i++ ) { 
-			double dist = matches.toList().get(i).distance;
-		    if ( dist < minDist ) {
-		    	minDist = dist;
-		    }
-		    if( dist > maxDist )  {
-		    	maxDist = dist;
-		    }
+		// http://stackoverflow.com/questions/29828849/flann-for-opencv-java
+		// FLANN matcher only accepts float descriptors. Binary descriptors (ORB) are matched using hamming distance
+		if (featureType.getMatcher() == DescriptorMatcher.FLANNBASED) {
+			if (objectDescriptor.type() != CvType.CV_32F) {
+				objectDescriptor.convertTo(objectDescriptor, CvType.CV_32F);
+			}
+			if (sceneDescriptor.type() != CvType.CV_32F) {
+				sceneDescriptor.convertTo(sceneDescriptor, CvType.CV_32F);
+			}
 		}
+		DescriptorMatcher matcher = DescriptorMatcher.create(featureType.getMatcher());
+		List<MatOfDMatch> knnMatches = new ArrayList<>();
+		matcher.knnMatch(objectDescriptor, sceneDescriptor, knnMatches, 2);
 		
-		logger.debug("-- Max dist : " + maxDist);
-		logger.debug("-- Min dist : " + minDist);
-		
-		LinkedList<DMatch> goodMatches = new LinkedList<>();
-		MatOfDMatch gm = new MatOfDMatch();
+		List<DMatch> goodMatches = filterMatches(knnMatches);
 
-		for(int i = 0; i < objectDescriptor.rows(); i++){
-		    if(matches.toList().get(i).distance < detectionThreshold){
-		        goodMatches.addLast(matches.toList().get(i));
-		    }
+		if (debug) {
+			MatOfDMatch gm = new MatOfDMatch();
+			gm.fromList(goodMatches);
+			Features2d.drawMatches(objectImageMat, objectKeyPoints, sceneImageMat, sceneKeyPoints, 
+					gm, imgMatch, Scalar.all(-1), Scalar.all(-1), new MatOfByte(), Features2d.NOT_DRAW_SINGLE_POINTS);
 		}
-		gm.fromList(goodMatches);
-
-		Features2d.drawMatches(objectImageMat, objectKeyPoints, sceneImageMat, sceneKeyPoints, 
-				gm, imgMatch, Scalar.all(-1), Scalar.all(-1), new MatOfByte(), Features2d.NOT_DRAW_SINGLE_POINTS);
 		
-		if (goodMatches.isEmpty()) {
+		// a few points are needed to compute the transformation reliably
+		if (goodMatches.size() < 4) {
 			throw new ImageSearchException("Cannot find matching zone");
 		}
 		
-		LinkedList<Point> objList = new LinkedList<>();
-		LinkedList<Point> sceneList = new LinkedList<>();
+		List<Point> objList = new ArrayList<>(goodMatches.size());
+		List<Point> sceneList = new ArrayList<>(goodMatches.size());
 
-		List<KeyPoint> objectKeyPointsList = objectKeyPoints.toList();
-		List<KeyPoint> sceneKeyPointsList = sceneKeyPoints.toList();
+		KeyPoint[] objectKeyPointsArray = objectKeyPoints.toArray();
+		KeyPoint[] sceneKeyPointsArray = sceneKeyPoints.toArray();
 
-		for(int i = 0; i<goodMatches.size(); i++){
-		    objList.addLast(objectKeyPointsList.get(goodMatches.get(i).queryIdx).pt);
-		    sceneList.addLast(sceneKeyPointsList.get(goodMatches.get(i).trainIdx).pt);
+		for (DMatch goodMatch: goodMatches) {
+		    objList.add(objectKeyPointsArray[goodMatch.queryIdx].pt);
+		    sceneList.add(sceneKeyPointsArray[goodMatch.trainIdx].pt);
 		}
 
 		MatOfPoint2f obj = new MatOfPoint2f();
@@ -273,8 +411,12 @@ public class ImageDetector {
 		MatOfPoint2f scene = new MatOfPoint2f();
 		scene.fromList(sceneList);
 		
-		// Calib3d.RANSAC could be used instead of 0
-		Mat hg = Calib3d.findHomography(obj, scene, 0, 5);
+		// only rotation, translation and uniform scaling are expected between object and scene. A full homography is badly estimated when
+		// keypoints are nearly aligned (e.g: text), so compute a similarity transform instead. RANSAC removes the wrong matches kept by ratio test
+		Mat hg = Calib3d.estimateAffinePartial2D(obj, scene);
+		if (hg.empty()) {
+			throw new ImageSearchException("Cannot find matching zone");
+		}
 
 		Mat objectCorners = new Mat(4,1,CvType.CV_32FC2);
 		Mat sceneCorners = new Mat(4,1,CvType.CV_32FC2);
@@ -284,7 +426,7 @@ public class ImageDetector {
 		objectCorners.put(2, 0, new double[] {objectImageMat.cols(),objectImageMat.rows()});
 		objectCorners.put(3, 0, new double[] {0,objectImageMat.rows()});
 		
-		Core.perspectiveTransform(objectCorners, sceneCorners, hg);
+		Core.transform(objectCorners, sceneCorners, hg);
 		
 		// points of object
 		Point po1 = new Point(objectCorners.get(0,0));
@@ -337,6 +479,39 @@ public class ImageDetector {
 		recordDetectedRectangle(p1, p2, p3, p4);
 	}
 
+	/**
+	 * Filter matches, in one pass, with a ratio test: the best match of a keypoint is kept if it's distance is lower than 'matchRatio' times
+	 * the distance of the second best match
+	 * @param knnMatches	for each object keypoint, the 2 best matches in scene
+	 * @return	the matches to keep
+	 */
+	private List<DMatch> filterMatches(List<MatOfDMatch> knnMatches) {
+		double maxDist = 0; 
+		double minDist = Double.MAX_VALUE;
+		List<DMatch> goodMatches = new ArrayList<>();
+		
+		for (MatOfDMatch keyPointMatches: knnMatches) {
+			DMatch[] bestMatches = keyPointMatches.toArray();
+			if (bestMatches.length == 0) {
+				continue;
+			}
+			
+			double dist = bestMatches[0].distance;
+			minDist = Math.min(minDist, dist);
+			maxDist = Math.max(maxDist, dist);
+			
+			if (bestMatches.length == 1 || dist < matchRatio * bestMatches[1].distance) {
+				goodMatches.add(bestMatches[0]);
+			}
+		}
+		
+		logger.debug("-- Max dist : " + maxDist);
+		logger.debug("-- Min dist : " + minDist);
+		logger.debug(String.format("-- %d good matches over %d", goodMatches.size(), knnMatches.size()));
+		
+		return goodMatches;
+	}
+	
 	/**
 	 * Detect the object inside the scene
 	 * We also search the scale of the scene from 20% to 120% scale by steps
@@ -352,11 +527,68 @@ public class ImageDetector {
 	 * third pass: scales are 625, 650, 675
 	 * 
 	 * The best match is at 675
+	 * 
+	 * In {@link DetectionMode#FAST} mode, this search is done on downsampled scene and object, and only the zones around the best
+	 * candidates are searched again in full resolution
 	 */
 	public void detectExactZoneWithScale() {
 		
-		Mat sceneImageMat = Imgcodecs.imread(sceneImage.getAbsolutePath(), Imgcodecs.CV_LOAD_IMAGE_GRAYSCALE);
-        Mat objectImageMat = Imgcodecs.imread(objectImage.getAbsolutePath(), Imgcodecs.CV_LOAD_IMAGE_GRAYSCALE);
+		checkImagesAvailable();
+		Mat sceneImageMat = toGray(this.sceneImageMat);
+		
+		// object picture does not change between searches, convert it only once
+		if (objectImageGrayMat == null) {
+			objectImageGrayMat = toGray(this.objectImageMat);
+		}
+        Mat objectImageMat = objectImageGrayMat;
+        
+        TemplateMatchProperties bestMatch = null;
+        if (detectionMode == DetectionMode.FAST && canUsePyramid(objectImageMat)) {
+        	bestMatch = detectExactZoneWithPyramid(sceneImageMat, objectImageMat);
+        } 
+        
+        // in accurate mode, or if fast search could not find any candidate, search on full resolution pictures
+        if (bestMatch == null) {
+        	List<TemplateMatchProperties> matches = searchScales(sceneImageMat, objectImageMat);
+        	bestMatch = matches.isEmpty() ? null: matches.get(0);
+        }
+		
+		if (bestMatch != null) {
+			if (bestMatch.getMatchValue() < 1 - detectionThreshold) {
+				throw new ImageSearchException(String.format("No match found for threshold %.2f, match found with value %.2f", 1 - detectionThreshold, bestMatch.getMatchValue()));
+			}
+	
+			detectedRectangle = new Rectangle((int)(bestMatch.getMatchLoc().x / bestMatch.getDoubleScale()), 
+												(int)(bestMatch.getMatchLoc().y / bestMatch.getDoubleScale()), 
+												(int)(objectImageMat.rows() / bestMatch.getDoubleScale()), 
+												(int)(objectImageMat.cols() / bestMatch.getDoubleScale()));
+			
+			if (debug) {
+				try {
+					Imgproc.rectangle(sceneImageMat, new Point(detectedRectangle.x, detectedRectangle.y), new Point(detectedRectangle.x + detectedRectangle.width,
+						detectedRectangle.y + detectedRectangle.height), new Scalar(0, 255, 0));
+				
+					showResultingPicture(sceneImageMat);
+				} catch (IOException e) {
+				}
+			}
+	        rotationAngle = 0;
+	        sizeRatio = detectedRectangle.width / (double)objectImageMat.cols();
+	        
+		} else {
+			throw new ImageSearchException("no matching has been found");
+		}
+      
+	}
+	
+	/**
+	 * Search object in scene, for all scales, by steps (see {@link #detectExactZoneWithScale()})
+	 * Matching is done on the shared matching executor
+	 * @param sceneImageMat		gray scene
+	 * @param objectImageMat	gray object
+	 * @return	the list of matches, best first
+	 */
+	private List<TemplateMatchProperties> searchScales(Mat sceneImageMat, Mat objectImageMat) {
         
         List<TemplateMatchProperties> matches = Collections.synchronizedList(new ArrayList<>());
         
@@ -390,7 +622,7 @@ public class ImageDetector {
 	        	}
         	}
         	
-        	ExecutorService executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        	List<Future<Object>> futures = new ArrayList<>();
         	for (int scale: localScales) {
         		if (computedScales.contains(scale)) {
         			continue;
@@ -406,7 +638,7 @@ public class ImageDetector {
     				continue;
     			}
 
-    			executorService.submit(() -> {
+    			futures.add(getMatchingExecutor().submit(() -> {
     				
     				Mat resizeSceneImageMat = new Mat();
     				Imgproc.resize( sceneImageMat, resizeSceneImageMat, sz );
@@ -417,20 +649,14 @@ public class ImageDetector {
     		      	} catch (ImageSearchException e) {
     				}
     		        
-    		      });
+    		      }, null));
     		}
         
-    		executorService.shutdown();
-    		try {
-    			executorService.awaitTermination(10, TimeUnit.SECONDS);
-    		} catch (Exception e) {
-    			logger.info("Could not compute scale within 10 seconds", e);
-    		}
-    		
+        	waitForMatching(futures);
     		
         	// shortcut if we find a very good match
     		double cleanThreshold = currentThreshold;
-    		matches.sort((TemplateMatchProperties t1, TemplateMatchProperties t2) -> -(t1.getMatchValue().compareTo(t2.getMatchValue())));
+    		sortMatches(matches);
     		if (!matches.isEmpty() && matches.get(0).getMatchValue() > 0.9) {
     			cleanThreshold = 0.9;
     			currentStep = Math.min(currentStep, 50);
@@ -447,35 +673,140 @@ public class ImageDetector {
         }
 		
 		// get the best match
-		matches.sort((TemplateMatchProperties t1, TemplateMatchProperties t2) -> -(t1.getMatchValue().compareTo(t2.getMatchValue())));
+        sortMatches(matches);
+		return matches;
+	}
+	
+	/**
+	 * Search the object on downsampled pictures, then refine the best candidates in full resolution, only around the candidate location
+	 * @param sceneImageMat		gray scene
+	 * @param objectImageMat	gray object
+	 * @return	the best match, with location expressed in the full resolution scene, resized to match scale. null if no candidate has been found
+	 */
+	private TemplateMatchProperties detectExactZoneWithPyramid(Mat sceneImageMat, Mat objectImageMat) {
 		
-		if (!matches.isEmpty()) {
-			TemplateMatchProperties bestMatch = matches.get(0);
-			if (bestMatch.getMatchValue() < 1 - detectionThreshold) {
-				throw new ImageSearchException(String.format("No match found for threshold %.2f, match found with value %.2f", 1 - detectionThreshold, bestMatch.getMatchValue()));
+		Mat smallSceneImageMat = new Mat();
+		Mat smallObjectImageMat = new Mat();
+		Imgproc.pyrDown(sceneImageMat, smallSceneImageMat);
+		Imgproc.pyrDown(objectImageMat, smallObjectImageMat);
+		
+		List<TemplateMatchProperties> candidates;
+		try {
+			candidates = searchScales(smallSceneImageMat, smallObjectImageMat);
+		} catch (ImageSearchException e) {
+			logger.debug("no candidate found on downsampled scene, searching on full scene");
+			return null;
+		}
+		
+		List<Future<TemplateMatchProperties>> futures = new ArrayList<>();
+		for (TemplateMatchProperties candidate: candidates.subList(0, Math.min(PYRAMID_CANDIDATES, candidates.size()))) {
+			for (int scale = candidate.getMatchScale() - PYRAMID_SCALE_RANGE; scale <= candidate.getMatchScale() + PYRAMID_SCALE_RANGE; scale += PYRAMID_SCALE_STEP) {
+				final int localScale = scale;
+				futures.add(getMatchingExecutor().submit(() -> refineCandidate(sceneImageMat, objectImageMat, candidate, localScale)));
 			}
+		}
+		
+		TemplateMatchProperties bestMatch = null;
+		for (TemplateMatchProperties match: waitForMatching(futures)) {
+			if (match != null && (bestMatch == null || match.getMatchValue() > bestMatch.getMatchValue())) {
+				bestMatch = match;
+			}
+		}
+		
+		return bestMatch;
+	}
 	
-			detectedRectangle = new Rectangle((int)(bestMatch.getMatchLoc().x / bestMatch.getDoubleScale()), 
-												(int)(bestMatch.getMatchLoc().y / bestMatch.getDoubleScale()), 
-												(int)(objectImageMat.rows() / bestMatch.getDoubleScale()), 
-												(int)(objectImageMat.cols() / bestMatch.getDoubleScale()));
-			
-			if (debug) {
-				try {
-					Imgproc.rectangle(sceneImageMat, new Point(detectedRectangle.x, detectedRectangle.y), new Point(detectedRectangle.x + detectedRectangle.width,
-						detectedRectangle.y + detectedRectangle.height), new Scalar(0, 255, 0));
-				
-					showResultingPicture(sceneImageMat);
-				} catch (IOException e) {
-				}
+	/**
+	 * Search the object in full resolution scene, only in the zone around a candidate found in downsampled scene
+	 * @param sceneImageMat		full resolution gray scene
+	 * @param objectImageMat	full resolution gray object
+	 * @param candidate			match found on downsampled pictures
+	 * @param scale				scale to use for searching
+	 * @return	the match, with location expressed in the full resolution scene, resized to scale. null if zone cannot be searched
+	 */
+	private TemplateMatchProperties refineCandidate(Mat sceneImageMat, Mat objectImageMat, TemplateMatchProperties candidate, int scale) {
+		
+		if (scale <= 0) {
+			return null;
+		}
+		double candidateScale = candidate.getDoubleScale();
+		double doubleScale = scale / 1000.0;
+		
+		// zone where object has been found, in full resolution scene coordinates, with some margin around
+		int margin = (int)(PYRAMID_MARGIN / candidateScale);
+		int x = Math.max(0, (int)(candidate.getMatchLoc().x * PYRAMID_FACTOR / candidateScale) - margin);
+		int y = Math.max(0, (int)(candidate.getMatchLoc().y * PYRAMID_FACTOR / candidateScale) - margin);
+		int width = Math.min(sceneImageMat.cols() - x, (int)(objectImageMat.cols() / candidateScale) + 2 * margin);
+		int height = Math.min(sceneImageMat.rows() - y, (int)(objectImageMat.rows() / candidateScale) + 2 * margin);
+		
+		Size sz = new Size(width * doubleScale, height * doubleScale);
+		if (sz.width < objectImageMat.cols() || sz.height < objectImageMat.rows()) {
+			return null;
+		}
+		
+		Mat zoneImageMat = new Mat();
+		Imgproc.resize(sceneImageMat.submat(new Rect(x, y, width, height)), zoneImageMat, sz);
+		MinMaxLocResult mmr = getBestTemplateMatching(Imgproc.TM_CCOEFF_NORMED, zoneImageMat, objectImageMat);
+		
+		// express location as if the whole scene had been resized
+		Point matchLoc = new Point(mmr.maxLoc.x + x * doubleScale, mmr.maxLoc.y + y * doubleScale);
+		return new TemplateMatchProperties(matchLoc, mmr.maxVal, scale);
+	}
+	
+	/**
+	 * Pyramid search is only possible if object is big enough to remain meaningful once downsampled
+	 * @param objectImageMat
+	 * @return
+	 */
+	private boolean canUsePyramid(Mat objectImageMat) {
+		return Math.min(objectImageMat.cols(), objectImageMat.rows()) / PYRAMID_FACTOR >= PYRAMID_MIN_OBJECT_SIZE;
+	}
+	
+	private void sortMatches(List<TemplateMatchProperties> matches) {
+		matches.sort((TemplateMatchProperties t1, TemplateMatchProperties t2) -> -(t1.getMatchValue().compareTo(t2.getMatchValue())));
+	}
+	
+	/**
+	 * Wait for all matching tasks to complete, at most MATCHING_TIMEOUT seconds. Tasks not completed at that time are cancelled
+	 * @param futures
+	 * @return	results of completed tasks
+	 */
+	private <T> List<T> waitForMatching(List<Future<T>> futures) {
+		List<T> results = new ArrayList<>();
+		long end = System.currentTimeMillis() + MATCHING_TIMEOUT * 1000;
+		for (Future<T> future: futures) {
+			try {
+				results.add(future.get(Math.max(0, end - System.currentTimeMillis()), TimeUnit.MILLISECONDS));
+			} catch (TimeoutException e) {
+				future.cancel(true);
+				logger.info(String.format("Could not compute scale within %d seconds", MATCHING_TIMEOUT));
+			} catch (ExecutionException e) {
+				logger.info("Error while computing scale", e.getCause());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				future.cancel(true);
 			}
-	        rotationAngle = 0;
-	        sizeRatio = detectedRectangle.width / (double)objectImageMat.cols();
-	        
-		} else {
-			throw new ImageSearchException("no matching has been found");
 		}
-      
+		return results;
+	}
+	
+	/**
+	 * Returns the executor used for template matching. It's shared by all threads of the process, so that parallel tests do not
+	 * start more matching threads than configured
+	 * Number of threads can be set through 'imageDetectionThreads' system property. Default is the number of processors
+	 * @return
+	 */
+	public static synchronized ExecutorService getMatchingExecutor() {
+		if (matchingExecutor == null) {
+			int threads = Math.max(1, Integer.getInteger(IMAGE_DETECTION_THREADS, Runtime.getRuntime().availableProcessors()));
+			AtomicInteger threadNumber = new AtomicInteger();
+			matchingExecutor = Executors.newFixedThreadPool(threads, runnable -> {
+				Thread thread = new Thread(runnable, "image-detector-" + threadNumber.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		return matchingExecutor;
 	}
 	
 	private MinMaxLocResult getBestTemplateMatching(int matchMethod, Mat sceneImageMat, Mat objectImageMat) {
@@ -714,8 +1045,37 @@ public class ImageDetector {
 			throw new ImageSearchException(String.format("File for object to detect %s does not exist", sceneImage));
 		}
 		this.sceneImage = sceneImage;
+		this.sceneImageMat = Imgcodecs.imread(sceneImage.getAbsolutePath(), Imgcodecs.CV_LOAD_IMAGE_COLOR);
+	}
+	
+	/**
+	 * Set the scene from a picture held in memory (e.g: a screenshot), avoiding any file write / read
+	 * @param sceneImage
+	 */
+	public void setSceneImage(BufferedImage sceneImage) {
+		if (sceneImage == null) {
+			throw new ImageSearchException("Scene image is null");
+		}
+		this.sceneImage = null;
+		this.sceneImageMat = bufferedImageToMat(sceneImage);
+	}
+	
+	/**
+	 * Set the scene from an encoded picture (PNG, JPG) held in memory
+	 * @param sceneImage
+	 */
+	public void setSceneImage(byte[] sceneImage) {
+		if (sceneImage == null) {
+			throw new ImageSearchException("Scene image is null");
+		}
+		this.sceneImage = null;
+		this.sceneImageMat = bytesToMat(sceneImage);
 	}
 
+	/**
+	 * Set the object to search. Picture is decoded here, once, so that it can be reused for each search
+	 * @param objectImage
+	 */
 	public void setObjectImage(File objectImage) {
 		if (objectImage == null) {
 			throw new ImageSearchException("Object image file is null");
@@ -724,9 +1084,57 @@ public class ImageDetector {
 			throw new ImageSearchException(String.format("File for scene to detect object at path '%s' does not exist", objectImage));
 		}
 		this.objectImage = objectImage;
+		this.objectImageMat = Imgcodecs.imread(objectImage.getAbsolutePath(), Imgcodecs.CV_LOAD_IMAGE_COLOR);
+		this.objectImageGrayMat = null;
+	}
+	
+	/**
+	 * Set the object to search from a picture held in memory
+	 * @param objectImage
+	 */
+	public void setObjectImage(BufferedImage objectImage) {
+		if (objectImage == null) {
+			throw new ImageSearchException("Object image is null");
+		}
+		this.objectImage = null;
+		this.objectImageMat = bufferedImageToMat(objectImage);
+		this.objectImageGrayMat = null;
+	}
+	
+	private void checkImagesAvailable() {
+		if (sceneImageMat == null || sceneImageMat.empty()) {
+			throw new ImageSearchException(String.format("Scene picture %s cannot be read", getSceneImageName()));
+		}
+		if (objectImageMat == null || objectImageMat.empty()) {
+			throw new ImageSearchException(String.format("Object picture %s cannot be read", getObjectImageName()));
+		}
 	}
 
 	public void setDetectionThreshold(double detectionThreshold) {
 		this.detectionThreshold = detectionThreshold;
 	}
+
+	public FeatureType getFeatureType() {
+		return featureType;
+	}
+
+	public void setFeatureType(FeatureType featureType) {
+		this.featureType = featureType;
+	}
+
+	/**
+	 * Set the ratio used to filter matches in {@link #detectCorrespondingZone()}. The lower it is, the more distinctive the kept matches are
+	 * @param matchRatio	value between 0 and 1. Default is 0.75
+	 */
+	public void setMatchRatio(double matchRatio) {
+		this.matchRatio = matchRatio;
+	}
+
+	public DetectionMode getDetectionMode() {
+		return detectionMode;
+	}
+
+	public void setDetectionMode(DetectionMode detectionMode) {
+		this.detectionMode = detectionMode;
+	}
 }
@@ -0,0 +1,249 @@
+/**
+ * Orignal work: Copyright 2015 www.seleniumtests.com
+ * Modified work: Copyright 2016 www.infotel.com
+ * 				Copyright 2017-2019 B.Hecquet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.seleniumtests.util.imaging;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.apache.commons.io.FilenameUtils;
+
+import com.seleniumtests.customexception.ConfigurationException;
+
+/**
+ * Writes images to files. Contrary to a plain ImageIO.write, there is no lock, so that several threads can write at the same time
+ * Image is written to a temporary file which is then renamed, so that a reader never sees a partial image
+ * Some statistics are kept about written images (count, size, time)
+ */
+public class ImageFileWriter {
+
+	public static final int DEFAULT_COMPRESSION = -1;
+	private static final float LOSSY_QUALITY = 0.9f;
+
+	private static final AtomicLong writtenImages = new AtomicLong();
+	private static final AtomicLong writtenBytes = new AtomicLong();
+	private static final AtomicLong writeDuration = new AtomicLong();
+
+	public enum ImageFormat {
+		PNG("png", "png", true),
+		JPEG("jpeg", "jpg", false),
+		WEBP("webp", "webp", false);
+
+		private final String formatName;
+		private final String extension;
+		private final boolean lossless;
+
+		ImageFormat(String formatName, String extension, boolean lossless) {
+			this.formatName = formatName;
+			this.extension = extension;
+			this.lossless = lossless;
+		}
+
+		public String getExtension() {
+			return extension;
+		}
+
+		public boolean isLossless() {
+			return lossless;
+		}
+
+		/**
+		 * @return true if an ImageIO writer exists for this format (WEBP needs a plugin)
+		 */
+		public boolean isAvailable() {
+			return ImageIO.getImageWritersByFormatName(formatName).hasNext();
+		}
+
+		/**
+		 * Format to use: this one if it can be written, else PNG
+		 * @return
+		 */
+		public ImageFormat orDefault() {
+			return isAvailable() ? this: PNG;
+		}
+
+		public static ImageFormat fromString(String format) {
+			try {
+				return ImageFormat.valueOf(format.toUpperCase());
+			} catch (IllegalArgumentException e) {
+				if ("jpg".equalsIgnoreCase(format)) {
+					return JPEG;
+				}
+				throw new ConfigurationException(String.format("Image format '%s' is unknown. Valid values are png, jpeg, webp", format));
+			}
+		}
+
+		/**
+		 * Format corresponding to file extension, PNG by default
+		 * @param path
+		 * @return
+		 */
+		public static ImageFormat fromFileName(String path) {
+			String extension = FilenameUtils.getExtension(path).toLowerCase(Locale.ENGLISH);
+			for (ImageFormat format: values()) {
+				if (format.extension.equals(extension) || format.formatName.equals(extension)) {
+					return format;
+				}
+			}
+			return PNG;
+		}
+	}
+
+	private ImageFileWriter() {
+		// only static methods
+	}
+
+	/**
+	 * Write image in the format given by the file extension (PNG if unknown) with default compression
+	 * @param file
+	 * @param image
+	 * @throws IOException
+	 */
+	public static void write(File file, BufferedImage image) throws IOException {
+		write(file, image, ImageFormat.fromFileName(file.getName()), DEFAULT_COMPRESSION);
+	}
+
+	/**
+	 * Write image
+	 * @param file			destination file, replaced if it exists
+	 * @param image
+	 * @param format		format of the image. If it's not available, PNG is used
+	 * @param compression	PNG compression level, from 0 (fast, big files) to 9 (slow, small files) or DEFAULT_COMPRESSION.
+	 * 						When a level is given, PNG is written by {@link PngEncoder}. Ignored for other formats
+	 * @throws IOException
+	 */
+	public static void write(File file, BufferedImage image, ImageFormat format, int compression) throws IOException {
+		long start = System.currentTimeMillis();
+		ImageFormat imageFormat = format.orDefault();
+
+		File parentDir = file.getAbsoluteFile().getParentFile();
+		if (!parentDir.exists()) {
+			parentDir.mkdirs();
+		}
+
+		// temp file prefix must be at least 3 characters long
+		File tmpFile = File.createTempFile(FilenameUtils.getBaseName(file.getName()) + "_img", ".tmp", parentDir);
+		try {
+			writeToFile(tmpFile, imageFormat.lossless ? image: removeAlpha(image), imageFormat, compression);
+
+			try {
+				Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(tmpFile.toPath());
+		}
+
+		writtenImages.incrementAndGet();
+		writtenBytes.addAndGet(file.length());
+		writeDuration.addAndGet(System.currentTimeMillis() - start);
+	}
+
+	private static void writeToFile(File file, BufferedImage image, ImageFormat format, int compression) throws IOException {
+		if (format == ImageFormat.PNG && compression != DEFAULT_COMPRESSION) {
+			PngEncoder.write(file, image, Math.max(0, Math.min(9, compression)));
+			return;
+		}
+		
+		Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(format.formatName);
+		if (!writers.hasNext()) {
+			throw new IOException("No writer for format " + format);
+		}
+
+		ImageWriter writer = writers.next();
+		try (ImageOutputStream out = ImageIO.createImageOutputStream(file)) {
+			writer.setOutput(out);
+			writer.write(null, new IIOImage(image, null, null), getWriteParam(writer, format));
+		} finally {
+			writer.dispose();
+		}
+	}
+
+	private static ImageWriteParam getWriteParam(ImageWriter writer, ImageFormat format) {
+		ImageWriteParam param = writer.getDefaultWriteParam();
+		if (!format.lossless && param.canWriteCompressed()) {
+			param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+			if (param.getCompressionTypes() != null && param.getCompressionType() == null) {
+				param.setCompressionType(param.getCompressionTypes()[0]);
+			}
+			param.setCompressionQuality(LOSSY_QUALITY);
+		}
+		return param;
+	}
+
+	/**
+	 * Lossy formats do not handle transparency
+	 * @param image
+	 * @return
+	 */
+	private static BufferedImage removeAlpha(BufferedImage image) {
+		if (!image.getColorModel().hasAlpha()) {
+			return image;
+		}
+		BufferedImage rgbImage = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = rgbImage.createGraphics();
+		graphics.drawImage(image, 0, 0, Color.WHITE, null);
+		graphics.dispose();
+		return rgbImage;
+	}
+
+	/**
+	 * @return number of images written since start
+	 */
+	public static long getWrittenImages() {
+		return writtenImages.get();
+	}
+
+	/**
+	 * @return size of images written since start, in bytes
+	 */
+	public static long getWrittenBytes() {
+		return writtenBytes.get();
+	}
+
+	/**
+	 * @return time spent writing images since start (sum for all threads), in ms
+	 */
+	public static long getWriteDuration() {
+		return writeDuration.get();
+	}
+
+	/**
+	 * @return a summary of image writing, for logs
+	 */
+	public static String getStatistics() {
+		long images = getWrittenImages();
+		long duration = getWriteDuration();
+		return String.format("%d images written (%d kB) in %d ms, %.1f ms per image", images, getWrittenBytes() / 1024, duration, images == 0 ? 0.0: (double) duration / images);
+	}
+}
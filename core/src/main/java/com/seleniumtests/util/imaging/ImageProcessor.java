@@ -17,6 +17,11 @@
  */
 package com.seleniumtests.util.imaging;
 
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -24,8 +29,12 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Iterator;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 
 import gherkin.deps.net.iharder.Base64;
 
@@ -56,6 +65,68 @@ public class ImageProcessor {
         return loadFromFile(decodeBuffer);
 	}
 	
+	/**
+	 * Returns the size of an encoded picture (png, jpg, ...), reading only its header
+	 * @param imgData	encoded picture
+	 * @return
+	 * @throws IOException
+	 */
+	public static Dimension getImageSize(byte[] imgData) throws IOException {
+		try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(imgData))) {
+			ImageReader reader = getImageReader(in);
+			try {
+				return new Dimension(reader.getWidth(0), reader.getHeight(0));
+			} finally {
+				reader.dispose();
+			}
+		}
+	}
+	
+	/**
+	 * Decode part of an encoded picture and draw it into an existing image
+	 * When the encoded picture has 3 bands (RGB), pixels are decoded directly into the destination image. 
+	 * Else, only the requested part is decoded and then drawn, so that no full size intermediate image is created
+	 * @param imgData		encoded picture (png, jpg, ...)
+	 * @param cropX			x coord of the top left point of the part to draw
+	 * @param cropY			y coord of the top left point of the part to draw
+	 * @param width			width of the part to draw
+	 * @param height		height of the part to draw
+	 * @param destination	image where picture is drawn
+	 * @param destX			x coord in destination image
+	 * @param destY			y coord in destination image
+	 * @throws IOException
+	 */
+	public static void drawInto(byte[] imgData, int cropX, int cropY, int width, int height, BufferedImage destination, int destX, int destY) throws IOException {
+		try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(imgData))) {
+			ImageReader reader = getImageReader(in);
+			try {
+				ImageReadParam param = reader.getDefaultReadParam();
+				param.setSourceRegion(new Rectangle(cropX, cropY, width, height));
+				
+				if (reader.getRawImageType(0) != null 
+						&& reader.getRawImageType(0).getNumBands() == destination.getSampleModel().getNumBands()) {
+					param.setDestination(destination);
+					param.setDestinationOffset(new Point(destX, destY));
+					reader.read(0, param);
+				} else {
+					destination.createGraphics().drawImage(reader.read(0, param), destX, destY, null);
+				}
+			} finally {
+				reader.dispose();
+			}
+		}
+	}
+	
+	private static ImageReader getImageReader(ImageInputStream in) throws IOException {
+		Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+		if (!readers.hasNext()) {
+			throw new IOException("No reader found for this picture format");
+		}
+		ImageReader reader = readers.next();
+		reader.setInput(in, true, true);
+		return reader;
+	}
+	
 	public static String toBase64(BufferedImage img) throws IOException {   
 	    ByteArrayOutputStream os = new ByteArrayOutputStream();
         OutputStream b64 = new Base64.OutputStream(os);
@@ -80,6 +151,66 @@ public class ImageProcessor {
 		return newImg;
 	}
 	
+	/**
+	 * Scale down the image so that none of its dimensions exceeds maxSize. Ratio is kept
+	 * @param img		source image
+	 * @param maxSize	max width / height in pixels
+	 * @return			the resized image, or the source image if it's already small enough
+	 */
+	public static BufferedImage resizeToFit(BufferedImage img, int maxSize) {
+		if (maxSize <= 0 || (img.getWidth() <= maxSize && img.getHeight() <= maxSize)) {
+			return img;
+		}
+		
+		double ratio = Math.min((double)maxSize / img.getWidth(), (double)maxSize / img.getHeight());
+		int width = Math.max(1, (int)(img.getWidth() * ratio));
+		int height = Math.max(1, (int)(img.getHeight() * ratio));
+		
+		BufferedImage newImg = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = newImg.createGraphics();
+		graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		graphics.drawImage(img, 0, 0, width, height, null);
+		graphics.dispose();
+		
+		return newImg;
+	}
+	
+	/**
+	 * Computes a perceptual hash (difference hash) of the image: picture is reduced to 9x8 pixels in gray levels and each bit
+	 * tells whether a pixel is brighter than its right neighbour.
+	 * Similar pictures have hashes with a low hamming distance, see {@link #hashDistance(long, long)}
+	 * @param img
+	 * @return	the 64 bits hash
+	 */
+	public static long perceptualHash(BufferedImage img) {
+		BufferedImage small = new BufferedImage(9, 8, BufferedImage.TYPE_BYTE_GRAY);
+		Graphics2D graphics = small.createGraphics();
+		graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		graphics.drawImage(img, 0, 0, 9, 8, null);
+		graphics.dispose();
+		
+		long hash = 0;
+		for (int y = 0; y < 8; y++) {
+			for (int x = 0; x < 8; x++) {
+				hash <<= 1;
+				if (small.getRaster().getSample(x, y, 0) > small.getRaster().getSample(x + 1, y, 0)) {
+					hash |= 1;
+				}
+			}
+		}
+		return hash;
+	}
+	
+	/**
+	 * Number of different bits between 2 perceptual hashes. 0 means pictures are the same, below 10, they are similar
+	 * @param hash1
+	 * @param hash2
+	 * @return
+	 */
+	public static int hashDistance(long hash1, long hash2) {
+		return Long.bitCount(hash1 ^ hash2);
+	}
+	
 	/**
 	 * Agregate 2 pictures
 	 * @param imgf1			first picture to agregate
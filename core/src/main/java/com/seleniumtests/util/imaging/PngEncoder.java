@@ -0,0 +1,158 @@
+/**
+ * Orignal work: Copyright 2015 www.seleniumtests.com
+ * Modified work: Copyright 2016 www.infotel.com
+ * 				Copyright 2017-2019 B.Hecquet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.seleniumtests.util.imaging;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Minimal PNG encoder whose compression level can be chosen. JDK PNG writer only allows it from java 9
+ * Image is written as 8 bits RGB (or RGBA if it has transparency), each row being filtered with the None, Sub or Up filter
+ * which gives the smallest values
+ */
+class PngEncoder {
+	
+	private static final byte[] SIGNATURE = {(byte) 137, 80, 78, 71, 13, 10, 26, 10};
+	private static final int FILTER_NONE = 0;
+	private static final int FILTER_SUB = 1;
+	private static final int FILTER_UP = 2;
+	private static final int COLOR_TYPE_RGB = 2;
+	private static final int COLOR_TYPE_RGBA = 6;
+
+	private PngEncoder() {
+		// only static methods
+	}
+	
+	/**
+	 * Write image to file
+	 * @param file
+	 * @param image
+	 * @param compression	deflate level, from 0 (no compression) to 9 (best compression)
+	 * @throws IOException
+	 */
+	static void write(File file, BufferedImage image, int compression) throws IOException {
+		boolean alpha = image.getColorModel().hasAlpha();
+		
+		byte[] header;
+		try (ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+			DataOutputStream headerStream = new DataOutputStream(headerBytes)) {
+			headerStream.writeInt(image.getWidth());
+			headerStream.writeInt(image.getHeight());
+			headerStream.writeByte(8);
+			headerStream.writeByte(alpha ? COLOR_TYPE_RGBA: COLOR_TYPE_RGB);
+			headerStream.writeByte(0);		// compression method
+			headerStream.writeByte(0);		// filter method
+			headerStream.writeByte(0);		// no interlace
+			headerStream.flush();
+			header = headerBytes.toByteArray();
+		}
+		
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			out.write(SIGNATURE);
+			writeChunk(out, "IHDR", header);
+			writeChunk(out, "IDAT", compress(image, alpha, compression));
+			writeChunk(out, "IEND", new byte[0]);
+		}
+	}
+	
+	private static byte[] compress(BufferedImage image, boolean alpha, int compression) throws IOException {
+		int width = image.getWidth();
+		int bytesPerPixel = alpha ? 4: 3;
+		
+		int[] pixels = new int[width];
+		byte[] row = new byte[width * bytesPerPixel];
+		byte[] previousRow = new byte[width * bytesPerPixel];
+		byte[] subRow = new byte[width * bytesPerPixel];
+		byte[] upRow = new byte[width * bytesPerPixel];
+		
+		ByteArrayOutputStream imageData = new ByteArrayOutputStream();
+		Deflater deflater = new Deflater(compression);
+		try (DeflaterOutputStream deflaterStream = new DeflaterOutputStream(imageData, deflater, 65536)) {
+			for (int y = 0; y < image.getHeight(); y++) {
+				image.getRGB(0, y, width, 1, pixels, 0, width);
+				int i = 0;
+				for (int pixel: pixels) {
+					row[i++] = (byte) (pixel >> 16);
+					row[i++] = (byte) (pixel >> 8);
+					row[i++] = (byte) pixel;
+					if (alpha) {
+						row[i++] = (byte) (pixel >> 24);
+					}
+				}
+				
+				writeFilteredRow(deflaterStream, row, previousRow, subRow, upRow, bytesPerPixel);
+				
+				byte[] tmp = previousRow;
+				previousRow = row;
+				row = tmp;
+			}
+		} finally {
+			deflater.end();
+		}
+		return imageData.toByteArray();
+	}
+	
+	/**
+	 * Write the row with the filter giving the lowest sum of absolute (signed) values, as suggested by PNG specification
+	 */
+	private static void writeFilteredRow(OutputStream out, byte[] row, byte[] previousRow, byte[] subRow, byte[] upRow, int bytesPerPixel) throws IOException {
+		long noneSum = 0;
+		long subSum = 0;
+		long upSum = 0;
+		for (int i = 0; i < row.length; i++) {
+			subRow[i] = (byte) (row[i] - (i >= bytesPerPixel ? row[i - bytesPerPixel]: 0));
+			upRow[i] = (byte) (row[i] - previousRow[i]);
+			noneSum += Math.abs(row[i]);
+			subSum += Math.abs(subRow[i]);
+			upSum += Math.abs(upRow[i]);
+		}
+		
+		if (subSum <= upSum && subSum < noneSum) {
+			out.write(FILTER_SUB);
+			out.write(subRow);
+		} else if (upSum < noneSum) {
+			out.write(FILTER_UP);
+			out.write(upRow);
+		} else {
+			out.write(FILTER_NONE);
+			out.write(row);
+		}
+	}
+	
+	private static void writeChunk(DataOutputStream out, String type, byte[] data) throws IOException {
+		byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+		CRC32 crc = new CRC32();
+		crc.update(typeBytes);
+		crc.update(data);
+		
+		out.writeInt(data.length);
+		out.write(typeBytes);
+		out.write(data);
+		out.writeInt((int) crc.getValue());
+	}
+}
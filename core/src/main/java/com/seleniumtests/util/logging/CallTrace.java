@@ -0,0 +1,157 @@
+/**
+ * Orignal work: Copyright 2015 www.seleniumtests.com
+ * Modified work: Copyright 2016 www.infotel.com
+ * 				Copyright 2017-2019 B.Hecquet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.seleniumtests.util.logging;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.log4j.Logger;
+
+/**
+ * Trace of the PageObject / HtmlElement method calls made by the current test, only used when debug logging is enabled
+ * Each thread has its own trace (call depth), so recording does not need any lock. Each event is written to debug logs when it happens, so that
+ * it's in time order with other logs and never lost if test hangs. Events are not kept
+ */
+public class CallTrace {
+
+	private static final Logger logger = SeleniumRobotLogger.getLogger(CallTrace.class);
+
+	private static final ThreadLocal<CallTrace> currentTrace = ThreadLocal.withInitial(CallTrace::new);
+
+	public enum EventType {
+		ENTER("Entering"),
+		EXIT("Finishing"),
+		ERROR("Error in");
+
+		private final String label;
+
+		EventType(String label) {
+			this.label = label;
+		}
+	}
+
+	/**
+	 * A traced event. Signature is only converted to String when event is logged
+	 */
+	public static class Entry {
+		private final EventType type;
+		private final int depth;
+		private final Object signature;
+		private final String detail;
+		private final long duration;
+
+		public Entry(EventType type, int depth, Object signature, String detail, long duration) {
+			this.type = type;
+			this.depth = depth;
+			this.signature = signature;
+			this.detail = detail;
+			this.duration = duration;
+		}
+
+		public EventType getType() {
+			return type;
+		}
+
+		public int getDepth() {
+			return depth;
+		}
+
+		public String getSignature() {
+			return signature.toString();
+		}
+
+		public String getDetail() {
+			return detail;
+		}
+
+		public long getDuration() {
+			return duration;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder line = new StringBuilder(StringUtils.repeat(" ", depth * 2))
+					.append(type.label)
+					.append(' ')
+					.append(signature);
+			if (type != EventType.ENTER) {
+				line.append(String.format(" (%d ms)", duration));
+			}
+			if (detail != null) {
+				line.append(": ").append(detail);
+			}
+			return line.toString();
+		}
+	}
+
+	private int depth = 0;
+
+	/**
+	 * Trace of the current thread
+	 * @return
+	 */
+	public static CallTrace getCurrent() {
+		return currentTrace.get();
+	}
+
+	/**
+	 * Forget the trace of the current thread (test has ended)
+	 */
+	public static void reset() {
+		currentTrace.remove();
+	}
+
+	/**
+	 * Record the entry in a method
+	 * @param signature
+	 * @return the start time, to give back to {@link #exit(Object, long, String)}
+	 */
+	public long enter(Object signature) {
+		add(new Entry(EventType.ENTER, depth, signature, null, 0));
+		depth++;
+		return System.currentTimeMillis();
+	}
+
+	/**
+	 * Record the end of a method
+	 * @param signature
+	 * @param start		value returned by {@link #enter(Object)}
+	 * @param reply		value returned by the method
+	 */
+	public void exit(Object signature, long start, String reply) {
+		depth = Math.max(0, depth - 1);
+		add(new Entry(EventType.EXIT, depth, signature, reply, System.currentTimeMillis() - start));
+	}
+
+	/**
+	 * Record the error raised by a method
+	 * @param signature
+	 * @param start		value returned by {@link #enter(Object)}
+	 * @param error
+	 */
+	public void error(Object signature, long start, Throwable error) {
+		depth = Math.max(0, depth - 1);
+		add(new Entry(EventType.ERROR, depth, signature, error.getClass().getName() + " - " + error.getMessage(), System.currentTimeMillis() - start));
+	}
+
+	private void add(Entry entry) {
+		logger.debug(entry);
+	}
+
+	public int getDepth() {
+		return depth;
+	}
+}
@@ -26,12 +26,8 @@ import java.nio.file.Paths;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
-import java.util.Collections;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.log4j.Appender;
@@ -48,8 +44,6 @@ public class SeleniumRobotLogger {
 	private static final String LOG_PATTERN = " %-5p %d [%t] %C{1}: %m%n";
 
 	private static final String FILE_APPENDER_NAME = "FileLogger";
-	private static final Pattern LOG_FILE_PATTERN = Pattern.compile(".*?\\d \\[(.*?)\\](.*)");
-	private static Map<String, String> testLogs = Collections.synchronizedMap(new HashMap<>());
 	private static String outputDirectory;
 	private static String defaultOutputDirectory;
 	
@@ -144,6 +138,17 @@ public class SeleniumRobotLogger {
 			}
 	        rootLogger.addAppender(fileAppender);
 		}
+		
+		// logs of each test are stored as they are written, so that reporters do not have to parse log file
+		if (Logger.getRootLogger().getAppender(TestLogAppender.APPENDER_NAME) == null) {
+			TestLogAppender testLogAppender = new TestLogAppender(new PatternLayout(LOG_PATTERN));
+			if (System.getProperty(INTERNAL_DEBUG) != null && System.getProperty(INTERNAL_DEBUG).contains("core")) {
+				testLogAppender.setThreshold(Level.DEBUG);
+			} else {
+				testLogAppender.setThreshold(Level.INFO);
+			}
+			Logger.getRootLogger().addAppender(testLogAppender);
+		}
 	}
 	
 	/**
@@ -179,63 +184,14 @@ public class SeleniumRobotLogger {
 	}
 
 
-	/**
-	 * Parses log file and store logs of each test in testLogs variable
-	 * @return
-	 * @throws IOException 
-	 */
-	public static synchronized void parseLogFile() {
-		Appender fileLoggerAppender = Logger.getRootLogger().getAppender(FILE_APPENDER_NAME);
-		if (fileLoggerAppender == null) {
-			return;
-		} 
+	public static void reset() throws IOException {
 		
-		// read the file from appender directly
-		List<String> logLines;
-		try {
-			logLines = FileUtils.readLines(new File(((FileAppender)fileLoggerAppender).getFile())); 
-		} catch (IOException e) {
-			getLogger(SeleniumRobotLogger.class).error("cannot read log file", e);
-			return;
+		Appender testLogAppender = Logger.getRootLogger().getAppender(TestLogAppender.APPENDER_NAME);
+		if (testLogAppender != null) {
+			((TestLogAppender) testLogAppender).clear();
+			Logger.getRootLogger().removeAppender(testLogAppender);
 		}
 		
-		// clean before reading file. correction of issue #100
-		SeleniumRobotLogger.testLogs.clear();
-			
-		//store the name of the thread for each test
-		Map<String, String> testPerThread = new HashMap<>();
-		String previousThread = null; // will store the thread associated to the previously read line
-		
-		for (String line: logLines) {
-			Matcher matcher = SeleniumRobotLogger.LOG_FILE_PATTERN.matcher(line);
-			if (matcher.matches()) {
-				String thread = matcher.group(1);
-				String content = matcher.group(2);
-				previousThread = thread;
-				
-				if (content.contains(SeleniumRobotLogger.START_TEST_PATTERN)) {
-					String testName = content.split(SeleniumRobotLogger.START_TEST_PATTERN)[1].trim();
-					testPerThread.put(thread, testName);
-					 
-					// do not refresh content of logs in case test is retried
-					if (!SeleniumRobotLogger.testLogs.containsKey(testName)) {
-						SeleniumRobotLogger.testLogs.put(testName, "");
-					}
-				}
-				if (testPerThread.get(thread) != null) {
-					String testName = testPerThread.get(thread);
-					SeleniumRobotLogger.testLogs.put(testName, SeleniumRobotLogger.testLogs.get(testName).concat(line + "\n"));
-				}
-			} else if (previousThread != null && testPerThread.get(previousThread) != null) {
-				String testName = testPerThread.get(previousThread);
-				SeleniumRobotLogger.testLogs.put(testName, SeleniumRobotLogger.testLogs.get(testName).concat(line + "\n"));
-			}
-		}
-	}
-	
-	public static void reset() throws IOException {
-		SeleniumRobotLogger.testLogs.clear();
-		
 		// clear log file
 		Appender fileAppender = Logger.getRootLogger().getAppender(FILE_APPENDER_NAME);
 		if (fileAppender != null) {
@@ -252,8 +208,29 @@ public class SeleniumRobotLogger {
 	}
 
 
+	/**
+	 * Returns a copy of the logs of all tests
+	 * @return
+	 */
 	public static Map<String, String> getTestLogs() {
-		return testLogs;
+		Appender testLogAppender = Logger.getRootLogger().getAppender(TestLogAppender.APPENDER_NAME);
+		if (testLogAppender == null) {
+			return new HashMap<>();
+		}
+		return ((TestLogAppender) testLogAppender).getAllTestLogs();
+	}
+	
+	/**
+	 * Returns logs of a single test, or null if nothing has been logged for it
+	 * @param testName
+	 * @return
+	 */
+	public static String getTestLogs(String testName) {
+		Appender testLogAppender = Logger.getRootLogger().getAppender(TestLogAppender.APPENDER_NAME);
+		if (testLogAppender == null) {
+			return null;
+		}
+		return ((TestLogAppender) testLogAppender).getTestLogs(testName);
 	}
 
 
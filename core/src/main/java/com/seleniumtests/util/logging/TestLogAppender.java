@@ -0,0 +1,119 @@
+/**
+ * Orignal work: Copyright 2015 www.seleniumtests.com
+ * Modified work: Copyright 2016 www.infotel.com
+ * 				Copyright 2017-2019 B.Hecquet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.seleniumtests.util.logging;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Layout;
+import org.apache.log4j.spi.LoggingEvent;
+
+/**
+ * Appender which stores logs of each test, as they are written
+ * Each thread is associated to a test when the START_TEST_PATTERN message is logged, then all logs from this thread
+ * go to this test, until an other test starts on the same thread
+ * This way, reporters can get logs of a test without reading the whole log file
+ */
+public class TestLogAppender extends AppenderSkeleton {
+
+	public static final String APPENDER_NAME = "TestLogAppender";
+
+	private final Map<String, String> testPerThread = new ConcurrentHashMap<>();
+	private final Map<String, StringBuilder> testLogs = new ConcurrentHashMap<>();
+
+	public TestLogAppender(Layout layout) {
+		setName(APPENDER_NAME);
+		setLayout(layout);
+	}
+
+	@Override
+	protected void append(LoggingEvent event) {
+		String thread = event.getThreadName();
+		String message = event.getRenderedMessage();
+
+		if (message != null && message.contains(SeleniumRobotLogger.START_TEST_PATTERN)) {
+			String testName = message.substring(message.indexOf(SeleniumRobotLogger.START_TEST_PATTERN) + SeleniumRobotLogger.START_TEST_PATTERN.length()).trim();
+			testPerThread.put(thread, testName);
+
+			// do not refresh content of logs in case test is retried
+			testLogs.computeIfAbsent(testName, k -> new StringBuilder());
+		}
+
+		String testName = testPerThread.get(thread);
+		if (testName == null) {
+			return;
+		}
+
+		StringBuilder logs = testLogs.get(testName);
+		synchronized (logs) {
+			logs.append(layout.format(event));
+			if (layout.ignoresThrowable() && event.getThrowableStrRep() != null) {
+				for (String line: event.getThrowableStrRep()) {
+					logs.append(line).append(Layout.LINE_SEP);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns logs of the test, or null if the test is unknown
+	 * @param testName
+	 * @return
+	 */
+	public String getTestLogs(String testName) {
+		StringBuilder logs = testLogs.get(testName);
+		if (logs == null) {
+			return null;
+		}
+		synchronized (logs) {
+			return logs.toString();
+		}
+	}
+
+	/**
+	 * Returns a copy of the logs of all tests
+	 * @return
+	 */
+	public Map<String, String> getAllTestLogs() {
+		Map<String, String> allLogs = new HashMap<>();
+		for (Entry<String, StringBuilder> entry: testLogs.entrySet()) {
+			synchronized (entry.getValue()) {
+				allLogs.put(entry.getKey(), entry.getValue().toString());
+			}
+		}
+		return allLogs;
+	}
+
+	public void clear() {
+		testPerThread.clear();
+		testLogs.clear();
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+	}
+
+	@Override
+	public boolean requiresLayout() {
+		return true;
+	}
+}
@@ -26,15 +26,37 @@ import java.util.Map;
 
 import com.seleniumtests.browserfactory.BrowserInfo;
 import com.seleniumtests.driver.BrowserType;
+import com.seleniumtests.util.osutility.ProcessTable.ProcessEntry;
 
 public class OSUtilityUnix extends OSUtility {
 	
 	/**
-     * Ask console for every running process.
+     * Get every running process, from /proc when available, else from 'ps' command
      * @return list of output command lines
      */
 	@Override
     public List<ProcessInfo> getRunningProcessList(){
+		if (!ProcessTable.isAvailable()) {
+			return getRunningProcessListFromCommand();
+		}
+		
+		List<ProcessInfo> processInfoList = new ArrayList<>();
+		for (ProcessEntry process: ProcessTable.getSnapshot().getProcesses()) {
+			ProcessInfo processInfo = new ProcessInfo();
+			processInfo.setPid(Long.toString(process.getPid()));
+			processInfo.setSessionName(process.getTty());
+			processInfo.setCpuTime(process.getCpuTime());
+			processInfo.setName(process.getCommand());
+			processInfoList.add(processInfo);
+		}
+		return processInfoList;
+	}
+	
+	/**
+	 * Ask console for every running process.
+	 * @return
+	 */
+	private List<ProcessInfo> getRunningProcessListFromCommand() {
     	String command = "ps ax";
     	List<String> strProcessList = Arrays.asList(OSCommand.executeCommandAndWait(command).split("\n"));
     	
@@ -153,6 +175,19 @@ public class OSUtilityUnix extends OSUtility {
 		
 		List<Long> searchedPids = new ArrayList<>();
 		
+		if (ProcessTable.isAvailable()) {
+			ProcessTable processTable = ProcessTable.getSnapshot();
+			for (Long pid: processTable.getChildren(parentProcess)) {
+				ProcessEntry process = processTable.getProcess(pid);
+				
+				// process name is limited to 15 chars so do not compare with entire name
+				if ((processName == null || processName.startsWith(process.getName())) && !existingPids.contains(pid)) {
+					searchedPids.add(pid);
+				}
+			}
+			return searchedPids;
+		}
+		
 		String pids = OSCommand.executeCommandAndWait(String.format("pgrep -P %d -d , -l", parentProcess)).trim();
         for(String process: pids.split(",")) {
         	String[] processSplit = process.split(" ");
@@ -175,6 +210,10 @@ public class OSUtilityUnix extends OSUtility {
 	
 	@Override
 	public String getProgramNameFromPid(Long pid) {
+		if (ProcessTable.isAvailable()) {
+			ProcessEntry process = ProcessTable.getSnapshot().getProcess(pid);
+			return process == null ? "": process.getName();
+		}
 		return OSCommand.executeCommandAndWait(String.format("ps -p %d -o comm=", pid));
 	}
 }
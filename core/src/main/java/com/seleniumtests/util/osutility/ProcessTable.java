@@ -0,0 +1,218 @@
+/**
+ * Orignal work: Copyright 2015 www.seleniumtests.com
+ * Modified work: Copyright 2016 www.infotel.com
+ * 				Copyright 2017-2019 B.Hecquet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.seleniumtests.util.osutility;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Snapshot of the running processes, read from /proc filesystem (Linux only), so that no 'ps' / 'pgrep' process has to be started
+ * Parent / child relations are computed once when snapshot is read
+ * As driver creation and cleaning search processes several times in a row, the last snapshot is shared during MAX_SNAPSHOT_AGE ms
+ */
+public class ProcessTable {
+
+	public static final int MAX_SNAPSHOT_AGE = 50; // ms
+	private static final Path PROC_ROOT = Paths.get("/proc");
+	private static final int CLOCK_TICKS = 100; // USER_HZ, 100 on all usual Linux platforms
+
+	private static ProcessTable lastSnapshot = null;
+
+	private final Map<Long, ProcessEntry> processes = new TreeMap<>();
+	private final Map<Long, List<Long>> children = new HashMap<>();
+	private final long readTime;
+
+	/**
+	 * A process, as described in /proc/<pid>/stat and /proc/<pid>/cmdline
+	 */
+	public static class ProcessEntry {
+		private final long pid;
+		private final long parentPid;
+		private final String name;
+		private final String command;
+		private final int ttyNumber;
+		private final long cpuTicks;
+
+		public ProcessEntry(long pid, long parentPid, String name, String command, int ttyNumber, long cpuTicks) {
+			this.pid = pid;
+			this.parentPid = parentPid;
+			this.name = name;
+			this.command = command;
+			this.ttyNumber = ttyNumber;
+			this.cpuTicks = cpuTicks;
+		}
+
+		public long getPid() {
+			return pid;
+		}
+
+		public long getParentPid() {
+			return parentPid;
+		}
+
+		/**
+		 * Name of the process, limited to 15 chars by the kernel (same as 'pgrep -l' or 'ps -o comm=')
+		 * @return
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Program launched, as displayed by 'ps ax' (first word of the command line, or process name between brackets for kernel threads)
+		 * @return
+		 */
+		public String getCommand() {
+			return command;
+		}
+
+		/**
+		 * Terminal, formatted like 'ps' does ('pts/0', 'tty1' or '?')
+		 * @return
+		 */
+		public String getTty() {
+			int major = (ttyNumber >> 8) & 0xfff;
+			int minor = (ttyNumber & 0xff) | ((ttyNumber >> 12) & 0xfff00);
+			if (ttyNumber == 0) {
+				return "?";
+			} else if (major >= 136 && major <= 143) {
+				return "pts/" + ((major - 136) * 256 + minor);
+			} else if (major == 4) {
+				return "tty" + minor;
+			} else {
+				return "?";
+			}
+		}
+
+		/**
+		 * CPU time used by the process (user + system), formatted like 'ps ax' does (M:SS)
+		 * @return
+		 */
+		public String getCpuTime() {
+			long seconds = cpuTicks / CLOCK_TICKS;
+			return String.format("%d:%02d", seconds / 60, seconds % 60);
+		}
+	}
+
+	/**
+	 * Read all processes from the given proc filesystem
+	 * @param procRoot		path to '/proc'
+	 */
+	public ProcessTable(Path procRoot) {
+		readTime = System.currentTimeMillis();
+
+		try (DirectoryStream<Path> processDirs = Files.newDirectoryStream(procRoot, "[0-9]*")) {
+			for (Path processDir: processDirs) {
+				ProcessEntry entry = readProcess(processDir);
+				if (entry != null) {
+					processes.put(entry.getPid(), entry);
+				}
+			}
+		} catch (IOException e) {
+			// no process can be read
+		}
+
+		for (ProcessEntry entry: processes.values()) {
+			children.computeIfAbsent(entry.getParentPid(), k -> new ArrayList<>()).add(entry.getPid());
+		}
+	}
+
+	/**
+	 * @return true if processes can be read from /proc (Linux), else, process commands have to be used
+	 */
+	public static boolean isAvailable() {
+		return Files.isDirectory(PROC_ROOT.resolve("self"));
+	}
+
+	/**
+	 * Returns the processes currently running. Snapshot is only read again if the last one is older than MAX_SNAPSHOT_AGE
+	 * @return
+	 */
+	public static synchronized ProcessTable getSnapshot() {
+		if (lastSnapshot == null || System.currentTimeMillis() - lastSnapshot.readTime > MAX_SNAPSHOT_AGE) {
+			lastSnapshot = new ProcessTable(PROC_ROOT);
+		}
+		return lastSnapshot;
+	}
+
+	/**
+	 * Read stat and cmdline files of the process
+	 * @param processDir
+	 * @return the process, or null if it ended while reading
+	 */
+	private ProcessEntry readProcess(Path processDir) {
+		try {
+			long pid = Long.parseLong(processDir.getFileName().toString());
+			String stat = new String(Files.readAllBytes(processDir.resolve("stat")), StandardCharsets.UTF_8);
+
+			// pid (name) state ppid pgrp session tty_nr tpgid flags minflt cminflt majflt cmajflt utime stime ...
+			// name may contain spaces or parenthesis, so search the last one
+			int nameEnd = stat.lastIndexOf(')');
+			String name = stat.substring(stat.indexOf('(') + 1, nameEnd);
+			String[] fields = stat.substring(nameEnd + 2).trim().split("\\s+");
+
+			byte[] cmdline = Files.readAllBytes(processDir.resolve("cmdline"));
+			int argEnd = 0;
+			while (argEnd < cmdline.length && cmdline[argEnd] != 0) {
+				argEnd++;
+			}
+			String command = argEnd == 0 ? "[" + name + "]": new String(cmdline, 0, argEnd, StandardCharsets.UTF_8);
+
+			return new ProcessEntry(pid,
+					Long.parseLong(fields[1]),
+					name,
+					command,
+					Integer.parseInt(fields[4]),
+					Long.parseLong(fields[11]) + Long.parseLong(fields[12]));
+
+		} catch (IOException | RuntimeException e) {
+			return null;
+		}
+	}
+
+	public Collection<ProcessEntry> getProcesses() {
+		return Collections.unmodifiableCollection(processes.values());
+	}
+
+	/**
+	 * @param pid
+	 * @return the process or null if it does not exist
+	 */
+	public ProcessEntry getProcess(long pid) {
+		return processes.get(pid);
+	}
+
+	/**
+	 * @param pid
+	 * @return pids of the direct children of this process
+	 */
+	public List<Long> getChildren(long pid) {
+		return Collections.unmodifiableList(children.getOrDefault(pid, new ArrayList<>()));
+	}
+}
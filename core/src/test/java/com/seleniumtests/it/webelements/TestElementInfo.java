@@ -17,12 +17,7 @@
  */
 package com.seleniumtests.it.webelements;
 
-import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.util.List;
-import java.util.stream.Collectors;
 
 import org.openqa.selenium.By;
 import org.openqa.selenium.JavascriptExecutor;
@@ -36,6 +31,7 @@ import com.seleniumtests.driver.TestType;
 import com.seleniumtests.it.driver.support.GenericMultiBrowserTest;
 import com.seleniumtests.it.driver.support.pages.DriverTestPage;
 import com.seleniumtests.uipage.htmlelements.ElementInfo;
+import com.seleniumtests.uipage.htmlelements.ElementInfoStore;
 
 public class TestElementInfo extends GenericMultiBrowserTest {
 
@@ -54,7 +50,7 @@ public class TestElementInfo extends GenericMultiBrowserTest {
 	}
 	
 	/**
-	 * Test the info file is created when element is found
+	 * Test the info is stored when element is found, and written to store file on flush
 	 * @throws IOException 
 	 */
 	@Test(groups={"it"})
@@ -65,10 +61,10 @@ public class TestElementInfo extends GenericMultiBrowserTest {
 			DriverTestPage.resetButton.click();
 		}
 		
-		// check file has been created
-		File elementInfoPath = ElementInfo.buildElementInfoPath(DriverTestPage.textElement);
-		Assert.assertTrue(elementInfoPath.isFile());
-		ElementInfo elInfo = ElementInfo.readFromJsonFile(elementInfoPath);
+		// check store file has been created
+		ElementInfoStore.flushStore();
+		Assert.assertTrue(ElementInfo.getElementInfoLocation().resolve(ElementInfoStore.STORE_FILE_NAME).toFile().isFile());
+		ElementInfo elInfo = new ElementInfoStore(ElementInfo.getElementInfoLocation()).get(ElementInfo.searchElementInfo(DriverTestPage.textElement).getId());
 		Assert.assertEquals(elInfo.getTotalSearch(), 1); // element only searched once
 		Assert.assertEquals(elInfo.getAttributes().size(), 2);	// check some element information have been retrieved. We do not check all as it's already done in unit tests
 	}
@@ -81,24 +77,22 @@ public class TestElementInfo extends GenericMultiBrowserTest {
 		
 		// element information will be created with the following command
 		DriverTestPage.textElement.getTagName();
-		File elementInfoPath = ElementInfo.buildElementInfoPath(DriverTestPage.textElement);
-		ElementInfo elInfo = ElementInfo.readFromJsonFile(elementInfoPath);
+		ElementInfo elInfo = ElementInfo.searchElementInfo(DriverTestPage.textElement);
 		Assert.assertEquals(elInfo.getTotalSearch(), 1); // element only searched once
 		
 		DriverTestPage.textElement.getTagName();
-		ElementInfo newElInfo = ElementInfo.readFromJsonFile(elementInfoPath);
+		ElementInfo newElInfo = ElementInfo.searchElementInfo(DriverTestPage.textElement);
 		Assert.assertEquals(newElInfo.getTotalSearch(), 2); // test search done twice
 		Assert.assertEquals(newElInfo.getTagStability(), 1); // test search done twice
 	}
 	
 	/**
-	 * When no label is provided, there should be no error but info file is not created
+	 * When no label is provided, there should be no error but info is not created
 	 */
 	@Test(groups={"it"})
 	public void testNoLabel() {
 		DriverTestPage.textSelectedId.getTagName();
-		File elementInfoPath = ElementInfo.buildElementInfoPath(DriverTestPage.textElement);
-		Assert.assertFalse(elementInfoPath.isFile());
+		Assert.assertTrue(ElementInfo.getAllStoredElementInfos(false).isEmpty());
 	}
 	
 	/**
@@ -108,15 +102,14 @@ public class TestElementInfo extends GenericMultiBrowserTest {
 	public void testElementModified() {
 		// element information will be created with the following command
 		DriverTestPage.textElement.getTagName();
-		File elementInfoPath = ElementInfo.buildElementInfoPath(DriverTestPage.textElement);
-		ElementInfo elInfo = ElementInfo.readFromJsonFile(elementInfoPath);
+		ElementInfo elInfo = ElementInfo.searchElementInfo(DriverTestPage.textElement);
 		Assert.assertEquals(elInfo.getTotalSearch(), 1); // element only searched once
 		
-		// change locator and check file has been regenerated (totalsearch == 1)
+		// change locator and check information has been regenerated (totalsearch == 1)
 		try {
 			DriverTestPage.textElement.setBy(By.name("textField"));
 			DriverTestPage.textElement.getTagName();
-			ElementInfo newElInfo = ElementInfo.readFromJsonFile(elementInfoPath);
+			ElementInfo newElInfo = ElementInfo.searchElementInfo(DriverTestPage.textElement);
 			Assert.assertEquals(newElInfo.getTotalSearch(), 1); // test search done once because locator has been changed
 			Assert.assertEquals(newElInfo.getTagStability(), 0); // test search done twice
 		} finally {
@@ -133,8 +126,7 @@ public class TestElementInfo extends GenericMultiBrowserTest {
 	public void testScrollingForScreenshot() {
 		((JavascriptExecutor) driver).executeScript("window.scrollTo(0, 0);");
 		DriverTestPage.scrollButton.click();
-		File elementInfoPath = ElementInfo.buildElementInfoPath(DriverTestPage.scrollButton);
-		ElementInfo elInfo = ElementInfo.readFromJsonFile(elementInfoPath);
+		ElementInfo elInfo = ElementInfo.searchElementInfo(DriverTestPage.scrollButton);
 		Assert.assertTrue(!elInfo.getB64Image().isEmpty());
 	}
 	
@@ -146,10 +138,7 @@ public class TestElementInfo extends GenericMultiBrowserTest {
 	public void testWithSeleniumNativeSearch() throws IOException {
 		SeleniumTestsContextManager.getThreadContext().setOverrideSeleniumNativeAction(true);
 		driver.findElement(By.id("text2"));
-		List<Path> infoFilePaths = Files.walk(ElementInfo.getElementInfoLocation())
-									.filter(Files::isRegularFile)
-									.collect(Collectors.toList());
-		Assert.assertEquals(infoFilePaths.size(), 0);
+		Assert.assertTrue(ElementInfo.getAllStoredElementInfos(false).isEmpty());
 	}
 	
 	
@@ -0,0 +1,140 @@
+/**
+ * Orignal work: Copyright 2015 www.seleniumtests.com
+ * Modified work: Copyright 2016 www.infotel.com
+ * 				Copyright 2017-2019 B.Hecquet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.seleniumtests.ut.browserfactory;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.List;
+
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.seleniumtests.MockitoTest;
+import com.seleniumtests.browserfactory.GridHubSelector;
+import com.seleniumtests.connectors.selenium.SeleniumGridConnector;
+import com.seleniumtests.util.helper.WaitHelper;
+
+public class TestGridHubSelector extends MockitoTest {
+
+	@Mock
+	private SeleniumGridConnector gridConnector1;
+
+	@Mock
+	private SeleniumGridConnector gridConnector2;
+
+	@Mock
+	private SeleniumGridConnector gridConnector3;
+
+	@BeforeMethod(groups={"ut"})
+	public void init() throws MalformedURLException {
+		Mockito.when(gridConnector1.getHubUrl()).thenReturn(new URL("http://localhost:1111/wd/hub"));
+		Mockito.when(gridConnector2.getHubUrl()).thenReturn(new URL("http://localhost:2222/wd/hub"));
+		Mockito.when(gridConnector3.getHubUrl()).thenReturn(new URL("http://localhost:3333/wd/hub"));
+		Mockito.when(gridConnector1.getAvailableTestSlots()).thenReturn(-1);
+		Mockito.when(gridConnector2.getAvailableTestSlots()).thenReturn(-1);
+		Mockito.when(gridConnector3.getAvailableTestSlots()).thenReturn(-1);
+	}
+
+	@AfterMethod(groups={"ut"}, alwaysRun=true)
+	public void reset() {
+		GridHubSelector.reset();
+	}
+
+	/**
+	 * Inactive hubs are not returned
+	 */
+	@Test(groups={"ut"})
+	public void testInactiveHubExcluded() {
+		Mockito.when(gridConnector1.isGridActive()).thenReturn(false);
+		Mockito.when(gridConnector2.isGridActive()).thenReturn(true);
+
+		Assert.assertEquals(GridHubSelector.selectHubs(Arrays.asList(gridConnector1, gridConnector2)), Arrays.asList(gridConnector2));
+		Assert.assertTrue(GridHubSelector.getHealth(gridConnector1).getFailureRate() > 0);
+	}
+
+	/**
+	 * Hubs are probed at the same time, so the slow hub does not delay the others, and it comes last
+	 */
+	@Test(groups={"ut"})
+	public void testHubsProbedConcurrently() {
+		Mockito.when(gridConnector1.isGridActive()).then(invocation -> {
+			WaitHelper.waitForMilliSeconds(1000);
+			return true;
+		});
+		Mockito.when(gridConnector2.isGridActive()).then(invocation -> {
+			WaitHelper.waitForMilliSeconds(1000);
+			return true;
+		});
+		Mockito.when(gridConnector3.isGridActive()).thenReturn(true);
+
+		long start = System.currentTimeMillis();
+		List<SeleniumGridConnector> hubs = GridHubSelector.selectHubs(Arrays.asList(gridConnector1, gridConnector2, gridConnector3));
+		Assert.assertTrue(System.currentTimeMillis() - start < 1900);
+
+		Assert.assertEquals(hubs.size(), 3);
+		Assert.assertEquals(hubs.get(0), gridConnector3);
+	}
+
+	/**
+	 * Hub where session creation failed comes after the others
+	 */
+	@Test(groups={"ut"})
+	public void testFailingHubLast() {
+		Mockito.when(gridConnector1.isGridActive()).thenReturn(true);
+		Mockito.when(gridConnector2.isGridActive()).thenReturn(true);
+		GridHubSelector.recordSessionFailure(gridConnector1);
+
+		Assert.assertEquals(GridHubSelector.selectHubs(Arrays.asList(gridConnector1, gridConnector2)), Arrays.asList(gridConnector2, gridConnector1));
+	}
+
+	/**
+	 * Hub without free slot comes after the others, whatever its health
+	 */
+	@Test(groups={"ut"})
+	public void testFullHubLast() {
+		Mockito.when(gridConnector1.isGridActive()).thenReturn(true);
+		Mockito.when(gridConnector2.isGridActive()).thenReturn(true);
+		Mockito.when(gridConnector1.getAvailableTestSlots()).thenReturn(0);
+		Mockito.when(gridConnector2.getAvailableTestSlots()).thenReturn(2);
+		GridHubSelector.recordSessionFailure(gridConnector2);
+
+		Assert.assertEquals(GridHubSelector.selectHubs(Arrays.asList(gridConnector1, gridConnector2)), Arrays.asList(gridConnector2, gridConnector1));
+	}
+
+	/**
+	 * Delay grows with attempts, up to 2 times base delay, and is randomized
+	 */
+	@Test(groups={"ut"})
+	public void testBackoffDelay() {
+		for (int i = 0; i < 20; i++) {
+			long delay = GridHubSelector.getBackoffDelay(0, 1000);
+			Assert.assertTrue(delay >= 500 && delay <= 1000);
+
+			delay = GridHubSelector.getBackoffDelay(1, 1000);
+			Assert.assertTrue(delay >= 1000 && delay <= 2000);
+
+			delay = GridHubSelector.getBackoffDelay(50, 1000);
+			Assert.assertTrue(delay >= 1000 && delay <= 2000);
+		}
+	}
+}
@@ -0,0 +1,328 @@
+/**
+ * Orignal work: Copyright 2015 www.seleniumtests.com
+ * Modified work: Copyright 2016 www.infotel.com
+ * 				Copyright 2017-2019 B.Hecquet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.seleniumtests.ut.browserfactory;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.openqa.selenium.MutableCapabilities;
+import org.openqa.selenium.WebDriver.Options;
+import org.openqa.selenium.WebDriver.TargetLocator;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.remote.CapabilityType;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.seleniumtests.MockitoTest;
+import com.seleniumtests.browserfactory.GridSessionPool;
+import com.seleniumtests.browserfactory.GridSessionPool.PooledSession;
+import com.seleniumtests.browserfactory.SeleniumRobotCapabilityType;
+import com.seleniumtests.util.helper.WaitHelper;
+
+public class TestGridSessionPool extends MockitoTest {
+
+	private static final String KEY = "{browserName=chrome}";
+
+	@Mock
+	private RemoteWebDriver driver;
+
+	@Mock
+	private RemoteWebDriver driver2;
+
+	@Mock
+	private TargetLocator targetLocator;
+
+	@Mock
+	private Options options;
+
+	private URL hubUrl;
+	private List<URL> hubUrls;
+
+	@BeforeMethod(groups={"ut"})
+	public void init() throws MalformedURLException {
+		hubUrl = new URL("http://localhost:4444/wd/hub");
+		hubUrls = Arrays.asList(hubUrl);
+		for (RemoteWebDriver drv: new RemoteWebDriver[] {driver, driver2}) {
+			Mockito.when(drv.getWindowHandles()).thenReturn(new LinkedHashSet<>(Arrays.asList("1", "2")));
+			Mockito.when(drv.switchTo()).thenReturn(targetLocator);
+			Mockito.when(drv.manage()).thenReturn(options);
+		}
+	}
+
+	@AfterMethod(groups={"ut"}, alwaysRun=true)
+	public void reset() {
+		GridSessionPool.closeAll();
+	}
+
+	/**
+	 * Released session is reset and given to the next test
+	 */
+	@Test(groups={"ut"})
+	public void testSessionReused() {
+		GridSessionPool pool = GridSessionPool.getInstance();
+		pool.register(new PooledSession(driver, hubUrl, KEY, 10, 120));
+
+		Assert.assertTrue(pool.release(driver));
+		Assert.assertEquals(pool.getIdleSessionCount(KEY), 1);
+
+		// browser has been cleaned
+		Mockito.verify(driver).close();
+		Mockito.verify(options).deleteAllCookies();
+		Mockito.verify(driver).get("about:blank");
+		Mockito.verify(driver, Mockito.never()).quit();
+
+		PooledSession session = pool.acquire(KEY, hubUrls, "test2");
+		Assert.assertNotNull(session);
+		Assert.assertEquals(session.getDriver(), driver);
+		Assert.assertEquals(session.getUses(), 1);
+		Assert.assertEquals(session.getTestName(), "test2");
+		Assert.assertEquals(pool.getIdleSessionCount(KEY), 0);
+	}
+
+	/**
+	 * Session is not given back if it does not come from pool
+	 */
+	@Test(groups={"ut"})
+	public void testUnknownSessionNotReleased() {
+		Assert.assertFalse(GridSessionPool.getInstance().release(driver));
+	}
+
+	/**
+	 * Session is not available for other capabilities or other hubs
+	 * @throws MalformedURLException
+	 */
+	@Test(groups={"ut"})
+	public void testSessionNotReusedForOtherCapsOrHub() throws MalformedURLException {
+		GridSessionPool pool = GridSessionPool.getInstance();
+		pool.register(new PooledSession(driver, hubUrl, KEY, 10, 120));
+		pool.release(driver);
+
+		Assert.assertNull(pool.acquire("{browserName=firefox}", hubUrls));
+		Assert.assertNull(pool.acquire(KEY, Arrays.asList(new URL("http://localhost:5555/wd/hub"))));
+		Assert.assertNotNull(pool.acquire(KEY, hubUrls));
+	}
+
+	/**
+	 * After 'maxUses' tests, session must be quit by caller
+	 */
+	@Test(groups={"ut"})
+	public void testSessionRecycledAfterMaxUses() {
+		GridSessionPool pool = GridSessionPool.getInstance();
+		pool.register(new PooledSession(driver, hubUrl, KEY, 2, 120));
+
+		Assert.assertTrue(pool.release(driver));
+		pool.acquire(KEY, hubUrls);
+		Assert.assertFalse(pool.release(driver));
+		Assert.assertEquals(pool.getIdleSessionCount(KEY), 0);
+	}
+
+	/**
+	 * If browser cannot be cleaned, session is not reused
+	 */
+	@Test(groups={"ut"})
+	public void testSessionNotReleasedIfResetFails() {
+		Mockito.when(driver.getWindowHandles()).thenThrow(new WebDriverException("session lost"));
+		GridSessionPool pool = GridSessionPool.getInstance();
+		pool.register(new PooledSession(driver, hubUrl, KEY, 10, 120));
+
+		Assert.assertFalse(pool.release(driver));
+		Assert.assertEquals(pool.getIdleSessionCount(KEY), 0);
+	}
+
+	/**
+	 * Idle session is quit when it's too old
+	 */
+	@Test(groups={"ut"})
+	public void testIdleSessionExpires() {
+		GridSessionPool pool = GridSessionPool.getInstance();
+		pool.register(new PooledSession(driver, hubUrl, KEY, 10, 1));
+		pool.release(driver);
+
+		WaitHelper.waitForMilliSeconds(1100);
+		Assert.assertNull(pool.acquire(KEY, hubUrls));
+		Mockito.verify(driver, Mockito.timeout(2000)).quit();
+	}
+
+	/**
+	 * Idle session is quit in background when it's too old, even if no other session is requested
+	 */
+	@Test(groups={"ut"})
+	public void testIdleSessionReaped() {
+		GridSessionPool pool = GridSessionPool.getInstance();
+		pool.register(new PooledSession(driver, hubUrl, KEY, 10, 1));
+		pool.release(driver);
+
+		Mockito.verify(driver, Mockito.timeout(4000)).quit();
+		Assert.assertEquals(pool.getIdleSessionCount(KEY), 0);
+	}
+
+	/**
+	 * No more than 'poolSize' sessions are kept idle. Others must be quit by caller when released
+	 */
+	@Test(groups={"ut"})
+	public void testIdleSessionsBounded() {
+		GridSessionPool pool = GridSessionPool.getInstance();
+		pool.warmUp(KEY, 1, () -> new PooledSession(driver2, hubUrl, KEY, 10, 120));
+		for (int i = 0; i < 20 && pool.getIdleSessionCount(KEY) == 0; i++) {
+			WaitHelper.waitForMilliSeconds(100);
+		}
+
+		pool.register(new PooledSession(driver, hubUrl, KEY, 10, 120));
+		Assert.assertFalse(pool.release(driver));
+		Assert.assertEquals(pool.getIdleSessionCount(KEY), 1);
+		Assert.assertEquals(pool.acquire(KEY, hubUrls).getDriver(), driver2);
+	}
+
+	/**
+	 * Pool size is for all capabilities together, so that pool does not hold more grid slots than requested
+	 */
+	@Test(groups={"ut"})
+	public void testIdleSessionsBoundedForAllKeys() {
+		GridSessionPool pool = GridSessionPool.getInstance();
+		pool.warmUp(KEY, 1, () -> new PooledSession(driver2, hubUrl, KEY, 10, 120));
+		for (int i = 0; i < 20 && pool.getIdleSessionCount(KEY) == 0; i++) {
+			WaitHelper.waitForMilliSeconds(100);
+		}
+		
+		pool.warmUp("{browserName=firefox}", 1, () -> new PooledSession(driver, hubUrl, "{browserName=firefox}", 10, 120));
+		pool.register(new PooledSession(driver, hubUrl, "{browserName=firefox}", 10, 120));
+		Assert.assertFalse(pool.release(driver));
+		Assert.assertEquals(pool.getTotalIdleSessionCount(), 1);
+	}
+	
+	/**
+	 * Warm up is done only once for a key. Then, pool is fed by released sessions
+	 */
+	@Test(groups={"ut"})
+	public void testWarmUpOnce() {
+		GridSessionPool pool = GridSessionPool.getInstance();
+		pool.warmUp(KEY, 1, () -> new PooledSession(driver2, hubUrl, KEY, 10, 120));
+		for (int i = 0; i < 20 && pool.getIdleSessionCount(KEY) == 0; i++) {
+			WaitHelper.waitForMilliSeconds(100);
+		}
+		Assert.assertNotNull(pool.acquire(KEY, hubUrls));
+		
+		pool.warmUp(KEY, 1, () -> new PooledSession(driver, hubUrl, KEY, 10, 120));
+		WaitHelper.waitForMilliSeconds(300);
+		Assert.assertEquals(pool.getIdleSessionCount(KEY), 0);
+	}
+
+	/**
+	 * Sessions are created in background up to the pool size
+	 */
+	@Test(groups={"ut"})
+	public void testWarmUp() {
+		GridSessionPool pool = GridSessionPool.getInstance();
+		pool.warmUp(KEY, 1, () -> new PooledSession(driver2, hubUrl, KEY, 10, 120));
+		pool.warmUp(KEY, 1, () -> new PooledSession(driver, hubUrl, KEY, 10, 120));
+
+		for (int i = 0; i < 20 && pool.getIdleSessionCount(KEY) == 0; i++) {
+			WaitHelper.waitForMilliSeconds(100);
+		}
+
+		// only one session created as the second warm up sees the one being created
+		Assert.assertEquals(pool.getIdleSessionCount(KEY), 1);
+		Assert.assertEquals(pool.acquire(KEY, hubUrls).getDriver(), driver2);
+	}
+
+	/**
+	 * Idle sessions are quit at the end of execution
+	 */
+	@Test(groups={"ut"})
+	public void testCloseAll() {
+		GridSessionPool pool = GridSessionPool.getInstance();
+		pool.register(new PooledSession(driver, hubUrl, KEY, 10, 120));
+		pool.release(driver);
+
+		GridSessionPool.closeAll();
+		Mockito.verify(driver).quit();
+		Assert.assertEquals(GridSessionPool.getInstance().getIdleSessionCount(KEY), 0);
+	}
+
+	/**
+	 * Test name changes for each test, it must not be part of the key
+	 */
+	@Test(groups={"ut"})
+	public void testKeyIgnoresTestName() {
+		MutableCapabilities caps1 = new MutableCapabilities();
+		caps1.setCapability(CapabilityType.BROWSER_NAME, "chrome");
+		caps1.setCapability(SeleniumRobotCapabilityType.TEST_NAME, "test1");
+		MutableCapabilities caps2 = new MutableCapabilities();
+		caps2.setCapability(SeleniumRobotCapabilityType.TEST_NAME, "test2");
+		caps2.setCapability(CapabilityType.BROWSER_NAME, "chrome");
+		MutableCapabilities caps3 = new MutableCapabilities();
+		caps3.setCapability(CapabilityType.BROWSER_NAME, "firefox");
+
+		Assert.assertEquals(GridSessionPool.getKey(caps1), GridSessionPool.getKey(caps2));
+		Assert.assertNotEquals(GridSessionPool.getKey(caps1), GridSessionPool.getKey(caps3));
+	}
+	
+	/**
+	 * Key does not depend on the order of nested values, but depends on browser options
+	 */
+	@Test(groups={"ut"})
+	public void testKeyStableForNestedValues() {
+		Map<String, Object> options1 = new LinkedHashMap<>();
+		options1.put("args", Arrays.asList("--headless"));
+		options1.put("prefs", new HashMap<>());
+		Map<String, Object> options2 = new LinkedHashMap<>();
+		options2.put("prefs", new HashMap<>());
+		options2.put("args", Arrays.asList("--headless"));
+		Map<String, Object> options3 = new LinkedHashMap<>();
+		options3.put("args", Arrays.asList("--start-maximized"));
+		
+		MutableCapabilities caps1 = new MutableCapabilities();
+		caps1.setCapability(CapabilityType.BROWSER_NAME, "chrome");
+		caps1.setCapability("goog:chromeOptions", options1);
+		MutableCapabilities caps2 = new MutableCapabilities();
+		caps2.setCapability(CapabilityType.BROWSER_NAME, "chrome");
+		caps2.setCapability("goog:chromeOptions", options2);
+		MutableCapabilities caps3 = new MutableCapabilities();
+		caps3.setCapability(CapabilityType.BROWSER_NAME, "chrome");
+		caps3.setCapability("goog:chromeOptions", options3);
+		
+		Assert.assertEquals(GridSessionPool.getKey(caps1), GridSessionPool.getKey(caps2));
+		Assert.assertNotEquals(GridSessionPool.getKey(caps1), GridSessionPool.getKey(caps3));
+	}
+	
+	/**
+	 * Pooled sessions are created without test name, as they will be used by other tests
+	 */
+	@Test(groups={"ut"})
+	public void testPoolCapabilitiesWithoutTestName() {
+		MutableCapabilities caps = new MutableCapabilities();
+		caps.setCapability(CapabilityType.BROWSER_NAME, "chrome");
+		caps.setCapability(SeleniumRobotCapabilityType.TEST_NAME, "test1");
+		
+		MutableCapabilities poolCaps = GridSessionPool.getPoolCapabilities(caps);
+		Assert.assertEquals(poolCaps.getBrowserName(), "chrome");
+		Assert.assertNull(poolCaps.getCapability(SeleniumRobotCapabilityType.TEST_NAME));
+		Assert.assertEquals(caps.getCapability(SeleniumRobotCapabilityType.TEST_NAME), "test1");
+	}
+}
@@ -0,0 +1,181 @@
+/**
+ * Orignal work: Copyright 2015 www.seleniumtests.com
+ * Modified work: Copyright 2016 www.infotel.com
+ * 				Copyright 2017-2019 B.Hecquet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.seleniumtests.ut.connectors.selenium;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.IOUtils;
+
+import com.seleniumtests.connectors.selenium.SeleniumRobotSnapshotServerConnector;
+import com.seleniumtests.util.helper.WaitHelper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Minimal seleniumRobot server, listening on a local port, so that snapshot connector can be tested with real HTTP requests
+ * Every POST creates a new object (new id), GET on test case in session returns its steps and the comparison result
+ * Image upload can be slowed down or made to fail (connection closed without reply) to check concurrency and retries
+ * Comparison result can be slowed down or be "not computed" for some requests
+ */
+public class SnapshotServerStub {
+
+	private HttpServer server;
+	private final AtomicInteger nextId = new AtomicInteger(1);
+	private final Map<String, AtomicInteger> requestCounts = new ConcurrentHashMap<>();
+	private final AtomicInteger currentUploads = new AtomicInteger();
+	private final AtomicInteger maxConcurrentUploads = new AtomicInteger();
+	private final AtomicInteger uploadFailures = new AtomicInteger();
+	private final AtomicInteger uploadAttempts = new AtomicInteger();
+	private volatile int uploadDelay = 0;
+	private volatile int comparisonDelay = 0;
+	private volatile boolean comparisonOk = true;
+	private final AtomicInteger notComputedReplies = new AtomicInteger();
+
+	public void start() throws IOException {
+		start(0);
+	}
+
+	/**
+	 * @param port		port to listen on, 0 for any free port
+	 * @throws IOException
+	 */
+	public void start(int port) throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+		server.setExecutor(Executors.newFixedThreadPool(10));
+		server.createContext("/", this::handle);
+		server.start();
+	}
+
+	public void stop() {
+		if (server != null) {
+			server.stop(0);
+		}
+	}
+
+	public String getUrl() {
+		return "http://127.0.0.1:" + getPort();
+	}
+
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	/**
+	 * @param delay		time (ms) each image upload takes
+	 */
+	public void setUploadDelay(int delay) {
+		uploadDelay = delay;
+	}
+
+	/**
+	 * @param failures		number of next image uploads for which connection will be closed without reply
+	 */
+	public void setUploadFailures(int failures) {
+		uploadFailures.set(failures);
+	}
+
+	/**
+	 * @param delay		time (ms) each request on test case in session takes
+	 */
+	public void setComparisonDelay(int delay) {
+		comparisonDelay = delay;
+	}
+
+	public void setComparisonOk(boolean comparisonOk) {
+		this.comparisonOk = comparisonOk;
+	}
+
+	/**
+	 * @param replies		number of next requests on test case in session for which comparison is not computed
+	 */
+	public void setNotComputedReplies(int replies) {
+		notComputedReplies.set(replies);
+	}
+
+	/**
+	 * Number of requests received
+	 * @param method
+	 * @param path		start of the path (without query string)
+	 * @return
+	 */
+	public int getRequestCount(String method, String path) {
+		return requestCounts.entrySet().stream()
+				.filter(e -> e.getKey().startsWith(method + " " + path))
+				.mapToInt(e -> e.getValue().get())
+				.sum();
+	}
+
+	/**
+	 * @return number of image uploads received, including the failed ones
+	 */
+	public int getUploadAttempts() {
+		return uploadAttempts.get();
+	}
+
+	public int getMaxConcurrentUploads() {
+		return maxConcurrentUploads.get();
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		String method = exchange.getRequestMethod();
+		String path = exchange.getRequestURI().getPath();
+
+		try (InputStream body = exchange.getRequestBody()) {
+			IOUtils.toByteArray(body);
+		}
+
+		if (path.equals(SeleniumRobotSnapshotServerConnector.SNAPSHOT_API_URL)) {
+			uploadAttempts.incrementAndGet();
+			if (uploadFailures.getAndDecrement() > 0) {
+				exchange.close();
+				return;
+			}
+			int uploads = currentUploads.incrementAndGet();
+			maxConcurrentUploads.accumulateAndGet(uploads, Math::max);
+			WaitHelper.waitForMilliSeconds(uploadDelay);
+			currentUploads.decrementAndGet();
+		}
+		requestCounts.computeIfAbsent(method + " " + path, k -> new AtomicInteger()).incrementAndGet();
+
+		String reply;
+		if ("GET".equals(method) && path.startsWith(SeleniumRobotSnapshotServerConnector.TESTCASEINSESSION_API_URL)) {
+			WaitHelper.waitForMilliSeconds(comparisonDelay);
+			boolean computed = notComputedReplies.getAndDecrement() <= 0;
+			reply = String.format("{\"testSteps\": [], \"computed\": %b, \"isOkWithSnapshots\": %s}", computed, computed ? comparisonOk: null);
+		} else if ("POST".equals(method) || "GET".equals(method) && path.startsWith("/commons/api/g")) {
+			reply = String.format("{\"id\": %d}", nextId.getAndIncrement());
+		} else {
+			reply = "{}";
+		}
+
+		byte[] replyBytes = reply.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().add("Content-Type", "application/json");
+		exchange.sendResponseHeaders(200, replyBytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(replyBytes);
+		}
+	}
+}
@@ -984,6 +984,7 @@ public class TestSeleniumRobotGridConnector extends ConnectorsTest {
 		createServerMock("GET", SeleniumRobotGridConnector.STATUS_SERVLET, 200, hubStatus);	
 		
 		Assert.assertTrue(connector.isGridActive());
+		Assert.assertEquals(connector.getAvailableTestSlots(), 1);
 	}
 	
 	/**
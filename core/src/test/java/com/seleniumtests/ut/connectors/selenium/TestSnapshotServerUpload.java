@@ -0,0 +1,286 @@
+/**
+ * Orignal work: Copyright 2015 www.seleniumtests.com
+ * Modified work: Copyright 2016 www.infotel.com
+ * 				Copyright 2017-2019 B.Hecquet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.seleniumtests.ut.connectors.selenium;
+
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.mockito.Mock;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.WebElement;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.seleniumtests.MockitoTest;
+import com.seleniumtests.connectors.selenium.SeleniumRobotSnapshotServerConnector;
+import com.seleniumtests.driver.screenshots.ScreenShot;
+import com.seleniumtests.driver.screenshots.SnapshotCheckType;
+import com.seleniumtests.driver.screenshots.SnapshotTarget;
+import com.seleniumtests.reporter.logger.Snapshot;
+import com.seleniumtests.util.helper.WaitHelper;
+
+/**
+ * Check snapshot upload, id caching and comparison results against a local server
+ */
+public class TestSnapshotServerUpload extends MockitoTest {
+
+	@Mock
+	private Snapshot snapshot;
+
+	@Mock
+	private ScreenShot screenshot;
+
+	@Mock
+	private WebElement element;
+
+	private SnapshotServerStub server;
+	private File imageFile;
+
+	@BeforeMethod(groups= {"ut"})
+	public void init() throws IOException {
+		server = new SnapshotServerStub();
+		server.start();
+
+		imageFile = File.createTempFile("img", ".png");
+		FileUtils.writeByteArrayToFile(imageFile, new byte[] {1, 2, 3});
+
+		when(element.getRect()).thenReturn(new Rectangle(10,  11, 12, 13));
+		SnapshotCheckType snapshotCheckType = SnapshotCheckType.FULL.exclude(element);
+		snapshotCheckType.check(SnapshotTarget.PAGE);
+
+		when(snapshot.getScreenshot()).thenReturn(screenshot);
+		when(snapshot.getName()).thenReturn("snapshot");
+		when(snapshot.getCheckSnapshot()).thenReturn(snapshotCheckType);
+		when(screenshot.getFullImagePath()).thenReturn(imageFile.getAbsolutePath());
+	}
+
+	@AfterMethod(groups= {"ut"}, alwaysRun=true)
+	public void clean() {
+		SeleniumRobotSnapshotServerConnector.waitForPendingUploads();
+		server.stop();
+		FileUtils.deleteQuietly(imageFile);
+		System.clearProperty(SeleniumRobotSnapshotServerConnector.UPLOAD_THREADS);
+	}
+
+	/**
+	 * Snapshots are sent in background and several at a time
+	 */
+	@Test(groups= {"ut"})
+	public void testUploadSnapshotsConcurrently() {
+		server.setUploadDelay(300);
+		SeleniumRobotSnapshotServerConnector connector = new SeleniumRobotSnapshotServerConnector(true, server.getUrl());
+		Integer sessionId = connector.createSession("Session1");
+		Integer testCaseInSessionId = connector.createTestCaseInSession(sessionId, connector.createTestCase("Test 1"), "Test 1");
+		Integer testStepId = connector.createTestStep("Step 1", testCaseInSessionId);
+		Integer stepResultId = connector.recordStepResult(true, "", 1, sessionId, testCaseInSessionId, testStepId);
+
+		long start = System.currentTimeMillis();
+		for (int i = 0; i < 4; i++) {
+			connector.uploadSnapshot(snapshot, sessionId, testCaseInSessionId, stepResultId);
+		}
+		Assert.assertTrue(System.currentTimeMillis() - start < 300);
+
+		Assert.assertTrue(SeleniumRobotSnapshotServerConnector.waitForPendingUploads());
+		Assert.assertEquals(server.getRequestCount("POST", SeleniumRobotSnapshotServerConnector.SNAPSHOT_API_URL), 4);
+		Assert.assertEquals(server.getRequestCount("POST", SeleniumRobotSnapshotServerConnector.EXCLUDE_API_URL), 4);
+		Assert.assertTrue(server.getMaxConcurrentUploads() > 1);
+	}
+
+	/**
+	 * When 2 threads wait for uploads, both of them wait until all snapshots have been sent
+	 * @throws InterruptedException 
+	 */
+	@Test(groups= {"ut"})
+	public void testWaitForPendingUploadsFromSeveralThreads() throws InterruptedException {
+		server.setUploadDelay(300);
+		SeleniumRobotSnapshotServerConnector connector = new SeleniumRobotSnapshotServerConnector(true, server.getUrl());
+		Integer sessionId = connector.createSession("Session1");
+		Integer testCaseInSessionId = connector.createTestCaseInSession(sessionId, connector.createTestCase("Test 1"), "Test 1");
+		Integer testStepId = connector.createTestStep("Step 1", testCaseInSessionId);
+		Integer stepResultId = connector.recordStepResult(true, "", 1, sessionId, testCaseInSessionId, testStepId);
+		
+		for (int i = 0; i < 2; i++) {
+			connector.uploadSnapshot(snapshot, sessionId, testCaseInSessionId, stepResultId);
+		}
+		
+		Thread otherWaiter = new Thread(SeleniumRobotSnapshotServerConnector::waitForPendingUploads);
+		otherWaiter.start();
+		
+		Assert.assertTrue(SeleniumRobotSnapshotServerConnector.waitForPendingUploads());
+		Assert.assertEquals(server.getRequestCount("POST", SeleniumRobotSnapshotServerConnector.SNAPSHOT_API_URL), 2);
+		otherWaiter.join();
+	}
+
+	/**
+	 * When server cannot be reached, upload is done again. Exclude zone is sent once
+	 * @throws IOException 
+	 */
+	@Test(groups= {"ut"})
+	public void testUploadRetriedWhenServerNotReached() throws IOException {
+		System.setProperty(SeleniumRobotSnapshotServerConnector.UPLOAD_THREADS, "0");
+		SeleniumRobotSnapshotServerConnector connector = new SeleniumRobotSnapshotServerConnector(true, server.getUrl());
+		Integer sessionId = connector.createSession("Session1");
+		Integer testCaseInSessionId = connector.createTestCaseInSession(sessionId, connector.createTestCase("Test 1"), "Test 1");
+		Integer testStepId = connector.createTestStep("Step 1", testCaseInSessionId);
+		Integer stepResultId = connector.recordStepResult(true, "", 1, sessionId, testCaseInSessionId, testStepId);
+
+		// server is restarted while first upload is tried
+		int port = server.getPort();
+		server.stop();
+		new Thread(() -> {
+			WaitHelper.waitForMilliSeconds(200);
+			try {
+				server.start(port);
+			} catch (IOException e) {
+				// test will fail
+			}
+		}).start();
+		
+		connector.uploadSnapshot(snapshot, sessionId, testCaseInSessionId, stepResultId);
+
+		Assert.assertEquals(server.getRequestCount("POST", SeleniumRobotSnapshotServerConnector.SNAPSHOT_API_URL), 1);
+		Assert.assertEquals(server.getRequestCount("POST", SeleniumRobotSnapshotServerConnector.EXCLUDE_API_URL), 1);
+	}
+
+	/**
+	 * When connection is lost after snapshot has been sent, it's not sent again, as server may have stored it
+	 */
+	@Test(groups= {"ut"})
+	public void testUploadNotRetriedWhenNoReply() {
+		server.setUploadFailures(1);
+		SeleniumRobotSnapshotServerConnector connector = new SeleniumRobotSnapshotServerConnector(true, server.getUrl());
+		Integer sessionId = connector.createSession("Session1");
+		Integer testCaseInSessionId = connector.createTestCaseInSession(sessionId, connector.createTestCase("Test 1"), "Test 1");
+		Integer testStepId = connector.createTestStep("Step 1", testCaseInSessionId);
+		Integer stepResultId = connector.recordStepResult(true, "", 1, sessionId, testCaseInSessionId, testStepId);
+
+		connector.uploadSnapshot(snapshot, sessionId, testCaseInSessionId, stepResultId);
+
+		Assert.assertFalse(SeleniumRobotSnapshotServerConnector.waitForPendingUploads());
+		Assert.assertEquals(server.getUploadAttempts(), 1);
+		Assert.assertEquals(server.getRequestCount("POST", SeleniumRobotSnapshotServerConnector.EXCLUDE_API_URL), 0);
+	}
+
+	/**
+	 * With 0 upload thread, snapshot is sent before uploadSnapshot returns
+	 */
+	@Test(groups= {"ut"})
+	public void testUploadSynchronous() {
+		System.setProperty(SeleniumRobotSnapshotServerConnector.UPLOAD_THREADS, "0");
+		SeleniumRobotSnapshotServerConnector connector = new SeleniumRobotSnapshotServerConnector(true, server.getUrl());
+		Integer sessionId = connector.createSession("Session1");
+		Integer testCaseInSessionId = connector.createTestCaseInSession(sessionId, connector.createTestCase("Test 1"), "Test 1");
+		Integer testStepId = connector.createTestStep("Step 1", testCaseInSessionId);
+		Integer stepResultId = connector.recordStepResult(true, "", 1, sessionId, testCaseInSessionId, testStepId);
+
+		connector.uploadSnapshot(snapshot, sessionId, testCaseInSessionId, stepResultId);
+		Assert.assertEquals(server.getRequestCount("POST", SeleniumRobotSnapshotServerConnector.SNAPSHOT_API_URL), 1);
+	}
+
+	/**
+	 * Test case and test step ids are requested once, steps of a test case are read once
+	 */
+	@Test(groups= {"ut"})
+	public void testIdsCached() {
+		SeleniumRobotSnapshotServerConnector connector = new SeleniumRobotSnapshotServerConnector(true, server.getUrl());
+		Integer sessionId = connector.createSession("Session1");
+		Integer testCaseId = connector.createTestCase("Test 1");
+		Assert.assertEquals(connector.createTestCase("Test 1"), testCaseId);
+
+		Integer testCaseInSessionId = connector.createTestCaseInSession(sessionId, testCaseId, "Test 1");
+		Integer testStepId = connector.createTestStep("Step 1", testCaseInSessionId);
+		connector.createTestStep("Step 2", testCaseInSessionId);
+		Assert.assertEquals(connector.createTestStep("Step 1", testCaseInSessionId), testStepId);
+
+		Assert.assertEquals(server.getRequestCount("POST", SeleniumRobotSnapshotServerConnector.TESTCASE_API_URL), 1);
+		Assert.assertEquals(server.getRequestCount("POST", SeleniumRobotSnapshotServerConnector.TESTSTEP_API_URL), 2);
+		Assert.assertEquals(server.getRequestCount("GET", SeleniumRobotSnapshotServerConnector.TESTCASEINSESSION_API_URL), 1);
+		Assert.assertEquals(server.getRequestCount("PATCH", SeleniumRobotSnapshotServerConnector.TESTCASEINSESSION_API_URL), 3);
+	}
+
+	private List<Integer> createTestCasesInSession(SeleniumRobotSnapshotServerConnector connector, int count) {
+		Integer sessionId = connector.createSession("Session1");
+		List<Integer> testCaseInSessionIds = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			testCaseInSessionIds.add(connector.createTestCaseInSession(sessionId, connector.createTestCase("Test " + i), "Test " + i));
+		}
+		return testCaseInSessionIds;
+	}
+
+	/**
+	 * Results of all test cases are requested at the same time
+	 */
+	@Test(groups= {"ut"})
+	public void testComparisonResults() {
+		server.setComparisonDelay(500);
+		server.setComparisonOk(false);
+		SeleniumRobotSnapshotServerConnector connector = new SeleniumRobotSnapshotServerConnector(true, server.getUrl());
+		List<Integer> testCaseInSessionIds = createTestCasesInSession(connector, 5);
+
+		long start = System.currentTimeMillis();
+		Map<Integer, Boolean> results = connector.getTestCaseInSessionComparisonResults(testCaseInSessionIds, 10);
+		Assert.assertTrue(System.currentTimeMillis() - start < 2000);
+
+		Assert.assertEquals(results.size(), 5);
+		Assert.assertFalse(results.get(testCaseInSessionIds.get(0)));
+		Assert.assertEquals(server.getRequestCount("GET", SeleniumRobotSnapshotServerConnector.TESTCASEINSESSION_API_URL), 5);
+	}
+
+	/**
+	 * Only test cases whose comparison is not computed are requested again
+	 */
+	@Test(groups= {"ut"})
+	public void testComparisonResultsComputedLater() {
+		SeleniumRobotSnapshotServerConnector connector = new SeleniumRobotSnapshotServerConnector(true, server.getUrl());
+		List<Integer> testCaseInSessionIds = createTestCasesInSession(connector, 3);
+		server.setComparisonOk(false);
+		server.setNotComputedReplies(2);
+
+		Map<Integer, Boolean> results = connector.getTestCaseInSessionComparisonResults(testCaseInSessionIds, 10);
+
+		Assert.assertEquals(results.size(), 3);
+		Assert.assertFalse(results.values().contains(true));
+		Assert.assertEquals(server.getRequestCount("GET", SeleniumRobotSnapshotServerConnector.TESTCASEINSESSION_API_URL), 5);
+	}
+
+	/**
+	 * When comparison is never computed, we do not wait more than timeout and result is OK
+	 */
+	@Test(groups= {"ut"})
+	public void testComparisonResultsTimeout() {
+		SeleniumRobotSnapshotServerConnector connector = new SeleniumRobotSnapshotServerConnector(true, server.getUrl());
+		List<Integer> testCaseInSessionIds = createTestCasesInSession(connector, 3);
+		server.setComparisonOk(false);
+		server.setNotComputedReplies(1000);
+
+		long start = System.currentTimeMillis();
+		Map<Integer, Boolean> results = connector.getTestCaseInSessionComparisonResults(testCaseInSessionIds, 2);
+		Assert.assertTrue(System.currentTimeMillis() - start < 3000);
+
+		Assert.assertEquals(results.size(), 3);
+		Assert.assertFalse(results.values().contains(false));
+	}
+}
@@ -38,6 +38,7 @@ import com.seleniumtests.GenericTest;
 import com.seleniumtests.browserfactory.BrowserInfo;
 import com.seleniumtests.core.SeleniumTestsContext;
 import com.seleniumtests.core.SeleniumTestsContextManager;
+import com.seleniumtests.core.TechnicalSettings;
 import com.seleniumtests.core.TestVariable;
 import com.seleniumtests.customexception.ConfigurationException;
 import com.seleniumtests.driver.BrowserType;
@@ -50,9 +51,11 @@ import com.seleniumtests.reporter.logger.ArchiveMode;
 import com.seleniumtests.reporter.reporters.JUnitReporter;
 import com.seleniumtests.reporter.reporters.ReportInfo;
 import com.seleniumtests.reporter.reporters.TestManagerReporter;
+import com.seleniumtests.uipage.SettleMode;
 import com.seleniumtests.uipage.htmlelements.ElementInfo;
 import com.seleniumtests.ut.driver.WebDriverListener1;
 import com.seleniumtests.ut.driver.WebDriverListener2;
+import com.seleniumtests.util.imaging.ImageFileWriter.ImageFormat;
 import com.seleniumtests.util.logging.DebugMode;
 
 /**
@@ -382,6 +385,127 @@ public class TestSeleniumTestContext extends GenericTest {
 		Assert.assertEquals(SeleniumTestsContextManager.getThreadContext().getReplayTimeout(), SeleniumTestsContext.DEFAULT_REPLAY_TIME_OUT);
 	}
 	
+	@Test(groups="ut context")
+	public void testActionSettleMode(final ITestContext testNGCtx, final XmlTest xmlTest) {
+		initThreadContext(testNGCtx);
+		SeleniumTestsContextManager.getThreadContext().setActionSettleMode("domQuiet");
+		Assert.assertEquals(SeleniumTestsContextManager.getThreadContext().getActionSettleMode(), SettleMode.DOM_QUIET);
+	}
+	@Test(groups="ut context")
+	public void testActionSettleModeNull(final ITestContext testNGCtx, final XmlTest xmlTest) {
+		initThreadContext(testNGCtx);
+		SeleniumTestsContextManager.getThreadContext().setActionSettleMode(null);
+		Assert.assertEquals(SeleniumTestsContextManager.getThreadContext().getActionSettleMode(), SettleMode.FIXED);
+	}
+	@Test(groups="ut context", expectedExceptions=ConfigurationException.class)
+	public void testActionSettleModeDefault(final ITestContext testNGCtx, final XmlTest xmlTest) {
+		initThreadContext(testNGCtx);
+		SeleniumTestsContextManager.getThreadContext().setActionSettleMode("default");
+	}
+	@Test(groups="ut context", expectedExceptions=ConfigurationException.class)
+	public void testActionSettleModeInvalid(final ITestContext testNGCtx, final XmlTest xmlTest) {
+		initThreadContext(testNGCtx);
+		SeleniumTestsContextManager.getThreadContext().setActionSettleMode("foo");
+	}
+	@Test(groups="ut context")
+	public void testActionSettleDelay(final ITestContext testNGCtx, final XmlTest xmlTest) {
+		initThreadContext(testNGCtx);
+		SeleniumTestsContextManager.getThreadContext().setActionSettleDelay(500);
+		Assert.assertEquals(SeleniumTestsContextManager.getThreadContext().getActionSettleDelay(), 500);
+	}
+	@Test(groups="ut context")
+	public void testActionSettleDelayNull(final ITestContext testNGCtx, final XmlTest xmlTest) {
+		initThreadContext(testNGCtx);
+		SeleniumTestsContextManager.getThreadContext().setActionSettleDelay(null);
+		Assert.assertEquals(SeleniumTestsContextManager.getThreadContext().getActionSettleDelay(), SeleniumTestsContext.DEFAULT_ACTION_SETTLE_DELAY);
+	}
+	@Test(groups="ut context")
+	public void testCompositeActionSettleMode(final ITestContext testNGCtx, final XmlTest xmlTest) {
+		initThreadContext(testNGCtx);
+		SeleniumTestsContextManager.getThreadContext().setCompositeActionSettleMode("none");
+		Assert.assertEquals(SeleniumTestsContextManager.getThreadContext().getCompositeActionSettleMode(), SettleMode.NONE);
+	}
+	@Test(groups="ut context")
+	public void testCompositeActionSettleModeNull(final ITestContext testNGCtx, final XmlTest xmlTest) {
+		initThreadContext(testNGCtx);
+		SeleniumTestsContextManager.getThreadContext().setCompositeActionSettleMode(null);
+		Assert.assertEquals(SeleniumTestsContextManager.getThreadContext().getCompositeActionSettleMode(), SettleMode.FIXED);
+	}
+	@Test(groups="ut context", expectedExceptions=ConfigurationException.class)
+	public void testCompositeActionSettleModeInvalid(final ITestContext testNGCtx, final XmlTest xmlTest) {
+		initThreadContext(testNGCtx);
+		SeleniumTestsContextManager.getThreadContext().setCompositeActionSettleMode("foo");
+	}
+	@Test(groups="ut context")
+	public void testCompositeActionSettleDelay(final ITestContext testNGCtx, final XmlTest xmlTest) {
+		initThreadContext(testNGCtx);
+		SeleniumTestsContextManager.getThreadContext().setCompositeActionSettleDelay(50);
+		Assert.assertEquals(SeleniumTestsContextManager.getThreadContext().getCompositeActionSettleDelay(), 50);
+	}
+	@Test(groups="ut context")
+	public void testCompositeActionSettleDelayNull(final ITestContext testNGCtx, final XmlTest xmlTest) {
+		initThreadContext(testNGCtx);
+		SeleniumTestsContextManager.getThreadContext().setCompositeActionSettleDelay(null);
+		Assert.assertEquals(SeleniumTestsContextManager.getThreadContext().getCompositeActionSettleDelay(), SeleniumTestsContext.DEFAULT_COMPOSITE_ACTION_SETTLE_DELAY);
+	}
+	
+	/**
+	 * Technical settings are read once, and read again only when a parameter changes
+	 */
+	@Test(groups="ut context")
+	public void testTechnicalSettingsUpdatedOnChange(final ITestContext testNGCtx, final XmlTest xmlTest) {
+		initThreadContext(testNGCtx);
+		SeleniumTestsContext context = SeleniumTestsContextManager.getThreadContext();
+		context.setReplayTimeout(20);
+		TechnicalSettings settings = context.getTechnicalSettings();
+		Assert.assertSame(context.getTechnicalSettings(), settings);
+		Assert.assertEquals(settings.getReplayTimeout(), 20);
+		
+		context.setReplayTimeout(25);
+		Assert.assertNotSame(context.getTechnicalSettings(), settings);
+		Assert.assertEquals(context.getTechnicalSettings().getReplayTimeout(), 25);
+		Assert.assertEquals(context.getReplayTimeout(), 25);
+		
+		// previous snapshot never changes
+		Assert.assertEquals(settings.getReplayTimeout(), 20);
+	}
+	
+	/**
+	 * When settle parameters are not set, technical settings give default values
+	 */
+	@Test(groups="ut context")
+	public void testTechnicalSettingsSettleDefaults(final ITestContext testNGCtx, final XmlTest xmlTest) {
+		initThreadContext(testNGCtx);
+		SeleniumTestsContext context = SeleniumTestsContextManager.getThreadContext();
+		context.setAttribute(SeleniumTestsContext.ACTION_SETTLE_MODE, null);
+		context.setAttribute(SeleniumTestsContext.ACTION_SETTLE_DELAY, null);
+		
+		Assert.assertEquals(context.getTechnicalSettings().getActionSettleMode(), SeleniumTestsContext.DEFAULT_ACTION_SETTLE_MODE);
+		Assert.assertEquals(context.getTechnicalSettings().getActionSettleDelay(), SeleniumTestsContext.DEFAULT_ACTION_SETTLE_DELAY);
+	}
+	
+	/**
+	 * A copied context shares the data of the original one until one of them is changed
+	 */
+	@Test(groups="ut context")
+	public void testCopiedContextIndependent(final ITestContext testNGCtx, final XmlTest xmlTest) {
+		initThreadContext(testNGCtx);
+		SeleniumTestsContext context = SeleniumTestsContextManager.getThreadContext();
+		context.setImplicitWaitTimeout(3);
+		context.getTechnicalSettings();
+		
+		SeleniumTestsContext copy = new SeleniumTestsContext(context);
+		Assert.assertSame(copy.getContextDataMap(), context.getContextDataMap());
+		Assert.assertSame(copy.getTechnicalSettings(), context.getTechnicalSettings());
+		
+		copy.setImplicitWaitTimeout(4);
+		context.setAttribute("foo", "bar");
+		Assert.assertEquals(context.getImplicitWaitTimeout(), 3);
+		Assert.assertEquals(copy.getImplicitWaitTimeout(), 4);
+		Assert.assertNull(copy.getAttribute("foo"));
+		Assert.assertEquals(context.getAttribute("foo"), "bar");
+	}
+	
 	@Test(groups="ut context")
 	public void testExplicitWaitTimeout(final ITestContext testNGCtx, final XmlTest xmlTest) {
 		initThreadContext(testNGCtx);
@@ -811,6 +935,42 @@ public class TestSeleniumTestContext extends GenericTest {
 		Assert.assertEquals((Integer)SeleniumTestsContextManager.getThreadContext().getSnapshotBottomCropping(), SeleniumTestsContext.DEFAULT_SNAPSHOT_BOTTOM_CROPPING);
 	}
 	
+	@Test(groups="ut context")
+	public void testSnapshotImageFormat(final ITestContext testNGCtx, final XmlTest xmlTest) {
+		initThreadContext(testNGCtx);
+		SeleniumTestsContextManager.getThreadContext().setSnapshotImageFormat("jpg");
+		Assert.assertEquals(SeleniumTestsContextManager.getThreadContext().getSnapshotImageFormat(), ImageFormat.JPEG);
+	}
+	@Test(groups="ut context")
+	public void testSnapshotImageFormatNull(final ITestContext testNGCtx, final XmlTest xmlTest) {
+		initThreadContext(testNGCtx);
+		SeleniumTestsContextManager.getThreadContext().setSnapshotImageFormat(null);
+		Assert.assertEquals(SeleniumTestsContextManager.getThreadContext().getSnapshotImageFormat(), SeleniumTestsContext.DEFAULT_SNAPSHOT_IMAGE_FORMAT);
+	}
+	@Test(groups="ut context", expectedExceptions=ConfigurationException.class)
+	public void testSnapshotImageFormatInvalid(final ITestContext testNGCtx, final XmlTest xmlTest) {
+		initThreadContext(testNGCtx);
+		SeleniumTestsContextManager.getThreadContext().setSnapshotImageFormat("gif");
+	}
+	
+	@Test(groups="ut context")
+	public void testSnapshotPngCompression(final ITestContext testNGCtx, final XmlTest xmlTest) {
+		initThreadContext(testNGCtx);
+		SeleniumTestsContextManager.getThreadContext().setSnapshotPngCompression(1);
+		Assert.assertEquals(SeleniumTestsContextManager.getThreadContext().getSnapshotPngCompression(), 1);
+	}
+	@Test(groups="ut context")
+	public void testSnapshotPngCompressionNull(final ITestContext testNGCtx, final XmlTest xmlTest) {
+		initThreadContext(testNGCtx);
+		SeleniumTestsContextManager.getThreadContext().setSnapshotPngCompression(null);
+		Assert.assertEquals(SeleniumTestsContextManager.getThreadContext().getSnapshotPngCompression(), SeleniumTestsContext.DEFAULT_SNAPSHOT_PNG_COMPRESSION);
+	}
+	@Test(groups="ut context", expectedExceptions=ConfigurationException.class)
+	public void testSnapshotPngCompressionInvalid(final ITestContext testNGCtx, final XmlTest xmlTest) {
+		initThreadContext(testNGCtx);
+		SeleniumTestsContextManager.getThreadContext().setSnapshotPngCompression(10);
+	}
+	
 	@Test(groups="ut context", expectedExceptions=ConfigurationException.class)
 	public void testSeleniumRobotServerActive(final ITestContext testNGCtx, final XmlTest xmlTest) {
 		initThreadContext(testNGCtx);
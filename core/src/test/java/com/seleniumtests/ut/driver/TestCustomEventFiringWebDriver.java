@@ -63,6 +63,7 @@ import org.testng.annotations.Test;
 
 import com.seleniumtests.MockitoTest;
 import com.seleniumtests.browserfactory.BrowserInfo;
+import com.seleniumtests.browserfactory.GridSessionPool;
 import com.seleniumtests.connectors.selenium.SeleniumGridConnector;
 import com.seleniumtests.customexception.ScenarioException;
 import com.seleniumtests.driver.CustomEventFiringWebDriver;
@@ -70,6 +71,7 @@ import com.seleniumtests.driver.DriverExceptionListener;
 import com.seleniumtests.driver.DriverMode;
 import com.seleniumtests.driver.Keyboard;
 import com.seleniumtests.driver.screenshots.VideoRecorder;
+import com.seleniumtests.util.imaging.ImageProcessor;
 import com.seleniumtests.util.osutility.OSUtility;
 import com.seleniumtests.util.osutility.OSUtilityFactory;
 
@@ -407,6 +409,16 @@ public class TestCustomEventFiringWebDriver extends MockitoTest {
 		verify(osUtility).killProcess(eq("1000"), eq(true));
 	}
 	
+	/**
+	 * Quitting a local driver must not create the grid session pool
+	 */
+	@Test(groups = {"ut"})
+	public void testQuitLocalDriverDoesNotUsePool() {
+		GridSessionPool.closeAll();
+		((CustomEventFiringWebDriver)eventDriver).quit();
+		Assert.assertFalse(GridSessionPool.isActive());
+	}
+	
 	/**
 	 * Check that even if error is raised when driver is quit, killing process is done
 	 */
@@ -699,6 +711,43 @@ public class TestCustomEventFiringWebDriver extends MockitoTest {
 		CustomEventFiringWebDriver.captureDesktopToBase64String(DriverMode.GRID, gridConnector);
 		verify(gridConnector).captureDesktopToBuffer();
 	}
+	
+	/**
+	 * capture image in local mode: image is returned as captured, without being encoded
+	 * @throws IOException 
+	 */
+	@Test(groups = {"ut"})
+	public void testCaptureDesktopToImage() throws IOException {
+		BufferedImage bi = new BufferedImage(20, 10, BufferedImage.TYPE_INT_RGB);
+		when(robot.createScreenCapture(any(Rectangle.class))).thenReturn(bi);
+		
+		Assert.assertSame(CustomEventFiringWebDriver.captureDesktopToImage(DriverMode.LOCAL, gridConnector), bi);
+		verify(gridConnector, never()).captureDesktopToBuffer();
+	}
+	
+	/**
+	 * capture image in grid mode: image is decoded from node reply
+	 * @throws IOException 
+	 */
+	@Test(groups = {"ut"})
+	public void testCaptureDesktopToImageWithGrid() throws IOException {
+		BufferedImage bi = new BufferedImage(20, 10, BufferedImage.TYPE_INT_RGB);
+		when(gridConnector.captureDesktopToBuffer()).thenReturn(ImageProcessor.toBase64(bi));
+		
+		BufferedImage image = CustomEventFiringWebDriver.captureDesktopToImage(DriverMode.GRID, gridConnector);
+		Assert.assertEquals(image.getWidth(), bi.getWidth());
+		Assert.assertEquals(image.getHeight(), bi.getHeight());
+	}
+	
+	/**
+	 * capture image in grid mode, when node fails
+	 * @throws IOException 
+	 */
+	@Test(groups = {"ut"})
+	public void testCaptureDesktopToImageWithGridError() throws IOException {
+		when(gridConnector.captureDesktopToBuffer()).thenReturn("");
+		Assert.assertNull(CustomEventFiringWebDriver.captureDesktopToImage(DriverMode.GRID, gridConnector));
+	}
 
 	/**
 	 * start video capture to desktop in local mode
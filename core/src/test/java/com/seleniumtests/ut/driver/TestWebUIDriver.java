@@ -5,6 +5,7 @@ import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -12,6 +13,7 @@ import static org.mockito.Mockito.when;
 import static org.powermock.api.mockito.PowerMockito.whenNew;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -33,6 +35,7 @@ import com.neotys.selenium.proxies.NLWebDriverFactory;
 import com.seleniumtests.GenericTest;
 import com.seleniumtests.MockitoTest;
 import com.seleniumtests.browserfactory.BrowserInfo;
+import com.seleniumtests.browserfactory.HtmlUnitDriverFactory;
 import com.seleniumtests.browserfactory.SeleniumGridDriverFactory;
 import com.seleniumtests.connectors.selenium.SeleniumGridConnector;
 import com.seleniumtests.connectors.selenium.SeleniumGridConnectorFactory;
@@ -80,6 +83,12 @@ public class TestWebUIDriver extends MockitoTest {
 	
 	@Mock
 	private SeleniumGridDriverFactory gridDriverFactory;
+	
+	@Mock
+	private HtmlUnitDriverFactory htmlUnitDriverFactory;
+	
+	@Mock
+	private BrowserInfo browserInfo;
 
 	/**
 	 * When driver is created, no Neoload driver is instanciated if neoload parameters are not set
@@ -95,6 +104,49 @@ public class TestWebUIDriver extends MockitoTest {
 		Capabilities caps = ((CustomEventFiringWebDriver)driver).getInternalCapabilities();
 		Assert.assertNotNull(caps.getCapability(DriverUsage.START_TIME));
 		Assert.assertNotNull(caps.getCapability(DriverUsage.STARTUP_DURATION));
+		Assert.assertNotNull(caps.getCapability(DriverUsage.LOCK_WAIT_DURATION));
+	}
+	
+	/**
+	 * Local driver: pids are polled until they are stable, instead of waiting a fixed delay
+	 * @throws Exception
+	 */
+	@Test(groups={"ut"})
+	public void testDriverPidsPolledInLocalMode() throws Exception {
+		SeleniumTestsContextManager.getThreadContext().setBrowser("htmlunit");
+		
+		whenNew(HtmlUnitDriverFactory.class).withAnyArguments().thenReturn(htmlUnitDriverFactory);
+		when(htmlUnitDriverFactory.createWebDriver()).thenReturn(drv1);
+		when(htmlUnitDriverFactory.getSelectedBrowserInfo()).thenReturn(browserInfo);
+		when(browserInfo.getBrowser()).thenReturn(BrowserType.HTMLUNIT);
+		when(browserInfo.getDriverAndBrowserPid(any())).thenReturn(new ArrayList<>()).thenReturn(Arrays.asList(10L));
+		
+		long start = System.currentTimeMillis();
+		CustomEventFiringWebDriver ceDriver = (CustomEventFiringWebDriver)WebUIDriver.getWebDriver(true);
+		
+		Assert.assertTrue(System.currentTimeMillis() - start < 1500);
+		verify(browserInfo, times(3)).getDriverAndBrowserPid(any());
+		Assert.assertEquals(ceDriver.getDriverPids(), Arrays.asList(10L));
+	}
+	
+	/**
+	 * Driver created on grid: no pid search
+	 * @throws Exception
+	 */
+	@Test(groups={"ut"})
+	public void testNoPidSearchInGrid() throws Exception {
+		SeleniumTestsContextManager.getThreadContext().setBrowser("htmlunit");
+		SeleniumTestsContextManager.getThreadContext().setWebDriverGrid("http://localhost:4444/wd/hub");
+		SeleniumTestsContextManager.getThreadContext().setRunMode("grid");
+		SeleniumTestsContextManager.getThreadContext().setSeleniumGridConnectors(Arrays.asList(gridConnector));
+		when(gridConnector.getNodeUrl()).thenReturn("http://localhost:5555/");
+		
+		whenNew(SeleniumGridDriverFactory.class).withAnyArguments().thenReturn(gridDriverFactory);
+		when(gridDriverFactory.createWebDriver()).thenReturn(drv1);
+		when(gridDriverFactory.getSelectedBrowserInfo()).thenReturn(browserInfo);
+		
+		WebUIDriver.getWebDriver(true);
+		verify(browserInfo, never()).getDriverAndBrowserPid(any());
 	}
 	
 	/**
@@ -0,0 +1,145 @@
+/**
+ * Orignal work: Copyright 2015 www.seleniumtests.com
+ * Modified work: Copyright 2016 www.infotel.com
+ * 				Copyright 2017-2019 B.Hecquet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.seleniumtests.ut.reporter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.ISuite;
+import org.testng.ITestContext;
+import org.testng.ITestNGMethod;
+import org.testng.ITestResult;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.seleniumtests.MockitoTest;
+import com.seleniumtests.reporter.reporters.ReportIndex;
+
+public class TestReportIndex extends MockitoTest {
+
+	@Mock
+	private ITestContext testContext;
+
+	@Mock
+	private ISuite suite;
+
+	@Mock
+	private ITestNGMethod testMethod1;
+
+	@Mock
+	private ITestNGMethod testMethod2;
+
+	@Mock
+	private ITestResult testResult1;
+
+	@Mock
+	private ITestResult testResult1Retry;
+
+	@Mock
+	private ITestResult testResult2;
+
+	@BeforeMethod(groups={"ut"})
+	public void init() {
+		ReportIndex.reset();
+
+		Mockito.when(suite.getName()).thenReturn("suite");
+		Mockito.when(testContext.getName()).thenReturn("a test");
+		Mockito.when(testContext.getSuite()).thenReturn(suite);
+
+		Mockito.doReturn(TestReportIndex.class).when(testMethod1).getRealClass();
+		Mockito.when(testMethod1.getMethodName()).thenReturn("test1");
+		Mockito.doReturn(TestReportIndex.class).when(testMethod2).getRealClass();
+		Mockito.when(testMethod2.getMethodName()).thenReturn("test2");
+
+		for (ITestResult result: new ITestResult[] {testResult1, testResult1Retry, testResult2}) {
+			Mockito.when(result.getTestContext()).thenReturn(testContext);
+			Mockito.when(result.getParameters()).thenReturn(new Object[] {});
+		}
+		Mockito.when(testResult1.getMethod()).thenReturn(testMethod1);
+		Mockito.when(testResult1.getStatus()).thenReturn(ITestResult.SKIP);
+		Mockito.when(testResult1Retry.getMethod()).thenReturn(testMethod1);
+		Mockito.when(testResult1Retry.getStatus()).thenReturn(ITestResult.SUCCESS);
+		Mockito.when(testResult2.getMethod()).thenReturn(testMethod2);
+		Mockito.when(testResult2.getStatus()).thenReturn(ITestResult.FAILURE);
+	}
+
+	@AfterMethod(groups={"ut"}, alwaysRun=true)
+	public void reset() {
+		ReportIndex.reset();
+	}
+
+	@Test(groups={"ut"})
+	public void testAddResults() {
+		ReportIndex index = ReportIndex.getInstance();
+		index.add(testResult1);
+		index.add(testResult2);
+
+		Map<ITestContext, Set<ITestResult>> results = index.getResults();
+		Assert.assertEquals(results.size(), 1);
+		Assert.assertEquals(results.get(testContext).size(), 2);
+		Assert.assertEquals(index.size(), 2);
+	}
+
+	/**
+	 * When a test is retried, only the last result is kept
+	 */
+	@Test(groups={"ut"})
+	public void testRetriedResultReplacesPreviousOne() {
+		ReportIndex index = ReportIndex.getInstance();
+		index.add(testResult1);
+		index.add(testResult2);
+		index.add(testResult1Retry);
+
+		Set<ITestResult> results = index.getResults().get(testContext);
+		Assert.assertEquals(results.size(), 2);
+		Assert.assertTrue(results.contains(testResult1Retry));
+		Assert.assertFalse(results.contains(testResult1));
+	}
+
+	/**
+	 * Each added result is appended to index file, which is recreated for a new execution
+	 * @throws IOException
+	 */
+	@Test(groups={"ut"})
+	public void testIndexFile() throws IOException {
+		ReportIndex index = ReportIndex.getInstance();
+		index.add(testResult1);
+		index.add(testResult1Retry);
+
+		List<String> lines = Files.readAllLines(index.getIndexFile(), StandardCharsets.UTF_8);
+		Assert.assertEquals(lines.size(), 2);
+		Assert.assertTrue(lines.get(0).contains("\"status\":3"));
+		Assert.assertTrue(lines.get(1).contains("\"status\":1"));
+
+		// new execution
+		ReportIndex.reset();
+		index = ReportIndex.getInstance();
+		Assert.assertEquals(index.size(), 0);
+		index.add(testResult2);
+		lines = Files.readAllLines(index.getIndexFile(), StandardCharsets.UTF_8);
+		Assert.assertEquals(lines.size(), 1);
+	}
+}
@@ -163,6 +163,40 @@ public class TestTestStep extends GenericTest {
 		tmpHtmlFile.deleteOnExit();
 	}
 	
+	/**
+	 * Test that when adding a snapshot whose files are still being written in background, only paths are changed
+	 * Files will be written by the export with the new names
+	 * @throws IOException
+	 */
+	@Test(groups={"ut"})
+	public void testSnapshotRenamingWithPendingExport() throws IOException {
+		TestStep step = new TestStep("step1", null, new ArrayList<>(), true);
+		ScreenShot screenshot = new ScreenShot();
+		
+		File tmpImgFile = File.createTempFile("img", ".png");
+		File tmpHtmlFile = File.createTempFile("html", ".html");
+		
+		screenshot.setOutputDirectory(tmpImgFile.getParent());
+		screenshot.setLocation("http://mysite.com");
+		screenshot.setTitle("mysite");
+		screenshot.setImagePath(tmpImgFile.getName());
+		screenshot.setHtmlSourcePath(tmpHtmlFile.getName());
+		screenshot.exportStarted();
+		
+		step.addSnapshot(new Snapshot(screenshot, "main", SnapshotCheckType.TRUE), 0, null);
+		
+		Assert.assertEquals(step.getSnapshots().get(0).getScreenshot().getImagePath(), "N-A_0-1_step1-" + tmpImgFile.getName());
+		Assert.assertEquals(step.getSnapshots().get(0).getScreenshot().getHtmlSourcePath(), "N-A_0-1_step1-" + tmpHtmlFile.getName());
+		
+		// files have not been moved
+		Assert.assertTrue(tmpImgFile.exists());
+		Assert.assertTrue(tmpHtmlFile.exists());
+		Assert.assertFalse(new File(screenshot.getFullImagePath()).exists());
+		
+		tmpImgFile.deleteOnExit();
+		tmpHtmlFile.deleteOnExit();
+	}
+	
 	@Test(groups={"ut"})
 	public void testSnapshotRenamingWithSubFolder() throws IOException {
 		TestStep step = new TestStep("step1", null, new ArrayList<>(), true);
@@ -244,6 +278,34 @@ public class TestTestStep extends GenericTest {
 		Assert.assertEquals(attachments.get(2).getName(), "N-A_0-1_subStep-" + tmpImgFile4.getName());
 	}
 	
+	/**
+	 * Files are registered when they are added to the step, and copied steps reference the same files
+	 * @throws IOException
+	 */
+	@Test(groups={"ut"})
+	public void testAttachmentsRegisteredOnAdd() throws IOException {
+		TestStep step = new TestStep("step1", null, new ArrayList<>(), true);
+		
+		ScreenShot screenshot = new ScreenShot();
+		File tmpImgFile = File.createTempFile("img", ".png");
+		File tmpImgFile2 = Paths.get(tmpImgFile.getParent(), "screenshots", tmpImgFile.getName()).toFile();
+		FileUtils.moveFile(tmpImgFile, tmpImgFile2);
+		tmpImgFile2.deleteOnExit();
+		
+		screenshot.setOutputDirectory(tmpImgFile.getParent());
+		screenshot.setImagePath("screenshots/" + tmpImgFile2.getName());
+		step.addSnapshot(new Snapshot(screenshot, "main", SnapshotCheckType.FALSE), 0, null);
+		
+		File tmpFile = File.createTempFile("video", ".avi");
+		tmpFile.deleteOnExit();
+		step.addFile(new GenericFile(tmpFile, "video"));
+		
+		List<File> attachments = step.deepCopy().getAllAttachments();
+		Assert.assertEquals(attachments.size(), 2);
+		Assert.assertEquals(attachments.get(0).getName(), "N-A_0-1_step1-" + tmpImgFile2.getName());
+		Assert.assertEquals(attachments.get(1), tmpFile.getCanonicalFile());
+	}
+	
 	@Test(groups={"ut"}, expectedExceptions=CustomSeleniumTestsException.class)
 	public void testTestStepEncodeUnexpected() {
 		TestStep step = new TestStep("step1 \"'<>&", null, new ArrayList<>(), true);
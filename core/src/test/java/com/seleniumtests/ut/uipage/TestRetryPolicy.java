@@ -0,0 +1,96 @@
+/**
+ * Orignal work: Copyright 2015 www.seleniumtests.com
+ * Modified work: Copyright 2016 www.infotel.com
+ * 				Copyright 2017-2019 B.Hecquet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.seleniumtests.ut.uipage;
+
+import org.openqa.selenium.InvalidSelectorException;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.NoSuchSessionException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.remote.UnreachableBrowserException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.seleniumtests.GenericTest;
+import com.seleniumtests.uipage.BackoffStrategy;
+import com.seleniumtests.uipage.aspects.RetryPolicy;
+
+public class TestRetryPolicy extends GenericTest {
+
+	@Test(groups={"ut"})
+	public void testConstantBackoff() {
+		RetryPolicy policy = new RetryPolicy(BackoffStrategy.CONSTANT, 300, 5000);
+		Assert.assertEquals(policy.getDelay(1), 300);
+		Assert.assertEquals(policy.getDelay(10), 300);
+	}
+	
+	@Test(groups={"ut"})
+	public void testLinearBackoff() {
+		RetryPolicy policy = new RetryPolicy(BackoffStrategy.LINEAR, 300, 1000);
+		Assert.assertEquals(policy.getDelay(1), 300);
+		Assert.assertEquals(policy.getDelay(3), 900);
+		Assert.assertEquals(policy.getDelay(4), 1000);
+	}
+	
+	@Test(groups={"ut"})
+	public void testExponentialBackoff() {
+		RetryPolicy policy = new RetryPolicy(BackoffStrategy.EXPONENTIAL, 100, 1000);
+		Assert.assertEquals(policy.getDelay(1), 100);
+		Assert.assertEquals(policy.getDelay(2), 200);
+		Assert.assertEquals(policy.getDelay(4), 800);
+		Assert.assertEquals(policy.getDelay(5), 1000);
+		Assert.assertEquals(policy.getDelay(100), 1000);
+	}
+	
+	/**
+	 * With jitter, delay is between half and full exponential delay
+	 */
+	@Test(groups={"ut"})
+	public void testExponentialJitterBackoff() {
+		RetryPolicy policy = new RetryPolicy(BackoffStrategy.EXPONENTIAL_JITTER, 100, 1000);
+		for (int i = 0; i < 20; i++) {
+			long delay = policy.getDelay(3);
+			Assert.assertTrue(delay >= 200 && delay <= 400, "delay should be between 200 and 400: " + delay);
+		}
+	}
+	
+	/**
+	 * Max delay cannot be lower than base delay
+	 */
+	@Test(groups={"ut"})
+	public void testMaxDelayLowerThanDelay() {
+		RetryPolicy policy = new RetryPolicy(BackoffStrategy.EXPONENTIAL, 500, 100);
+		Assert.assertEquals(policy.getDelay(3), 500);
+	}
+	
+	@Test(groups={"ut"})
+	public void testFatalErrors() {
+		Assert.assertTrue(RetryPolicy.isFatal(new NoSuchSessionException("no session")));
+		Assert.assertTrue(RetryPolicy.isFatal(new InvalidSelectorException("invalid selector")));
+		Assert.assertTrue(RetryPolicy.isFatal(new WebDriverException("unknown error: session deleted because of page crash")));
+		Assert.assertTrue(RetryPolicy.isFatal(new WebDriverException("unknown error: Tab crashed")));
+	}
+	
+	@Test(groups={"ut"})
+	public void testRetryableErrors() {
+		Assert.assertFalse(RetryPolicy.isFatal(new NoSuchElementException("not found")));
+		Assert.assertFalse(RetryPolicy.isFatal(new StaleElementReferenceException("stale")));
+		Assert.assertFalse(RetryPolicy.isFatal(new UnreachableBrowserException("unreachable")));
+		Assert.assertFalse(RetryPolicy.isFatal(new WebDriverException()));
+	}
+}
@@ -27,10 +27,15 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.IOException;
+import java.util.ArrayList;
+
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.openqa.selenium.PageLoadStrategy;
 import org.openqa.selenium.UnsupportedCommandException;
+import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebDriverException;
 import org.openqa.selenium.interactions.Actions;
 import org.openqa.selenium.interactions.Mouse;
@@ -39,14 +44,21 @@ import org.openqa.selenium.remote.RemoteWebDriver;
 import org.openqa.selenium.remote.RemoteWebElement;
 import org.powermock.api.mockito.PowerMockito;
 import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.testng.Assert;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import com.seleniumtests.MockitoTest;
 import com.seleniumtests.browserfactory.BrowserInfo;
+import com.seleniumtests.core.SeleniumTestsContext;
+import com.seleniumtests.core.SeleniumTestsContextManager;
+import com.seleniumtests.core.TestStepManager;
 import com.seleniumtests.driver.BrowserType;
 import com.seleniumtests.driver.CustomEventFiringWebDriver;
 import com.seleniumtests.driver.WebUIDriver;
+import com.seleniumtests.reporter.logger.TestStep;
+import com.seleniumtests.uipage.PageObject;
+import com.seleniumtests.uipage.SettleMode;
 import com.seleniumtests.util.helper.WaitHelper;
 
 @PrepareForTest({WebUIDriver.class, WaitHelper.class, RemoteWebDriver.class})
@@ -132,6 +144,78 @@ public class TestCompositeActions extends MockitoTest {
 		verify(eventDriver, never()).updateWindowsHandles();
 	}
 	
+	/**
+	 * Time spent waiting after a composite action is not counted in step duration
+	 */
+	@Test(groups={"ut"})
+	public void testSettleExcludedFromStepDuration() {
+		TestStep step = new TestStep("step", null, new ArrayList<>(), true);
+		TestStepManager.setParentTestStep(step);
+		
+		long start = System.currentTimeMillis();
+		new Actions(eventDriver).clickAndHold().perform();
+		long elapsed = System.currentTimeMillis() - start;
+		step.setDuration(elapsed);
+		
+		Assert.assertTrue(step.getDurationToExclude() >= SeleniumTestsContext.DEFAULT_COMPOSITE_ACTION_SETTLE_DELAY);
+		Assert.assertTrue(step.getDuration() <= elapsed - SeleniumTestsContext.DEFAULT_COMPOSITE_ACTION_SETTLE_DELAY);
+	}
+	
+	/**
+	 * No wait after composite action in 'none' mode
+	 */
+	@Test(groups={"ut"})
+	public void testNoSettle() {
+		SeleniumTestsContextManager.getThreadContext().setCompositeActionSettleMode("none");
+		TestStep step = new TestStep("step", null, new ArrayList<>(), true);
+		TestStepManager.setParentTestStep(step);
+		
+		new Actions(eventDriver).clickAndHold().perform();
+		Assert.assertTrue(step.getDurationToExclude() < 100);
+	}
+	
+	/**
+	 * Settle mode defined by the page is used instead of the one from test context
+	 * @throws IOException 
+	 */
+	@Test(groups={"ut"})
+	public void testPageSettleOverridesContext() throws IOException {
+		SeleniumTestsContextManager.getThreadContext().setCompositeActionSettleDelay(1000);
+		TestStep step = new TestStep("step", null, new ArrayList<>(), true);
+		TestStepManager.setParentTestStep(step);
+		
+		new CompositeActionPage(SettleMode.NONE, 0).holdClick(eventDriver);
+		Assert.assertTrue(step.getDurationToExclude() < 100);
+	}
+	
+	/**
+	 * Page may wait after composite actions even if test context says not to wait
+	 * @throws IOException 
+	 */
+	@Test(groups={"ut"})
+	public void testPageSettleOverridesNoSettleContext() throws IOException {
+		SeleniumTestsContextManager.getThreadContext().setCompositeActionSettleMode("none");
+		TestStep step = new TestStep("step", null, new ArrayList<>(), true);
+		TestStepManager.setParentTestStep(step);
+		
+		new CompositeActionPage(SettleMode.FIXED, 300).holdClick(eventDriver);
+		Assert.assertTrue(step.getDurationToExclude() >= 300);
+	}
+	
+	/**
+	 * With 'default' mode, page uses settle mode of test context
+	 * @throws IOException 
+	 */
+	@Test(groups={"ut"})
+	public void testPageSettleDefault() throws IOException {
+		SeleniumTestsContextManager.getThreadContext().setCompositeActionSettleMode("none");
+		TestStep step = new TestStep("step", null, new ArrayList<>(), true);
+		TestStepManager.setParentTestStep(step);
+		
+		new CompositeActionPage(SettleMode.DEFAULT, 300).holdClick(eventDriver);
+		Assert.assertTrue(step.getDurationToExclude() < 100);
+	}
+	
 	/**
 	 * Test replay of CompositeAction in fallback mode
 	 */
@@ -176,4 +260,19 @@ public class TestCompositeActions extends MockitoTest {
 
 		verify(eventDriver, times(2)).perform(anyCollection());
 	}
+	
+	/**
+	 * Page performing composite actions with its own settle mode. Page is not loaded, only its actions are used
+	 */
+	public static class CompositeActionPage extends PageObject {
+		
+		public CompositeActionPage(SettleMode settleMode, int settleDelay) throws IOException {
+			super(null, null, PageLoadStrategy.NONE, false);
+			setCompositeActionSettle(settleMode, settleDelay);
+		}
+		
+		public void holdClick(WebDriver driver) {
+			new Actions(driver).clickAndHold().perform();
+		}
+	}
 }
@@ -2,13 +2,17 @@ package com.seleniumtests.ut.uipage.htmlelements;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -17,6 +21,7 @@ import org.mockito.Mock;
 import org.openqa.selenium.By;
 import org.openqa.selenium.Point;
 import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.WebDriverException;
 import org.openqa.selenium.WebElement;
 import org.powermock.api.mockito.PowerMockito;
 import org.powermock.core.classloader.annotations.PrepareForTest;
@@ -26,11 +31,15 @@ import org.testng.annotations.Test;
 
 import com.seleniumtests.MockitoTest;
 import com.seleniumtests.core.SeleniumTestsContextManager;
+import com.seleniumtests.core.TestStepManager;
 import com.seleniumtests.customexception.CustomSeleniumTestsException;
 import com.seleniumtests.customexception.ScenarioException;
 import com.seleniumtests.driver.CustomEventFiringWebDriver;
+import com.seleniumtests.driver.DriverExceptionListener;
 import com.seleniumtests.driver.TestType;
+import com.seleniumtests.reporter.logger.TestStep;
 import com.seleniumtests.uipage.htmlelements.ElementInfo;
+import com.seleniumtests.uipage.htmlelements.ElementSnapshot;
 import com.seleniumtests.uipage.htmlelements.HtmlElement;
 import com.seleniumtests.util.imaging.ImageProcessor;
 
@@ -163,6 +172,10 @@ public class TestElementInfo extends MockitoTest {
 		when(driver.getScrollPosition()).thenReturn(new Point(10, 10));
 		PowerMockito.when(ImageProcessor.cropImage(any(BufferedImage.class), anyInt(), anyInt(), anyInt(), anyInt())).thenReturn(image);
 		PowerMockito.when(ImageProcessor.toBase64(image)).thenReturn("ABCD");
+		PowerMockito.when(ImageProcessor.resizeToFit(image, 200)).thenReturn(image);
+		PowerMockito.when(ImageProcessor.perceptualHash(image)).thenReturn(0x1234L);
+		PowerMockito.when(ImageProcessor.hashDistance(anyLong(), anyLong())).thenCallRealMethod();
+		TestStepManager.setCurrentRootTestStep(null);
 		
 		// remove elementInfo file that could have been created
 		File elementInfoPath = ElementInfo.buildElementInfoPath(htmlElement);
@@ -233,6 +246,187 @@ public class TestElementInfo extends MockitoTest {
 		Assert.assertEquals(elInfo.getRectangleStability(), 0);
 	}
 	
+	/**
+	 * For web tests, element information is read in one call
+	 */
+	@Test(groups={"ut"})
+	public void testUpdateInfoWithSnapshot() {
+		SeleniumTestsContextManager.getThreadContext().setTestType(TestType.WEB);
+		
+		Map<String, Object> attributes = new HashMap<>();
+		attributes.put("class", "otherClass");
+		Map<String, Object> snapshotInfo = new HashMap<>();
+		snapshotInfo.put("display", "block");
+		snapshotInfo.put("visibility", "visible");
+		snapshotInfo.put("opacity", "1");
+		snapshotInfo.put("x", 11L);
+		snapshotInfo.put("y", 21L);
+		snapshotInfo.put("width", 41L);
+		snapshotInfo.put("height", 31L);
+		snapshotInfo.put("scrollX", 0L);
+		snapshotInfo.put("scrollY", 5L);
+		snapshotInfo.put("viewportHeight", 800L);
+		snapshotInfo.put("tagName", "h2");
+		snapshotInfo.put("attributes", attributes);
+		when(driver.executeScript(ElementSnapshot.JS_GET_SNAPSHOT, element)).thenReturn(snapshotInfo);
+		ElementSnapshot snapshot = ElementSnapshot.capture(driver, element);
+		when(htmlElement.getSnapshot()).thenReturn(snapshot);
+		when(element.getText()).thenReturn("othertext");
+		
+		ElementInfo elInfo = spy(ElementInfo.getInstance(htmlElement));
+		doReturn(image).when(elInfo).getScreenshot();
+		
+		elInfo.updateInfo(htmlElement);
+		
+		Assert.assertEquals(elInfo.getText(), "othertext");
+		Assert.assertEquals(elInfo.getCoordX(), (Integer)11);
+		Assert.assertEquals(elInfo.getCoordY(),  (Integer)21);
+		Assert.assertEquals(elInfo.getHeight(),  (Integer)31);
+		Assert.assertEquals(elInfo.getWidth(),  (Integer)41);
+		Assert.assertEquals(elInfo.getTagName(), "h2");
+		Assert.assertEquals(elInfo.getAttributes().get("class"), "otherClass");
+		Assert.assertEquals(elInfo.getB64Image(), "ABCD");
+		
+		// no other call to browser, except for text
+		verify(element, never()).getRect();
+		verify(element, never()).getTagName();
+		verify(driver, never()).getScrollPosition();
+		verify(driver, never()).executeScript(ElementInfo.JAVASCRIPT_GET_ATTRIBUTES, element);
+	}
+	
+	/**
+	 * Element did not move and did not change, picture is not captured again
+	 * @throws IOException 
+	 */
+	@Test(groups={"ut"})
+	public void testUpdateInfoImageNotCapturedWhenStable() throws IOException {
+		SeleniumTestsContextManager.getThreadContext().setTestType(TestType.WEB);
+		FileUtils.write(ElementInfo.buildElementInfoPath(htmlElement), JSON_INFO_FOO);
+		
+		ElementInfo elInfo = spy(ElementInfo.getInstance(htmlElement));
+		doReturn(image).when(elInfo).getScreenshot();
+		
+		elInfo.updateInfo(htmlElement);
+		
+		verify(elInfo, never()).getScreenshot();
+		Assert.assertEquals(elInfo.getB64Image(), "ABCD");
+		Assert.assertEquals(elInfo.getB64ImageStability(), 1);
+	}
+	
+	/**
+	 * Element moved, picture is captured again. Image stability is computed from perceptual hash
+	 * @throws IOException 
+	 */
+	@Test(groups={"ut"})
+	public void testUpdateInfoImageCapturedWhenMoved() throws IOException {
+		SeleniumTestsContextManager.getThreadContext().setTestType(TestType.WEB);
+		FileUtils.write(ElementInfo.buildElementInfoPath(htmlElement), JSON_INFO_FOO);
+		
+		ElementInfo elInfo = spy(ElementInfo.getInstance(htmlElement));
+		doReturn(image).when(elInfo).getScreenshot();
+		
+		when(element.getRect()).thenReturn(new Rectangle(15,  20, 30, 40));
+		elInfo.updateInfo(htmlElement);
+		verify(elInfo).getScreenshot();
+		Assert.assertEquals(elInfo.getB64ImageHash(), "1234");
+		Assert.assertEquals(elInfo.getB64ImageStability(), 0);
+		
+		// moved again, but picture is the same
+		when(element.getRect()).thenReturn(new Rectangle(16,  20, 30, 40));
+		elInfo.updateInfo(htmlElement);
+		Assert.assertEquals(elInfo.getB64ImageStability(), 1);
+	}
+	
+	/**
+	 * Page screenshot is taken once for all elements searched in the same step
+	 */
+	@Test(groups={"ut"})
+	public void testPageScreenshotSharedInStep() {
+		SeleniumTestsContextManager.getThreadContext().setTestType(TestType.WEB);
+		TestStepManager.setCurrentRootTestStep(new TestStep("step 1", null, new ArrayList<>(), true));
+		
+		ElementInfo elInfo1 = spy(new ElementInfo(htmlElement));
+		doReturn(image).when(elInfo1).getScreenshot();
+		ElementInfo elInfo2 = spy(new ElementInfo(htmlElement));
+		doReturn(image).when(elInfo2).getScreenshot();
+		
+		elInfo1.updateInfo(htmlElement);
+		elInfo2.updateInfo(htmlElement);
+		
+		verify(elInfo1).getScreenshot();
+		verify(elInfo2, never()).getScreenshot();
+		Assert.assertEquals(elInfo2.getB64Image(), "ABCD");
+		
+		// new step, new capture
+		TestStepManager.setCurrentRootTestStep(new TestStep("step 2", null, new ArrayList<>(), true));
+		ElementInfo elInfo3 = spy(new ElementInfo(htmlElement));
+		doReturn(image).when(elInfo3).getScreenshot();
+		elInfo3.updateInfo(htmlElement);
+		verify(elInfo3).getScreenshot();
+	}
+	
+	/**
+	 * Once an action has been done on the page or step is finished, page is captured again
+	 */
+	@Test(groups={"ut"})
+	public void testPageScreenshotNotSharedAfterAction() {
+		SeleniumTestsContextManager.getThreadContext().setTestType(TestType.WEB);
+		TestStep step = new TestStep("step 1", null, new ArrayList<>(), true);
+		TestStepManager.setCurrentRootTestStep(step);
+		
+		ElementInfo elInfo1 = spy(new ElementInfo(htmlElement));
+		doReturn(image).when(elInfo1).getScreenshot();
+		elInfo1.updateInfo(htmlElement);
+		
+		new DriverExceptionListener().afterClickOn(element, driver);
+		ElementInfo elInfo2 = spy(new ElementInfo(htmlElement));
+		doReturn(image).when(elInfo2).getScreenshot();
+		elInfo2.updateInfo(htmlElement);
+		verify(elInfo2).getScreenshot();
+		
+		TestStepManager.logTestStep(step);
+		TestStepManager.setCurrentRootTestStep(step);
+		ElementInfo elInfo3 = spy(new ElementInfo(htmlElement));
+		doReturn(image).when(elInfo3).getScreenshot();
+		elInfo3.updateInfo(htmlElement);
+		verify(elInfo3).getScreenshot();
+	}
+	
+	/**
+	 * Snapshot cannot be read, element information is read with separate calls
+	 */
+	@Test(groups={"ut"})
+	public void testSnapshotNotAvailable() {
+		when(driver.executeScript(ElementSnapshot.JS_GET_SNAPSHOT, element)).thenThrow(new WebDriverException("error"));
+		Assert.assertNull(ElementSnapshot.capture(driver, element));
+	}
+	
+	/**
+	 * Style snapshot only reads style and position, not tag and attributes
+	 */
+	@Test(groups={"ut"})
+	public void testStyleSnapshot() {
+		Map<String, Object> styleInfo = new HashMap<>();
+		styleInfo.put("display", "none");
+		styleInfo.put("visibility", "visible");
+		styleInfo.put("opacity", "1");
+		styleInfo.put("x", 11L);
+		styleInfo.put("y", 21L);
+		styleInfo.put("width", 41L);
+		styleInfo.put("height", 31L);
+		styleInfo.put("scrollX", 0L);
+		styleInfo.put("scrollY", 5L);
+		styleInfo.put("viewportHeight", 800L);
+		when(driver.executeScript(ElementSnapshot.JS_GET_STYLE, element)).thenReturn(styleInfo);
+		
+		ElementSnapshot snapshot = ElementSnapshot.captureStyle(driver, element);
+		Assert.assertTrue(snapshot.isDisplayNone());
+		Assert.assertEquals(snapshot.getViewportHeight(), 800);
+		Assert.assertNull(snapshot.getTagName());
+		Assert.assertTrue(snapshot.getAttributes().isEmpty());
+		verify(driver, never()).executeScript(ElementSnapshot.JS_GET_SNAPSHOT, element);
+	}
+	
 	/**
 	 * create element information in dom mode. In this mode, element capture is not done
 	 */
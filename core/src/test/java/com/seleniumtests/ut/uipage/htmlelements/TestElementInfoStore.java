@@ -0,0 +1,203 @@
+/**
+ * Orignal work: Copyright 2015 www.seleniumtests.com
+ * Modified work: Copyright 2016 www.infotel.com
+ * 				Copyright 2017-2019 B.Hecquet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.seleniumtests.ut.uipage.htmlelements;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.seleniumtests.GenericTest;
+import com.seleniumtests.uipage.htmlelements.ElementInfo;
+import com.seleniumtests.uipage.htmlelements.ElementInfoStore;
+
+public class TestElementInfoStore extends GenericTest {
+	
+	private static final String JSON_INFO = "{\"name\": \"mylabel\", \"id\": \"%s\", \"locator\": \"By.id: foo\", \"tagName\": \"h1\", \"text\": \"sometext\", \"totalSearch\": 1}";
+	
+	private Path storeLocation;
+	
+	@BeforeMethod(groups={"ut"})
+	public void init() throws IOException {
+		storeLocation = Files.createTempDirectory("elementInfo");
+	}
+	
+	@AfterMethod(groups={"ut"}, alwaysRun=true)
+	public void clean() throws IOException {
+		FileUtils.deleteDirectory(storeLocation.toFile());
+	}
+	
+	private ElementInfo createElementInfo(String id) {
+		return ElementInfo.readFromJson(String.format(JSON_INFO, id));
+	}
+	
+	/**
+	 * Nothing is written before flush, then all information is written to a single file
+	 */
+	@Test(groups={"ut"})
+	public void testWriteBehind() {
+		ElementInfoStore store = new ElementInfoStore(storeLocation);
+		store.put(createElementInfo("foo.Page/el1"));
+		store.put(createElementInfo("foo.Page/el2"));
+		
+		Assert.assertFalse(storeLocation.resolve(ElementInfoStore.STORE_FILE_NAME).toFile().exists());
+		Assert.assertEquals(store.get("foo.Page/el1").getTagName(), "h1");
+		
+		store.flush();
+		Assert.assertTrue(storeLocation.resolve(ElementInfoStore.STORE_FILE_NAME).toFile().isFile());
+		
+		// an other store (other process) reads the same information
+		ElementInfoStore store2 = new ElementInfoStore(storeLocation);
+		Assert.assertEquals(store2.getAll().size(), 2);
+		Assert.assertEquals(store2.get("foo.Page/el2").getText(), "sometext");
+	}
+	
+	/**
+	 * Information written by an other process is kept when flushing
+	 */
+	@Test(groups={"ut"})
+	public void testFlushMerge() {
+		ElementInfoStore store1 = new ElementInfoStore(storeLocation);
+		ElementInfoStore store2 = new ElementInfoStore(storeLocation);
+		store1.get("foo.Page/el1");
+		store2.get("foo.Page/el1");
+		
+		store1.put(createElementInfo("foo.Page/el1"));
+		store2.put(createElementInfo("foo.Page/el2"));
+		store1.flush();
+		store2.flush();
+		
+		ElementInfoStore store3 = new ElementInfoStore(storeLocation);
+		Assert.assertNotNull(store3.get("foo.Page/el1"));
+		Assert.assertNotNull(store3.get("foo.Page/el2"));
+	}
+	
+	/**
+	 * Removed information is removed from file on flush
+	 */
+	@Test(groups={"ut"})
+	public void testRemove() {
+		ElementInfoStore store = new ElementInfoStore(storeLocation);
+		store.put(createElementInfo("foo.Page/el1"));
+		store.put(createElementInfo("foo.Page/el2"));
+		store.flush();
+		
+		store.remove("foo.Page/el1");
+		Assert.assertNull(store.get("foo.Page/el1"));
+		store.flush();
+		
+		ElementInfoStore store2 = new ElementInfoStore(storeLocation);
+		Assert.assertNull(store2.get("foo.Page/el1"));
+		Assert.assertNotNull(store2.get("foo.Page/el2"));
+	}
+	
+	/**
+	 * Files written with one file per element are imported, then deleted once store is written
+	 * @throws IOException 
+	 */
+	@Test(groups={"ut"})
+	public void testImportLegacyFiles() throws IOException {
+		File legacyFile = storeLocation.resolve("foo.Page").resolve("el1.json").toFile();
+		FileUtils.write(legacyFile, String.format(JSON_INFO, "foo.Page/el1"));
+		
+		ElementInfoStore store = new ElementInfoStore(storeLocation);
+		Assert.assertEquals(store.get("foo.Page/el1").getTagName(), "h1");
+		
+		store.flush();
+		Assert.assertFalse(legacyFile.exists());
+		Assert.assertNotNull(new ElementInfoStore(storeLocation).get("foo.Page/el1"));
+	}
+	
+	/**
+	 * Corrupted store does not prevent from using element information
+	 * @throws IOException 
+	 */
+	@Test(groups={"ut"})
+	public void testCorruptedStore() throws IOException {
+		FileUtils.write(storeLocation.resolve(ElementInfoStore.STORE_FILE_NAME).toFile(), "{\"foo\": ");
+		
+		ElementInfoStore store = new ElementInfoStore(storeLocation);
+		Assert.assertTrue(store.getAll().isEmpty());
+		store.put(createElementInfo("foo.Page/el1"));
+		store.flush();
+		
+		Assert.assertNotNull(new ElementInfoStore(storeLocation).get("foo.Page/el1"));
+	}
+	
+	/**
+	 * Only changed information is written on flush
+	 * @throws IOException 
+	 */
+	@Test(groups={"ut"})
+	public void testFlushOnlyChanges() throws IOException {
+		ElementInfoStore store = new ElementInfoStore(storeLocation);
+		store.put(createElementInfo("foo.Page/el1"));
+		store.put(createElementInfo("foo.Page/el2"));
+		store.flush();
+		Assert.assertEquals(FileUtils.readLines(storeLocation.resolve(ElementInfoStore.STORE_FILE_NAME).toFile(), StandardCharsets.UTF_8).size(), 2);
+		
+		store.put(createElementInfo("foo.Page/el1"));
+		store.flush();
+		Assert.assertEquals(FileUtils.readLines(storeLocation.resolve(ElementInfoStore.STORE_FILE_NAME).toFile(), StandardCharsets.UTF_8).size(), 3);
+		
+		// nothing changed, nothing written
+		store.flush();
+		Assert.assertEquals(FileUtils.readLines(storeLocation.resolve(ElementInfoStore.STORE_FILE_NAME).toFile(), StandardCharsets.UTF_8).size(), 3);
+	}
+	
+	/**
+	 * Compaction keeps only the last information of each element
+	 * @throws IOException 
+	 */
+	@Test(groups={"ut"})
+	public void testCompact() throws IOException {
+		ElementInfoStore store = new ElementInfoStore(storeLocation);
+		store.put(createElementInfo("foo.Page/el1"));
+		store.put(createElementInfo("foo.Page/el2"));
+		store.flush();
+		store.put(createElementInfo("foo.Page/el1"));
+		store.remove("foo.Page/el2");
+		store.flush();
+		Assert.assertEquals(FileUtils.readLines(storeLocation.resolve(ElementInfoStore.STORE_FILE_NAME).toFile(), StandardCharsets.UTF_8).size(), 4);
+		
+		store.compact();
+		Assert.assertEquals(FileUtils.readLines(storeLocation.resolve(ElementInfoStore.STORE_FILE_NAME).toFile(), StandardCharsets.UTF_8).size(), 1);
+		
+		ElementInfoStore store2 = new ElementInfoStore(storeLocation);
+		Assert.assertEquals(store2.getAll().size(), 1);
+		Assert.assertEquals(store2.get("foo.Page/el1").getTagName(), "h1");
+	}
+	
+	@Test(groups={"ut"})
+	public void testClear() {
+		ElementInfoStore store = new ElementInfoStore(storeLocation);
+		store.put(createElementInfo("foo.Page/el1"));
+		store.flush();
+		store.clear();
+		
+		Assert.assertFalse(storeLocation.resolve(ElementInfoStore.STORE_FILE_NAME).toFile().exists());
+		Assert.assertNull(store.get("foo.Page/el1"));
+	}
+}
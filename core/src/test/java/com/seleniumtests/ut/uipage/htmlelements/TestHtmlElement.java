@@ -21,6 +21,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.contains;
 import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doNothing;
@@ -44,7 +45,9 @@ import org.mockito.Mockito;
 import org.mockito.Spy;
 import org.openqa.selenium.By;
 import org.openqa.selenium.Dimension;
+import org.openqa.selenium.InvalidSelectorException;
 import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.NoSuchSessionException;
 import org.openqa.selenium.Point;
 import org.openqa.selenium.TimeoutException;
 import org.openqa.selenium.WebDriver.Options;
@@ -71,6 +74,7 @@ import com.seleniumtests.MockitoTest;
 import com.seleniumtests.core.SeleniumTestsContextManager;
 import com.seleniumtests.core.TestStepManager;
 import com.seleniumtests.customexception.ScenarioException;
+import com.seleniumtests.customexception.WebSessionEndedException;
 import com.seleniumtests.driver.BrowserType;
 import com.seleniumtests.driver.CustomEventFiringWebDriver;
 import com.seleniumtests.driver.DriverConfig;
@@ -244,6 +248,65 @@ public class TestHtmlElement extends MockitoTest {
 		verify((CustomEventFiringWebDriver) eventDriver).updateWindowsHandles();
 	}
 
+	/**
+	 * By default, a fixed delay is waited after action and recorded in the action
+	 * @throws Exception
+	 */
+	@Test(groups = { "ut" })
+	public void testClickSettleFixed() throws Exception {
+		TestStep step = new TestStep("step 1", null, new ArrayList<>(), true);
+		TestStepManager.setParentTestStep(step);
+		
+		el.click();
+		
+		Assert.assertTrue(step.getStepActions().get(0).getSettleDuration() >= 200);
+	}
+	
+	@Test(groups = { "ut" })
+	public void testClickSettleNone() throws Exception {
+		TestStep step = new TestStep("step 1", null, new ArrayList<>(), true);
+		TestStepManager.setParentTestStep(step);
+		SeleniumTestsContextManager.getThreadContext().setActionSettleMode("none");
+		
+		el.click();
+		
+		Assert.assertTrue(step.getStepActions().get(0).getSettleDuration() < 100);
+	}
+	
+	/**
+	 * DOM has not changed for 150 ms and no request is pending, page is settled
+	 * @throws Exception
+	 */
+	@Test(groups = { "ut" })
+	public void testClickSettleDomQuiet() throws Exception {
+		TestStep step = new TestStep("step 1", null, new ArrayList<>(), true);
+		TestStepManager.setParentTestStep(step);
+		SeleniumTestsContextManager.getThreadContext().setActionSettleMode("domQuiet");
+		SeleniumTestsContextManager.getThreadContext().setActionSettleDelay(1000);
+		when(driver.executeScript(contains("__seleniumRobotActivity"))).thenReturn(Arrays.asList(150L, 0L));
+		
+		el.click();
+		
+		Assert.assertTrue(step.getStepActions().get(0).getSettleDuration() < 200);
+	}
+	
+	/**
+	 * A request is still pending, wait until settle delay is reached
+	 * @throws Exception
+	 */
+	@Test(groups = { "ut" })
+	public void testClickSettleDomQuietRequestPending() throws Exception {
+		TestStep step = new TestStep("step 1", null, new ArrayList<>(), true);
+		TestStepManager.setParentTestStep(step);
+		SeleniumTestsContextManager.getThreadContext().setActionSettleMode("domQuiet");
+		SeleniumTestsContextManager.getThreadContext().setActionSettleDelay(500);
+		when(driver.executeScript(contains("__seleniumRobotActivity"))).thenReturn(Arrays.asList(150L, 1L));
+		
+		el.click();
+		
+		Assert.assertTrue(step.getStepActions().get(0).getSettleDuration() >= 500);
+	}
+
 	@Test(groups = { "ut" })
 	public void testSimulateClick() throws Exception {
 		el.simulateClick();
@@ -556,6 +619,62 @@ public class TestHtmlElement extends MockitoTest {
 		Assert.assertTrue(LocalDateTime.now().minusSeconds(4).isAfter(start));
 	}
 
+	/**
+	 * Invalid selector will never be found, do not wait for replay timeout
+	 * @throws Exception
+	 */
+	@Test(groups = { "ut" }, expectedExceptions = InvalidSelectorException.class)
+	public void testInvalidSelectorNotReplayed() throws Exception {
+		HtmlElement elInvalid = new HtmlElement("element", By.id("invalid"), (Integer)null, 5);
+		when(driver.findElement(By.id("invalid"))).thenThrow(new InvalidSelectorException("invalid selector"));
+		LocalDateTime start = LocalDateTime.now();
+		try {
+			elInvalid.getValue();
+		} finally {
+			Assert.assertTrue(LocalDateTime.now().minusSeconds(2).isBefore(start));
+			verify(driver, times(1)).findElement(By.id("invalid"));
+		}
+	}
+	
+	/**
+	 * Session has been lost, do not wait for replay timeout
+	 * @throws Exception
+	 */
+	@Test(groups = { "ut" }, expectedExceptions = WebSessionEndedException.class)
+	public void testNoSuchSessionNotReplayed() throws Exception {
+		HtmlElement elNoSession = new HtmlElement("element", By.id("noSession"), (Integer)null, 5);
+		when(driver.findElement(By.id("noSession"))).thenThrow(new NoSuchSessionException("no session"));
+		LocalDateTime start = LocalDateTime.now();
+		try {
+			elNoSession.getValue();
+		} finally {
+			Assert.assertTrue(LocalDateTime.now().minusSeconds(2).isBefore(start));
+		}
+	}
+	
+	/**
+	 * Element is not in a frame, driver may have been switched to a frame outside of HtmlElement, so go back to default content
+	 * @throws Exception
+	 */
+	@Test(groups = { "ut" })
+	public void testDefaultContentWithoutFrame() throws Exception {
+		el.click();
+		verify(locator, atLeastOnce()).defaultContent();
+	}
+	
+	/**
+	 * An element in a frame has been used before, go back to default content before acting on element
+	 * @throws Exception
+	 */
+	@Test(groups = { "ut" })
+	public void testDefaultContentAfterFrame() throws Exception {
+		HtmlElement present = new HtmlElement("element", By.id("present"), frame);
+		when(driver.findElement(By.id("present"))).thenReturn(element);
+		present.isElementPresent(1);
+		el.click();
+		verify(locator, atLeastOnce()).defaultContent();
+	}
+	
 	/**
 	 * issue #325: check NoSuchElementException exception is raised with index 0
 	 * @throws Exception
@@ -26,6 +26,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.awt.AWTException;
+import java.awt.image.BufferedImage;
 import java.io.File;
 
 import org.mockito.InjectMocks;
@@ -58,6 +59,7 @@ import com.seleniumtests.driver.screenshots.SnapshotTarget;
 import com.seleniumtests.uipage.htmlelements.HtmlElement;
 import com.seleniumtests.uipage.htmlelements.PictureElement;
 import com.seleniumtests.util.imaging.ImageDetector;
+import com.seleniumtests.util.imaging.ImageDetector.DetectionMode;
 
 @PrepareForTest(WebUIDriver.class)
 public class TestPictureElement extends MockitoTest {
@@ -114,7 +116,7 @@ public class TestPictureElement extends MockitoTest {
 		when(driver.getKeyboard()).thenReturn(keyboard);
 		when(driver.getBrowserInfo()).thenReturn(browserInfo);
 		when(browserInfo.getBrowser()).thenReturn(BrowserType.FIREFOX);
-		when(screenshotUtil.capture(SnapshotTarget.PAGE, File.class, true)).thenReturn(new File(""));
+		when(screenshotUtil.capture(SnapshotTarget.PAGE, BufferedImage.class, true)).thenReturn(new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB));
 		when(imageDetector.getDetectedRectangle()).thenReturn(new Rectangle(10, 10, 100, 50));
 		when(imageDetector.getSizeRatio()).thenReturn(1.0);
 		when(coordinates.inViewPort()).thenReturn(new Point(100, 120));
@@ -133,7 +135,7 @@ public class TestPictureElement extends MockitoTest {
 	public void testPictureNotVisible() throws AWTException {
 		PictureElement picElement = spy(pictureElement);
 		picElement.setObjectPictureFile(new File(""));
-		when(screenshotUtil.capture(SnapshotTarget.PAGE, File.class, true)).thenReturn(new File(""));
+		when(screenshotUtil.capture(SnapshotTarget.PAGE, BufferedImage.class, true)).thenReturn(new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB));
 		doReturn(screenshotUtil).when(picElement).getScreenshotUtil();
 		doThrow(ImageSearchException.class).when(imageDetector).detectExactZoneWithScale();
 		
@@ -148,7 +150,7 @@ public class TestPictureElement extends MockitoTest {
 		PictureElement picElement = spy(pictureElement);
 		picElement.setObjectPictureFile(new File(""));
 		doReturn(screenshotUtil).when(picElement).getScreenshotUtil();
-		when(screenshotUtil.capture(SnapshotTarget.PAGE, File.class, true)).thenReturn(new File(""));
+		when(screenshotUtil.capture(SnapshotTarget.PAGE, BufferedImage.class, true)).thenReturn(new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB));
 		doThrow(ImageSearchException.class).when(imageDetector).detectExactZoneWithScale();
 		
 		Assert.assertFalse(picElement.isElementPresent(350));
@@ -162,7 +164,7 @@ public class TestPictureElement extends MockitoTest {
 		PictureElement picElement = spy(pictureElement);
 		picElement.setObjectPictureFile(new File(""));
 		doReturn(screenshotUtil).when(picElement).getScreenshotUtil();
-		when(screenshotUtil.capture(SnapshotTarget.PAGE, File.class, true)).thenReturn(new File(""));
+		when(screenshotUtil.capture(SnapshotTarget.PAGE, BufferedImage.class, true)).thenReturn(new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB));
 		when(imageDetector.getDetectedRectangle()).thenReturn(new Rectangle(10, 10, 100, 50));
 		when(imageDetector.getSizeRatio()).thenReturn(1.0);
 		
@@ -170,6 +172,25 @@ public class TestPictureElement extends MockitoTest {
 		verify(picElement).findElement();
 		
 	}
+	
+	@Test(groups={"ut"})
+	public void testDetectionModeAppliedToDetector() {
+		pictureElement.setDetectionMode(DetectionMode.FAST);
+		
+		verify(imageDetector).setDetectionMode(DetectionMode.FAST);
+		Assert.assertEquals(pictureElement.getDetectionMode(), DetectionMode.FAST);
+	}
+	
+	/**
+	 * Mode is kept even if no detector exists yet
+	 */
+	@Test(groups={"ut"})
+	public void testDetectionModeWithoutDetector() {
+		PictureElement picElement = new PictureElement();
+		picElement.setDetectionMode(DetectionMode.FAST);
+		
+		Assert.assertEquals(picElement.getDetectionMode(), DetectionMode.FAST);
+	}
 
 	
 	@AfterMethod(groups={"ut"}, alwaysRun=true)
@@ -27,6 +27,7 @@ import static org.mockito.Mockito.when;
 
 import java.awt.AWTException;
 import java.awt.event.KeyEvent;
+import java.awt.image.BufferedImage;
 import java.io.File;
 
 import org.mockito.InjectMocks;
@@ -84,7 +85,7 @@ public class TestScreenZone extends MockitoTest {
 		when(browserInfo.getBrowser()).thenReturn(BrowserType.FIREFOX);
 		
 		doReturn(screenshotUtil).when(picElement).getScreenshotUtil();
-		when(screenshotUtil.capture(SnapshotTarget.SCREEN, File.class, true)).thenReturn(new File(""));
+		when(screenshotUtil.capture(SnapshotTarget.SCREEN, BufferedImage.class, true)).thenReturn(new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB));
 		when(imageDetector.getDetectedRectangle()).thenReturn(new Rectangle(10, 10, 100, 50));
 		when(imageDetector.getSizeRatio()).thenReturn(1.0);
 		
@@ -121,7 +122,7 @@ public class TestScreenZone extends MockitoTest {
 		when(browserInfo.getBrowser()).thenReturn(BrowserType.FIREFOX);
 		
 		doReturn(screenshotUtil).when(picElement).getScreenshotUtil();
-		when(screenshotUtil.capture(SnapshotTarget.SCREEN, File.class, true)).thenReturn(new File(""));
+		when(screenshotUtil.capture(SnapshotTarget.SCREEN, BufferedImage.class, true)).thenReturn(new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB));
 		when(imageDetector.getDetectedRectangle()).thenReturn(new Rectangle(10, 10, 100, 50));
 		when(imageDetector.getSizeRatio()).thenReturn(1.0);
 		
@@ -142,7 +143,7 @@ public class TestScreenZone extends MockitoTest {
 		when(browserInfo.getBrowser()).thenReturn(BrowserType.FIREFOX);
 		
 		doReturn(screenshotUtil).when(picElement).getScreenshotUtil();
-		when(screenshotUtil.capture(SnapshotTarget.SCREEN, File.class, true)).thenReturn(new File(""));
+		when(screenshotUtil.capture(SnapshotTarget.SCREEN, BufferedImage.class, true)).thenReturn(new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB));
 		when(imageDetector.getDetectedRectangle()).thenReturn(new Rectangle(10, 10, 100, 50));
 		when(imageDetector.getSizeRatio()).thenReturn(1.0);
 		
@@ -163,7 +164,7 @@ public class TestScreenZone extends MockitoTest {
 		when(browserInfo.getBrowser()).thenReturn(BrowserType.FIREFOX);
 		
 		doReturn(screenshotUtil).when(picElement).getScreenshotUtil();
-		when(screenshotUtil.capture(SnapshotTarget.SCREEN, File.class, true)).thenReturn(new File(""));
+		when(screenshotUtil.capture(SnapshotTarget.SCREEN, BufferedImage.class, true)).thenReturn(new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB));
 		when(imageDetector.getDetectedRectangle()).thenReturn(new Rectangle(10, 10, 100, 50));
 		when(imageDetector.getSizeRatio()).thenReturn(1.0);
 		
@@ -177,7 +178,7 @@ public class TestScreenZone extends MockitoTest {
 		ScreenZone picElement = spy(screenZone);
 		picElement.setObjectPictureFile(new File(""));
 		doReturn(screenshotUtil).when(picElement).getScreenshotUtil();
-		when(screenshotUtil.capture(SnapshotTarget.SCREEN, File.class, true)).thenReturn(new File(""));
+		when(screenshotUtil.capture(SnapshotTarget.SCREEN, BufferedImage.class, true)).thenReturn(new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB));
 		doThrow(ImageSearchException.class).when(imageDetector).detectExactZoneWithScale();
 		
 		Assert.assertFalse(picElement.isElementPresent());
@@ -191,7 +192,7 @@ public class TestScreenZone extends MockitoTest {
 		ScreenZone picElement = spy(screenZone);
 		picElement.setObjectPictureFile(new File(""));
 		doReturn(screenshotUtil).when(picElement).getScreenshotUtil();
-		when(screenshotUtil.capture(SnapshotTarget.SCREEN, File.class, true)).thenReturn(new File(""));
+		when(screenshotUtil.capture(SnapshotTarget.SCREEN, BufferedImage.class, true)).thenReturn(new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB));
 		doThrow(ImageSearchException.class).when(imageDetector).detectExactZoneWithScale();
 		
 		Assert.assertFalse(picElement.isElementPresent(350));
@@ -204,7 +205,7 @@ public class TestScreenZone extends MockitoTest {
 		ScreenZone picElement = spy(screenZone);
 		picElement.setObjectPictureFile(new File(""));
 		doReturn(screenshotUtil).when(picElement).getScreenshotUtil();
-		when(screenshotUtil.capture(SnapshotTarget.SCREEN, File.class, true)).thenReturn(new File(""));
+		when(screenshotUtil.capture(SnapshotTarget.SCREEN, BufferedImage.class, true)).thenReturn(new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB));
 		when(imageDetector.getDetectedRectangle()).thenReturn(new Rectangle(10, 10, 100, 50));
 		when(imageDetector.getSizeRatio()).thenReturn(1.0);
 		
@@ -17,6 +17,7 @@
  */
 package com.seleniumtests.ut.util;
 
+import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Paths;
@@ -29,6 +30,7 @@ import org.testng.annotations.Test;
 
 import com.seleniumtests.GenericTest;
 import com.seleniumtests.util.FileUtility;
+import com.seleniumtests.util.imaging.ImageFileWriter.ImageFormat;
 
 public class TestFileUtility extends GenericTest {
 
@@ -66,4 +68,26 @@ public class TestFileUtility extends GenericTest {
 			} catch (IOException e) {}
 		}
 	}
+	
+	/**
+	 * Image is written as PNG whatever the file extension, unless format is given
+	 * @throws IOException
+	 */
+	@Test(groups={"ut"})
+	public void testWriteImage() throws IOException {
+		File pngFile = File.createTempFile("img", ".jpg");
+		File jpegFile = File.createTempFile("img", ".jpg");
+		pngFile.deleteOnExit();
+		jpegFile.deleteOnExit();
+		BufferedImage image = new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB);
+		
+		FileUtility.writeImage(pngFile.getAbsolutePath(), image);
+		FileUtility.writeImage(jpegFile.getAbsolutePath(), image, ImageFormat.JPEG);
+		
+		byte[] pngBytes = FileUtils.readFileToByteArray(pngFile);
+		byte[] jpegBytes = FileUtils.readFileToByteArray(jpegFile);
+		Assert.assertEquals(new String(pngBytes, 1, 3), "PNG");
+		Assert.assertEquals(jpegBytes[0], (byte)0xFF);
+		Assert.assertEquals(jpegBytes[1], (byte)0xD8);
+	}
 }
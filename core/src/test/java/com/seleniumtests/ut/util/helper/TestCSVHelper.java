@@ -0,0 +1,266 @@
+/**
+ * Orignal work: Copyright 2015 www.seleniumtests.com
+ * Modified work: Copyright 2016 www.infotel.com
+ * 				Copyright 2017-2019 B.Hecquet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.seleniumtests.ut.util.helper;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.io.FileUtils;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.seleniumtests.GenericTest;
+import com.seleniumtests.core.Filter;
+import com.seleniumtests.customexception.ScenarioException;
+import com.seleniumtests.util.helper.CSVHelper;
+
+public class TestCSVHelper extends GenericTest {
+	
+	private File csvFile;
+
+	@BeforeMethod(groups={"ut"})
+	public void init() throws IOException {
+		CSVHelper.clearDatasetCache();
+		csvFile = File.createTempFile("data", ".csv");
+	}
+	
+	@AfterMethod(groups={"ut"}, alwaysRun=true)
+	public void clean() {
+		FileUtils.deleteQuietly(csvFile);
+		System.clearProperty(CSVHelper.DATASET_CACHE_MAX_SIZE);
+	}
+	
+	private void writeCsv(String content) throws IOException {
+		FileUtils.writeStringToFile(csvFile, content, StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * Replace file content without changing its size and date
+	 */
+	private void replaceCsv(String content) throws IOException {
+		long lastModified = csvFile.lastModified();
+		writeCsv(content);
+		csvFile.setLastModified(lastModified);
+	}
+	
+	private List<Object[]> toList(Iterator<Object[]> data) {
+		List<Object[]> list = new ArrayList<>();
+		data.forEachRemaining(list::add);
+		return list;
+	}
+	
+	@Test(groups={"ut"})
+	public void testParseLine() {
+		Assert.assertEquals(CSVHelper.parseLine("a;\"b;c\";", ";"), new String[] {"a", "b;c", ""});
+		Assert.assertEquals(CSVHelper.parseLine("\"say \"\"hello\"\"\",b\"c", ","), new String[] {"say \"hello\"", "b\"c"});
+		Assert.assertEquals(CSVHelper.parseLine("a|b", "|"), new String[] {"a", "b"});
+		Assert.assertEquals(CSVHelper.parseLine("  ", ","), new String[] {});
+	}
+	
+	/**
+	 * Delimiters used to be regular expressions. An escaped character is still read as the character itself
+	 * Other regular expressions are used as plain strings
+	 */
+	@Test(groups={"ut"})
+	public void testParseLineWithRegexDelimiter() {
+		Assert.assertEquals(CSVHelper.parseLine("a|b", "\\|"), new String[] {"a", "b"});
+		Assert.assertEquals(CSVHelper.parseLine("a\tb", "\\t"), new String[] {"a", "b"});
+		Assert.assertEquals(CSVHelper.parseLine("a;|,b", ";|,"), new String[] {"a", "b"});
+		Assert.assertEquals(CSVHelper.parseLine("a;b", ";|,"), new String[] {"a;b"});
+	}
+	
+	/**
+	 * When filter fails, file is closed and no other line is read
+	 * @throws Exception
+	 */
+	@Test(groups={"ut"})
+	public void testFileClosedWhenFilterFails() throws Exception {
+		writeCsv("color;size\nred;1\nblue;2\n");
+		Filter filter = Mockito.mock(Filter.class);
+		Mockito.when(filter.match(ArgumentMatchers.any())).thenThrow(new ScenarioException("bad filter")).thenReturn(true);
+		
+		Iterator<Object[]> data = CSVHelper.getDataFromCSVFile(null, csvFile.getAbsolutePath(), filter, false, ";", false);
+		try {
+			data.hasNext();
+			Assert.fail("filter error should be raised");
+		} catch (ScenarioException e) {
+			// expected
+		}
+		Assert.assertFalse(data.hasNext());
+	}
+	
+	/**
+	 * Iterator can be closed before the end of file
+	 * @throws Exception
+	 */
+	@Test(groups={"ut"})
+	public void testCloseIterator() throws Exception {
+		writeCsv("color;size\nred;1\nblue;2\n");
+		
+		Iterator<Object[]> data = CSVHelper.getDataFromCSVFile(null, csvFile.getAbsolutePath(), null, false, ";", false);
+		Assert.assertEquals(data.next(), new Object[] {"red", "1"});
+		((AutoCloseable) data).close();
+		Assert.assertFalse(data.hasNext());
+	}
+	
+	/**
+	 * Quoted fields may contain delimiter, quotes and line breaks. Missing columns are null, blank lines are skipped
+	 * @throws IOException
+	 */
+	@Test(groups={"ut"})
+	public void testQuotedFields() throws IOException {
+		writeCsv("name,comment\n\"a, b\",\"say \"\"hi\"\"\"\n\n\"multi\nline\",x\nalone\n");
+		
+		List<Object[]> data = toList(CSVHelper.getDataFromCSVFile(null, csvFile.getAbsolutePath(), null, true, false));
+		Assert.assertEquals(data.size(), 4);
+		Assert.assertEquals(data.get(0), new Object[] {"name", "comment"});
+		Assert.assertEquals(data.get(1), new Object[] {"a, b", "say \"hi\""});
+		Assert.assertEquals(data.get(2), new Object[] {"multi\nline", "x"});
+		Assert.assertEquals(data.get(3), new Object[] {"alone", null});
+	}
+	
+	/**
+	 * Filter is applied on each line
+	 * @throws IOException
+	 */
+	@Test(groups={"ut"})
+	public void testFilter() throws IOException {
+		writeCsv("color;size\nred;1\nblue;2\nred;3;extra\n");
+		
+		List<Object[]> data = toList(CSVHelper.getDataFromCSVFile(null, csvFile.getAbsolutePath(), Filter.isEqualIgnoreCase("color", "RED"), false, ";", false));
+		Assert.assertEquals(data.size(), 2);
+		Assert.assertEquals(data.get(0), new Object[] {"red", "1"});
+		Assert.assertEquals(data.get(1), new Object[] {"red", "3"});
+		
+		Assert.assertFalse(CSVHelper.getDataFromCSVFile(null, csvFile.getAbsolutePath(), Filter.isEqual("color", "green"), false, ";", false).hasNext());
+	}
+	
+	/**
+	 * Once read, file is not read again, unless it's modified
+	 * @throws IOException
+	 */
+	@Test(groups={"ut"})
+	public void testDatasetCached() throws IOException {
+		writeCsv("color\nred\n");
+		Assert.assertEquals(toList(CSVHelper.getDataFromCSVFile(null, csvFile.getAbsolutePath(), null, false, false)).get(0), new Object[] {"red"});
+		
+		replaceCsv("color\nxxx\n");
+		Assert.assertEquals(toList(CSVHelper.getDataFromCSVFile(null, csvFile.getAbsolutePath(), null, false, false)).get(0), new Object[] {"red"});
+		Assert.assertEquals(CSVHelper.getHeaderFromCSVFile(null, csvFile.getAbsolutePath(), null).get(0), "color");
+		
+		writeCsv("color\nyellow\n");
+		Assert.assertEquals(toList(CSVHelper.getDataFromCSVFile(null, csvFile.getAbsolutePath(), null, false, false)).get(0), new Object[] {"yellow"});
+	}
+	
+	/**
+	 * Files bigger than the limit are never cached
+	 * @throws IOException
+	 */
+	@Test(groups={"ut"})
+	public void testDatasetNotCachedAboveLimit() throws IOException {
+		System.setProperty(CSVHelper.DATASET_CACHE_MAX_SIZE, "10");
+		writeCsv("color\nred\nblue\n");
+		Assert.assertEquals(toList(CSVHelper.getDataFromCSVFile(null, csvFile.getAbsolutePath(), null, false, false)).size(), 2);
+		
+		replaceCsv("color\nxxx\nyyyy\n");
+		Assert.assertEquals(toList(CSVHelper.getDataFromCSVFile(null, csvFile.getAbsolutePath(), null, false, false)).get(0), new Object[] {"xxx"});
+	}
+	
+	/**
+	 * When cache is full, least recently used file is removed from it
+	 * @throws IOException
+	 */
+	@Test(groups={"ut"})
+	public void testDatasetCacheEviction() throws IOException {
+		System.setProperty(CSVHelper.DATASET_CACHE_MAX_SIZE, "30");
+		File otherCsvFile = File.createTempFile("data", ".csv");
+		try {
+			writeCsv("color\nred\n");
+			FileUtils.writeStringToFile(otherCsvFile, "color\nblue\ngreen\nwhite\n", StandardCharsets.UTF_8);
+			
+			toList(CSVHelper.getDataFromCSVFile(null, csvFile.getAbsolutePath(), null, false, false));
+			toList(CSVHelper.getDataFromCSVFile(null, otherCsvFile.getAbsolutePath(), null, false, false));
+			
+			// first file has been evicted, so it's read again
+			replaceCsv("color\nxxx\n");
+			Assert.assertEquals(toList(CSVHelper.getDataFromCSVFile(null, csvFile.getAbsolutePath(), null, false, false)).get(0), new Object[] {"xxx"});
+		} finally {
+			FileUtils.deleteQuietly(otherCsvFile);
+		}
+	}
+	
+	/**
+	 * With parallel mode, result and order are the same
+	 * @throws IOException
+	 */
+	@Test(groups={"ut"})
+	public void testParallelFilter() throws IOException {
+		StringBuilder content = new StringBuilder("id,type\n");
+		for (int i = 0; i < 1000; i++) {
+			content.append(String.format("%d,%s\n", i, i % 3 == 0 ? "odd": "even"));
+		}
+		writeCsv(content.toString());
+		Filter filter = Filter.isEqual("type", "odd");
+		
+		List<Object[]> data = toList(CSVHelper.getDataFromCSVFile(null, csvFile.getAbsolutePath(), filter, true, null, false, true));
+		List<Object[]> sequentialData = toList(CSVHelper.getDataFromCSVFile(null, csvFile.getAbsolutePath(), filter, true, null, false, false));
+		
+		Assert.assertEquals(data.size(), 335);
+		Assert.assertEquals(data.get(0), new Object[] {"id", "type"});
+		for (int i = 0; i < data.size(); i++) {
+			Assert.assertEquals(data.get(i), sequentialData.get(i));
+		}
+	}
+	
+	/**
+	 * Several data providers read the same file at the same time
+	 * @throws Exception
+	 */
+	@Test(groups={"ut"})
+	public void testConcurrentReads() throws Exception {
+		StringBuilder content = new StringBuilder("id\n");
+		for (int i = 0; i < 5000; i++) {
+			content.append(i).append("\n");
+		}
+		writeCsv(content.toString());
+		
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Integer>> reads = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				reads.add(executor.submit(() -> toList(CSVHelper.getDataFromCSVFile(null, csvFile.getAbsolutePath(), null, false, false)).size()));
+			}
+			for (Future<Integer> read: reads) {
+				Assert.assertEquals(read.get(), (Integer)5000);
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
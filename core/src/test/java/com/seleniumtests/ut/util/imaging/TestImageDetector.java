@@ -17,9 +17,14 @@
  */
 package com.seleniumtests.ut.util.imaging;
 
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
 import java.io.File;
 import java.io.IOException;
 
+import javax.imageio.ImageIO;
+
+import org.opencv.core.Mat;
 import org.opencv.core.Point;
 import org.openqa.selenium.Rectangle;
 import org.testng.Assert;
@@ -28,6 +33,8 @@ import org.testng.annotations.Test;
 import com.seleniumtests.GenericTest;
 import com.seleniumtests.customexception.ImageSearchException;
 import com.seleniumtests.util.imaging.ImageDetector;
+import com.seleniumtests.util.imaging.ImageDetector.DetectionMode;
+import com.seleniumtests.util.imaging.ImageDetector.FeatureType;
 
 public class TestImageDetector extends GenericTest {
 
@@ -72,6 +79,112 @@ public class TestImageDetector extends GenericTest {
 		Assert.assertEquals(detector.getSizeRatio(), 1.0, 0.05);
 	}
 	
+	/**
+	 * Same search as above, but pictures are given in memory, without any file
+	 * @throws IOException 
+	 */
+	@Test(groups={"ut"})
+	public void searchPicturesByTemplateFromBufferedImage() throws IOException {
+		ImageDetector detector = new ImageDetector(ImageIO.read(createFileFromResource("tu/images/RIB.png")), 
+				ImageIO.read(createFileFromResource("tu/images/creditMutuelLogo.png")), 0.06);
+		detector.detectExactZoneWithScale();
+		Assert.assertEquals(detector.getDetectedRectangle(), new Rectangle(604, 147, 77, 493));
+		Assert.assertEquals(detector.getSizeRatio(), 1.0, 0.05);
+	}
+	
+	/**
+	 * A sub image shares the pixel buffer of its parent. Only its own pixels must be converted
+	 * @throws IOException 
+	 */
+	@Test(groups={"ut"})
+	public void testSubimageToMat() throws IOException {
+		BufferedImage image = ImageIO.read(createFileFromResource("tu/images/RIB.png"));
+		BufferedImage bgrImage = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_3BYTE_BGR);
+		bgrImage.getGraphics().drawImage(image, 0, 0, null);
+		
+		BufferedImage subImage = bgrImage.getSubimage(100, 50, 30, 20);
+		BufferedImage copiedSubImage = new BufferedImage(30, 20, BufferedImage.TYPE_3BYTE_BGR);
+		copiedSubImage.getGraphics().drawImage(subImage, 0, 0, null);
+		
+		Mat subImageMat = ImageDetector.bufferedImageToMat(subImage);
+		Mat copiedSubImageMat = ImageDetector.bufferedImageToMat(copiedSubImage);
+		Assert.assertEquals(subImageMat.rows(), 20);
+		Assert.assertEquals(subImageMat.cols(), 30);
+		
+		byte[] pixels = new byte[30 * 20 * 3];
+		byte[] expectedPixels = new byte[30 * 20 * 3];
+		subImageMat.get(0, 0, pixels);
+		copiedSubImageMat.get(0, 0, expectedPixels);
+		Assert.assertEquals(pixels, expectedPixels);
+		Assert.assertEquals(expectedPixels, ((DataBufferByte) copiedSubImage.getRaster().getDataBuffer()).getData());
+	}
+	
+	/**
+	 * Check the object picture can be reused for several searches when only scene changes
+	 * @throws IOException 
+	 */
+	@Test(groups={"ut"})
+	public void searchPicturesByTemplateChangingScene() throws IOException {
+		ImageDetector detector = new ImageDetector(createFileFromResource("tu/images/RIB.png"), 
+				createFileFromResource("tu/images/creditMutuelLogo.png"), 0.06);
+		detector.detectExactZoneWithScale();
+		Assert.assertEquals(detector.getDetectedRectangle(), new Rectangle(604, 147, 77, 493));
+		
+		detector.setSceneImage(ImageIO.read(createFileFromResource("tu/images/RIB.png")));
+		detector.detectExactZoneWithScale();
+		Assert.assertEquals(detector.getDetectedRectangle(), new Rectangle(604, 147, 77, 493));
+	}
+	
+	/**
+	 * Search with pyramid: search is done on downsampled pictures, then refined
+	 * @throws IOException 
+	 */
+	@Test(groups={"ut"})
+	public void searchPicturesByTemplateFastMode() throws IOException {
+		ImageDetector detector = new ImageDetector(createFileFromResource("tu/images/infolidays.png"), 
+				createFileFromResource("tu/images/bouton_enregistrer.png"), 0.06);
+		detector.setDetectionMode(DetectionMode.FAST);
+		detector.detectExactZoneWithScale();
+		
+		// scale may be slightly different from accurate search, but center of the found zone is the same
+		Rectangle rect = detector.getDetectedRectangle();
+		Assert.assertEquals(rect.x + rect.width / 2, 457 + 487 / 2, 3);
+		Assert.assertEquals(rect.y + rect.height / 2, 1582 + 232 / 2, 3);
+		Assert.assertEquals(detector.getSizeRatio(), 2.5, 0.1);
+	}
+	
+	/**
+	 * Fast mode finds the same zone as accurate mode when object is not scaled
+	 * @throws IOException 
+	 */
+	@Test(groups={"ut"})
+	public void searchPicturesByTemplateFastModeSameScale() throws IOException {
+		ImageDetector detector = new ImageDetector(createFileFromResource("tu/images/RIB.png"), 
+				createFileFromResource("tu/images/creditMutuelLogo.png"), 0.06);
+		detector.setDetectionMode(DetectionMode.FAST);
+		detector.detectExactZoneWithScale();
+		Assert.assertEquals(detector.getDetectedRectangle().x, 604, 3);
+		Assert.assertEquals(detector.getDetectedRectangle().y, 147, 3);
+		Assert.assertEquals(detector.getSizeRatio(), 1.0, 0.05);
+	}
+	
+	/**
+	 * When nothing matches, fast mode should fail the same way as accurate mode
+	 * @throws IOException 
+	 */
+	@Test(groups={"ut"}, expectedExceptions=ImageSearchException.class)
+	public void searchPicturesByTemplateFastModeNoMatching() throws IOException {
+		ImageDetector detector = new ImageDetector(createFileFromResource("tu/images/p9.png"), 
+				createFileFromResource("tu/images/creditMutuelLogo.png"), 0.06);
+		detector.setDetectionMode(DetectionMode.FAST);
+		detector.detectExactZoneWithScale();
+	}
+	
+	@Test(groups={"ut"}, expectedExceptions=ImageSearchException.class)
+	public void searchPicturesWithNullBufferedImage() {
+		new ImageDetector(null, new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB), 0.06);
+	}
+	
 	@Test(groups={"ut"}, expectedExceptions=ImageSearchException.class)
 	public void searchPicturesByTemplateNoMatching() throws IOException {
 		ImageDetector detector = new ImageDetector(createFileFromResource("tu/images/p9.png"), 
@@ -102,6 +215,49 @@ public class TestImageDetector extends GenericTest {
 		detector.detectCorrespondingZone();
 	}
 	
+	/**
+	 * Search with ORB features (binary descriptors, brute force hamming matcher) on a black picture: no keypoint can be found
+	 * @throws IOException 
+	 */
+	@Test(groups={"ut"}, expectedExceptions=ImageSearchException.class)
+	public void searchWithBlackPictureOrb() throws IOException {
+		ImageDetector detector = new ImageDetector(createFileFromResource("tu/images/blackScreen.png"), 
+													createFileFromResource("tu/images/creditMutuelLogo.png"));
+		detector.setFeatureType(FeatureType.ORB);
+		detector.detectCorrespondingZone();
+	}
+	
+	/**
+	 * Search with ORB features a picture which is not present: not enough good matches should remain after ratio test
+	 * @throws IOException 
+	 */
+	@Test(groups={"ut"}, expectedExceptions=ImageSearchException.class)
+	public void searchNonCorrespondingPictureOrb() throws IOException {
+		ImageDetector detector = new ImageDetector(createFileFromResource("tu/images/p9.png"), 
+													createFileFromResource("tu/images/creditMutuelLogo.png"));
+		detector.setFeatureType(FeatureType.ORB);
+		detector.detectCorrespondingZone();
+	}
+	
+	/**
+	 * Search with ORB features an image inside an other one, no rotation, no resizing
+	 * Scene is restricted to the area around the logo, as ORB only keeps the 500 best keypoints of the whole scene
+	 * @throws IOException 
+	 */
+	@Test(groups={"ut"})
+	public void searchPictureWithoutRotationOrb() throws IOException {
+		ImageDetector detector = new ImageDetector(ImageIO.read(createFileFromResource("tu/images/RIB.png")).getSubimage(500, 50, 700, 250), 
+				ImageIO.read(createFileFromResource("tu/images/creditMutuelLogo.png")), 0.05);
+		detector.setFeatureType(FeatureType.ORB);
+		detector.detectCorrespondingZone();
+		Assert.assertEquals(detector.getRotationAngle(), 0);
+		Assert.assertEquals(detector.getDetectedRectangle().x, 104, 3);
+		Assert.assertEquals(detector.getDetectedRectangle().y, 97, 3);
+		Assert.assertEquals(detector.getDetectedRectangle().width, 492, 3);
+		Assert.assertEquals(detector.getDetectedRectangle().height, 77, 3);
+		Assert.assertEquals(detector.getSizeRatio(), 1.0, 0.05);
+	}
+	
 	/**
 	 * Initialize detector with non existing file
 	 */
@@ -0,0 +1,201 @@
+/**
+ * Orignal work: Copyright 2015 www.seleniumtests.com
+ * Modified work: Copyright 2016 www.infotel.com
+ * 				Copyright 2017-2019 B.Hecquet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.seleniumtests.ut.util.imaging;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.seleniumtests.GenericTest;
+import com.seleniumtests.customexception.ConfigurationException;
+import com.seleniumtests.util.imaging.ImageFileWriter;
+import com.seleniumtests.util.imaging.ImageFileWriter.ImageFormat;
+import com.seleniumtests.util.imaging.ImageProcessor;
+
+public class TestImageFileWriter extends GenericTest {
+
+	private File tmpDir;
+
+	@BeforeMethod(groups={"ut"})
+	public void init() throws IOException {
+		tmpDir = Files.createTempDirectory("images").toFile();
+	}
+
+	@AfterMethod(groups={"ut"}, alwaysRun=true)
+	public void clean() {
+		FileUtils.deleteQuietly(tmpDir);
+	}
+
+	/**
+	 * PNG is lossless, image read back is the same, and no temporary file remains
+	 * @throws IOException
+	 */
+	@Test(groups={"ut"})
+	public void testWritePng() throws IOException {
+		BufferedImage image = ImageProcessor.loadFromFile(createFileFromResource("tu/ffLogo1.png"));
+		File imageFile = new File(tmpDir, "logo.png");
+		long writtenImages = ImageFileWriter.getWrittenImages();
+
+		ImageFileWriter.write(imageFile, image);
+
+		Assert.assertEquals(ImageProcessor.toBase64(ImageProcessor.loadFromFile(imageFile)), ImageProcessor.toBase64(image));
+		Assert.assertEquals(tmpDir.listFiles().length, 1);
+		Assert.assertTrue(ImageFileWriter.getWrittenImages() > writtenImages);
+	}
+
+	/**
+	 * With a compression level, PNG is still lossless and higher levels give smaller files
+	 * @throws IOException
+	 */
+	@Test(groups={"ut"})
+	public void testWritePngWithCompression() throws IOException {
+		BufferedImage image = ImageProcessor.loadFromFile(createFileFromResource("tu/ffLogo1.png"));
+		File fastFile = new File(tmpDir, "fast.png");
+		File smallFile = new File(tmpDir, "small.png");
+		
+		ImageFileWriter.write(fastFile, image, ImageFormat.PNG, 0);
+		ImageFileWriter.write(smallFile, image, ImageFormat.PNG, 9);
+		
+		for (File imageFile: new File[] {fastFile, smallFile}) {
+			BufferedImage readImage = ImageProcessor.loadFromFile(imageFile);
+			Assert.assertEquals(readImage.getWidth(), image.getWidth());
+			Assert.assertEquals(readImage.getHeight(), image.getHeight());
+			for (int y = 0; y < image.getHeight(); y++) {
+				for (int x = 0; x < image.getWidth(); x++) {
+					Assert.assertEquals(readImage.getRGB(x, y), image.getRGB(x, y));
+				}
+			}
+		}
+		Assert.assertTrue(smallFile.length() < fastFile.length());
+	}
+	
+	/**
+	 * File name shorter than 3 characters can be written (temp file prefix must be at least 3 characters)
+	 * @throws IOException
+	 */
+	@Test(groups={"ut"})
+	public void testWriteShortFileName() throws IOException {
+		BufferedImage image = new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB);
+		File imageFile = new File(tmpDir, "a.png");
+		
+		ImageFileWriter.write(imageFile, image);
+		
+		Assert.assertTrue(imageFile.isFile());
+		Assert.assertEquals(tmpDir.listFiles().length, 1);
+	}
+
+	/**
+	 * JPEG does not support transparency, image with alpha channel must still be written
+	 * @throws IOException
+	 */
+	@Test(groups={"ut"})
+	public void testWriteJpegWithAlpha() throws IOException {
+		BufferedImage image = new BufferedImage(50, 30, BufferedImage.TYPE_INT_ARGB);
+		File imageFile = new File(tmpDir, "image.jpg");
+
+		ImageFileWriter.write(imageFile, image);
+
+		BufferedImage readImage = ImageProcessor.loadFromFile(imageFile);
+		Assert.assertEquals(readImage.getWidth(), 50);
+		Assert.assertEquals(readImage.getHeight(), 30);
+		Assert.assertEquals(tmpDir.listFiles().length, 1);
+	}
+
+	/**
+	 * Check existing file is replaced
+	 * @throws IOException
+	 */
+	@Test(groups={"ut"})
+	public void testReplaceFile() throws IOException {
+		File imageFile = new File(tmpDir, "image.png");
+		FileUtils.writeStringToFile(imageFile, "not an image");
+
+		ImageFileWriter.write(imageFile, new BufferedImage(20, 10, BufferedImage.TYPE_INT_RGB), ImageFormat.PNG, 9);
+		Assert.assertEquals(ImageProcessor.loadFromFile(imageFile).getWidth(), 20);
+	}
+
+	/**
+	 * Several threads write at the same time
+	 * @throws Exception
+	 */
+	@Test(groups={"ut"})
+	public void testParallelWrite() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<?>> writes = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				File imageFile = new File(tmpDir, String.format("image%d.png", i));
+				writes.add(executor.submit(() -> {
+					ImageFileWriter.write(imageFile, new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB));
+					return null;
+				}));
+			}
+			for (Future<?> write: writes) {
+				write.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		Assert.assertEquals(tmpDir.listFiles().length, 8);
+		for (File imageFile: tmpDir.listFiles()) {
+			Assert.assertEquals(ImageProcessor.loadFromFile(imageFile).getWidth(), 200);
+		}
+	}
+
+	@Test(groups={"ut"})
+	public void testFormatFromString() {
+		Assert.assertEquals(ImageFormat.fromString("PNG"), ImageFormat.PNG);
+		Assert.assertEquals(ImageFormat.fromString("jpg"), ImageFormat.JPEG);
+		Assert.assertEquals(ImageFormat.fromString("webp"), ImageFormat.WEBP);
+	}
+
+	@Test(groups={"ut"}, expectedExceptions=ConfigurationException.class)
+	public void testInvalidFormatFromString() {
+		ImageFormat.fromString("gif");
+	}
+
+	@Test(groups={"ut"})
+	public void testFormatFromFileName() {
+		Assert.assertEquals(ImageFormat.fromFileName("/tmp/image.JPG"), ImageFormat.JPEG);
+		Assert.assertEquals(ImageFormat.fromFileName("image.jpeg"), ImageFormat.JPEG);
+		Assert.assertEquals(ImageFormat.fromFileName("image.png"), ImageFormat.PNG);
+		Assert.assertEquals(ImageFormat.fromFileName("image"), ImageFormat.PNG);
+	}
+
+	/**
+	 * WEBP needs an ImageIO plugin. Without it, PNG is used
+	 */
+	@Test(groups={"ut"})
+	public void testWebpFallback() {
+		Assert.assertEquals(ImageFormat.WEBP.orDefault(), ImageFormat.WEBP.isAvailable() ? ImageFormat.WEBP: ImageFormat.PNG);
+		Assert.assertEquals(ImageFormat.JPEG.orDefault(), ImageFormat.JPEG);
+	}
+}
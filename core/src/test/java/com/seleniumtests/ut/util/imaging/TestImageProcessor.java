@@ -17,9 +17,14 @@
  */
 package com.seleniumtests.ut.util.imaging;
 
+import java.awt.Dimension;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+
+import javax.imageio.ImageIO;
 
 import org.testng.Assert;
 import org.testng.annotations.Test;
@@ -47,6 +52,80 @@ public class TestImageProcessor extends GenericTest {
 		Assert.assertEquals(ImageProcessor.toBase64(croppedFfLogoOkBuf), ImageProcessor.toBase64(croppedFfLogo));
 	}
 	
+	@Test(groups={"ut"})
+	public void testGetImageSize() throws IOException {
+		byte[] ffLogo = Files.readAllBytes(createFileFromResource("tu/ffLogo1.png").toPath());
+		BufferedImage ffLogoBuf = ImageProcessor.loadFromFile(ffLogo);
+		
+		Assert.assertEquals(ImageProcessor.getImageSize(ffLogo), new Dimension(ffLogoBuf.getWidth(), ffLogoBuf.getHeight()));
+	}
+	
+	/**
+	 * Draw part of a picture into an other one. Result must be the same as cropping
+	 * @throws IOException
+	 */
+	@Test(groups={"ut"})
+	public void testDrawInto() throws IOException {
+		byte[] ffLogo = Files.readAllBytes(createFileFromResource("tu/ffLogo1.png").toPath());
+		BufferedImage croppedFfLogo = ImageProcessor.cropImage(ImageProcessor.loadFromFile(ffLogo), 10, 10, 100, 20);
+		
+		BufferedImage canvas = new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB);
+		ImageProcessor.drawInto(ffLogo, 10, 10, 100, 20, canvas, 50, 30);
+		
+		Assert.assertEquals(ImageProcessor.toBase64(canvas.getSubimage(50, 30, 100, 20)), ImageProcessor.toBase64(croppedFfLogo));
+		Assert.assertEquals(canvas.getRGB(49, 29), 0xFF000000);
+	}
+	
+	/**
+	 * Draw part of a RGB picture into an other one. Pixels are directly decoded into destination
+	 * @throws IOException
+	 */
+	@Test(groups={"ut"})
+	public void testDrawIntoRgbPicture() throws IOException {
+		BufferedImage ffLogoRgb = ImageProcessor.cropImage(ImageProcessor.loadFromFile(createFileFromResource("tu/ffLogo1.png")), 0, 0, 150, 60);
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		ImageIO.write(ffLogoRgb, "png", os);
+		
+		BufferedImage canvas = new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB);
+		ImageProcessor.drawInto(os.toByteArray(), 10, 10, 100, 20, canvas, 50, 30);
+		
+		Assert.assertEquals(ImageProcessor.toBase64(canvas.getSubimage(50, 30, 100, 20)), ImageProcessor.toBase64(ImageProcessor.cropImage(ffLogoRgb, 10, 10, 100, 20)));
+		Assert.assertEquals(canvas.getRGB(49, 29), 0xFF000000);
+	}
+	
+	@Test(groups={"ut"})
+	public void testResizeToFit() throws IOException {
+		BufferedImage img = new BufferedImage(400, 100, BufferedImage.TYPE_INT_RGB);
+		BufferedImage resized = ImageProcessor.resizeToFit(img, 200);
+		Assert.assertEquals(resized.getWidth(), 200);
+		Assert.assertEquals(resized.getHeight(), 50);
+	}
+	
+	/**
+	 * Small pictures are not resized
+	 * @throws IOException
+	 */
+	@Test(groups={"ut"})
+	public void testResizeToFitSmallPicture() throws IOException {
+		BufferedImage img = new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB);
+		Assert.assertSame(ImageProcessor.resizeToFit(img, 200), img);
+	}
+	
+	/**
+	 * Same picture at different scale gives close hashes, different pictures give distant hashes
+	 * @throws IOException
+	 */
+	@Test(groups={"ut"})
+	public void testPerceptualHash() throws IOException {
+		BufferedImage ffLogo = ImageProcessor.loadFromFile(createFileFromResource("tu/ffLogo1.png"));
+		BufferedImage ffLogoSmall = ImageProcessor.resizeToFit(ffLogo, ffLogo.getWidth() / 2);
+		BufferedImage googleLogo = ImageProcessor.loadFromFile(createFileFromResource("tu/googleSearch.png"));
+		
+		long hash = ImageProcessor.perceptualHash(ffLogo);
+		Assert.assertTrue(ImageProcessor.hashDistance(hash, ImageProcessor.perceptualHash(ffLogoSmall)) <= 5);
+		Assert.assertTrue(ImageProcessor.hashDistance(hash, ImageProcessor.perceptualHash(googleLogo)) > 10);
+	}
+	
 	@Test(groups={"ut"})
 	public void testConcatImages() throws IOException {
 		File tempFile = File.createTempFile("img", null);
@@ -0,0 +1,119 @@
+/**
+ * Orignal work: Copyright 2015 www.seleniumtests.com
+ * Modified work: Copyright 2016 www.infotel.com
+ * 				Copyright 2017-2019 B.Hecquet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.seleniumtests.ut.util.logging;
+
+import java.io.StringWriter;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.PatternLayout;
+import org.apache.log4j.WriterAppender;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.seleniumtests.GenericTest;
+import com.seleniumtests.util.logging.CallTrace;
+import com.seleniumtests.util.logging.CallTrace.Entry;
+import com.seleniumtests.util.logging.CallTrace.EventType;
+
+public class TestCallTrace extends GenericTest {
+	
+	private Logger logger = Logger.getLogger(CallTrace.class);
+	private Level level;
+	private StringWriter logs;
+	private WriterAppender appender;
+	
+	@BeforeMethod(groups={"ut"})
+	public void init() {
+		level = logger.getLevel();
+		logs = new StringWriter();
+		appender = new WriterAppender(new PatternLayout("%m%n"), logs);
+		logger.addAppender(appender);
+		logger.setLevel(Level.DEBUG);
+	}
+
+	@AfterMethod(groups={"ut"}, alwaysRun=true)
+	public void reset() {
+		logger.removeAppender(appender);
+		logger.setLevel(level);
+		CallTrace.reset();
+	}
+
+	/**
+	 * Nested calls are logged, indented by their depth
+	 */
+	@Test(groups={"ut"})
+	public void testNestedCalls() {
+		CallTrace trace = new CallTrace();
+		long start1 = trace.enter("method1");
+		long start2 = trace.enter("method2");
+		Assert.assertEquals(trace.getDepth(), 2);
+		trace.exit("method2", start2, "[ok]");
+		trace.error("method1", start1, new IllegalStateException("oups"));
+		Assert.assertEquals(trace.getDepth(), 0);
+
+		String logged = logs.toString().replace("\r", "");
+		Assert.assertTrue(logged.contains("Entering method1\n  Entering method2\n  Finishing method2"));
+		Assert.assertTrue(logged.contains("Finishing method2 ("));
+		Assert.assertTrue(logged.contains("ms): [ok]"));
+		Assert.assertTrue(logged.contains("Error in method1 ("));
+		Assert.assertTrue(logged.contains("java.lang.IllegalStateException - oups"));
+	}
+
+	/**
+	 * Events are logged when they happen
+	 */
+	@Test(groups={"ut"})
+	public void testEventsLoggedImmediately() {
+		CallTrace trace = new CallTrace();
+		long start = trace.enter("method1");
+		Assert.assertTrue(logs.toString().contains("Entering method1"));
+
+		trace.exit("method1", start, "[ok]");
+		Assert.assertTrue(logs.toString().contains("Finishing method1"));
+	}
+	
+	/**
+	 * Entry text
+	 */
+	@Test(groups={"ut"})
+	public void testEntryToString() {
+		Assert.assertEquals(new Entry(EventType.ENTER, 1, "method1", null, 0).toString(), "  Entering method1");
+		Assert.assertEquals(new Entry(EventType.EXIT, 0, "method1", "[ok]", 12).toString(), "Finishing method1 (12 ms): [ok]");
+	}
+
+	/**
+	 * Each thread has its own trace
+	 * @throws InterruptedException
+	 */
+	@Test(groups={"ut"})
+	public void testTracePerThread() throws InterruptedException {
+		CallTrace.getCurrent().enter("method1");
+
+		Thread thread = new Thread(() -> CallTrace.getCurrent().enter("method2"));
+		thread.start();
+		thread.join();
+
+		Assert.assertEquals(CallTrace.getCurrent().getDepth(), 1);
+
+		CallTrace.reset();
+		Assert.assertEquals(CallTrace.getCurrent().getDepth(), 0);
+	}
+}
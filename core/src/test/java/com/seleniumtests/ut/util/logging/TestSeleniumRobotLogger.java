@@ -61,9 +61,8 @@ public class TestSeleniumRobotLogger extends MockitoTest {
 			
 			verify(logger, times(4)).callAppenders(any(LoggingEvent.class));
 			
-			// check log file content
-			SeleniumRobotLogger.parseLogFile();
-			String logs = SeleniumRobotLogger.getTestLogs().get("testLogInDevMode");
+			// check logs of the test
+			String logs = SeleniumRobotLogger.getTestLogs("testLogInDevMode");
 			Assert.assertTrue(logs.contains("some info"));
 			Assert.assertTrue(logs.contains("some debug"));
 			
@@ -93,9 +92,8 @@ public class TestSeleniumRobotLogger extends MockitoTest {
 			
 			verify(logger, times(3)).callAppenders(any(LoggingEvent.class));
 			
-			// check log file content
-			SeleniumRobotLogger.parseLogFile();
-			String logs = SeleniumRobotLogger.getTestLogs().get("testLogInRunMode");
+			// check logs of the test
+			String logs = SeleniumRobotLogger.getTestLogs("testLogInRunMode");
 			Assert.assertTrue(logs.contains("some info"));
 			Assert.assertFalse(logs.contains("some debug"));
 			
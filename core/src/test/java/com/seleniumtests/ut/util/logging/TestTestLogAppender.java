@@ -0,0 +1,133 @@
+/**
+ * Orignal work: Copyright 2015 www.seleniumtests.com
+ * Modified work: Copyright 2016 www.infotel.com
+ * 				Copyright 2017-2019 B.Hecquet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.seleniumtests.ut.util.logging;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.PatternLayout;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.seleniumtests.GenericTest;
+import com.seleniumtests.util.logging.SeleniumRobotLogger;
+import com.seleniumtests.util.logging.TestLogAppender;
+
+public class TestTestLogAppender extends GenericTest {
+
+	private Logger logger;
+	private TestLogAppender appender;
+
+	@BeforeMethod(groups={"ut"})
+	public void init() {
+		logger = Logger.getLogger("testLogAppender");
+		logger.setAdditivity(false);
+		logger.setLevel(Level.INFO);
+		appender = new TestLogAppender(new PatternLayout(" %-5p %d [%t] %C{1}: %m%n"));
+		logger.addAppender(appender);
+	}
+
+	@AfterMethod(groups={"ut"}, alwaysRun=true)
+	public void clean() {
+		logger.removeAllAppenders();
+	}
+
+	/**
+	 * Logs written before test start are not associated to any test
+	 */
+	@Test(groups={"ut"})
+	public void testLogsOfTest() {
+		logger.info("before test");
+		logger.info(SeleniumRobotLogger.START_TEST_PATTERN + "test1");
+		logger.info("some info");
+		logger.info(SeleniumRobotLogger.END_TEST_PATTERN + "test1");
+
+		String logs = appender.getTestLogs("test1");
+		Assert.assertTrue(logs.contains("Start method test1"));
+		Assert.assertTrue(logs.contains("INFO "));
+		Assert.assertTrue(logs.contains("some info"));
+		Assert.assertFalse(logs.contains("before test"));
+		Assert.assertNull(appender.getTestLogs("test2"));
+	}
+
+	/**
+	 * Logs from an other thread go to the test started on this thread
+	 * @throws InterruptedException
+	 */
+	@Test(groups={"ut"})
+	public void testLogsOfTestsInParallel() throws InterruptedException {
+		logger.info(SeleniumRobotLogger.START_TEST_PATTERN + "test1");
+
+		Thread thread = new Thread(() -> {
+			logger.info(SeleniumRobotLogger.START_TEST_PATTERN + "test2");
+			logger.info("info from test2");
+		});
+		thread.start();
+		thread.join();
+
+		logger.info("info from test1");
+
+		Assert.assertTrue(appender.getTestLogs("test1").contains("info from test1"));
+		Assert.assertFalse(appender.getTestLogs("test1").contains("info from test2"));
+		Assert.assertTrue(appender.getTestLogs("test2").contains("info from test2"));
+		Assert.assertEquals(appender.getAllTestLogs().size(), 2);
+	}
+
+	/**
+	 * When test is retried, logs of the first execution are kept
+	 */
+	@Test(groups={"ut"})
+	public void testLogsOfRetriedTest() {
+		logger.info(SeleniumRobotLogger.START_TEST_PATTERN + "test1");
+		logger.info("first execution");
+		logger.info(SeleniumRobotLogger.START_TEST_PATTERN + "test1");
+		logger.info("second execution");
+
+		String logs = appender.getTestLogs("test1");
+		Assert.assertTrue(logs.contains("first execution"));
+		Assert.assertTrue(logs.contains("second execution"));
+	}
+
+	@Test(groups={"ut"})
+	public void testStackTraceIsLogged() {
+		logger.info(SeleniumRobotLogger.START_TEST_PATTERN + "test1");
+		logger.error("error", new IllegalStateException("oups"));
+
+		Assert.assertTrue(appender.getTestLogs("test1").contains("java.lang.IllegalStateException: oups"));
+	}
+
+	@Test(groups={"ut"})
+	public void testDebugLogsFiltered() {
+		appender.setThreshold(Level.INFO);
+		logger.setLevel(Level.DEBUG);
+		logger.info(SeleniumRobotLogger.START_TEST_PATTERN + "test1");
+		logger.debug("some debug");
+
+		Assert.assertFalse(appender.getTestLogs("test1").contains("some debug"));
+	}
+
+	@Test(groups={"ut"})
+	public void testClear() {
+		logger.info(SeleniumRobotLogger.START_TEST_PATTERN + "test1");
+		appender.clear();
+		logger.info("after clear");
+
+		Assert.assertNull(appender.getTestLogs("test1"));
+	}
+}
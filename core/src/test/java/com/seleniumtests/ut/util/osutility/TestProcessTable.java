@@ -0,0 +1,116 @@
+/**
+ * Orignal work: Copyright 2015 www.seleniumtests.com
+ * Modified work: Copyright 2016 www.infotel.com
+ * 				Copyright 2017-2019 B.Hecquet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.seleniumtests.ut.util.osutility;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.seleniumtests.GenericTest;
+import com.seleniumtests.util.osutility.ProcessTable;
+import com.seleniumtests.util.osutility.ProcessTable.ProcessEntry;
+
+public class TestProcessTable extends GenericTest {
+
+	private Path procRoot;
+
+	@BeforeMethod(groups={"ut"})
+	public void init() throws IOException {
+		procRoot = Files.createTempDirectory("proc");
+
+		createProcess(1, "1 (systemd) S 0 1 1 0 -1 4194560 100 200 10 20 150 50 0 0 20 0 1 0", "/sbin/init\0splash\0");
+		createProcess(2, "2 (kthreadd) S 0 0 0 0 -1 2129984 0 0 0 0 0 0 0 0 20 0 1 0", "");
+		createProcess(100, "100 (java) S 1 100 100 34816 100 4194304 10 0 0 0 6100 100 0 0 20 0 1 0", "/usr/bin/java\0-jar\0robot.jar\0");
+		createProcess(101, "101 (chromedriver) S 100 100 100 34816 100 4194304 10 0 0 0 1 1 0 0 20 0 1 0", "/tmp/drivers/chromedriver\0");
+		createProcess(102, "102 (Web Content (1)) S 101 100 100 34816 100 4194304 10 0 0 0 1 1 0 0 20 0 1 0", "/usr/lib/firefox/firefox\0-contentproc\0");
+
+		// directory without process files (process ended while listing) and non process directory
+		procRoot.resolve("103").toFile().mkdirs();
+		procRoot.resolve("sys").toFile().mkdirs();
+	}
+
+	@AfterMethod(groups={"ut"}, alwaysRun=true)
+	public void clean() {
+		FileUtils.deleteQuietly(procRoot.toFile());
+	}
+
+	private void createProcess(long pid, String stat, String cmdline) throws IOException {
+		File processDir = procRoot.resolve(Long.toString(pid)).toFile();
+		FileUtils.writeStringToFile(new File(processDir, "stat"), stat + "\n", StandardCharsets.UTF_8);
+		FileUtils.writeStringToFile(new File(processDir, "cmdline"), cmdline, StandardCharsets.UTF_8);
+	}
+
+	@Test(groups={"ut"})
+	public void testReadProcesses() {
+		ProcessTable table = new ProcessTable(procRoot);
+		Assert.assertEquals(table.getProcesses().size(), 5);
+
+		ProcessEntry java = table.getProcess(100);
+		Assert.assertEquals(java.getParentPid(), 1);
+		Assert.assertEquals(java.getName(), "java");
+		Assert.assertEquals(java.getCommand(), "/usr/bin/java");
+		Assert.assertEquals(java.getTty(), "pts/0");
+		Assert.assertEquals(java.getCpuTime(), "1:02");
+
+		// kernel thread has no command line
+		Assert.assertEquals(table.getProcess(2).getCommand(), "[kthreadd]");
+		Assert.assertEquals(table.getProcess(2).getTty(), "?");
+
+		// name with spaces and parenthesis
+		Assert.assertEquals(table.getProcess(102).getName(), "Web Content (1)");
+		Assert.assertEquals(table.getProcess(102).getParentPid(), 101);
+	}
+
+	@Test(groups={"ut"})
+	public void testChildren() {
+		ProcessTable table = new ProcessTable(procRoot);
+		Assert.assertEquals(table.getChildren(0), Arrays.asList(1L, 2L));
+		Assert.assertEquals(table.getChildren(100), Arrays.asList(101L));
+		Assert.assertEquals(table.getChildren(101), Arrays.asList(102L));
+		Assert.assertTrue(table.getChildren(102).isEmpty());
+	}
+
+	/**
+	 * Check the current JVM is found in the real process table, and that snapshot is shared between close calls
+	 */
+	@Test(groups={"ut"})
+	public void testSnapshot() {
+		if (!ProcessTable.isAvailable()) {
+			throw new SkipException("Test only available on Linux platform");
+		}
+
+		String jvmName = ManagementFactory.getRuntimeMXBean().getName();
+		long jvmPid = Long.parseLong(jvmName.substring(0, jvmName.indexOf('@')));
+
+		ProcessTable table = ProcessTable.getSnapshot();
+		Assert.assertNotNull(table.getProcess(jvmPid));
+		Assert.assertTrue(table.getChildren(table.getProcess(jvmPid).getParentPid()).contains(jvmPid));
+		Assert.assertSame(ProcessTable.getSnapshot(), table);
+	}
+}